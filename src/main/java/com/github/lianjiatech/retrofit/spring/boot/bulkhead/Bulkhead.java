@@ -0,0 +1,53 @@
+package com.github.lianjiatech.retrofit.spring.boot.bulkhead;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 舱壁隔离，限制同时进行中的调用数。标注在接口上时接口的所有方法共享并发数，标注在方法上时该方法单独计算并发数。
+ * 一次调用（包括同步调用的重试和对冲请求）只占用一个并发数，超过限制时抛出{@link com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException}。
+ * 注解属性优先于全局配置。
+ * <p>
+ * Bulkhead isolation, which limits the number of calls in flight. When annotated on an interface, all its methods share
+ * the limit; when annotated on a method, the method has its own limit. A call (including the retries and hedged requests
+ * of a synchronous call) takes only one slot, and {@link com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException}
+ * is thrown when the limit is exceeded. Annotation attributes take precedence over the global config.
+ *
+ * @author 陈添明
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Documented
+@Inherited
+public @interface Bulkhead {
+
+    /**
+     * 是否启用舱壁隔离
+     *
+     * @return 是否启用舱壁隔离
+     */
+    boolean enable() default true;
+
+    /**
+     * 最大并发调用数
+     * <p>
+     * The max number of concurrent calls
+     *
+     * @return 最大并发调用数
+     */
+    int maxConcurrent();
+
+    /**
+     * 并发数已满时的最长等待时间，单位为 ms。为0时不等待，直接失败。只对同步调用生效，异步调用总是直接失败，避免阻塞OkHttp调度线程
+     * <p>
+     * The max time to wait when the bulkhead is full, in ms. 0 fails fast without waiting. It applies to synchronous
+     * calls only, asynchronous calls always fail fast so that no OkHttp dispatcher thread is blocked
+     *
+     * @return 最长等待时间
+     */
+    long maxWaitMs() default 0;
+}
@@ -0,0 +1,71 @@
+package com.github.lianjiatech.retrofit.spring.boot.bulkhead;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.InvocationContext;
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodPolicy;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
+import com.github.lianjiatech.retrofit.spring.boot.priority.InvocationPriority;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * {@link Bulkhead}舱壁隔离拦截器，位于熔断降级拦截器之后、其他拦截器之前，同步调用的所有重试共享一个许可，收到响应后释放许可。
+ * 异步调用的重试重新进入拦截器链时沿用第一次请求获取的许可，调用结束时才释放。
+ * 异步调用运行在OkHttp调度线程中，并发数已满时不等待{@link Bulkhead#maxWaitMs()}，直接拒绝。异步调用被拒绝时把{@link RetrofitBlockException}包装成IOException，避免OkHttp在调度线程中重新抛出运行时异常，
+ * {@link com.github.lianjiatech.retrofit.spring.boot.degrade.DegradeProxy}会从cause中找到熔断异常并执行降级逻辑。
+ * <p>
+ * {@link Bulkhead} interceptor. It sits after the degrade interceptors and before all other interceptors, so all retries
+ * of a synchronous call share one permit, which is released when the response is received. The retries of an
+ * asynchronous call re-enter the chain and keep the permit of the first request, which is released when the invocation
+ * completes. Asynchronous calls run on
+ * an OkHttp dispatcher thread, so they never wait for {@link Bulkhead#maxWaitMs()} and are rejected at once when the
+ * bulkhead is full. When an asynchronous call
+ * is rejected, {@link RetrofitBlockException} is wrapped into an IOException so OkHttp does not rethrow a runtime
+ * exception on the dispatcher thread, and {@link com.github.lianjiatech.retrofit.spring.boot.degrade.DegradeProxy} finds the block exception in the cause to run the fallback.
+ *
+ * @author 陈添明
+ */
+public class BulkheadInterceptor implements Interceptor {
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        SemaphoreBulkhead bulkhead = MethodPolicy.from(request).getBulkhead();
+        if (bulkhead == null) {
+            return chain.proceed(request);
+        }
+        InvocationContext invocationContext = request.tag(InvocationContext.class);
+        boolean async = invocationContext != null && invocationContext.isAsync();
+        if (async && invocationContext.isRetryAttempt()) {
+            return chain.proceed(request);
+        }
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(InvocationPriority.shareOf(request), !async);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for bulkhead permit");
+        }
+        if (!acquired) {
+            RetrofitBlockException e = new RetrofitBlockException(
+                    "Bulkhead is full! maxConcurrent=" + bulkhead.getMaxConcurrent() + ", url=" + request.url(), null);
+            if (async) {
+                throw new IOException("blocked due to " + e, e);
+            }
+            throw e;
+        }
+        if (async) {
+            invocationContext.addCompletionAction(bulkhead::release);
+            return chain.proceed(request);
+        }
+        try {
+            return chain.proceed(request);
+        } finally {
+            bulkhead.release();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.lianjiatech.retrofit.spring.boot.bulkhead;
+
+import lombok.Data;
+
+/**
+ * 全局舱壁隔离配置
+ * @author 陈添明
+ */
+@Data
+public class GlobalBulkheadProperty {
+
+    /**
+     * 是否启用全局舱壁隔离，启用的话，每个接口的所有方法共享一个并发限制。
+     * 否则的话，只有被 {@link com.github.lianjiatech.retrofit.spring.boot.bulkhead.Bulkhead}标注的接口才会限制并发。
+     * 接口上Bulkhead注解属性优先于全局配置。
+     */
+    private boolean enable = false;
+
+    /**
+     * 每个接口的最大并发调用数
+     * The max number of concurrent calls of each interface
+     */
+    private int maxConcurrent = 100;
+
+    /**
+     * 并发数已满时的最长等待时间，为0时直接失败，只对同步调用生效
+     * The max time to wait when the bulkhead is full, 0 fails fast. It applies to synchronous calls only
+     */
+    private long maxWaitMs = 0;
+}
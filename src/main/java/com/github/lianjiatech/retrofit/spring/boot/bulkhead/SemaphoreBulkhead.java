@@ -0,0 +1,112 @@
+package com.github.lianjiatech.retrofit.spring.boot.bulkhead;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.lianjiatech.retrofit.spring.boot.priority.InvocationPriority;
+
+/**
+ * 基于信号量的舱壁，每次调用开始时获取一个许可，结束时释放
+ * <p>
+ * Semaphore based bulkhead, a permit is acquired when a call starts and released when it ends
+ *
+ * @author 陈添明
+ */
+public class SemaphoreBulkhead {
+
+    private final int maxConcurrent;
+
+    private final long maxWaitMs;
+
+    private final Semaphore semaphore;
+
+    private final LongAdder rejectedCalls = new LongAdder();
+
+    /**
+     * 根据注解创建舱壁
+     *
+     * @param bulkhead 舱壁注解，可以为null
+     * @return 舱壁，注解为null或者未启用时为null
+     */
+    public static SemaphoreBulkhead of(Bulkhead bulkhead) {
+        if (bulkhead == null || !bulkhead.enable()) {
+            return null;
+        }
+        return new SemaphoreBulkhead(bulkhead.maxConcurrent(), bulkhead.maxWaitMs());
+    }
+
+    public SemaphoreBulkhead(int maxConcurrent, long maxWaitMs) {
+        if (maxConcurrent <= 0 || maxWaitMs < 0) {
+            throw new IllegalArgumentException("maxConcurrent must be positive, and maxWaitMs must not be negative");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitMs = maxWaitMs;
+        this.semaphore = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * 获取一个许可，并发数已满时最多等待{@code maxWaitMs}
+     *
+     * @return true表示获取成功，之后必须调用{@link #release()}
+     * @throws InterruptedException 等待时被中断
+     */
+    public boolean tryAcquire() throws InterruptedException {
+        return tryAcquire(1);
+    }
+
+    /**
+     * 按优先级获取一个许可，进行中的调用数达到{@code share}比例的并发数时直接拒绝，剩余的许可留给更高优先级的调用。
+     * 比例的检查与获取许可不是原子的，并发较高时可能短暂超过比例，预留是近似的
+     *
+     * @param share 可以使用的并发数比例，参见{@link InvocationPriority}
+     * @return true表示获取成功，之后必须调用{@link #release()}
+     * @throws InterruptedException 等待时被中断
+     */
+    public boolean tryAcquire(double share) throws InterruptedException {
+        return tryAcquire(share, true);
+    }
+
+    /**
+     * 按优先级获取一个许可，{@code wait}为false时并发数已满直接拒绝，不等待{@code maxWaitMs}
+     *
+     * @param share 可以使用的并发数比例，参见{@link InvocationPriority}
+     * @param wait 并发数已满时是否等待
+     * @return true表示获取成功，之后必须调用{@link #release()}
+     * @throws InterruptedException 等待时被中断
+     */
+    public boolean tryAcquire(double share, boolean wait) throws InterruptedException {
+        if (share < 1 && getActiveCalls() >= InvocationPriority.capacityOf(maxConcurrent, share)) {
+            rejectedCalls.increment();
+            return false;
+        }
+        boolean acquired = !wait || maxWaitMs == 0 ? semaphore.tryAcquire()
+                : semaphore.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        if (!acquired) {
+            rejectedCalls.increment();
+        }
+        return acquired;
+    }
+
+    public void release() {
+        semaphore.release();
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * 进行中的调用数
+     */
+    public int getActiveCalls() {
+        return maxConcurrent - semaphore.availablePermits();
+    }
+
+    /**
+     * 被拒绝的调用数
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.lianjiatech.retrofit.spring.boot.concurrency;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 自适应并发限制。每个方法单独维护一个并发上限，根据调用耗时与最小耗时的差异（TCP Vegas算法）自动调整：
+ * 耗时接近最小耗时时增大上限，耗时明显变长（下游开始排队）或者调用失败时减小上限。超过上限的调用直接抛出
+ * {@link com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException}。注解属性优先于全局配置。
+ * <p>
+ * Adaptive concurrency limit. Each method keeps its own limit, which is adjusted from the difference between the call
+ * latency and the minimum latency (TCP Vegas): the limit grows while the latency stays close to the minimum, and shrinks
+ * when the latency grows (the downstream starts queueing) or calls fail. Calls over the limit throw
+ * {@link com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException}. Annotation attributes take
+ * precedence over the global config.
+ *
+ * @author 陈添明
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Documented
+@Inherited
+public @interface ConcurrencyLimit {
+
+    /**
+     * 是否启用自适应并发限制
+     *
+     * @return 是否启用自适应并发限制
+     */
+    boolean enable() default true;
+
+    /**
+     * 初始并发上限
+     * <p>
+     * The initial limit
+     *
+     * @return 初始并发上限
+     */
+    int initialLimit() default 20;
+
+    /**
+     * 并发上限的最小值
+     * <p>
+     * The minimum limit
+     *
+     * @return 并发上限的最小值
+     */
+    int minLimit() default 1;
+
+    /**
+     * 并发上限的最大值
+     * <p>
+     * The maximum limit
+     *
+     * @return 并发上限的最大值
+     */
+    int maxLimit() default 200;
+}
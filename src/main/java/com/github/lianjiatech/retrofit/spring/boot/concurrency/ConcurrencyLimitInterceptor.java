@@ -0,0 +1,121 @@
+package com.github.lianjiatech.retrofit.spring.boot.concurrency;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.InvocationContext;
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodPolicy;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
+import com.github.lianjiatech.retrofit.spring.boot.priority.InvocationPriority;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * {@link ConcurrencyLimit}自适应并发限制拦截器，每个方法单独维护一个{@link VegasConcurrencyLimiter}。位于重试拦截器之后、
+ * 对冲拦截器之前，每次尝试单独占用并发数并采集一次耗时，耗时不包括重试的等待时间；对冲请求与第一次请求共享一次采样。
+ * IO异常以及429、503响应视为下游过载；本地限流、熔断等{@link RetrofitBlockException}不反映下游负载，不参与调整。
+ * 异步调用被拒绝时与{@link com.github.lianjiatech.retrofit.spring.boot.bulkhead.BulkheadInterceptor}一样包装成IOException，
+ * 重试拦截器不会重试该异常，错误解码拦截器也不会解码该异常。
+ * <p>
+ * {@link ConcurrencyLimit} interceptor, which keeps a {@link VegasConcurrencyLimiter} for each method. It sits after the
+ * retry interceptor and before the hedge interceptor, so every attempt takes its own slot and gives one latency sample
+ * that excludes the retry backoff; hedged requests share the sample of their attempt. IO exceptions and 429 or 503
+ * responses are taken as downstream overload, while {@link RetrofitBlockException} from local rate limiting or circuit breaking does not reflect the downstream load
+ * and does not adjust the limit. A rejected asynchronous call is wrapped into an IOException, the same as
+ * {@link com.github.lianjiatech.retrofit.spring.boot.bulkhead.BulkheadInterceptor}, which the retry interceptor does not
+ * retry and the error decoder interceptor does not decode.
+ *
+ * @author 陈添明
+ */
+public class ConcurrencyLimitInterceptor implements Interceptor {
+
+    protected final GlobalConcurrencyLimitProperty globalConcurrencyLimitProperty;
+
+    protected final Map<Method, VegasConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimitInterceptor(GlobalConcurrencyLimitProperty globalConcurrencyLimitProperty) {
+        this.globalConcurrencyLimitProperty = globalConcurrencyLimitProperty;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        VegasConcurrencyLimiter limiter = findLimiter(MethodPolicy.from(request));
+        if (limiter == null) {
+            return chain.proceed(request);
+        }
+        int inflight = limiter.tryAcquire(InvocationPriority.shareOf(request));
+        if (inflight < 0) {
+            RetrofitBlockException e = new RetrofitBlockException(
+                    "Concurrency limit exceeded! limit=" + limiter.getLimit() + ", url=" + request.url(), null);
+            InvocationContext invocationContext = request.tag(InvocationContext.class);
+            if (invocationContext != null && invocationContext.isAsync()) {
+                throw new IOException("blocked due to " + e, e);
+            }
+            throw e;
+        }
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (RetrofitBlockException e) {
+            limiter.release();
+            throw e;
+        } catch (IOException e) {
+            limiter.onSample(System.nanoTime() - start, inflight, true);
+            throw e;
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof IOException) {
+                limiter.onSample(System.nanoTime() - start, inflight, true);
+            } else {
+                limiter.release();
+            }
+            throw e;
+        } catch (Error e) {
+            limiter.release();
+            throw e;
+        }
+        int code = response.code();
+        limiter.onSample(System.nanoTime() - start, inflight, code == 429 || code == 503);
+        return response;
+    }
+
+    protected VegasConcurrencyLimiter findLimiter(MethodPolicy methodPolicy) {
+        ConcurrencyLimit concurrencyLimit = methodPolicy.getConcurrencyLimit();
+        if (!needLimit(concurrencyLimit)) {
+            return null;
+        }
+        return limiters.computeIfAbsent(methodPolicy.getMethod(), m -> concurrencyLimit == null
+                ? new VegasConcurrencyLimiter(globalConcurrencyLimitProperty.getInitialLimit(),
+                        globalConcurrencyLimitProperty.getMinLimit(), globalConcurrencyLimitProperty.getMaxLimit())
+                : new VegasConcurrencyLimiter(concurrencyLimit.initialLimit(), concurrencyLimit.minLimit(),
+                        concurrencyLimit.maxLimit()));
+    }
+
+    protected boolean needLimit(ConcurrencyLimit concurrencyLimit) {
+        if (globalConcurrencyLimitProperty.isEnable()) {
+            if (concurrencyLimit == null) {
+                return true;
+            }
+            return concurrencyLimit.enable();
+        } else {
+            return concurrencyLimit != null && concurrencyLimit.enable();
+        }
+    }
+
+    /**
+     * 获取所有方法的并发限制器，可以用于监控并发上限的变化
+     * <p>
+     * Get concurrency limiters of all methods, which can be used to monitor the limits
+     *
+     * @return 方法 -> 并发限制器；method -> concurrency limiter
+     */
+    public Map<Method, VegasConcurrencyLimiter> getLimiters() {
+        return Collections.unmodifiableMap(limiters);
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.lianjiatech.retrofit.spring.boot.concurrency;
+
+import lombok.Data;
+
+/**
+ * 全局自适应并发限制配置
+ * @author 陈添明
+ */
+@Data
+public class GlobalConcurrencyLimitProperty {
+
+    /**
+     * 是否启用全局自适应并发限制，启用的话，所有方法都会限制并发。
+     * 否则的话，只有被 {@link com.github.lianjiatech.retrofit.spring.boot.concurrency.ConcurrencyLimit}标注的接口才会限制并发。
+     * 接口上ConcurrencyLimit注解属性优先于全局配置。
+     */
+    private boolean enable = false;
+
+    /**
+     * 初始并发上限
+     * The initial limit
+     */
+    private int initialLimit = 20;
+
+    /**
+     * 并发上限的最小值
+     * The minimum limit
+     */
+    private int minLimit = 1;
+
+    /**
+     * 并发上限的最大值
+     * The maximum limit
+     */
+    private int maxLimit = 200;
+}
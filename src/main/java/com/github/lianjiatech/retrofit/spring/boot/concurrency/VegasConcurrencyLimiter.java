@@ -0,0 +1,182 @@
+package com.github.lianjiatech.retrofit.spring.boot.concurrency;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.lianjiatech.retrofit.spring.boot.priority.InvocationPriority;
+
+/**
+ * 基于TCP Vegas算法的自适应并发限制器。以最小耗时作为下游无排队时的耗时，估算下游的排队长度
+ * {@code queueSize = limit * (1 - minRtt / rtt)}：排队很少时快速增大上限，排队较少时缓慢增大，排队过多时缓慢减小；
+ * 调用失败时按比例减小上限。进行中的调用数不足上限一半时说明压力来自调用方本身，不调整上限。
+ * 最小耗时会随着下游变化而失效，因此每经过若干次调用重新测量一次。
+ * <p>
+ * Adaptive concurrency limiter based on TCP Vegas. The minimum latency is taken as the latency without queueing, and the
+ * queue size of the downstream is estimated as {@code queueSize = limit * (1 - minRtt / rtt)}: the limit grows fast when
+ * there is almost no queueing, grows slowly when there is little, and shrinks slowly when there is too much; it shrinks
+ * multiplicatively when calls fail. When fewer than half of the limit are in flight, the load is limited by the caller
+ * itself and the limit is not adjusted. The minimum latency goes stale as the downstream changes, so it is measured again
+ * every so many calls.
+ *
+ * @author 陈添明
+ */
+public class VegasConcurrencyLimiter {
+
+    /**
+     * 两次重新测量最小耗时之间的调用数为并发上限的倍数
+     */
+    private static final int PROBE_MULTIPLIER = 30;
+
+    /**
+     * 调用失败时并发上限的缩小比例
+     */
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private final LongAdder rejectedCalls = new LongAdder();
+
+    private volatile int limit;
+
+    /**
+     * 以下字段只在持有锁时访问，estimatedLimit保留小数部分，避免多次小幅调整被取整抵消
+     */
+    private double estimatedLimit;
+
+    private long minRttNanos;
+
+    private long probeCountdown;
+
+    public VegasConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit <= 0 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("It is required that 0 < minLimit <= initialLimit <= maxLimit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+        this.probeCountdown = nextProbeCountdown(initialLimit);
+    }
+
+    /**
+     * 尝试开始一次调用
+     *
+     * @return 开始调用后进行中的调用数，-1表示已经达到并发上限
+     */
+    public int tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    /**
+     * 按优先级尝试开始一次调用，进行中的调用数达到{@code share}比例的并发上限时直接拒绝
+     *
+     * @param share 可以使用的并发上限比例，参见{@link InvocationPriority}
+     * @return 开始调用后进行中的调用数，-1表示已经达到并发上限
+     */
+    public int tryAcquire(double share) {
+        for (;;) {
+            int current = inflight.get();
+            if (current >= InvocationPriority.capacityOf(limit, share)) {
+                rejectedCalls.increment();
+                return -1;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * 调用结束，根据本次调用的耗时调整并发上限
+     *
+     * @param rttNanos 调用耗时
+     * @param inflight 开始调用时进行中的调用数
+     * @param dropped 调用是否因为下游过载而失败，例如超时或者429、503响应
+     */
+    public void onSample(long rttNanos, int inflight, boolean dropped) {
+        this.inflight.decrementAndGet();
+        synchronized (this) {
+            update(rttNanos, inflight, dropped);
+        }
+    }
+
+    /**
+     * 调用结束，但结果不能反映下游的负载，不调整并发上限
+     */
+    public void release() {
+        inflight.decrementAndGet();
+    }
+
+    private void update(long rttNanos, int inflight, boolean dropped) {
+        double currentLimit = estimatedLimit;
+        double newLimit;
+        if (dropped) {
+            // 失败调用的耗时不能代表下游的处理耗时，不参与最小耗时的测量
+            newLimit = currentLimit * BACKOFF_RATIO;
+        } else {
+            if (--probeCountdown <= 0) {
+                probeCountdown = nextProbeCountdown(limit);
+                minRttNanos = rttNanos;
+                return;
+            }
+            if (minRttNanos == 0 || rttNanos < minRttNanos) {
+                minRttNanos = rttNanos;
+                return;
+            }
+            if (inflight * 2 < currentLimit) {
+                return;
+            }
+            double log = Math.max(1, Math.log10(currentLimit));
+            int queueSize = (int)Math.ceil(currentLimit * (1 - (double)minRttNanos / rttNanos));
+            if (queueSize <= log) {
+                newLimit = currentLimit + 6 * log;
+            } else if (queueSize < 3 * log) {
+                newLimit = currentLimit + log;
+            } else if (queueSize > 6 * log) {
+                newLimit = currentLimit - log;
+            } else {
+                return;
+            }
+        }
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int)estimatedLimit;
+    }
+
+    private static long nextProbeCountdown(int limit) {
+        return (long)(PROBE_MULTIPLIER * limit * ThreadLocalRandom.current().nextDouble(0.5, 1.0)) + 1;
+    }
+
+    /**
+     * 当前的并发上限
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * 进行中的调用数
+     */
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    /**
+     * 被拒绝的调用数
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+
+    /**
+     * 当前测量到的最小耗时，单位为 ms
+     */
+    public synchronized long getMinRttMs() {
+        return TimeUnit.NANOSECONDS.toMillis(minRttNanos);
+    }
+}
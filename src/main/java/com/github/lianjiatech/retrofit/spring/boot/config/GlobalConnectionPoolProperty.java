@@ -0,0 +1,26 @@
+package com.github.lianjiatech.retrofit.spring.boot.config;
+
+import lombok.Data;
+
+/**
+ * 全局共享连接池配置，只有在@RetrofitClient.sourceOkHttpClient为NO_SOURCE_OK_HTTP_CLIENT时才有效
+ * <p>
+ * Shared connection pool config, only valid when @RetrofitClient.sourceOkHttpClient is NO_SOURCE_OK_HTTP_CLIENT
+ *
+ * @author 陈添明
+ */
+@Data
+public class GlobalConnectionPoolProperty {
+
+    /**
+     * 最大空闲连接数，所有共享连接池的接口共用该上限
+     * The maximum number of idle connections, shared by all interfaces using the shared connection pool
+     */
+    private int maxIdleConnections = 50;
+
+    /**
+     * 空闲连接保活时间
+     * Keep alive duration of idle connections
+     */
+    private long keepAliveDurationMs = 300_000;
+}
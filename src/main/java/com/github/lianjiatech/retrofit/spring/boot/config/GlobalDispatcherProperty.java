@@ -0,0 +1,40 @@
+package com.github.lianjiatech.retrofit.spring.boot.config;
+
+import lombok.Data;
+
+/**
+ * 全局共享调度器配置，只有在@RetrofitClient.sourceOkHttpClient为NO_SOURCE_OK_HTTP_CLIENT时才有效
+ * <p>
+ * Shared dispatcher config, only valid when @RetrofitClient.sourceOkHttpClient is NO_SOURCE_OK_HTTP_CLIENT
+ *
+ * @author 陈添明
+ */
+@Data
+public class GlobalDispatcherProperty {
+
+    /**
+     * 异步请求的最大并发数，所有共享调度器的接口共用该上限
+     * The maximum number of requests to execute concurrently, shared by all interfaces using the shared dispatcher
+     */
+    private int maxRequests = 256;
+
+    /**
+     * 每个主机异步请求的最大并发数，所有共享调度器的接口共用该上限
+     * The maximum number of requests for each host to execute concurrently, shared by all interfaces using the shared dispatcher
+     */
+    private int maxRequestsPerHost = 64;
+
+    /**
+     * 异步请求的最大排队数，队列已满时直接失败，小于等于0表示不限制
+     * The maximum number of queued asynchronous requests, new requests fail immediately when the queue is full,
+     * no limit if less than or equal to 0
+     */
+    private int maxQueuedCalls = 0;
+
+    /**
+     * 异步请求的最长排队时间，超过后不再发送请求，直接失败，小于等于0表示不限制，单位为 ms
+     * The maximum queue wait of asynchronous requests, requests waiting longer fail without being sent,
+     * no limit if less than or equal to 0, unit: ms
+     */
+    private long maxQueueWaitMs = 0;
+}
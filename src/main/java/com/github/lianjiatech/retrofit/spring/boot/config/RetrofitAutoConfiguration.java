@@ -1,9 +1,12 @@
 package com.github.lianjiatech.retrofit.spring.boot.config;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import com.github.lianjiatech.retrofit.spring.boot.core.BasicTypeConverterFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -16,27 +19,50 @@ import org.springframework.context.annotation.Import;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.lianjiatech.retrofit.spring.boot.bulkhead.BulkheadInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.concurrency.ConcurrencyLimitInterceptor;
 import com.github.lianjiatech.retrofit.spring.boot.core.AutoConfiguredRetrofitScannerRegistrar;
 import com.github.lianjiatech.retrofit.spring.boot.core.Constants;
+import com.github.lianjiatech.retrofit.spring.boot.core.DispatcherQueueLimiter;
 import com.github.lianjiatech.retrofit.spring.boot.core.ErrorDecoder;
 import com.github.lianjiatech.retrofit.spring.boot.core.PathMatchInterceptorBdfProcessor;
 import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitFactoryBean;
 import com.github.lianjiatech.retrofit.spring.boot.core.ServiceInstanceChooser;
 import com.github.lianjiatech.retrofit.spring.boot.core.SourceOkHttpClientRegistrar;
 import com.github.lianjiatech.retrofit.spring.boot.core.SourceOkHttpClientRegistry;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.DeadlineInterceptor;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitDegrade;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.resilience4j.CircuitBreakerConfigRegistrar;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.resilience4j.CircuitBreakerConfigRegistry;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.builtin.BuiltinRetrofitDegrade;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.resilience4j.Resilience4jRetrofitDegrade;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.sentinel.SentinelRetrofitDegrade;
+import com.github.lianjiatech.retrofit.spring.boot.fairqueue.TenantFairQueue;
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.ErrorDecoderInterceptor;
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.GlobalInterceptor;
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.NetworkInterceptor;
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.ServiceChooseInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.interceptor.ServiceInstanceStatsInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.HealthCheckServiceInstanceSupplier;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.HealthChecker;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.LoadBalancedServiceInstanceChooser;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.LoadBalancer;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.LoadBalancerProperty;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.OutlierDetector;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.OutlierEjectionListener;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.OutlierEjectionServiceInstanceChooser;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.ServiceInstanceCache;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.ServiceInstanceSupplier;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.StaticServiceInstanceSupplier;
 import com.github.lianjiatech.retrofit.spring.boot.log.LoggingInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.ratelimit.RateLimitInterceptor;
 import com.github.lianjiatech.retrofit.spring.boot.retry.RetryInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.throttle.AdaptiveThrottleInterceptor;
 
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
 import retrofit2.converter.jackson.JacksonConverterFactory;
 
 /**
@@ -44,10 +70,12 @@ import retrofit2.converter.jackson.JacksonConverterFactory;
  */
 @AutoConfiguration
 @EnableConfigurationProperties(RetrofitProperties.class)
-public class RetrofitAutoConfiguration {
+public class RetrofitAutoConfiguration implements DisposableBean {
 
     private final RetrofitProperties retrofitProperties;
 
+    private volatile Dispatcher retrofitDispatcher;
+
     public RetrofitAutoConfiguration(RetrofitProperties retrofitProperties) {
         this.retrofitProperties = retrofitProperties;
     }
@@ -75,6 +103,54 @@ public class RetrofitAutoConfiguration {
         return new SourceOkHttpClientRegistry(sourceOkHttpClientRegistrars);
     }
 
+    @Bean(destroyMethod = "evictAll")
+    @ConditionalOnMissingBean(name = "retrofitConnectionPool")
+    public ConnectionPool retrofitConnectionPool() {
+        GlobalConnectionPoolProperty globalConnectionPool = retrofitProperties.getGlobalConnectionPool();
+        return new ConnectionPool(globalConnectionPool.getMaxIdleConnections(),
+                globalConnectionPool.getKeepAliveDurationMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 只按名称判断，应用中其他的{@link Dispatcher}不会被当作组件共享的调度器。Dispatcher没有关闭方法，由{@link #destroy()}关闭其线程池
+     */
+    @Bean
+    @ConditionalOnMissingBean(name = "retrofitDispatcher")
+    public Dispatcher retrofitDispatcher() {
+        GlobalDispatcherProperty globalDispatcher = retrofitProperties.getGlobalDispatcher();
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(globalDispatcher.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(globalDispatcher.getMaxRequestsPerHost());
+        this.retrofitDispatcher = dispatcher;
+        return dispatcher;
+    }
+
+    /**
+     * 关闭本配置创建的共享调度器的线程池，应用自己定义的retrofitDispatcher由应用负责关闭
+     */
+    @Override
+    public void destroy() {
+        Dispatcher dispatcher = retrofitDispatcher;
+        if (dispatcher != null) {
+            dispatcher.executorService().shutdown();
+        }
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public DispatcherQueueLimiter retrofitDispatcherQueueLimiter(
+            @Qualifier("retrofitDispatcher") Dispatcher retrofitDispatcher) {
+        GlobalDispatcherProperty globalDispatcher = retrofitProperties.getGlobalDispatcher();
+        return new DispatcherQueueLimiter(retrofitDispatcher, globalDispatcher.getMaxQueuedCalls(),
+                globalDispatcher.getMaxQueueWaitMs());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public TenantFairQueue retrofitTenantFairQueue() {
+        return TenantFairQueue.of(retrofitProperties.getGlobalFairQueue());
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public ErrorDecoder.DefaultErrorDecoder retrofitDefaultErrorDecoder() {
@@ -93,6 +169,36 @@ public class RetrofitAutoConfiguration {
         return new RetryInterceptor(retrofitProperties.getGlobalRetry());
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    public DeadlineInterceptor retrofitDeadlineInterceptor() {
+        return new DeadlineInterceptor(retrofitProperties.getGlobalDeadline());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RateLimitInterceptor retrofitRateLimitInterceptor() {
+        return new RateLimitInterceptor();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public BulkheadInterceptor retrofitBulkheadInterceptor() {
+        return new BulkheadInterceptor();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ConcurrencyLimitInterceptor retrofitConcurrencyLimitInterceptor() {
+        return new ConcurrencyLimitInterceptor(retrofitProperties.getGlobalConcurrencyLimit());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public AdaptiveThrottleInterceptor retrofitAdaptiveThrottleInterceptor() {
+        return new AdaptiveThrottleInterceptor(retrofitProperties.getGlobalAdaptiveThrottle());
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public LoggingInterceptor retrofitLoggingInterceptor() {
@@ -101,15 +207,83 @@ public class RetrofitAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public ServiceInstanceChooser retrofitServiceInstanceChooser() {
-        return new ServiceInstanceChooser.NoValidServiceInstanceChooser();
+    public ServiceInstanceSupplier retrofitServiceInstanceSupplier() {
+        return new StaticServiceInstanceSupplier(retrofitProperties.getLoadBalancer().getInstances());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public LoadBalancer retrofitLoadBalancer() {
+        LoadBalancerProperty loadBalancerProperty = retrofitProperties.getLoadBalancer();
+        return loadBalancerProperty.getStrategy().newLoadBalancer(loadBalancerProperty);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "retrofit.load-balancer.cache", name = "enable", havingValue = "true")
+    public ServiceInstanceCache retrofitServiceInstanceCache(ServiceInstanceSupplier serviceInstanceSupplier) {
+        return new ServiceInstanceCache(serviceInstanceSupplier,
+                retrofitProperties.getLoadBalancer().getCache().getRefreshIntervalMs());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "retrofit.health-check", name = "enable", havingValue = "true")
+    public HealthChecker retrofitHealthChecker(ServiceInstanceSupplier serviceInstanceSupplier,
+            @Autowired(required = false) ServiceInstanceCache serviceInstanceCache,
+            @Qualifier("retrofitConnectionPool") ConnectionPool retrofitConnectionPool) {
+        OkHttpClient okHttpClient = new OkHttpClient.Builder()
+                .connectionPool(retrofitConnectionPool)
+                .build();
+        return new HealthChecker(cachedServiceInstanceSupplier(serviceInstanceSupplier, serviceInstanceCache),
+                retrofitProperties.getHealthCheck(), okHttpClient);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ServiceInstanceChooser retrofitServiceInstanceChooser(ServiceInstanceSupplier serviceInstanceSupplier,
+            LoadBalancer loadBalancer, @Autowired(required = false) ServiceInstanceCache serviceInstanceCache,
+            @Autowired(required = false) HealthChecker healthChecker) {
+        serviceInstanceSupplier = cachedServiceInstanceSupplier(serviceInstanceSupplier, serviceInstanceCache);
+        if (healthChecker != null) {
+            serviceInstanceSupplier = new HealthCheckServiceInstanceSupplier(serviceInstanceSupplier, healthChecker);
+        }
+        return new LoadBalancedServiceInstanceChooser(serviceInstanceSupplier, loadBalancer);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public OutlierDetector retrofitOutlierDetector(
+            @Autowired(required = false) List<OutlierEjectionListener> outlierEjectionListeners) {
+        return new OutlierDetector(retrofitProperties.getOutlierDetection(), outlierEjectionListeners);
     }
 
     @Bean
     @ConditionalOnMissingBean
-    public ServiceChooseInterceptor
-            retrofitServiceChooseInterceptor(@Autowired ServiceInstanceChooser serviceInstanceChooser) {
-        return new ServiceChooseInterceptor(serviceInstanceChooser);
+    public ServiceChooseInterceptor retrofitServiceChooseInterceptor(
+            @Autowired ServiceInstanceChooser serviceInstanceChooser, OutlierDetector outlierDetector) {
+        return new ServiceChooseInterceptor(decorateServiceInstanceChooser(serviceInstanceChooser, outlierDetector));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ServiceInstanceStatsInterceptor retrofitServiceInstanceStatsInterceptor(
+            @Autowired ServiceInstanceChooser serviceInstanceChooser, OutlierDetector outlierDetector) {
+        return new ServiceInstanceStatsInterceptor(
+                decorateServiceInstanceChooser(serviceInstanceChooser, outlierDetector));
+    }
+
+    private static ServiceInstanceSupplier cachedServiceInstanceSupplier(
+            ServiceInstanceSupplier serviceInstanceSupplier, ServiceInstanceCache serviceInstanceCache) {
+        return serviceInstanceCache == null ? serviceInstanceSupplier : serviceInstanceCache::getInstances;
+    }
+
+    private ServiceInstanceChooser decorateServiceInstanceChooser(ServiceInstanceChooser serviceInstanceChooser,
+            OutlierDetector outlierDetector) {
+        if (!retrofitProperties.getOutlierDetection().isEnable()) {
+            return serviceInstanceChooser;
+        }
+        return new OutlierEjectionServiceInstanceChooser(serviceInstanceChooser, outlierDetector);
     }
 
     @Bean
@@ -126,21 +300,39 @@ public class RetrofitAutoConfiguration {
     public RetrofitConfigBean retrofitConfigBean(@Autowired(required = false) RetrofitDegrade retrofitDegrade,
             @Autowired(required = false) List<GlobalInterceptor> globalInterceptors,
             @Autowired(required = false) List<NetworkInterceptor> networkInterceptors,
-            ServiceChooseInterceptor serviceChooseInterceptor, RetryInterceptor retryInterceptor,
+            ServiceChooseInterceptor serviceChooseInterceptor,
+            ServiceInstanceStatsInterceptor serviceInstanceStatsInterceptor, RetryInterceptor retryInterceptor,
+            DeadlineInterceptor deadlineInterceptor, RateLimitInterceptor rateLimitInterceptor,
+            BulkheadInterceptor bulkheadInterceptor, ConcurrencyLimitInterceptor concurrencyLimitInterceptor,
+            AdaptiveThrottleInterceptor adaptiveThrottleInterceptor,
             LoggingInterceptor loggingInterceptor, ErrorDecoderInterceptor errorDecoderInterceptor,
-            SourceOkHttpClientRegistry sourceOkHttpClientRegistry) {
+            SourceOkHttpClientRegistry sourceOkHttpClientRegistry,
+            @Qualifier("retrofitConnectionPool") ConnectionPool retrofitConnectionPool,
+            @Qualifier("retrofitDispatcher") Dispatcher retrofitDispatcher,
+            DispatcherQueueLimiter retrofitDispatcherQueueLimiter,
+            TenantFairQueue retrofitTenantFairQueue) {
 
         RetrofitConfigBean retrofitConfigBean = new RetrofitConfigBean(retrofitProperties);
         retrofitConfigBean.setGlobalInterceptors(globalInterceptors);
         retrofitConfigBean.setNetworkInterceptors(networkInterceptors);
         retrofitConfigBean.setRetrofitDegrade(retrofitDegrade);
         retrofitConfigBean.setServiceChooseInterceptor(serviceChooseInterceptor);
+        retrofitConfigBean.setServiceInstanceStatsInterceptor(serviceInstanceStatsInterceptor);
         retrofitConfigBean.setRetryInterceptor(retryInterceptor);
+        retrofitConfigBean.setDeadlineInterceptor(deadlineInterceptor);
+        retrofitConfigBean.setRateLimitInterceptor(rateLimitInterceptor);
+        retrofitConfigBean.setBulkheadInterceptor(bulkheadInterceptor);
+        retrofitConfigBean.setConcurrencyLimitInterceptor(concurrencyLimitInterceptor);
+        retrofitConfigBean.setAdaptiveThrottleInterceptor(adaptiveThrottleInterceptor);
         retrofitConfigBean.setLoggingInterceptor(loggingInterceptor);
         retrofitConfigBean.setErrorDecoderInterceptor(errorDecoderInterceptor);
         retrofitConfigBean.setGlobalCallAdapterFactoryClasses(retrofitProperties.getGlobalCallAdapterFactories());
         retrofitConfigBean.setGlobalConverterFactoryClasses(retrofitProperties.getGlobalConverterFactories());
         retrofitConfigBean.setSourceOkHttpClientRegistry(sourceOkHttpClientRegistry);
+        retrofitConfigBean.setConnectionPool(retrofitConnectionPool);
+        retrofitConfigBean.setDispatcher(retrofitDispatcher);
+        retrofitConfigBean.setDispatcherQueueLimiter(retrofitDispatcherQueueLimiter);
+        retrofitConfigBean.setTenantFairQueue(retrofitTenantFairQueue);
         return retrofitConfigBean;
     }
 
@@ -195,4 +387,22 @@ public class RetrofitAutoConfiguration {
         }
     }
 
+    @Configuration
+    @ConditionalOnProperty(name = Constants.DEGRADE_TYPE, havingValue = RetrofitDegrade.BUILTIN)
+    @EnableConfigurationProperties(RetrofitProperties.class)
+    public static class BuiltinDegradeConfiguration {
+
+        private final RetrofitProperties properties;
+
+        public BuiltinDegradeConfiguration(RetrofitProperties properties) {
+            this.properties = properties;
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        public RetrofitDegrade retrofitBuiltinRetrofitDegrade() {
+            return new BuiltinRetrofitDegrade(properties.getDegrade().getGlobalBuiltinDegrade());
+        }
+    }
+
 }
@@ -3,16 +3,27 @@ package com.github.lianjiatech.retrofit.spring.boot.config;
 import java.util.Collections;
 import java.util.List;
 
+import com.github.lianjiatech.retrofit.spring.boot.bulkhead.BulkheadInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.concurrency.ConcurrencyLimitInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.core.DispatcherQueueLimiter;
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodPolicyRegistry;
 import com.github.lianjiatech.retrofit.spring.boot.core.SourceOkHttpClientRegistry;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.DeadlineInterceptor;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitDegrade;
+import com.github.lianjiatech.retrofit.spring.boot.fairqueue.TenantFairQueue;
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.ErrorDecoderInterceptor;
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.GlobalInterceptor;
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.NetworkInterceptor;
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.ServiceChooseInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.interceptor.ServiceInstanceStatsInterceptor;
 import com.github.lianjiatech.retrofit.spring.boot.log.LoggingInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.ratelimit.RateLimitInterceptor;
 import com.github.lianjiatech.retrofit.spring.boot.retry.RetryInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.throttle.AdaptiveThrottleInterceptor;
 
 import lombok.Data;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import retrofit2.CallAdapter;
 import retrofit2.Converter;
 
@@ -30,8 +41,20 @@ public class RetrofitConfigBean {
 
     private RetryInterceptor retryInterceptor;
 
+    private DeadlineInterceptor deadlineInterceptor;
+
+    private RateLimitInterceptor rateLimitInterceptor;
+
+    private BulkheadInterceptor bulkheadInterceptor;
+
+    private ConcurrencyLimitInterceptor concurrencyLimitInterceptor;
+
+    private AdaptiveThrottleInterceptor adaptiveThrottleInterceptor;
+
     private ServiceChooseInterceptor serviceChooseInterceptor;
 
+    private ServiceInstanceStatsInterceptor serviceInstanceStatsInterceptor;
+
     private Class<? extends Converter.Factory>[] globalConverterFactoryClasses;
 
     private Class<? extends CallAdapter.Factory>[] globalCallAdapterFactoryClasses;
@@ -44,6 +67,16 @@ public class RetrofitConfigBean {
 
     private SourceOkHttpClientRegistry sourceOkHttpClientRegistry;
 
+    private ConnectionPool connectionPool;
+
+    private Dispatcher dispatcher;
+
+    private DispatcherQueueLimiter dispatcherQueueLimiter;
+
+    private TenantFairQueue tenantFairQueue;
+
+    private final MethodPolicyRegistry methodPolicyRegistry = new MethodPolicyRegistry();
+
     public RetrofitConfigBean(RetrofitProperties retrofitProperties) {
         this.retrofitProperties = retrofitProperties;
     }
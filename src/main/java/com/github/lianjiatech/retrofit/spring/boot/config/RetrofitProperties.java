@@ -4,10 +4,19 @@ import com.github.lianjiatech.retrofit.spring.boot.core.BasicTypeConverterFactor
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
 
+import com.github.lianjiatech.retrofit.spring.boot.bulkhead.GlobalBulkheadProperty;
+import com.github.lianjiatech.retrofit.spring.boot.concurrency.GlobalConcurrencyLimitProperty;
 import com.github.lianjiatech.retrofit.spring.boot.core.Constants;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.GlobalDeadlineProperty;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.DegradeProperty;
+import com.github.lianjiatech.retrofit.spring.boot.fairqueue.GlobalFairQueueProperty;
 import com.github.lianjiatech.retrofit.spring.boot.log.GlobalLogProperty;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.HealthCheckProperty;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.LoadBalancerProperty;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.OutlierDetectionProperty;
+import com.github.lianjiatech.retrofit.spring.boot.priority.GlobalPriorityProperty;
 import com.github.lianjiatech.retrofit.spring.boot.retry.GlobalRetryProperty;
+import com.github.lianjiatech.retrofit.spring.boot.throttle.GlobalAdaptiveThrottleProperty;
 
 import lombok.Data;
 import retrofit2.CallAdapter;
@@ -56,6 +65,94 @@ public class RetrofitProperties {
     @NestedConfigurationProperty
     private GlobalTimeoutProperty globalTimeout = new GlobalTimeoutProperty();
 
+    /**
+     * 全局截止时间配置
+     * <p>
+     * deadline config
+     */
+    @NestedConfigurationProperty
+    private GlobalDeadlineProperty globalDeadline = new GlobalDeadlineProperty();
+
+    /**
+     * 全局舱壁隔离配置
+     * <p>
+     * bulkhead config
+     */
+    @NestedConfigurationProperty
+    private GlobalBulkheadProperty globalBulkhead = new GlobalBulkheadProperty();
+
+    /**
+     * 全局自适应并发限制配置
+     * <p>
+     * adaptive concurrency limit config
+     */
+    @NestedConfigurationProperty
+    private GlobalConcurrencyLimitProperty globalConcurrencyLimit = new GlobalConcurrencyLimitProperty();
+
+    /**
+     * 全局自适应节流配置
+     * <p>
+     * adaptive throttle config
+     */
+    @NestedConfigurationProperty
+    private GlobalAdaptiveThrottleProperty globalAdaptiveThrottle = new GlobalAdaptiveThrottleProperty();
+
+    /**
+     * 全局优先级配置
+     * <p>
+     * priority config
+     */
+    @NestedConfigurationProperty
+    private GlobalPriorityProperty globalPriority = new GlobalPriorityProperty();
+
+    /**
+     * 全局租户公平排队配置
+     * <p>
+     * tenant fair queue config
+     */
+    @NestedConfigurationProperty
+    private GlobalFairQueueProperty globalFairQueue = new GlobalFairQueueProperty();
+
+    /**
+     * 全局共享连接池配置
+     * <p>
+     * shared connection pool config
+     */
+    @NestedConfigurationProperty
+    private GlobalConnectionPoolProperty globalConnectionPool = new GlobalConnectionPoolProperty();
+
+    /**
+     * 全局共享调度器配置
+     * <p>
+     * shared dispatcher config
+     */
+    @NestedConfigurationProperty
+    private GlobalDispatcherProperty globalDispatcher = new GlobalDispatcherProperty();
+
+    /**
+     * 内置负载均衡配置
+     * <p>
+     * load balancer config
+     */
+    @NestedConfigurationProperty
+    private LoadBalancerProperty loadBalancer = new LoadBalancerProperty();
+
+    /**
+     * 异常实例摘除配置
+     * <p>
+     * outlier detection config
+     */
+    @NestedConfigurationProperty
+    private OutlierDetectionProperty outlierDetection = new OutlierDetectionProperty();
+
+    /**
+     * 服务实例主动健康检查配置
+     * <p>
+     * health check config
+     */
+    @NestedConfigurationProperty
+    private HealthCheckProperty healthCheck = new HealthCheckProperty();
+
     /**
      * 全局转换器工厂，转换器实例优先从Spring容器获取，如果没有获取到，则反射创建。
      * <p>
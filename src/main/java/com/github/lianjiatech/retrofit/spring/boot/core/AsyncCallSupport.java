@@ -0,0 +1,153 @@
+package com.github.lianjiatech.retrofit.spring.boot.core;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
+import com.github.lianjiatech.retrofit.spring.boot.ratelimit.TokenBucket;
+
+import lombok.experimental.UtilityClass;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * 组件内置异步调用适配器发起调用的入口。需要重试时不占用任何线程等待，而是通过共享的定时器在等待时间结束后重新发起调用。
+ * <p>
+ * The entry of asynchronous calls of built-in call adapters. When retry is required, no thread is held for waiting,
+ * and the call is re-enqueued by a shared timer after the interval.
+ *
+ * @author 陈添明
+ */
+@UtilityClass
+public class AsyncCallSupport {
+
+    /**
+     * 异步调用
+     *
+     * @param call 调用
+     * @param callback 回调
+     * @param <R> 响应类型
+     * @return 调用上下文，可用于取消调用
+     */
+    public static <R> InvocationContext enqueue(Call<R> call, Callback<R> callback) {
+        InvocationContext invocationContext = new InvocationContext(true);
+        doEnqueue(call, new RetryableCallback<>(callback, invocationContext), invocationContext);
+        return invocationContext;
+    }
+
+    private static <R> void doEnqueue(Call<R> call, Callback<R> callback, InvocationContext invocationContext) {
+        invocationContext.bind(call, () -> {
+            TokenBucket rateLimiter = findRateLimiter(call);
+            if (rateLimiter == null) {
+                call.enqueue(callback);
+                return;
+            }
+            // 限流等待通过定时器完成，不占用调度器线程
+            long waitNanos = rateLimiter.acquire();
+            if (waitNanos < 0) {
+                callback.onFailure(call,
+                        new RetrofitBlockException("Rate limit exceeded! url=" + call.request().url(), null));
+                return;
+            }
+            invocationContext.setRateLimitPermitAcquired();
+            if (waitNanos == 0) {
+                call.enqueue(callback);
+                return;
+            }
+            invocationContext.setScheduledTask(SchedulerHolder.SCHEDULER.schedule(
+                    () -> invocationContext.bind(call, () -> call.enqueue(callback)), waitNanos, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private static TokenBucket findRateLimiter(Call<?> call) {
+        Request request;
+        try {
+            request = call.request();
+        } catch (RuntimeException e) {
+            // 创建请求失败，由enqueue回调失败
+            return null;
+        }
+        MethodPolicy methodPolicy = request.tag(MethodPolicy.class);
+        return methodPolicy == null ? null : methodPolicy.getRateLimiter();
+    }
+
+    private static class RetryableCallback<R> implements Callback<R> {
+
+        private final Callback<R> delegate;
+
+        private final InvocationContext invocationContext;
+
+        RetryableCallback(Callback<R> delegate, InvocationContext invocationContext) {
+            this.delegate = delegate;
+            this.invocationContext = invocationContext;
+        }
+
+        @Override
+        public void onResponse(Call<R> call, Response<R> response) {
+            if (scheduleRetryIfNecessary(call)) {
+                ResponseBody errorBody = response.errorBody();
+                if (errorBody != null) {
+                    errorBody.close();
+                }
+                return;
+            }
+            invocationContext.complete();
+            delegate.onResponse(call, response);
+        }
+
+        @Override
+        public void onFailure(Call<R> call, Throwable t) {
+            if (scheduleRetryIfNecessary(call)) {
+                return;
+            }
+            invocationContext.complete();
+            delegate.onFailure(call, t);
+        }
+
+        private boolean scheduleRetryIfNecessary(Call<R> call) {
+            long retryIntervalMs = invocationContext.pollRetryIntervalMs();
+            if (retryIntervalMs < 0 || invocationContext.isCanceled()) {
+                return false;
+            }
+            Call<R> retryCall = call.clone();
+            invocationContext.setScheduledTask(SchedulerHolder.SCHEDULER.schedule(
+                    () -> doEnqueue(retryCall, this, invocationContext), retryIntervalMs, TimeUnit.MILLISECONDS));
+            return true;
+        }
+    }
+
+    /**
+     * 在异步调用共用的定时器中执行任务
+     *
+     * @param task 任务，不能阻塞
+     * @param delay 延迟时间
+     * @param unit 时间单位
+     * @return 定时任务，可用于取消
+     */
+    static Future<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        return SchedulerHolder.SCHEDULER.schedule(task, delay, unit);
+    }
+
+    private static class SchedulerHolder {
+
+        /**
+         * 定时任务只负责重新发起调用（重试或者限流等待结束）以及让排队超时的调用失败，单线程即可
+         */
+        private static final ScheduledExecutorService SCHEDULER = createScheduler();
+
+        private static ScheduledExecutorService createScheduler() {
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "retrofit-async-retry");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.setRemoveOnCancelPolicy(true);
+            return scheduler;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.lianjiatech.retrofit.spring.boot.core;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Callback;
+import retrofit2.HttpException;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+
+/**
+ * 异步调用执行，返回 #{@link CompletableFuture} 对象，重试时不阻塞线程。取消future会同时取消正在进行的请求和已经安排的重试。
+ * <p>
+ * Asynchronous call execution, return #{@link CompletableFuture} object, and retry without blocking threads.
+ * Cancelling the future also cancels the ongoing request and the scheduled retry.
+ *
+ * @author 陈添明
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CompletableFutureCallAdapterFactory extends CallAdapter.Factory
+        implements InternalCallAdapterFactory {
+
+    public static final CompletableFutureCallAdapterFactory INSTANCE = new CompletableFutureCallAdapterFactory();
+
+    @Override
+    public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+        if (getRawType(returnType) != CompletableFuture.class) {
+            return null;
+        }
+        if (!(returnType instanceof ParameterizedType)) {
+            throw new IllegalStateException(
+                    "CompletableFuture return type must be parameterized"
+                            + " as CompletableFuture<Foo> or CompletableFuture<? extends Foo>");
+        }
+        Type innerType = getParameterUpperBound(0, (ParameterizedType)returnType);
+
+        if (getRawType(innerType) != Response.class) {
+            // Generic type is not Response<T>. Use it for body-only adapter.
+            return new BodyCallAdapter<>(innerType);
+        }
+
+        // Generic type is Response<T>. Extract T and create the Response version of the adapter.
+        if (!(innerType instanceof ParameterizedType)) {
+            throw new IllegalStateException(
+                    "Response must be parameterized" + " as Response<Foo> or Response<? extends Foo>");
+        }
+        Type responseType = getParameterUpperBound(0, (ParameterizedType)innerType);
+        return new ResponseCallAdapter<>(responseType);
+    }
+
+    private static final class BodyCallAdapter<R> implements CallAdapter<R, CompletableFuture<R>> {
+
+        private final Type responseType;
+
+        BodyCallAdapter(Type responseType) {
+            this.responseType = responseType;
+        }
+
+        @Override
+        public Type responseType() {
+            return responseType;
+        }
+
+        @Override
+        public CompletableFuture<R> adapt(Call<R> call) {
+            CallCancelCompletableFuture<R> future = new CallCancelCompletableFuture<>();
+            future.invocationContext = AsyncCallSupport.enqueue(call, new Callback<R>() {
+                @Override
+                public void onResponse(Call<R> call, Response<R> response) {
+                    if (response.isSuccessful()) {
+                        future.complete(response.body());
+                    } else {
+                        future.completeExceptionally(new HttpException(response));
+                    }
+                }
+
+                @Override
+                public void onFailure(Call<R> call, Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+            return future;
+        }
+    }
+
+    private static final class ResponseCallAdapter<R> implements CallAdapter<R, CompletableFuture<Response<R>>> {
+
+        private final Type responseType;
+
+        ResponseCallAdapter(Type responseType) {
+            this.responseType = responseType;
+        }
+
+        @Override
+        public Type responseType() {
+            return responseType;
+        }
+
+        @Override
+        public CompletableFuture<Response<R>> adapt(Call<R> call) {
+            CallCancelCompletableFuture<Response<R>> future = new CallCancelCompletableFuture<>();
+            future.invocationContext = AsyncCallSupport.enqueue(call, new Callback<R>() {
+                @Override
+                public void onResponse(Call<R> call, Response<R> response) {
+                    future.complete(response);
+                }
+
+                @Override
+                public void onFailure(Call<R> call, Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+            return future;
+        }
+    }
+
+    private static final class CallCancelCompletableFuture<T> extends CompletableFuture<T> {
+
+        private volatile InvocationContext invocationContext;
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            InvocationContext context = invocationContext;
+            if (context != null) {
+                context.cancel();
+            }
+            return super.cancel(mayInterruptIfRunning);
+        }
+    }
+}
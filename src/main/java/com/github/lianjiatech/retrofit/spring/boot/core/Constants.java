@@ -16,6 +16,10 @@ public interface Constants {
 
     String CIRCUIT_BREAKER_CLASS_NAME = "io.github.resilience4j.circuitbreaker.CircuitBreaker";
 
+    String BULKHEAD_CLASS_NAME = "io.github.resilience4j.bulkhead.Bulkhead";
+
+    String RATE_LIMITER_CLASS_NAME = "io.github.resilience4j.ratelimiter.RateLimiter";
+
     String RETROFIT = "retrofit";
 
     String DEFAULT_CIRCUIT_BREAKER_CONFIG = "defaultCircuitBreakerConfig";
@@ -0,0 +1,141 @@
+package com.github.lianjiatech.retrofit.spring.boot.core;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
+import com.github.lianjiatech.retrofit.spring.boot.priority.InvocationPriority;
+import com.github.lianjiatech.retrofit.spring.boot.util.LatencyHistogram;
+
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 限制{@link Dispatcher}的异步请求排队。OkHttp的调度器使用无界队列保存超过并发数的异步请求，突发流量下排队的请求会等待很久并占用内存。
+ * 组件内置的异步调用适配器发起调用时，如果排队的请求数已经达到{@code maxQueuedCalls}，直接失败；请求开始执行时（作为第一个拦截器），
+ * 如果排队时间超过了{@code maxQueueWaitMs}，不再发送请求，直接失败。失败的异常为IOException，其cause为{@link RetrofitBlockException}，
+ * 开启熔断降级时会走降级逻辑。
+ * <p>
+ * Limits the asynchronous request queue of a {@link Dispatcher}. OkHttp's dispatcher keeps the asynchronous requests over
+ * its concurrency in an unbounded queue, so under a burst queued requests wait for a long time and take up memory. When
+ * the builtin asynchronous call adapters start a call while {@code maxQueuedCalls} requests are already queued, the call
+ * fails immediately; when a request starts executing (as the first interceptor) after waiting longer than
+ * {@code maxQueueWaitMs}, it fails without being sent. The failure is an IOException whose cause is
+ * {@link RetrofitBlockException}, and the fallback is used when fusing degrade is enabled.
+ *
+ * @author 陈添明
+ */
+public class DispatcherQueueLimiter implements Interceptor {
+
+    private static final long QUEUE_WAIT_WINDOW_MS = 60_000;
+
+    private final Dispatcher dispatcher;
+
+    private final int maxQueuedCalls;
+
+    private final long maxQueueWaitNanos;
+
+    private final LongAdder rejectedCalls = new LongAdder();
+
+    private final LongAdder expiredCalls = new LongAdder();
+
+    private final LatencyHistogram queueWaitHistogram = new LatencyHistogram(QUEUE_WAIT_WINDOW_MS);
+
+    /**
+     * @param dispatcher 调度器
+     * @param maxQueuedCalls 最大排队请求数，小于等于0表示不限制
+     * @param maxQueueWaitMs 最长排队时间，小于等于0表示不限制
+     */
+    public DispatcherQueueLimiter(Dispatcher dispatcher, int maxQueuedCalls, long maxQueueWaitMs) {
+        this.dispatcher = dispatcher;
+        this.maxQueuedCalls = maxQueuedCalls;
+        this.maxQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxQueueWaitMs));
+    }
+
+    /**
+     * 是否配置了限制，都不限制时不需要使用
+     *
+     * @return true表示配置了限制
+     */
+    public boolean isLimited() {
+        return maxQueuedCalls > 0 || maxQueueWaitNanos > 0;
+    }
+
+    /**
+     * 异步请求是否可以进入队列，排队数达到{@code share}比例的最大排队数时拒绝
+     *
+     * @param share 可以使用的队列比例，参见{@link InvocationPriority}
+     * @return false表示队列已满
+     */
+    boolean tryEnqueue(double share) {
+        if (maxQueuedCalls > 0
+                && dispatcher.queuedCallsCount() >= InvocationPriority.capacityOf(maxQueuedCalls, share)) {
+            rejectedCalls.increment();
+            return false;
+        }
+        return true;
+    }
+
+    IOException queueFullException(Request request) {
+        RetrofitBlockException e = new RetrofitBlockException(
+                "Dispatcher queue is full! maxQueuedCalls=" + maxQueuedCalls + ", url=" + request.url(), null);
+        return new IOException("blocked due to " + e, e);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        InvocationContext invocationContext = request.tag(InvocationContext.class);
+        long enqueuedNanos = invocationContext == null ? 0 : invocationContext.pollEnqueuedNanos();
+        if (enqueuedNanos == 0) {
+            return chain.proceed(request);
+        }
+        long waitNanos = System.nanoTime() - enqueuedNanos;
+        queueWaitHistogram.record(TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        if (maxQueueWaitNanos > 0 && waitNanos > maxQueueWaitNanos) {
+            expiredCalls.increment();
+            RetrofitBlockException e = new RetrofitBlockException("Dispatcher queue wait exceeded! waitMs="
+                    + TimeUnit.NANOSECONDS.toMillis(waitNanos) + ", url=" + request.url(), null);
+            throw new IOException("blocked due to " + e, e);
+        }
+        return chain.proceed(request);
+    }
+
+    /**
+     * 当前排队的请求数
+     */
+    public int getQueuedCalls() {
+        return dispatcher.queuedCallsCount();
+    }
+
+    /**
+     * 因为队列已满被拒绝的请求数
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+
+    /**
+     * 因为排队时间过长被丢弃的请求数
+     */
+    public long getExpiredCalls() {
+        return expiredCalls.sum();
+    }
+
+    /**
+     * 最近一段时间排队时间的分位数，单位为 ms
+     *
+     * @param quantile 分位，取值0-1
+     * @return 排队时间分位数，没有样本时返回-1
+     */
+    public long getQueueWaitMs(double quantile) {
+        return queueWaitHistogram.percentile(quantile, 1);
+    }
+
+    public Dispatcher getDispatcher() {
+        return dispatcher;
+    }
+}
@@ -0,0 +1,228 @@
+package com.github.lianjiatech.retrofit.spring.boot.core;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
+import com.github.lianjiatech.retrofit.spring.boot.fairqueue.TenantFairQueue;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Timeout;
+
+/**
+ * 调用进入调度器之前按租户公平排队，获得{@link TenantFairQueue}的许可后才真正执行或者进入调度器队列，同步和异步调用都在响应体关闭后释放许可。
+ * 同步调用在调用方线程中等待，异步调用在队列中等待，不占用线程，由定时器在排队超时后让其失败。
+ * <p>
+ * Queues the call fairly by tenant before it reaches the dispatcher: it is only executed or handed to the dispatcher
+ * after getting a permit from {@link TenantFairQueue}, and the permit of both synchronous and asynchronous calls is
+ * released when the response body is closed. Synchronous calls wait on the caller thread, and asynchronous calls wait
+ * in the queue without holding a thread until a timer fails them once the max wait is exceeded.
+ *
+ * @author 陈添明
+ */
+class FairQueuedCall implements Call {
+
+    private final Call delegate;
+
+    private final TenantFairQueue fairQueue;
+
+    private final String tenant;
+
+    private volatile TenantFairQueue.Ticket ticket;
+
+    private volatile Callback responseCallback;
+
+    /**
+     * 异步调用排队超时的定时任务
+     */
+    private volatile Future<?> expireTask;
+
+    FairQueuedCall(Call delegate, TenantFairQueue fairQueue, String tenant) {
+        this.delegate = delegate;
+        this.fairQueue = fairQueue;
+        this.tenant = tenant;
+    }
+
+    @Override
+    public Request request() {
+        return delegate.request();
+    }
+
+    @Override
+    public Response execute() throws IOException {
+        CountDownLatch latch = new CountDownLatch(1);
+        TenantFairQueue.Ticket acquired = fairQueue.acquire(tenant, t -> latch.countDown(), t -> latch.countDown());
+        if (acquired == null) {
+            throw queueFullException();
+        }
+        try {
+            if (!latch.await(fairQueue.getMaxWaitMs(), TimeUnit.MILLISECONDS) && fairQueue.cancel(acquired)) {
+                throw waitExceededException();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (!fairQueue.cancel(acquired)) {
+                fairQueue.release(acquired);
+            }
+            throw new InterruptedIOException("Interrupted while waiting in fair queue");
+        }
+        if (!acquired.isAdmitted()) {
+            throw waitExceededException();
+        }
+        Response response;
+        try {
+            response = delegate.execute();
+        } catch (Throwable e) {
+            fairQueue.release(acquired);
+            throw e;
+        }
+        return releaseOnClose(response, acquired);
+    }
+
+    @Override
+    public void enqueue(Callback responseCallback) {
+        this.responseCallback = responseCallback;
+        TenantFairQueue.Ticket acquired = fairQueue.acquire(tenant, t -> admit(t, responseCallback),
+                t -> responseCallback.onFailure(this, blocked(waitExceededException())));
+        ticket = acquired;
+        if (acquired == null) {
+            responseCallback.onFailure(this, blocked(queueFullException()));
+            return;
+        }
+        if (!acquired.isAdmitted()) {
+            // 许可只在获取和释放时分配，没有其他调用结束时需要定时器让排队超时的调用失败
+            expireTask = AsyncCallSupport.schedule(() -> fairQueue.expire(acquired), fairQueue.getMaxWaitMs(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 获得许可后进入调度器，回调可能在释放许可的其他线程中执行，因此进入调度器失败时释放许可并以回调通知失败，不抛出异常
+     */
+    private void admit(TenantFairQueue.Ticket admitted, Callback responseCallback) {
+        Future<?> task = expireTask;
+        if (task != null) {
+            task.cancel(false);
+        }
+        try {
+            delegate.enqueue(new ReleasingCallback(responseCallback, admitted));
+        } catch (RuntimeException e) {
+            fairQueue.release(admitted);
+            responseCallback.onFailure(this, new IOException("Failed to enqueue call", e));
+        }
+    }
+
+    @Override
+    public void cancel() {
+        TenantFairQueue.Ticket pending = ticket;
+        if (pending != null && fairQueue.cancel(pending)) {
+            Future<?> task = expireTask;
+            if (task != null) {
+                task.cancel(false);
+            }
+            responseCallback.onFailure(this, new IOException("Canceled"));
+        }
+        delegate.cancel();
+    }
+
+    @Override
+    public boolean isExecuted() {
+        return delegate.isExecuted();
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return delegate.isCanceled();
+    }
+
+    @Override
+    public Timeout timeout() {
+        return delegate.timeout();
+    }
+
+    @Override
+    public Call clone() {
+        return new FairQueuedCall(delegate.clone(), fairQueue, tenant);
+    }
+
+    /**
+     * 响应头返回时响应体还没有读取，许可在响应体关闭后才释放，使读取响应体的时间也受{@link TenantFairQueue#getMaxConcurrent()}限制。
+     * 重复释放许可没有影响
+     */
+    private Response releaseOnClose(Response response, TenantFairQueue.Ticket admitted) {
+        ResponseBody body = response.body();
+        if (body == null) {
+            fairQueue.release(admitted);
+            return response;
+        }
+        BufferedSource source = Okio.buffer(new ForwardingSource(body.source()) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    fairQueue.release(admitted);
+                }
+            }
+        });
+        return response.newBuilder()
+                .body(ResponseBody.create(body.contentType(), body.contentLength(), source))
+                .build();
+    }
+
+    private RetrofitBlockException queueFullException() {
+        return new RetrofitBlockException(
+                "Fair queue is full! tenant=" + tenant + ", url=" + delegate.request().url(), null);
+    }
+
+    private RetrofitBlockException waitExceededException() {
+        return new RetrofitBlockException("Fair queue wait exceeded! tenant=" + tenant + ", maxWaitMs="
+                + fairQueue.getMaxWaitMs() + ", url=" + delegate.request().url(), null);
+    }
+
+    private static IOException blocked(RetrofitBlockException e) {
+        return new IOException("blocked due to " + e, e);
+    }
+
+    private class ReleasingCallback implements Callback {
+
+        private final Callback delegate;
+
+        private final TenantFairQueue.Ticket ticket;
+
+        ReleasingCallback(Callback delegate, TenantFairQueue.Ticket ticket) {
+            this.delegate = delegate;
+            this.ticket = ticket;
+        }
+
+        @Override
+        public void onFailure(Call call, IOException e) {
+            try {
+                delegate.onFailure(FairQueuedCall.this, e);
+            } finally {
+                fairQueue.release(ticket);
+            }
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) throws IOException {
+            Response releasing = releaseOnClose(response, ticket);
+            try {
+                delegate.onResponse(FairQueuedCall.this, releasing);
+            } catch (Throwable e) {
+                releasing.close();
+                throw e;
+            }
+        }
+    }
+}
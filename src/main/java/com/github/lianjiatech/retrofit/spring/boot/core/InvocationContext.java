@@ -0,0 +1,312 @@
+package com.github.lianjiatech.retrofit.spring.boot.core;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+
+import com.github.lianjiatech.retrofit.spring.boot.deadline.InvocationDeadline;
+import com.github.lianjiatech.retrofit.spring.boot.priority.InvocationPriority;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryStrategy;
+
+import retrofit2.Call;
+
+/**
+ * 一次接口调用的上下文，该调用的所有请求（包括重试）共享同一个上下文，以tag的形式附加在{@link okhttp3.Request}上。
+ * <p>
+ * 目前只有组件内置的异步调用适配器会创建上下文：重试拦截器不会阻塞线程等待，而是把下次重试的等待时间记录在上下文中，由{@link AsyncCallSupport}定时重新发起调用。
+ * <p>
+ * The context of an interface invocation, all requests of the invocation (including retries) share the same context,
+ * which is attached to {@link okhttp3.Request} as a tag.
+ *
+ * @author 陈添明
+ */
+public final class InvocationContext {
+
+    private static final ThreadLocal<InvocationContext> CURRENT = new ThreadLocal<>();
+
+    private final boolean async;
+
+    /**
+     * 各次请求在不同的线程中顺序执行，线程池提交保证了可见性
+     */
+    private RetryStrategy retryStrategy;
+
+    private long retryIntervalMs = -1;
+
+    /**
+     * 当前请求是否由异步重试重新发起
+     */
+    private boolean retryAttempt;
+
+    private ServiceInstanceContext serviceInstanceContext;
+
+    private InvocationDeadline deadline;
+
+    private boolean deadlineResolved;
+
+    private InvocationPriority priority;
+
+    private boolean priorityResolved;
+
+    private String tenant;
+
+    /**
+     * 异步调用发起前已经获取了限流令牌，由{@link com.github.lianjiatech.retrofit.spring.boot.ratelimit.RateLimitInterceptor}消费
+     */
+    private volatile boolean rateLimitPermitAcquired;
+
+    /**
+     * 异步请求进入调度器队列的时间，由{@link DispatcherQueueLimiter}消费
+     */
+    private volatile long enqueuedNanos;
+
+    private volatile boolean canceled;
+
+    private volatile Call<?> currentCall;
+
+    /**
+     * 等待中的重试或者限流等待结束后的重新发起调用
+     */
+    private volatile Future<?> scheduledTask;
+
+    /**
+     * 调用结束时执行的动作，例如释放异步重试期间一直持有的舱壁许可
+     */
+    private final Queue<Runnable> completionActions = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean completed;
+
+    public InvocationContext(boolean async) {
+        this.async = async;
+    }
+
+    /**
+     * 获取当前线程正在发起调用的上下文，由{@link RetrofitCallFactory}附加到请求上
+     *
+     * @return 当前线程绑定的上下文
+     */
+    static InvocationContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 在当前线程绑定上下文的情况下发起调用
+     *
+     * @param call 调用
+     * @param runnable 发起调用的逻辑
+     */
+    void bind(Call<?> call, Runnable runnable) {
+        if (canceled) {
+            return;
+        }
+        currentCall = call;
+        CURRENT.set(this);
+        try {
+            runnable.run();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public RetryStrategy getRetryStrategy() {
+        return retryStrategy;
+    }
+
+    public void setRetryStrategy(RetryStrategy retryStrategy) {
+        this.retryStrategy = retryStrategy;
+    }
+
+    public ServiceInstanceContext getServiceInstanceContext() {
+        return serviceInstanceContext;
+    }
+
+    public void setServiceInstanceContext(ServiceInstanceContext serviceInstanceContext) {
+        this.serviceInstanceContext = serviceInstanceContext;
+    }
+
+    public InvocationDeadline getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * 记录第一次请求解析出的截止时间，所有重试共享
+     *
+     * @param deadline 截止时间，可以为null
+     */
+    public void setDeadline(InvocationDeadline deadline) {
+        this.deadline = deadline;
+        this.deadlineResolved = true;
+    }
+
+    public boolean isDeadlineResolved() {
+        return deadlineResolved;
+    }
+
+    public InvocationPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * 记录第一次请求解析出的优先级，所有重试共享
+     *
+     * @param priority 优先级，可以为null
+     */
+    public void setPriority(InvocationPriority priority) {
+        this.priority = priority;
+        this.priorityResolved = true;
+    }
+
+    public boolean isPriorityResolved() {
+        return priorityResolved;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    /**
+     * 记录第一次请求解析出的租户，所有重试共享
+     *
+     * @param tenant 租户
+     */
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+
+    /**
+     * 在指定时间后重试本次调用，只对异步调用有效
+     *
+     * @param retryIntervalMs 重试等待时间
+     */
+    public void scheduleRetry(long retryIntervalMs) {
+        this.retryIntervalMs = retryIntervalMs;
+    }
+
+    /**
+     * 是否已经安排了重试，已安排重试的请求结果不会返回给调用方
+     *
+     * @return true表示已安排重试
+     */
+    public boolean isRetryScheduled() {
+        return retryIntervalMs >= 0;
+    }
+
+    /**
+     * 获取并清除重试等待时间
+     *
+     * @return 重试等待时间，小于0表示不需要重试
+     */
+    long pollRetryIntervalMs() {
+        long intervalMs = retryIntervalMs;
+        retryIntervalMs = -1;
+        if (intervalMs >= 0) {
+            retryAttempt = true;
+        }
+        return intervalMs;
+    }
+
+    /**
+     * 当前请求是否由异步重试重新发起。重试请求与第一次请求属于同一次调用，按调用计数的拦截器（自适应节流、舱壁隔离、熔断）不再重复计数
+     *
+     * @return true表示异步重试请求
+     */
+    public boolean isRetryAttempt() {
+        return retryAttempt;
+    }
+
+    /**
+     * 添加调用结束（结果交给调用方或者调用被取消）时执行的动作，调用已经结束时立即执行
+     *
+     * @param action 动作
+     */
+    public void addCompletionAction(Runnable action) {
+        completionActions.add(action);
+        if (completed) {
+            runCompletionActions();
+        }
+    }
+
+    /**
+     * 结束调用，每个动作只执行一次
+     */
+    void complete() {
+        completed = true;
+        runCompletionActions();
+    }
+
+    private void runCompletionActions() {
+        Runnable action;
+        while ((action = completionActions.poll()) != null) {
+            action.run();
+        }
+    }
+
+    void setRateLimitPermitAcquired() {
+        this.rateLimitPermitAcquired = true;
+    }
+
+    /**
+     * 获取并清除发起调用前已经获取的限流令牌
+     *
+     * @return true表示本次请求已经获取了令牌
+     */
+    public boolean pollRateLimitPermit() {
+        if (!rateLimitPermitAcquired) {
+            return false;
+        }
+        rateLimitPermitAcquired = false;
+        return true;
+    }
+
+    void setEnqueuedNanos(long enqueuedNanos) {
+        this.enqueuedNanos = enqueuedNanos;
+    }
+
+    /**
+     * 获取并清除异步请求进入调度器队列的时间
+     *
+     * @return 入队时间，0表示没有记录
+     */
+    long pollEnqueuedNanos() {
+        long nanos = enqueuedNanos;
+        enqueuedNanos = 0;
+        return nanos;
+    }
+
+    /**
+     * 记录定时器中等待执行的任务，取消调用时一并取消
+     *
+     * @param scheduledTask 定时任务
+     */
+    void setScheduledTask(Future<?> scheduledTask) {
+        this.scheduledTask = scheduledTask;
+        if (canceled) {
+            scheduledTask.cancel(false);
+        }
+    }
+
+    /**
+     * 取消调用，包括已经安排的重试
+     */
+    public void cancel() {
+        canceled = true;
+        Future<?> task = scheduledTask;
+        if (task != null) {
+            task.cancel(false);
+        }
+        Call<?> call = currentCall;
+        if (call != null) {
+            call.cancel();
+        }
+        // 在定时器中等待的重试不会再回调，这里结束调用
+        complete();
+    }
+
+    public boolean isCanceled() {
+        return canceled;
+    }
+}
@@ -0,0 +1,218 @@
+package com.github.lianjiatech.retrofit.spring.boot.core;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import com.github.lianjiatech.retrofit.spring.boot.bulkhead.Bulkhead;
+import com.github.lianjiatech.retrofit.spring.boot.bulkhead.SemaphoreBulkhead;
+import com.github.lianjiatech.retrofit.spring.boot.concurrency.ConcurrencyLimit;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.Deadline;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.resilience4j.Resilience4jDegrade;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.sentinel.SentinelDegrade;
+import com.github.lianjiatech.retrofit.spring.boot.hedge.Hedge;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.HashKey;
+import com.github.lianjiatech.retrofit.spring.boot.log.Logging;
+import com.github.lianjiatech.retrofit.spring.boot.priority.Priority;
+import com.github.lianjiatech.retrofit.spring.boot.ratelimit.RateLimit;
+import com.github.lianjiatech.retrofit.spring.boot.ratelimit.TokenBucket;
+import com.github.lianjiatech.retrofit.spring.boot.retry.Retry;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryRule;
+import com.github.lianjiatech.retrofit.spring.boot.throttle.AdaptiveThrottle;
+import com.github.lianjiatech.retrofit.spring.boot.util.AnnotationExtendUtils;
+
+import lombok.Getter;
+import okhttp3.Request;
+import retrofit2.Invocation;
+
+/**
+ * 接口方法的调用策略，在创建Retrofit接口实例时解析一次，{@link RetrofitCallFactory}将其作为tag附加到请求上，请求过程中通过{@link #from(Request)}直接获取，避免每次请求都查找注解。
+ * <p>
+ * The invocation policy of the interface method, it is resolved once when the retrofit interface instance is created.
+ * {@link RetrofitCallFactory} attaches it to the request as a tag, and it is obtained directly through
+ * {@link #from(Request)} during the request, avoiding annotation lookups on every request.
+ *
+ * @author 陈添明
+ */
+@Getter
+public final class MethodPolicy {
+
+    private final Method method;
+
+    /**
+     * 方法所在接口上的{@link RetrofitClient}
+     */
+    private final RetrofitClient retrofitClient;
+
+    /**
+     * 方法或者接口上的{@link Retry}，为null时使用全局重试配置
+     */
+    private final Retry retry;
+
+    /**
+     * {@link Retry#retryRules()}，retry为null时为null
+     */
+    private final Set<RetryRule> retryRules;
+
+    /**
+     * 方法或者接口上的{@link Logging}，为null时使用全局日志配置
+     */
+    private final Logging logging;
+
+    /**
+     * 方法或者接口上的{@link Deadline}，为null时使用全局截止时间配置
+     */
+    private final Deadline deadline;
+
+    /**
+     * 方法或者接口上的{@link Hedge}，为null时不发送对冲请求
+     */
+    private final Hedge hedge;
+
+    /**
+     * 方法或者接口上的{@link ConcurrencyLimit}，为null时使用全局自适应并发限制配置
+     */
+    private final ConcurrencyLimit concurrencyLimit;
+
+    /**
+     * 方法或者接口上的{@link AdaptiveThrottle}，为null时使用全局自适应节流配置
+     */
+    private final AdaptiveThrottle adaptiveThrottle;
+
+    /**
+     * 方法或者接口上的{@link Priority}，为null时为普通优先级
+     */
+    private final Priority priority;
+
+    /**
+     * 方法或者接口上的{@link SentinelDegrade}
+     */
+    private final SentinelDegrade sentinelDegrade;
+
+    /**
+     * 方法或者接口上的{@link Resilience4jDegrade}
+     */
+    private final Resilience4jDegrade resilience4jDegrade;
+
+    /**
+     * 熔断降级资源名称，未启用熔断降级时为null
+     */
+    private final String resourceName;
+
+    /**
+     * 错误解码器实例，为null时需要自行获取
+     */
+    private final ErrorDecoder errorDecoder;
+
+    /**
+     * 标注了{@link HashKey}的参数下标，没有时为-1
+     */
+    private final int hashKeyIndex;
+
+    /**
+     * 方法上的{@link RateLimit}对应的令牌桶，方法上没有时为接口共享的令牌桶，都没有时为null
+     */
+    private final TokenBucket rateLimiter;
+
+    /**
+     * 方法上的{@link Bulkhead}对应的舱壁，方法上没有时为接口共享的舱壁，都没有时为null
+     */
+    private final SemaphoreBulkhead bulkhead;
+
+    public MethodPolicy(Method method, String resourceName, ErrorDecoder errorDecoder) {
+        this(method, resourceName, errorDecoder,
+                TokenBucket.of(AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), RateLimit.class)),
+                SemaphoreBulkhead
+                        .of(AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), Bulkhead.class)));
+    }
+
+    /**
+     * @param method 方法
+     * @param resourceName 熔断降级资源名称
+     * @param errorDecoder 错误解码器
+     * @param interfaceRateLimiter 接口上的{@link RateLimit}对应的令牌桶，接口的所有方法共享
+     * @param interfaceBulkhead 接口上的{@link Bulkhead}或者全局配置对应的舱壁，接口的所有方法共享
+     */
+    public MethodPolicy(Method method, String resourceName, ErrorDecoder errorDecoder,
+            TokenBucket interfaceRateLimiter, SemaphoreBulkhead interfaceBulkhead) {
+        Class<?> declaringClass = method.getDeclaringClass();
+        this.method = method;
+        this.retrofitClient = AnnotatedElementUtils.findMergedAnnotation(declaringClass, RetrofitClient.class);
+        this.retry = AnnotationExtendUtils.findMergedAnnotation(method, declaringClass, Retry.class);
+        this.retryRules = retry == null ? null : toRetryRuleSet(retry.retryRules());
+        this.logging = AnnotationExtendUtils.findMergedAnnotation(method, declaringClass, Logging.class);
+        this.deadline = AnnotationExtendUtils.findMergedAnnotation(method, declaringClass, Deadline.class);
+        this.hedge = AnnotationExtendUtils.findMergedAnnotation(method, declaringClass, Hedge.class);
+        this.concurrencyLimit =
+                AnnotationExtendUtils.findMergedAnnotation(method, declaringClass, ConcurrencyLimit.class);
+        this.adaptiveThrottle =
+                AnnotationExtendUtils.findMergedAnnotation(method, declaringClass, AdaptiveThrottle.class);
+        this.priority = AnnotationExtendUtils.findMergedAnnotation(method, declaringClass, Priority.class);
+        this.sentinelDegrade =
+                AnnotationExtendUtils.findMergedAnnotation(method, declaringClass, SentinelDegrade.class);
+        this.resilience4jDegrade =
+                AnnotationExtendUtils.findMergedAnnotation(method, declaringClass, Resilience4jDegrade.class);
+        this.resourceName = resourceName;
+        this.errorDecoder = errorDecoder;
+        this.hashKeyIndex = findHashKeyIndex(method);
+        RateLimit rateLimit = AnnotatedElementUtils.findMergedAnnotation(method, RateLimit.class);
+        this.rateLimiter = rateLimit == null ? interfaceRateLimiter : TokenBucket.of(rateLimit);
+        Bulkhead bulkhead = AnnotatedElementUtils.findMergedAnnotation(method, Bulkhead.class);
+        this.bulkhead = bulkhead == null ? interfaceBulkhead : SemaphoreBulkhead.of(bulkhead);
+    }
+
+    /**
+     * 获取请求对应方法的调用策略。每次请求都重新解析注解不仅开销大，还会为每次请求创建新的令牌桶和舱壁，使限流和舱壁隔离失效，
+     * 因此请求上没有附加调用策略时直接失败
+     *
+     * @param request 请求
+     * @return 调用策略
+     * @throws IllegalStateException 请求上没有附加调用策略，例如不是通过{@link RetrofitCallFactory}创建的
+     */
+    public static MethodPolicy from(Request request) {
+        MethodPolicy methodPolicy = request.tag(MethodPolicy.class);
+        if (methodPolicy == null) {
+            throw new IllegalStateException("MethodPolicy is not attached to the request, the call must be created by "
+                    + RetrofitCallFactory.class.getSimpleName() + "! url=" + request.url());
+        }
+        return methodPolicy;
+    }
+
+    /**
+     * 获取本次调用的hash key
+     *
+     * @param invocation 调用信息
+     * @return hash key，方法没有{@link HashKey}参数或者参数值为null时为null
+     */
+    public String getHashKey(Invocation invocation) {
+        if (hashKeyIndex < 0) {
+            return null;
+        }
+        Object argument = invocation.arguments().get(hashKeyIndex);
+        return argument == null ? null : argument.toString();
+    }
+
+    private static int findHashKeyIndex(Method method) {
+        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        for (int i = 0; i < parameterAnnotations.length; i++) {
+            for (Annotation annotation : parameterAnnotations[i]) {
+                if (annotation instanceof HashKey) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    public static Set<RetryRule> toRetryRuleSet(RetryRule[] retryRules) {
+        if (retryRules == null || retryRules.length == 0) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(EnumSet.copyOf(Arrays.asList(retryRules)));
+    }
+}
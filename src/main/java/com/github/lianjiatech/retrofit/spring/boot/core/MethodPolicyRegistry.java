@@ -0,0 +1,52 @@
+package com.github.lianjiatech.retrofit.spring.boot.core;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.Request;
+import retrofit2.Invocation;
+
+/**
+ * {@link MethodPolicy}注册中心，Retrofit接口实例创建时注册其所有方法的调用策略。
+ * 注册中心由{@link com.github.lianjiatech.retrofit.spring.boot.config.RetrofitConfigBean}持有，同一个JVM中的不同ApplicationContext互不影响。
+ * <p>
+ * {@link MethodPolicy} registry, the policies of all methods are registered when the retrofit interface instance is created.
+ * The registry is held by {@link com.github.lianjiatech.retrofit.spring.boot.config.RetrofitConfigBean}, so different
+ * ApplicationContexts in the same JVM do not affect each other.
+ *
+ * @author 陈添明
+ */
+public class MethodPolicyRegistry {
+
+    private final Map<Method, MethodPolicy> methodPolicies = new ConcurrentHashMap<>(256);
+
+    public void register(MethodPolicy methodPolicy) {
+        methodPolicies.put(methodPolicy.getMethod(), methodPolicy);
+    }
+
+    /**
+     * 获取方法的调用策略，如果方法没有注册（例如接口不是通过本组件创建的），则解析注解并缓存。
+     *
+     * @param method 方法
+     * @return 调用策略
+     */
+    public MethodPolicy get(Method method) {
+        MethodPolicy methodPolicy = methodPolicies.get(method);
+        if (methodPolicy != null) {
+            return methodPolicy;
+        }
+        return methodPolicies.computeIfAbsent(method, m -> new MethodPolicy(m, null, null));
+    }
+
+    /**
+     * 获取请求对应方法的调用策略
+     *
+     * @param request 请求
+     * @return 调用策略，请求不是由Retrofit创建的时为null
+     */
+    public MethodPolicy get(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        return invocation == null ? null : get(invocation.method());
+    }
+}
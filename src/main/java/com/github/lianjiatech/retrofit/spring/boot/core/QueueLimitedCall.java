@@ -0,0 +1,79 @@
+package com.github.lianjiatech.retrofit.spring.boot.core;
+
+import java.io.IOException;
+
+import com.github.lianjiatech.retrofit.spring.boot.priority.InvocationPriority;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Timeout;
+
+/**
+ * 异步调用进入调度器队列前检查队列长度，并记录入队时间，参见{@link DispatcherQueueLimiter}
+ * <p>
+ * Checks the queue length before an asynchronous call enters the dispatcher queue and records the enqueue time,
+ * see {@link DispatcherQueueLimiter}
+ *
+ * @author 陈添明
+ */
+class QueueLimitedCall implements Call {
+
+    private final Call delegate;
+
+    private final DispatcherQueueLimiter queueLimiter;
+
+    private final InvocationContext invocationContext;
+
+    QueueLimitedCall(Call delegate, DispatcherQueueLimiter queueLimiter, InvocationContext invocationContext) {
+        this.delegate = delegate;
+        this.queueLimiter = queueLimiter;
+        this.invocationContext = invocationContext;
+    }
+
+    @Override
+    public Request request() {
+        return delegate.request();
+    }
+
+    @Override
+    public Response execute() throws IOException {
+        return delegate.execute();
+    }
+
+    @Override
+    public void enqueue(Callback responseCallback) {
+        if (!queueLimiter.tryEnqueue(InvocationPriority.shareOf(delegate.request()))) {
+            responseCallback.onFailure(this, queueLimiter.queueFullException(delegate.request()));
+            return;
+        }
+        invocationContext.setEnqueuedNanos(System.nanoTime());
+        delegate.enqueue(responseCallback);
+    }
+
+    @Override
+    public void cancel() {
+        delegate.cancel();
+    }
+
+    @Override
+    public boolean isExecuted() {
+        return delegate.isExecuted();
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return delegate.isCanceled();
+    }
+
+    @Override
+    public Timeout timeout() {
+        return delegate.timeout();
+    }
+
+    @Override
+    public Call clone() {
+        return new QueueLimitedCall(delegate.clone(), queueLimiter, invocationContext);
+    }
+}
@@ -0,0 +1,181 @@
+package com.github.lianjiatech.retrofit.spring.boot.core;
+
+import org.springframework.util.StringUtils;
+
+import com.github.lianjiatech.retrofit.spring.boot.deadline.Deadline;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.DeadlineContext;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.GlobalDeadlineProperty;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.InvocationDeadline;
+import com.github.lianjiatech.retrofit.spring.boot.fairqueue.TenantContext;
+import com.github.lianjiatech.retrofit.spring.boot.fairqueue.TenantFairQueue;
+import com.github.lianjiatech.retrofit.spring.boot.priority.GlobalPriorityProperty;
+import com.github.lianjiatech.retrofit.spring.boot.priority.InvocationPriority;
+import com.github.lianjiatech.retrofit.spring.boot.priority.Priority;
+import com.github.lianjiatech.retrofit.spring.boot.priority.PriorityContext;
+import com.github.lianjiatech.retrofit.spring.boot.priority.PriorityLevel;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+
+/**
+ * 在创建{@link Call}时，将方法的{@link MethodPolicy}、当前线程绑定的{@link InvocationContext}以及调用的截止时间、优先级附加到请求上。
+ * 配置了{@link DispatcherQueueLimiter}时，异步调用在进入调度器队列前检查队列长度；配置了{@link TenantFairQueue}时，
+ * 调用在进入调度器之前按租户公平排队。同步执行的调用通过{@link SyncExecution}标记当前线程。
+ * <p>
+ * Attach the {@link MethodPolicy} of the method, the {@link InvocationContext} bound to the current thread and the
+ * deadline and priority of the invocation to the request when creating {@link Call}. When {@link DispatcherQueueLimiter} is configured, asynchronous calls check
+ * the queue length before entering the dispatcher queue. When {@link TenantFairQueue} is configured, calls queue fairly
+ * by tenant before reaching the dispatcher. Synchronously executed calls mark the current thread through
+ * {@link SyncExecution}.
+ *
+ * @author 陈添明
+ */
+public class RetrofitCallFactory implements Call.Factory {
+
+    private final OkHttpClient okHttpClient;
+
+    private final GlobalDeadlineProperty globalDeadlineProperty;
+
+    private final GlobalPriorityProperty globalPriorityProperty;
+
+    private final DispatcherQueueLimiter dispatcherQueueLimiter;
+
+    private final TenantFairQueue tenantFairQueue;
+
+    private final MethodPolicyRegistry methodPolicyRegistry;
+
+    public RetrofitCallFactory(OkHttpClient okHttpClient, GlobalDeadlineProperty globalDeadlineProperty) {
+        this(okHttpClient, globalDeadlineProperty, new GlobalPriorityProperty(), null, null, new MethodPolicyRegistry());
+    }
+
+    /**
+     * @param okHttpClient okHttpClient
+     * @param globalDeadlineProperty 全局截止时间配置
+     * @param globalPriorityProperty 全局优先级配置
+     * @param dispatcherQueueLimiter 调度器队列限制，可以为null
+     * @param tenantFairQueue 租户公平排队，可以为null
+     * @param methodPolicyRegistry 方法调用策略注册中心
+     */
+    public RetrofitCallFactory(OkHttpClient okHttpClient, GlobalDeadlineProperty globalDeadlineProperty,
+            GlobalPriorityProperty globalPriorityProperty, DispatcherQueueLimiter dispatcherQueueLimiter,
+            TenantFairQueue tenantFairQueue, MethodPolicyRegistry methodPolicyRegistry) {
+        this.okHttpClient = okHttpClient;
+        this.globalDeadlineProperty = globalDeadlineProperty;
+        this.globalPriorityProperty = globalPriorityProperty;
+        this.dispatcherQueueLimiter = dispatcherQueueLimiter;
+        this.tenantFairQueue = tenantFairQueue;
+        this.methodPolicyRegistry = methodPolicyRegistry;
+    }
+
+    @Override
+    public Call newCall(Request request) {
+        MethodPolicy methodPolicy = methodPolicyRegistry.get(request);
+        InvocationContext invocationContext = InvocationContext.current();
+        InvocationDeadline deadline = resolveDeadline(methodPolicy, invocationContext);
+        InvocationPriority priority = resolvePriority(methodPolicy, invocationContext);
+        Call call = createCall(request, methodPolicy, invocationContext, deadline, priority);
+        if (tenantFairQueue != null) {
+            call = new FairQueuedCall(call, tenantFairQueue, resolveTenant(request, invocationContext));
+        }
+        return SyncExecution.wrap(call);
+    }
+
+    private Call createCall(Request request, MethodPolicy methodPolicy, InvocationContext invocationContext,
+            InvocationDeadline deadline, InvocationPriority priority) {
+        if (methodPolicy == null && invocationContext == null && deadline == null && priority == null) {
+            return okHttpClient.newCall(request);
+        }
+        Request.Builder builder = request.newBuilder();
+        if (methodPolicy != null) {
+            builder.tag(MethodPolicy.class, methodPolicy);
+        }
+        if (invocationContext != null) {
+            builder.tag(InvocationContext.class, invocationContext);
+        }
+        if (deadline != null) {
+            builder.tag(InvocationDeadline.class, deadline);
+        }
+        if (priority != null) {
+            builder.tag(InvocationPriority.class, priority);
+        }
+        Call call = okHttpClient.newCall(builder.build());
+        if (dispatcherQueueLimiter != null && invocationContext != null && invocationContext.isAsync()) {
+            return new QueueLimitedCall(call, dispatcherQueueLimiter, invocationContext);
+        }
+        return call;
+    }
+
+    /**
+     * 调用的截止时间取{@link DeadlineContext}与{@link Deadline}（或者全局配置）中更早的一个。异步重试复用第一次请求的截止时间。
+     */
+    protected InvocationDeadline resolveDeadline(MethodPolicy methodPolicy, InvocationContext invocationContext) {
+        if (invocationContext != null && invocationContext.isDeadlineResolved()) {
+            return invocationContext.getDeadline();
+        }
+        InvocationDeadline deadline = DeadlineContext.current();
+        Deadline annotation = methodPolicy == null ? null : methodPolicy.getDeadline();
+        int timeoutMs = annotation == null ? globalDeadlineProperty.getTimeoutMs() : annotation.timeoutMs();
+        if (timeoutMs > 0) {
+            deadline = InvocationDeadline.earliest(deadline, InvocationDeadline.after(timeoutMs));
+        }
+        if (invocationContext != null) {
+            invocationContext.setDeadline(deadline);
+        }
+        return deadline;
+    }
+
+    /**
+     * 调用所属的租户取{@link TenantContext}，没有设置时取租户请求头。异步重试复用第一次请求的租户。
+     *
+     * @return 租户，没有租户标识时为{@link TenantFairQueue#DEFAULT_TENANT}
+     */
+    protected String resolveTenant(Request request, InvocationContext invocationContext) {
+        if (invocationContext != null && invocationContext.getTenant() != null) {
+            return invocationContext.getTenant();
+        }
+        String tenant = TenantContext.current();
+        if (!StringUtils.hasText(tenant) && StringUtils.hasText(tenantFairQueue.getTenantHeader())) {
+            tenant = request.header(tenantFairQueue.getTenantHeader());
+        }
+        if (!StringUtils.hasText(tenant)) {
+            tenant = TenantFairQueue.DEFAULT_TENANT;
+        }
+        if (invocationContext != null) {
+            invocationContext.setTenant(tenant);
+        }
+        return tenant;
+    }
+
+    /**
+     * 调用的优先级取{@link PriorityContext}，没有设置时取{@link Priority}。异步重试复用第一次请求的优先级。
+     *
+     * @return 优先级，可以使用全部容量时为null
+     */
+    protected InvocationPriority resolvePriority(MethodPolicy methodPolicy, InvocationContext invocationContext) {
+        if (invocationContext != null && invocationContext.isPriorityResolved()) {
+            return invocationContext.getPriority();
+        }
+        PriorityLevel level = PriorityContext.current();
+        if (level == null) {
+            Priority annotation = methodPolicy == null ? null : methodPolicy.getPriority();
+            level = annotation == null ? PriorityLevel.NORMAL : annotation.value();
+        }
+        InvocationPriority priority = InvocationPriority.of(level, globalPriorityProperty);
+        if (priority.isUnlimited()) {
+            priority = null;
+        }
+        if (invocationContext != null) {
+            invocationContext.setPriority(priority);
+        }
+        return priority;
+    }
+
+    public OkHttpClient getOkHttpClient() {
+        return okHttpClient;
+    }
+
+    public DispatcherQueueLimiter getDispatcherQueueLimiter() {
+        return dispatcherQueueLimiter;
+    }
+}
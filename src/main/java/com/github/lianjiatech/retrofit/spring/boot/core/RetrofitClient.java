@@ -156,4 +156,24 @@ public @interface RetrofitClient {
      */
     int callTimeoutMs() default Constants.INVALID_TIMEOUT_VALUE;
 
+    /**
+     * 是否使用组件管理的全局共享连接池，不同接口之间可以复用keep-alive连接。配置为false时，当前接口使用独立的连接池。
+     * <p>
+     * Whether to use the shared connection pool managed by the starter, keep-alive connections can be reused between interfaces.
+     * If it is configured as false, the current interface uses its own connection pool.
+     *
+     * @return shareConnectionPool
+     */
+    boolean shareConnectionPool() default true;
+
+    /**
+     * 是否使用组件管理的全局共享调度器，所有接口的异步请求共用同一个线程池。配置为false时，当前接口使用独立的调度器。
+     * <p>
+     * Whether to use the shared dispatcher managed by the starter, asynchronous requests of all interfaces share the same thread pool.
+     * If it is configured as false, the current interface uses its own dispatcher.
+     *
+     * @return shareDispatcher
+     */
+    boolean shareDispatcher() default true;
+
 }
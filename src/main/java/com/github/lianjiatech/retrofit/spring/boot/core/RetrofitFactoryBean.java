@@ -1,6 +1,8 @@
 package com.github.lianjiatech.retrofit.spring.boot.core;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -20,6 +22,11 @@ import org.springframework.core.env.Environment;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
+import com.github.lianjiatech.retrofit.spring.boot.bulkhead.Bulkhead;
+import com.github.lianjiatech.retrofit.spring.boot.bulkhead.GlobalBulkheadProperty;
+import com.github.lianjiatech.retrofit.spring.boot.bulkhead.SemaphoreBulkhead;
+import com.github.lianjiatech.retrofit.spring.boot.concurrency.ConcurrencyLimit;
+import com.github.lianjiatech.retrofit.spring.boot.config.GlobalDispatcherProperty;
 import com.github.lianjiatech.retrofit.spring.boot.config.GlobalTimeoutProperty;
 import com.github.lianjiatech.retrofit.spring.boot.config.RetrofitConfigBean;
 import com.github.lianjiatech.retrofit.spring.boot.core.reactive.MonoCallAdapterFactory;
@@ -27,16 +34,24 @@ import com.github.lianjiatech.retrofit.spring.boot.core.reactive.Rxjava2Completa
 import com.github.lianjiatech.retrofit.spring.boot.core.reactive.Rxjava2SingleCallAdapterFactory;
 import com.github.lianjiatech.retrofit.spring.boot.core.reactive.Rxjava3CompletableCallAdapterFactory;
 import com.github.lianjiatech.retrofit.spring.boot.core.reactive.Rxjava3SingleCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.AsyncBlockExceptionInterceptor;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.DegradeProxy;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.ResourceNameParser;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitDegrade;
+import com.github.lianjiatech.retrofit.spring.boot.hedge.Hedge;
+import com.github.lianjiatech.retrofit.spring.boot.hedge.HedgeInterceptor;
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.BasePathMatchInterceptor;
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.Intercept;
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.InterceptMark;
 import com.github.lianjiatech.retrofit.spring.boot.interceptor.Intercepts;
+import com.github.lianjiatech.retrofit.spring.boot.ratelimit.RateLimit;
+import com.github.lianjiatech.retrofit.spring.boot.ratelimit.TokenBucket;
+import com.github.lianjiatech.retrofit.spring.boot.throttle.AdaptiveThrottle;
 import com.github.lianjiatech.retrofit.spring.boot.util.AppContextUtils;
 import com.github.lianjiatech.retrofit.spring.boot.util.BeanExtendUtils;
 import com.github.lianjiatech.retrofit.spring.boot.util.RetrofitUtils;
 
+import okhttp3.Dispatcher;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
 import retrofit2.CallAdapter;
@@ -56,6 +71,8 @@ public class RetrofitFactoryBean<T> implements FactoryBean<T>, EnvironmentAware,
 
     private ApplicationContext applicationContext;
 
+    private DispatcherQueueLimiter dispatcherQueueLimiter;
+
     public RetrofitFactoryBean(Class<T> retrofitInterface) {
         this.retrofitInterface = retrofitInterface;
     }
@@ -63,6 +80,7 @@ public class RetrofitFactoryBean<T> implements FactoryBean<T>, EnvironmentAware,
     @Override
     public T getObject() {
         T source = createRetrofit().create(retrofitInterface);
+        registerMethodPolicies();
         if (!isEnableDegrade(retrofitInterface)) {
             return source;
         }
@@ -78,6 +96,61 @@ public class RetrofitFactoryBean<T> implements FactoryBean<T>, EnvironmentAware,
         return retrofitDegrade.isEnableDegrade(retrofitInterface);
     }
 
+    /**
+     * 解析并注册当前接口所有方法的调用策略，避免请求过程中查找注解
+     */
+    private void registerMethodPolicies() {
+        RetrofitClient retrofitClient =
+                AnnotatedElementUtils.findMergedAnnotation(retrofitInterface, RetrofitClient.class);
+        ErrorDecoder errorDecoder =
+                AppContextUtils.getBeanOrNew(applicationContext, Objects.requireNonNull(retrofitClient).errorDecoder());
+        RetrofitDegrade retrofitDegrade = retrofitConfigBean.getRetrofitDegrade();
+        ResourceNameParser resourceNameParser = null;
+        if (isEnableDegrade(retrofitInterface) && retrofitDegrade instanceof ResourceNameParser) {
+            resourceNameParser = (ResourceNameParser)retrofitDegrade;
+        }
+        // 接口上的限流由所有方法共享
+        TokenBucket interfaceRateLimiter =
+                TokenBucket.of(AnnotatedElementUtils.findMergedAnnotation(retrofitInterface, RateLimit.class));
+        SemaphoreBulkhead interfaceBulkhead = createInterfaceBulkhead();
+        for (Method method : retrofitInterface.getMethods()) {
+            if (method.isDefault() || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            String resourceName = parseResourceName(resourceNameParser, method);
+            retrofitConfigBean.getMethodPolicyRegistry()
+                    .register(new MethodPolicy(method, resourceName, errorDecoder, interfaceRateLimiter,
+                            interfaceBulkhead));
+        }
+    }
+
+    /**
+     * 接口上的舱壁由所有方法共享，接口上没有{@link Bulkhead}时使用全局舱壁隔离配置
+     */
+    private SemaphoreBulkhead createInterfaceBulkhead() {
+        Bulkhead bulkhead = AnnotatedElementUtils.findMergedAnnotation(retrofitInterface, Bulkhead.class);
+        if (bulkhead != null) {
+            return SemaphoreBulkhead.of(bulkhead);
+        }
+        GlobalBulkheadProperty globalBulkhead = retrofitConfigBean.getRetrofitProperties().getGlobalBulkhead();
+        if (!globalBulkhead.isEnable()) {
+            return null;
+        }
+        return new SemaphoreBulkhead(globalBulkhead.getMaxConcurrent(), globalBulkhead.getMaxWaitMs());
+    }
+
+    private String parseResourceName(ResourceNameParser resourceNameParser, Method method) {
+        if (resourceNameParser == null) {
+            return null;
+        }
+        try {
+            return resourceNameParser.parseResourceName(method);
+        } catch (UnsupportedOperationException e) {
+            // 非HTTP方法，调用时由Retrofit报错
+            return null;
+        }
+    }
+
     @Override
     public Class<T> getObjectType() {
         return this.retrofitInterface;
@@ -111,25 +184,128 @@ public class RetrofitFactoryBean<T> implements FactoryBean<T>, EnvironmentAware,
                     .readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS)
                     .writeTimeout(writeTimeoutMs, TimeUnit.MILLISECONDS)
                     .callTimeout(callTimeoutMs, TimeUnit.MILLISECONDS);
+            // 使用全局共享的连接池和调度器
+            if (retrofitClient.shareConnectionPool()) {
+                okHttpClientBuilder.connectionPool(retrofitConfigBean.getConnectionPool());
+            }
+            DispatcherQueueLimiter sharedQueueLimiter = retrofitConfigBean.getDispatcherQueueLimiter();
+            if (retrofitClient.shareDispatcher()) {
+                okHttpClientBuilder.dispatcher(retrofitConfigBean.getDispatcher());
+                dispatcherQueueLimiter = sharedQueueLimiter;
+            } else if (sharedQueueLimiter != null && sharedQueueLimiter.isLimited()) {
+                // 独立的调度器使用单独的队列限制
+                GlobalDispatcherProperty globalDispatcher =
+                        retrofitConfigBean.getRetrofitProperties().getGlobalDispatcher();
+                Dispatcher dispatcher = new Dispatcher();
+                okHttpClientBuilder.dispatcher(dispatcher);
+                dispatcherQueueLimiter = new DispatcherQueueLimiter(dispatcher, globalDispatcher.getMaxQueuedCalls(),
+                        globalDispatcher.getMaxQueueWaitMs());
+            }
+            if (dispatcherQueueLimiter != null && !dispatcherQueueLimiter.isLimited()) {
+                dispatcherQueueLimiter = null;
+            }
         } else {
             OkHttpClient sourceOkHttpClient = retrofitConfigBean.getSourceOkHttpClientRegistry()
                     .get(retrofitClient.sourceOkHttpClient());
             okHttpClientBuilder = sourceOkHttpClient.newBuilder();
         }
 
+        if (dispatcherQueueLimiter != null) {
+            okHttpClientBuilder.addInterceptor(dispatcherQueueLimiter);
+        }
         if (isEnableDegrade(retrofitInterface)) {
+            okHttpClientBuilder.addInterceptor(AsyncBlockExceptionInterceptor.INSTANCE);
             okHttpClientBuilder.addInterceptor(retrofitConfigBean.getRetrofitDegrade());
         }
+        if (isEnableBulkhead()) {
+            okHttpClientBuilder.addInterceptor(retrofitConfigBean.getBulkheadInterceptor());
+        }
         if (StringUtils.hasText(retrofitClient.serviceId())) {
             okHttpClientBuilder.addInterceptor(retrofitConfigBean.getServiceChooseInterceptor());
         }
         okHttpClientBuilder.addInterceptor(retrofitConfigBean.getErrorDecoderInterceptor());
+        if (isEnableAdaptiveThrottle()) {
+            okHttpClientBuilder.addInterceptor(retrofitConfigBean.getAdaptiveThrottleInterceptor());
+        }
         findInterceptorByAnnotation().forEach(okHttpClientBuilder::addInterceptor);
         retrofitConfigBean.getGlobalInterceptors().forEach(okHttpClientBuilder::addInterceptor);
         okHttpClientBuilder.addInterceptor(retrofitConfigBean.getRetryInterceptor());
+        if (isEnableConcurrencyLimit()) {
+            okHttpClientBuilder.addInterceptor(retrofitConfigBean.getConcurrencyLimitInterceptor());
+        }
+        HedgeInterceptor hedgeInterceptor = null;
+        if (isEnableHedge()) {
+            hedgeInterceptor = new HedgeInterceptor();
+            okHttpClientBuilder.addInterceptor(hedgeInterceptor);
+        }
+        if (isEnableRateLimit()) {
+            okHttpClientBuilder.addInterceptor(retrofitConfigBean.getRateLimitInterceptor());
+        }
+        okHttpClientBuilder.addInterceptor(retrofitConfigBean.getDeadlineInterceptor());
+        if (StringUtils.hasText(retrofitClient.serviceId())
+                && retrofitConfigBean.getServiceInstanceStatsInterceptor().isEnabled()) {
+            okHttpClientBuilder.addInterceptor(retrofitConfigBean.getServiceInstanceStatsInterceptor());
+        }
         okHttpClientBuilder.addInterceptor(retrofitConfigBean.getLoggingInterceptor());
         retrofitConfigBean.getNetworkInterceptors().forEach(okHttpClientBuilder::addInterceptor);
-        return okHttpClientBuilder.build();
+        OkHttpClient okHttpClient = okHttpClientBuilder.build();
+        if (hedgeInterceptor != null) {
+            hedgeInterceptor.setHedgeClient(createHedgeClient(okHttpClient, hedgeInterceptor));
+        }
+        return okHttpClient;
+    }
+
+    private boolean isEnableHedge() {
+        if (AnnotatedElementUtils.hasAnnotation(retrofitInterface, Hedge.class)) {
+            return true;
+        }
+        return Arrays.stream(retrofitInterface.getMethods())
+                .anyMatch(method -> AnnotatedElementUtils.hasAnnotation(method, Hedge.class));
+    }
+
+    private boolean isEnableBulkhead() {
+        if (retrofitConfigBean.getRetrofitProperties().getGlobalBulkhead().isEnable()
+                || AnnotatedElementUtils.hasAnnotation(retrofitInterface, Bulkhead.class)) {
+            return true;
+        }
+        return Arrays.stream(retrofitInterface.getMethods())
+                .anyMatch(method -> AnnotatedElementUtils.hasAnnotation(method, Bulkhead.class));
+    }
+
+    private boolean isEnableConcurrencyLimit() {
+        if (retrofitConfigBean.getRetrofitProperties().getGlobalConcurrencyLimit().isEnable()
+                || AnnotatedElementUtils.hasAnnotation(retrofitInterface, ConcurrencyLimit.class)) {
+            return true;
+        }
+        return Arrays.stream(retrofitInterface.getMethods())
+                .anyMatch(method -> AnnotatedElementUtils.hasAnnotation(method, ConcurrencyLimit.class));
+    }
+
+    private boolean isEnableAdaptiveThrottle() {
+        if (retrofitConfigBean.getRetrofitProperties().getGlobalAdaptiveThrottle().isEnable()
+                || AnnotatedElementUtils.hasAnnotation(retrofitInterface, AdaptiveThrottle.class)) {
+            return true;
+        }
+        return Arrays.stream(retrofitInterface.getMethods())
+                .anyMatch(method -> AnnotatedElementUtils.hasAnnotation(method, AdaptiveThrottle.class));
+    }
+
+    private boolean isEnableRateLimit() {
+        if (AnnotatedElementUtils.hasAnnotation(retrofitInterface, RateLimit.class)) {
+            return true;
+        }
+        return Arrays.stream(retrofitInterface.getMethods())
+                .anyMatch(method -> AnnotatedElementUtils.hasAnnotation(method, RateLimit.class));
+    }
+
+    /**
+     * 对冲请求使用的客户端，只保留对冲拦截器之后的拦截器，共享连接池、调度器以及超时配置
+     */
+    private OkHttpClient createHedgeClient(OkHttpClient okHttpClient, HedgeInterceptor hedgeInterceptor) {
+        OkHttpClient.Builder builder = okHttpClient.newBuilder();
+        List<Interceptor> interceptors = builder.interceptors();
+        interceptors.subList(0, interceptors.indexOf(hedgeInterceptor) + 1).clear();
+        return builder.build();
     }
 
     @SuppressWarnings("unchecked")
@@ -190,7 +366,11 @@ public class RetrofitFactoryBean<T> implements FactoryBean<T>, EnvironmentAware,
         Retrofit.Builder retrofitBuilder = new Retrofit.Builder()
                 .baseUrl(baseUrl)
                 .validateEagerly(retrofitClient.validateEagerly())
-                .client(client);
+                .callFactory(new RetrofitCallFactory(client, retrofitConfigBean.getRetrofitProperties().getGlobalDeadline(),
+                        retrofitConfigBean.getRetrofitProperties().getGlobalPriority(), dispatcherQueueLimiter,
+                        retrofitConfigBean.getRetrofitProperties().getGlobalFairQueue().isEnable()
+                                ? retrofitConfigBean.getTenantFairQueue() : null,
+                        retrofitConfigBean.getMethodPolicyRegistry()));
 
         // 添加配置或者指定的CallAdapterFactory
         List<Class<? extends CallAdapter.Factory>> callAdapterFactories = new ArrayList<>(2);
@@ -203,6 +383,7 @@ public class RetrofitFactoryBean<T> implements FactoryBean<T>, EnvironmentAware,
                         .addCallAdapterFactory(AppContextUtils.getBeanOrNew(applicationContext, adapterFactoryClass)));
 
         addReactiveCallAdapterFactory(retrofitBuilder);
+        retrofitBuilder.addCallAdapterFactory(CompletableFutureCallAdapterFactory.INSTANCE);
         retrofitBuilder.addCallAdapterFactory(ResponseCallAdapterFactory.INSTANCE);
         retrofitBuilder.addCallAdapterFactory(BodyCallAdapterFactory.INSTANCE);
 
@@ -1,6 +1,7 @@
 package com.github.lianjiatech.retrofit.spring.boot.core;
 
 import java.net.URI;
+import java.util.Set;
 
 import com.github.lianjiatech.retrofit.spring.boot.exception.ServiceInstanceChooseException;
 
@@ -18,6 +19,41 @@ public interface ServiceInstanceChooser {
      */
     URI choose(String serviceId);
 
+    /**
+     * 选择服务实例，尽量避开本次调用已经失败的实例。默认实现最多重新选择{@code excludedInstances.size()}次，
+     * 如果仍然只能选到已排除的实例，则返回最后一次选择的实例。
+     * <p>
+     * Chooses a ServiceInstance URI, avoiding instances that have failed in this invocation.
+     * The default implementation chooses again at most {@code excludedInstances.size()} times,
+     * and returns the last chosen one if only excluded instances can be chosen.
+     *
+     * @param serviceId The service ID to look up the LoadBalancer.
+     * @param excludedInstances Instances that have failed in this invocation.
+     * @return Return the uri of ServiceInstance
+     */
+    default URI choose(String serviceId, Set<URI> excludedInstances) {
+        URI uri = choose(serviceId);
+        for (int i = 0; i < excludedInstances.size() && excludedInstances.contains(uri); i++) {
+            uri = choose(serviceId);
+        }
+        return uri;
+    }
+
+    /**
+     * 按hash key选择服务实例，相同的key应尽量选择同一个实例。默认实现忽略hash key。
+     * <p>
+     * Chooses a ServiceInstance URI by the hash key, the same key should stick to the same instance where possible.
+     * The default implementation ignores the hash key.
+     *
+     * @param serviceId The service ID to look up the LoadBalancer.
+     * @param hashKey The hash key of this invocation, may be null.
+     * @param excludedInstances Instances that have failed in this invocation.
+     * @return Return the uri of ServiceInstance
+     */
+    default URI choose(String serviceId, String hashKey, Set<URI> excludedInstances) {
+        return choose(serviceId, excludedInstances);
+    }
+
     class NoValidServiceInstanceChooser implements ServiceInstanceChooser {
 
         @Override
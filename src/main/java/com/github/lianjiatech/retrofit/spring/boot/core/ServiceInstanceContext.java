@@ -0,0 +1,89 @@
+package com.github.lianjiatech.retrofit.spring.boot.core;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+
+/**
+ * 一次调用选择服务实例的上下文，以tag的形式附加在{@link Request}上。重试时排除已经失败的实例，重新选择服务实例。
+ * <p>
+ * The context of choosing service instance for an invocation, which is attached to {@link Request} as a tag.
+ * On retry, instances that have failed are excluded and a new instance is chosen.
+ *
+ * @author 陈添明
+ */
+public final class ServiceInstanceContext {
+
+    private final String serviceId;
+
+    private final ServiceInstanceChooser serviceInstanceChooser;
+
+    private final String hashKey;
+
+    private final Set<URI> excludedInstances = new LinkedHashSet<>();
+
+    private URI instance;
+
+    public ServiceInstanceContext(String serviceId, ServiceInstanceChooser serviceInstanceChooser) {
+        this(serviceId, serviceInstanceChooser, null);
+    }
+
+    public ServiceInstanceContext(String serviceId, ServiceInstanceChooser serviceInstanceChooser, String hashKey) {
+        this.serviceId = serviceId;
+        this.serviceInstanceChooser = serviceInstanceChooser;
+        this.hashKey = hashKey;
+    }
+
+    /**
+     * 选择服务实例，并将请求地址改写为该实例。选中的实例以{@code URI.class}为key附加在请求上，对冲请求并发选择实例时也能区分各个请求的实例
+     *
+     * @param request 原始请求
+     * @return 改写后的请求
+     */
+    public Request choose(Request request) {
+        instance = serviceInstanceChooser.choose(serviceId, hashKey, Collections.unmodifiableSet(excludedInstances));
+        HttpUrl newUrl = request.url().newBuilder()
+                .scheme(instance.getScheme())
+                .host(instance.getHost())
+                .port(instance.getPort())
+                .build();
+        return request.newBuilder()
+                .url(newUrl)
+                .tag(ServiceInstanceContext.class, this)
+                .tag(URI.class, instance)
+                .build();
+    }
+
+    /**
+     * 排除当前实例，重新选择服务实例
+     *
+     * @param request 上一次的请求
+     * @return 改写后的请求
+     */
+    public Request rechoose(Request request) {
+        if (instance != null) {
+            excludedInstances.add(instance);
+        }
+        return choose(request);
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    public String getHashKey() {
+        return hashKey;
+    }
+
+    public URI getInstance() {
+        return instance;
+    }
+
+    public Set<URI> getExcludedInstances() {
+        return Collections.unmodifiableSet(excludedInstances);
+    }
+}
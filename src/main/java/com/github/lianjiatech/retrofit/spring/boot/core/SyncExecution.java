@@ -0,0 +1,105 @@
+package com.github.lianjiatech.retrofit.spring.boot.core;
+
+import java.io.IOException;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Timeout;
+
+/**
+ * 记录当前线程是否正在同步执行{@link RetrofitCallFactory}创建的调用。
+ * 同步调用的拦截器运行在发起调用的线程中，可以阻塞等待，抛出的运行时异常直接传给调用方；
+ * 其他请求（组件内置的异步调用、对冲请求以及直接通过{@link Call#enqueue(Callback)}发起的调用）运行在OkHttp调度线程中，
+ * 不能阻塞等待，运行时异常需要包装成IOException，否则OkHttp会在调度线程中重新抛出该异常，导致调度线程退出。
+ * <p>
+ * Records whether the current thread is synchronously executing a call created by {@link RetrofitCallFactory}.
+ * Interceptors of a synchronous call run on the calling thread, so they may block and runtime exceptions reach the
+ * caller directly. Other requests (builtin asynchronous calls, hedged requests and calls started by
+ * {@link Call#enqueue(Callback)}) run on an OkHttp dispatcher thread, so they must not block, and runtime exceptions
+ * have to be wrapped into an IOException, otherwise OkHttp rethrows them on the dispatcher thread, which terminates it.
+ *
+ * @author 陈添明
+ */
+public final class SyncExecution {
+
+    private static final ThreadLocal<Boolean> EXECUTING = new ThreadLocal<>();
+
+    private SyncExecution() {}
+
+    /**
+     * 请求是否运行在OkHttp调度线程中
+     *
+     * @param request 请求
+     * @return 异步调用或者不在发起调用的线程中执行时为true
+     */
+    public static boolean isAsync(Request request) {
+        InvocationContext invocationContext = request.tag(InvocationContext.class);
+        if (invocationContext != null && invocationContext.isAsync()) {
+            return true;
+        }
+        return EXECUTING.get() == null;
+    }
+
+    static Call wrap(Call call) {
+        return new SyncMarkedCall(call);
+    }
+
+    private static final class SyncMarkedCall implements Call {
+
+        private final Call delegate;
+
+        private SyncMarkedCall(Call delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Request request() {
+            return delegate.request();
+        }
+
+        @Override
+        public Response execute() throws IOException {
+            if (EXECUTING.get() != null) {
+                return delegate.execute();
+            }
+            EXECUTING.set(Boolean.TRUE);
+            try {
+                return delegate.execute();
+            } finally {
+                EXECUTING.remove();
+            }
+        }
+
+        @Override
+        public void enqueue(Callback responseCallback) {
+            delegate.enqueue(responseCallback);
+        }
+
+        @Override
+        public void cancel() {
+            delegate.cancel();
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return delegate.isExecuted();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return delegate.isCanceled();
+        }
+
+        @Override
+        public Timeout timeout() {
+            return delegate.timeout();
+        }
+
+        @Override
+        public Call clone() {
+            return new SyncMarkedCall(delegate.clone());
+        }
+    }
+}
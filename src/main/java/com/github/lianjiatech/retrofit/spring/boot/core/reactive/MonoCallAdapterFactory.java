@@ -4,11 +4,19 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 
+import com.github.lianjiatech.retrofit.spring.boot.core.AsyncCallSupport;
 import com.github.lianjiatech.retrofit.spring.boot.core.InternalCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.core.InvocationContext;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.DeadlineContext;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.InvocationDeadline;
+import com.github.lianjiatech.retrofit.spring.boot.fairqueue.TenantContext;
+import com.github.lianjiatech.retrofit.spring.boot.priority.PriorityContext;
+import com.github.lianjiatech.retrofit.spring.boot.priority.PriorityLevel;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.MonoSink;
+import reactor.util.context.Context;
 import retrofit2.Call;
 import retrofit2.CallAdapter;
 import retrofit2.Callback;
@@ -51,6 +59,18 @@ public class MonoCallAdapterFactory extends CallAdapter.Factory implements Inter
         return new ResponseCallAdapter<>(responseType);
     }
 
+    /**
+     * 在Reactor Context携带的截止时间、优先级以及租户下发起异步调用
+     */
+    private static <R> InvocationContext enqueue(MonoSink<?> monoSink, Call<R> call, Callback<R> callback) {
+        Context context = monoSink.currentContext();
+        InvocationDeadline deadline = context.getOrDefault(DeadlineContext.REACTOR_CONTEXT_KEY, null);
+        PriorityLevel priority = context.getOrDefault(PriorityContext.REACTOR_CONTEXT_KEY, null);
+        String tenant = context.getOrDefault(TenantContext.REACTOR_CONTEXT_KEY, null);
+        return TenantContext.call(tenant, () -> PriorityContext.call(priority,
+                () -> DeadlineContext.call(deadline, () -> AsyncCallSupport.enqueue(call, callback))));
+    }
+
     private static class BodyCallAdapter<R> implements CallAdapter<R, Mono<R>> {
 
         private final Type responseType;
@@ -66,7 +86,10 @@ public class MonoCallAdapterFactory extends CallAdapter.Factory implements Inter
 
         @Override
         public Mono<R> adapt(Call<R> call) {
-            return Mono.create(monoSink -> call.enqueue(new BodyCallback(monoSink)));
+            return Mono.create(monoSink -> {
+                InvocationContext invocationContext = enqueue(monoSink, call, new BodyCallback(monoSink));
+                monoSink.onCancel(invocationContext::cancel);
+            });
         }
 
         private class BodyCallback implements Callback<R> {
@@ -109,7 +132,10 @@ public class MonoCallAdapterFactory extends CallAdapter.Factory implements Inter
 
         @Override
         public Mono<Response<R>> adapt(Call<R> call) {
-            return Mono.create(monoSink -> call.enqueue(new ResponseCallback(monoSink)));
+            return Mono.create(monoSink -> {
+                InvocationContext invocationContext = enqueue(monoSink, call, new ResponseCallback(monoSink));
+                monoSink.onCancel(invocationContext::cancel);
+            });
         }
 
         private class ResponseCallback implements Callback<R> {
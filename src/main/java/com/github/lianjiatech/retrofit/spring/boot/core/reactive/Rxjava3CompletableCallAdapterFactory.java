@@ -3,7 +3,9 @@ package com.github.lianjiatech.retrofit.spring.boot.core.reactive;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 
+import com.github.lianjiatech.retrofit.spring.boot.core.AsyncCallSupport;
 import com.github.lianjiatech.retrofit.spring.boot.core.InternalCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.core.InvocationContext;
 import io.reactivex.rxjava3.annotations.NonNull;
 import io.reactivex.rxjava3.core.Completable;
 import io.reactivex.rxjava3.core.CompletableEmitter;
@@ -42,7 +44,10 @@ public class Rxjava3CompletableCallAdapterFactory extends CallAdapter.Factory im
 
         @Override
         public Completable adapt(Call<R> call) {
-            return Completable.create(emitter -> call.enqueue(new NonBodyCallBack(emitter)));
+            return Completable.create(emitter -> {
+                InvocationContext invocationContext = AsyncCallSupport.enqueue(call, new NonBodyCallBack(emitter));
+                emitter.setCancellable(invocationContext::cancel);
+            });
         }
 
         private class NonBodyCallBack implements Callback<R> {
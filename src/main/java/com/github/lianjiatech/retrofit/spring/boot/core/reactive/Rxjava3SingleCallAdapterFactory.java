@@ -4,7 +4,9 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 
+import com.github.lianjiatech.retrofit.spring.boot.core.AsyncCallSupport;
 import com.github.lianjiatech.retrofit.spring.boot.core.InternalCallAdapterFactory;
+import com.github.lianjiatech.retrofit.spring.boot.core.InvocationContext;
 import io.reactivex.rxjava3.annotations.NonNull;
 import io.reactivex.rxjava3.core.Single;
 import io.reactivex.rxjava3.core.SingleEmitter;
@@ -68,7 +70,10 @@ public class Rxjava3SingleCallAdapterFactory extends CallAdapter.Factory impleme
         @Override
         public Single<R> adapt(Call<R> call) {
 
-            return Single.create(emitter -> call.enqueue(new BodyCallBack(emitter)));
+            return Single.create(emitter -> {
+                InvocationContext invocationContext = AsyncCallSupport.enqueue(call, new BodyCallBack(emitter));
+                emitter.setCancellable(invocationContext::cancel);
+            });
         }
 
         private class BodyCallBack implements Callback<R> {
@@ -110,7 +115,10 @@ public class Rxjava3SingleCallAdapterFactory extends CallAdapter.Factory impleme
 
         @Override
         public Single<Response<R>> adapt(Call<R> call) {
-            return Single.create(emitter -> call.enqueue(new ResponseCallBack(emitter)));
+            return Single.create(emitter -> {
+                InvocationContext invocationContext = AsyncCallSupport.enqueue(call, new ResponseCallBack(emitter));
+                emitter.setCancellable(invocationContext::cancel);
+            });
         }
 
         private class ResponseCallBack implements Callback<R> {
@@ -0,0 +1,32 @@
+package com.github.lianjiatech.retrofit.spring.boot.deadline;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 调用的截止时间，从发起调用开始计算，所有重试共享。如果调用方已经通过{@link DeadlineContext}设置了更早的截止时间，以更早的为准。
+ * <p>
+ * The deadline of the invocation, counted from the start of the invocation and shared by all retries.
+ * If the caller has set an earlier deadline through {@link DeadlineContext}, the earlier one wins.
+ *
+ * @author 陈添明
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Documented
+@Inherited
+public @interface Deadline {
+
+    /**
+     * 调用的总超时时间
+     * <p>
+     * The total timeout of the invocation
+     *
+     * @return 总超时时间；The total timeout
+     */
+    int timeoutMs();
+}
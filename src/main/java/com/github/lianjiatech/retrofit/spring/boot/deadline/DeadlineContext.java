@@ -0,0 +1,83 @@
+package com.github.lianjiatech.retrofit.spring.boot.deadline;
+
+import java.util.function.Supplier;
+
+import org.springframework.util.StringUtils;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * 在当前线程上设置调用的截止时间，期间发起的所有HTTP调用都受该截止时间约束。
+ * 对于返回{@code Mono}的方法，也可以将{@link InvocationDeadline}以{@link #REACTOR_CONTEXT_KEY}为key写入Reactor Context。
+ * <p>
+ * Set the deadline of invocations on the current thread, all HTTP calls made in the meantime are bound by it.
+ * For methods returning {@code Mono}, {@link InvocationDeadline} can also be written into the Reactor Context
+ * with the key {@link #REACTOR_CONTEXT_KEY}.
+ *
+ * @author 陈添明
+ */
+@UtilityClass
+public class DeadlineContext {
+
+    public static final Class<InvocationDeadline> REACTOR_CONTEXT_KEY = InvocationDeadline.class;
+
+    private static final ThreadLocal<InvocationDeadline> CURRENT = new ThreadLocal<>();
+
+    public static InvocationDeadline current() {
+        return CURRENT.get();
+    }
+
+    public static void set(InvocationDeadline deadline) {
+        if (deadline == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(deadline);
+        }
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 在指定截止时间内执行，执行完成后恢复之前的截止时间
+     *
+     * @param deadline 截止时间
+     * @param supplier 执行逻辑
+     * @param <T> 返回值类型
+     * @return 执行结果
+     */
+    public static <T> T call(InvocationDeadline deadline, Supplier<T> supplier) {
+        InvocationDeadline previous = CURRENT.get();
+        set(InvocationDeadline.earliest(previous, deadline));
+        try {
+            return supplier.get();
+        } finally {
+            set(previous);
+        }
+    }
+
+    public static void run(InvocationDeadline deadline, Runnable runnable) {
+        call(deadline, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * 解析上游请求携带的剩余时间请求头，参见{@link GlobalDeadlineProperty#getHeaderName()}
+     *
+     * @param remainingMs 剩余时间请求头的值
+     * @return 截止时间，请求头不存在或者非法时返回null
+     */
+    public static InvocationDeadline fromHeader(String remainingMs) {
+        if (!StringUtils.hasText(remainingMs)) {
+            return null;
+        }
+        try {
+            return InvocationDeadline.after(Long.parseLong(remainingMs.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.lianjiatech.retrofit.spring.boot.deadline;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.StringUtils;
+
+import com.github.lianjiatech.retrofit.spring.boot.exception.DeadlineExceededException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 每次请求（包括重试）前，将连接、读、写超时缩短为调用剩余的时间，并通过请求头将剩余时间传递给下游服务。
+ * <p>
+ * Before each request (including retries), shrink the connect, read and write timeouts to the remaining time of
+ * the invocation, and pass the remaining time to the downstream service through the request header.
+ *
+ * @author 陈添明
+ */
+public class DeadlineInterceptor implements Interceptor {
+
+    protected final GlobalDeadlineProperty globalDeadlineProperty;
+
+    public DeadlineInterceptor(GlobalDeadlineProperty globalDeadlineProperty) {
+        this.globalDeadlineProperty = globalDeadlineProperty;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        InvocationDeadline deadline = request.tag(InvocationDeadline.class);
+        if (deadline == null) {
+            return chain.proceed(request);
+        }
+        long remainingMs = deadline.remainingMs();
+        if (remainingMs <= 0) {
+            throw new DeadlineExceededException("Deadline exceeded before sending request " + request.url());
+        }
+        String headerName = globalDeadlineProperty.getHeaderName();
+        if (StringUtils.hasText(headerName)) {
+            request = request.newBuilder()
+                    .header(headerName, String.valueOf(remainingMs))
+                    .build();
+        }
+        int timeoutMs = (int)Math.min(Integer.MAX_VALUE, remainingMs);
+        return chain.withConnectTimeout(shrink(chain.connectTimeoutMillis(), timeoutMs), TimeUnit.MILLISECONDS)
+                .withReadTimeout(shrink(chain.readTimeoutMillis(), timeoutMs), TimeUnit.MILLISECONDS)
+                .withWriteTimeout(shrink(chain.writeTimeoutMillis(), timeoutMs), TimeUnit.MILLISECONDS)
+                .proceed(request);
+    }
+
+    private static int shrink(int timeoutMs, int remainingMs) {
+        // 0表示不超时
+        return timeoutMs == 0 ? remainingMs : Math.min(timeoutMs, remainingMs);
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.lianjiatech.retrofit.spring.boot.deadline;
+
+import lombok.Data;
+
+/**
+ * 全局截止时间配置
+ * @author 陈添明
+ */
+@Data
+public class GlobalDeadlineProperty {
+
+    /**
+     * 全局调用截止时间，从发起调用开始计算，所有重试共享。小于等于0表示不限制。
+     * The global deadline of invocations, counted from the start of the invocation and shared by all retries.
+     * Less than or equal to 0 means no limit.
+     */
+    private int timeoutMs = 0;
+
+    /**
+     * 传递剩余时间（毫秒）的请求头，为空表示不传递
+     * The request header carrying the remaining time in milliseconds, empty means not to propagate
+     */
+    private String headerName = "X-Request-Timeout-Ms";
+}
@@ -0,0 +1,83 @@
+package com.github.lianjiatech.retrofit.spring.boot.deadline;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 调用的截止时间
+ * <p>
+ * The deadline of an invocation
+ *
+ * @author 陈添明
+ */
+public final class InvocationDeadline {
+
+    /**
+     * 基于{@link System#nanoTime()}的截止时间点，系统时钟调整（例如NTP校时）不会影响剩余时间
+     */
+    private final long deadlineNanos;
+
+    private InvocationDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * 从现在开始，经过指定时间后截止
+     *
+     * @param timeoutMs 超时时间
+     * @return 截止时间
+     */
+    public static InvocationDeadline after(long timeoutMs) {
+        return new InvocationDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMs)));
+    }
+
+    /**
+     * 在指定的时间点截止。时间点在创建时换算为剩余时间，之后的系统时钟调整不再影响该截止时间
+     *
+     * @param deadlineMs 截止时间点（墙上时间），单位毫秒
+     * @return 截止时间
+     */
+    public static InvocationDeadline at(long deadlineMs) {
+        return after(deadlineMs - System.currentTimeMillis());
+    }
+
+    /**
+     * 取两个截止时间中更早的一个
+     *
+     * @param a 截止时间，可以为null
+     * @param b 截止时间，可以为null
+     * @return 更早的截止时间
+     */
+    public static InvocationDeadline earliest(InvocationDeadline a, InvocationDeadline b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        // nanoTime可能溢出，只能比较差值
+        return a.deadlineNanos - b.deadlineNanos <= 0 ? a : b;
+    }
+
+    /**
+     * @return 截止时间点换算成的墙上时间，单位毫秒
+     */
+    public long getDeadlineMs() {
+        return System.currentTimeMillis() + remainingMs();
+    }
+
+    /**
+     * @return 剩余时间，已截止时返回0
+     */
+    public long remainingMs() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    @Override
+    public String toString() {
+        return "InvocationDeadline{remainingMs=" + remainingMs() + "}";
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.lianjiatech.retrofit.spring.boot.degrade;
+
+import java.io.IOException;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.SyncExecution;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * 运行在OkHttp调度线程中的调用（参见{@link SyncExecution}）被熔断时，把{@link RetrofitBlockException}包装成IOException。
+ * OkHttp在异步调用的拦截器抛出运行时异常时，除了回调失败之外还会在调度线程中重新抛出该异常，导致调度线程退出。
+ * 包装后异常只通过回调传递，{@link DegradeProxy}会从cause中找到熔断异常并执行降级逻辑。
+ * <p>
+ * Wraps {@link RetrofitBlockException} into an IOException when a call running on an OkHttp dispatcher thread (see
+ * {@link SyncExecution}) is blocked.
+ * For asynchronous calls OkHttp rethrows runtime exceptions thrown by interceptors on the dispatcher thread
+ * after failing the callback, which terminates the dispatcher thread. Once wrapped, the exception is only
+ * delivered through the callback, and {@link DegradeProxy} finds the block exception in the cause to run the fallback.
+ *
+ * @author 陈添明
+ */
+public class AsyncBlockExceptionInterceptor implements Interceptor {
+
+    public static final AsyncBlockExceptionInterceptor INSTANCE = new AsyncBlockExceptionInterceptor();
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        try {
+            return chain.proceed(chain.request());
+        } catch (RetrofitBlockException e) {
+            if (SyncExecution.isAsync(chain.request())) {
+                throw new IOException("blocked due to " + e, e);
+            }
+            throw e;
+        }
+    }
+}
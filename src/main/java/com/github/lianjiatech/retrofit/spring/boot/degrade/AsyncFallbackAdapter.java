@@ -0,0 +1,31 @@
+package com.github.lianjiatech.retrofit.spring.boot.degrade;
+
+import java.util.function.Function;
+
+/**
+ * 异步返回类型的降级适配器。熔断异常会在异步结果中出现，而不是在方法调用时同步抛出，因此需要在异步结果上挂载降级逻辑。
+ * <p>
+ * Fallback adapter of asynchronous return types. The block exception surfaces inside the asynchronous result
+ * instead of being thrown when the method is invoked, so the fallback has to be attached to the asynchronous result.
+ *
+ * @author 陈添明
+ */
+public interface AsyncFallbackAdapter {
+
+    /**
+     * 是否支持指定的方法返回类型
+     *
+     * @param returnType 方法返回类型
+     * @return 是否支持
+     */
+    boolean supports(Class<?> returnType);
+
+    /**
+     * 在异步结果上挂载降级逻辑，不会阻塞当前线程
+     *
+     * @param result 原始异步结果
+     * @param fallback 根据异常获取降级方法的异步结果，返回null表示不降级，原样传递异常
+     * @return 挂载了降级逻辑的异步结果
+     */
+    Object withFallback(Object result, Function<Throwable, Object> fallback);
+}
@@ -0,0 +1,51 @@
+package com.github.lianjiatech.retrofit.spring.boot.degrade;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.util.ClassUtils;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * 内置的异步降级适配器，只注册classpath中存在的响应式类库对应的适配器
+ *
+ * @author 陈添明
+ */
+@UtilityClass
+public class AsyncFallbackAdapters {
+
+    private static final List<AsyncFallbackAdapter> ADAPTERS = createAdapters();
+
+    private static List<AsyncFallbackAdapter> createAdapters() {
+        ClassLoader classLoader = AsyncFallbackAdapters.class.getClassLoader();
+        List<AsyncFallbackAdapter> adapters = new ArrayList<>(4);
+        adapters.add(new CompletableFutureFallbackAdapter());
+        if (ClassUtils.isPresent("reactor.core.publisher.Mono", classLoader)) {
+            adapters.add(new MonoFallbackAdapter());
+        }
+        if (ClassUtils.isPresent("io.reactivex.Single", classLoader)) {
+            adapters.add(new Rxjava2FallbackAdapter());
+        }
+        if (ClassUtils.isPresent("io.reactivex.rxjava3.core.Single", classLoader)) {
+            adapters.add(new Rxjava3FallbackAdapter());
+        }
+        return Collections.unmodifiableList(adapters);
+    }
+
+    /**
+     * 获取指定返回类型的异步降级适配器
+     *
+     * @param returnType 方法返回类型
+     * @return 异步降级适配器，同步返回类型返回null
+     */
+    public static AsyncFallbackAdapter find(Class<?> returnType) {
+        for (AsyncFallbackAdapter adapter : ADAPTERS) {
+            if (adapter.supports(returnType)) {
+                return adapter;
+            }
+        }
+        return null;
+    }
+}
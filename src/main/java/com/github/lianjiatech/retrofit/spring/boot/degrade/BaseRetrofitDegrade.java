@@ -9,6 +9,8 @@ import org.springframework.context.EnvironmentAware;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.env.Environment;
 
+import com.github.lianjiatech.retrofit.spring.boot.core.InvocationContext;
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodPolicy;
 import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
 import com.github.lianjiatech.retrofit.spring.boot.util.RetrofitUtils;
 
@@ -39,10 +41,45 @@ public abstract class BaseRetrofitDegrade implements RetrofitDegrade, ResourceNa
         return resourceName;
     }
 
+    /**
+     * 优先使用调用策略中已解析的资源名称
+     *
+     * @param methodPolicy 调用策略
+     * @return 资源名称
+     */
+    protected String parseResourceName(MethodPolicy methodPolicy) {
+        String resourceName = methodPolicy.getResourceName();
+        if (resourceName != null) {
+            return resourceName;
+        }
+        return parseResourceName(methodPolicy.getMethod());
+    }
+
     protected String formatResourceName(String baseUrl, HttpMethodPath httpMethodPath) {
         return String.format("%s:%s:%s", HTTP_OUT, httpMethodPath.getMethod(), baseUrl + httpMethodPath.getPath());
     }
 
+    /**
+     * 异步调用已经安排了重试时，本次结果会被丢弃，不计入熔断统计，调用只按最后一次请求的结果计数
+     *
+     * @param invocationContext 调用上下文，可以为null
+     * @return 是否已经安排了重试
+     */
+    protected boolean isRetryScheduled(InvocationContext invocationContext) {
+        return invocationContext != null && invocationContext.isRetryScheduled();
+    }
+
+    /**
+     * 舱壁隔离、自适应限流、并发限制以及客户端限流等本地拦截器拒绝的请求没有发送到下游，不计入熔断统计。
+     * 异步调用被拒绝时，{@link RetrofitBlockException}被包装成IOException的cause
+     *
+     * @param throwable 请求抛出的异常
+     * @return 是否为本地拒绝
+     */
+    protected boolean isLocalBlock(Throwable throwable) {
+        return throwable instanceof RetrofitBlockException || throwable.getCause() instanceof RetrofitBlockException;
+    }
+
     protected boolean isDefaultOrStatic(Method method) {
         if (method.isDefault()) {
             return true;
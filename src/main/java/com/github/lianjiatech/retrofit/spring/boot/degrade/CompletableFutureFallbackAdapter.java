@@ -0,0 +1,54 @@
+package com.github.lianjiatech.retrofit.spring.boot.degrade;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * {@link CompletableFuture}降级适配器。取消返回的future时会同时取消原始调用
+ *
+ * @author 陈添明
+ */
+class CompletableFutureFallbackAdapter implements AsyncFallbackAdapter {
+
+    @Override
+    public boolean supports(Class<?> returnType) {
+        return returnType == CompletableFuture.class;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object withFallback(Object result, Function<Throwable, Object> fallback) {
+        CompletableFuture<Object> source = (CompletableFuture<Object>)result;
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        source.whenComplete((value, throwable) -> {
+            if (throwable == null) {
+                future.complete(value);
+                return;
+            }
+            CompletableFuture<Object> fallbackFuture;
+            try {
+                fallbackFuture = (CompletableFuture<Object>)fallback.apply(throwable);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+                return;
+            }
+            if (fallbackFuture == null) {
+                future.completeExceptionally(throwable);
+                return;
+            }
+            fallbackFuture.whenComplete((fallbackValue, fallbackThrowable) -> {
+                if (fallbackThrowable == null) {
+                    future.complete(fallbackValue);
+                } else {
+                    future.completeExceptionally(fallbackThrowable);
+                }
+            });
+        });
+        future.whenComplete((value, throwable) -> {
+            if (future.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        return future;
+    }
+}
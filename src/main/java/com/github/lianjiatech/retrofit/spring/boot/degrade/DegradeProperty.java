@@ -2,6 +2,7 @@ package com.github.lianjiatech.retrofit.spring.boot.degrade;
 
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
 
+import com.github.lianjiatech.retrofit.spring.boot.degrade.builtin.GlobalBuiltinDegradeProperty;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.resilience4j.GlobalResilience4jDegradeProperty;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.sentinel.GlobalSentinelDegradeProperty;
 
@@ -29,4 +30,10 @@ public class DegradeProperty {
      */
     @NestedConfigurationProperty
     private GlobalResilience4jDegradeProperty globalResilience4jDegrade = new GlobalResilience4jDegradeProperty();
+
+    /**
+     * 全局内置熔断器降级配置
+     */
+    @NestedConfigurationProperty
+    private GlobalBuiltinDegradeProperty globalBuiltinDegrade = new GlobalBuiltinDegradeProperty();
 }
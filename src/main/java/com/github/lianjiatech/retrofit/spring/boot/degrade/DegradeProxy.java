@@ -1,8 +1,13 @@
 package com.github.lianjiatech.retrofit.spring.boot.degrade;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.context.ApplicationContext;
 import org.springframework.core.annotation.AnnotatedElementUtils;
@@ -10,17 +15,31 @@ import org.springframework.core.annotation.AnnotatedElementUtils;
 import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
 
 /**
+ * 熔断降级代理。每个接口方法只解析一次，之后通过预先绑定的{@link MethodHandle}调用原始实例和降级实例，避免反射调用的开销以及异常包装。
+ * <p>
+ * Degrade proxy. Each interface method is resolved once and then dispatched to the source and fallback instances through
+ * pre-bound {@link MethodHandle}s, avoiding the overhead and exception wrapping of reflective invocation.
+ *
  * @author 陈添明
  * @since 2022/4/30 2:27 下午
  */
 public class DegradeProxy implements InvocationHandler {
 
+    private static final Object[] EMPTY_ARGS = new Object[0];
+
     private final Object source;
 
     private final Object fallback;
 
     private final FallbackFactory<?> fallbackFactory;
 
+    private final Map<Method, MethodDispatcher> dispatchers = new ConcurrentHashMap<>();
+
+    /**
+     * {@link FallbackFactory#isCacheable()}为true时，按熔断原因类型缓存的降级实例
+     */
+    private final Map<Class<?>, Object> fallbackCache = new ConcurrentHashMap<>();
+
     @SuppressWarnings("unchecked")
     public static <T> T create(Object source, Class<T> retrofitInterface, ApplicationContext applicationContext) {
         RetrofitClient retrofitClient =
@@ -48,19 +67,98 @@ public class DegradeProxy implements InvocationHandler {
 
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        MethodDispatcher dispatcher = getDispatcher(method);
+        Object[] arguments = args == null ? EMPTY_ARGS : args;
+        Object result;
         try {
-            return method.invoke(source, args);
-        } catch (Throwable e) {
-            Throwable cause = e.getCause();
+            result = (Object)dispatcher.sourceHandle.invokeExact(arguments);
+        } catch (RetrofitBlockException e) {
             // 熔断逻辑
-            if (cause instanceof RetrofitBlockException) {
-                Object fallbackObject = getFallbackObject(cause);
-                if (fallbackObject != null) {
-                    return method.invoke(fallbackObject, args);
+            Object fallbackObject = getFallbackObject(e);
+            if (fallbackObject != null) {
+                return (Object)dispatcher.fallbackHandle.invokeExact(fallbackObject, arguments);
+            }
+            throw e;
+        }
+        if (result == null || dispatcher.asyncFallbackAdapter == null) {
+            return result;
+        }
+        // 异步返回类型的熔断异常在异步结果中出现，在异步结果上挂载降级逻辑
+        return dispatcher.asyncFallbackAdapter.withFallback(result,
+                e -> invokeAsyncFallback(dispatcher, arguments, e));
+    }
+
+    private MethodDispatcher getDispatcher(Method method) {
+        MethodDispatcher dispatcher = dispatchers.get(method);
+        if (dispatcher != null) {
+            return dispatcher;
+        }
+        return dispatchers.computeIfAbsent(method, this::createDispatcher);
+    }
+
+    private MethodDispatcher createDispatcher(Method method) {
+        MethodHandle handle = unreflect(method);
+        // (Interface, P1...Pn)R -> (Object, Object[])Object
+        MethodHandle fallbackHandle =
+                handle.asType(handle.type().generic()).asSpreader(Object[].class, method.getParameterCount());
+        AsyncFallbackAdapter asyncFallbackAdapter = fallback == null && fallbackFactory == null ? null
+                : AsyncFallbackAdapters.find(method.getReturnType());
+        return new MethodDispatcher(fallbackHandle.bindTo(source), fallbackHandle, asyncFallbackAdapter);
+    }
+
+    private static MethodHandle unreflect(Method method) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            return lookup.unreflect(method);
+        } catch (IllegalAccessException e) {
+            // 非public接口
+            method.setAccessible(true);
+            try {
+                return lookup.unreflect(method);
+            } catch (IllegalAccessException ex) {
+                throw new IllegalStateException("Cannot access method " + method, ex);
+            }
+        }
+    }
+
+    private Object invokeAsyncFallback(MethodDispatcher dispatcher, Object[] args, Throwable e) {
+        RetrofitBlockException blockException = findBlockException(e);
+        if (blockException == null) {
+            return null;
+        }
+        Object fallbackObject = getFallbackObject(blockException);
+        if (fallbackObject == null) {
+            return null;
+        }
+        try {
+            return (Object)dispatcher.fallbackHandle.invokeExact(fallbackObject, args);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new UndeclaredThrowableException(ex);
+        }
+    }
+
+    /**
+     * 查找异步调用失败原因中的熔断异常。熔断异常可能被{@link AsyncBlockExceptionInterceptor}包装在cause中，
+     * 也可能被OkHttp包装成"canceled due to"的IOException，原始异常在suppressed中。
+     * <p>
+     * Find the block exception in the failure of an asynchronous call. It may be wrapped as the cause by
+     * {@link AsyncBlockExceptionInterceptor}, or wrapped by OkHttp into a "canceled due to" IOException as a suppressed exception.
+     */
+    static RetrofitBlockException findBlockException(Throwable e) {
+        for (int depth = 0; e != null && depth < 8; depth++) {
+            if (e instanceof RetrofitBlockException) {
+                return (RetrofitBlockException)e;
+            }
+            for (Throwable suppressed : e.getSuppressed()) {
+                if (suppressed instanceof RetrofitBlockException) {
+                    return (RetrofitBlockException)suppressed;
                 }
             }
-            throw cause;
+            e = e.getCause();
         }
+        return null;
     }
 
     private Object getFallbackObject(Throwable cause) {
@@ -69,8 +167,42 @@ public class DegradeProxy implements InvocationHandler {
         }
 
         if (fallbackFactory != null) {
-            return fallbackFactory.create(cause);
+            if (!fallbackFactory.isCacheable()) {
+                return fallbackFactory.create(cause);
+            }
+            // 同一类型的熔断原因复用降级实例，避免熔断期间每次调用都创建新实例
+            Class<?> causeType = cause.getCause() == null ? cause.getClass() : cause.getCause().getClass();
+            Object fallbackObject = fallbackCache.get(causeType);
+            if (fallbackObject != null) {
+                return fallbackObject;
+            }
+            return fallbackCache.computeIfAbsent(causeType, type -> fallbackFactory.create(cause));
         }
         return null;
     }
+
+    private static final class MethodDispatcher {
+
+        /**
+         * 绑定了原始实例的方法句柄，类型为(Object[])Object
+         */
+        private final MethodHandle sourceHandle;
+
+        /**
+         * 第一个参数为降级实例的方法句柄，类型为(Object, Object[])Object
+         */
+        private final MethodHandle fallbackHandle;
+
+        /**
+         * 同步返回类型或者未配置降级时为null
+         */
+        private final AsyncFallbackAdapter asyncFallbackAdapter;
+
+        private MethodDispatcher(MethodHandle sourceHandle, MethodHandle fallbackHandle,
+                AsyncFallbackAdapter asyncFallbackAdapter) {
+            this.sourceHandle = sourceHandle;
+            this.fallbackHandle = fallbackHandle;
+            this.asyncFallbackAdapter = asyncFallbackAdapter;
+        }
+    }
 }
@@ -13,4 +13,18 @@ public interface FallbackFactory<T> {
      * @return 实现了retrofit接口的实例。an instance that implements the retrofit interface.
      */
     T create(Throwable cause);
+
+    /**
+     * 相同类型的熔断原因是否可以复用{@link #create(Throwable)}返回的实例。
+     * 返回true时，每种熔断原因类型只调用一次create，熔断期间不会为每次调用创建新实例；此时create不应保存cause中和单次调用相关的信息。
+     * <p>
+     * Whether the instance returned by {@link #create(Throwable)} can be reused for causes of the same type.
+     * When true, create is called once per cause type instead of once per blocked call,
+     * so the instance should not keep per-call details of the cause.
+     *
+     * @return 是否可以复用降级实例
+     */
+    default boolean isCacheable() {
+        return false;
+    }
 }
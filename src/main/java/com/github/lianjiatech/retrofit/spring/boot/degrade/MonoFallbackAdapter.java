@@ -0,0 +1,27 @@
+package com.github.lianjiatech.retrofit.spring.boot.degrade;
+
+import java.util.function.Function;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link Mono}降级适配器
+ *
+ * @author 陈添明
+ */
+class MonoFallbackAdapter implements AsyncFallbackAdapter {
+
+    @Override
+    public boolean supports(Class<?> returnType) {
+        return returnType == Mono.class;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object withFallback(Object result, Function<Throwable, Object> fallback) {
+        return ((Mono<Object>)result).onErrorResume(throwable -> {
+            Mono<Object> fallbackMono = (Mono<Object>)fallback.apply(throwable);
+            return fallbackMono == null ? Mono.error(throwable) : fallbackMono;
+        });
+    }
+}
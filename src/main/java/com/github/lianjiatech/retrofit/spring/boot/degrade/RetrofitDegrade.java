@@ -11,6 +11,7 @@ public interface RetrofitDegrade extends Interceptor {
     String NONE = "none";
     String SENTINEL = "sentinel";
     String RESILIENCE4J = "resilience4j";
+    String BUILTIN = "builtin";
 
     /**
      * 对于指定Retrofit接口，是否允许降级
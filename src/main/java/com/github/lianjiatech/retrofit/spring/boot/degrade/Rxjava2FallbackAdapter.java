@@ -0,0 +1,34 @@
+package com.github.lianjiatech.retrofit.spring.boot.degrade;
+
+import java.util.function.Function;
+
+import io.reactivex.Completable;
+import io.reactivex.Single;
+
+/**
+ * rxjava2 {@link Single}和{@link Completable}降级适配器
+ *
+ * @author 陈添明
+ */
+class Rxjava2FallbackAdapter implements AsyncFallbackAdapter {
+
+    @Override
+    public boolean supports(Class<?> returnType) {
+        return returnType == Single.class || returnType == Completable.class;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object withFallback(Object result, Function<Throwable, Object> fallback) {
+        if (result instanceof Completable) {
+            return ((Completable)result).onErrorResumeNext(throwable -> {
+                Completable fallbackCompletable = (Completable)fallback.apply(throwable);
+                return fallbackCompletable == null ? Completable.error(throwable) : fallbackCompletable;
+            });
+        }
+        return ((Single<Object>)result).onErrorResumeNext(throwable -> {
+            Single<Object> fallbackSingle = (Single<Object>)fallback.apply(throwable);
+            return fallbackSingle == null ? Single.error(throwable) : fallbackSingle;
+        });
+    }
+}
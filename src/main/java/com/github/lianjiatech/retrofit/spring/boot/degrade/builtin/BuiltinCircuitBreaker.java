@@ -0,0 +1,321 @@
+package com.github.lianjiatech.retrofit.spring.boot.degrade.builtin;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.lianjiatech.retrofit.spring.boot.util.SlidingWindowCounter;
+
+import lombok.Getter;
+
+/**
+ * 无锁熔断器。关闭状态下使用基于{@link LongAdder}分桶的滑动窗口统计失败率和慢调用比例，超过阈值时打开；
+ * 打开状态持续指定时长后转换为半开状态，放行固定数量的探测调用，探测调用全部完成后根据结果关闭或者重新打开。
+ * 状态转换通过对不可变状态对象的CAS完成，每次转换都会创建新的统计数据。
+ * <p>
+ * Lock-free circuit breaker. In the closed state the failure rate and slow call rate are counted by a sliding window
+ * of {@link LongAdder} buckets, and the breaker opens when a threshold is exceeded. After the wait duration the open
+ * breaker turns half-open and lets a fixed number of probe calls through, then closes or reopens according to their results.
+ * State transitions are CAS operations on immutable state objects, each transition starts with fresh statistics.
+ *
+ * @author 陈添明
+ */
+public class BuiltinCircuitBreaker {
+
+    private static final int BUCKET_COUNT = 10;
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    @Getter
+    private final String name;
+
+    private final double failureRateThreshold;
+
+    private final double slowCallRateThreshold;
+
+    private final long slowCallDurationMs;
+
+    private final int minimumNumberOfCalls;
+
+    private final long slidingWindowMs;
+
+    private final long waitDurationInOpenStateMs;
+
+    private final int permittedNumberOfCallsInHalfOpenState;
+
+    private final AtomicReference<Phase> phase;
+
+    private final LongAdder notPermittedCalls = new LongAdder();
+
+    public BuiltinCircuitBreaker(String name, BuiltinDegrade builtinDegrade) {
+        this(name, builtinDegrade.failureRateThreshold(), builtinDegrade.slowCallRateThreshold(),
+                builtinDegrade.slowCallDurationMs(), builtinDegrade.minimumNumberOfCalls(),
+                builtinDegrade.slidingWindowMs(), builtinDegrade.waitDurationInOpenStateMs(),
+                builtinDegrade.permittedNumberOfCallsInHalfOpenState());
+    }
+
+    public BuiltinCircuitBreaker(String name, GlobalBuiltinDegradeProperty property) {
+        this(name, property.getFailureRateThreshold(), property.getSlowCallRateThreshold(),
+                property.getSlowCallDurationMs(), property.getMinimumNumberOfCalls(), property.getSlidingWindowMs(),
+                property.getWaitDurationInOpenStateMs(), property.getPermittedNumberOfCallsInHalfOpenState());
+    }
+
+    public BuiltinCircuitBreaker(String name, double failureRateThreshold, double slowCallRateThreshold,
+            long slowCallDurationMs, int minimumNumberOfCalls, long slidingWindowMs, long waitDurationInOpenStateMs,
+            int permittedNumberOfCallsInHalfOpenState) {
+        if (slidingWindowMs <= 0 || permittedNumberOfCallsInHalfOpenState <= 0) {
+            throw new IllegalArgumentException(
+                    "slidingWindowMs and permittedNumberOfCallsInHalfOpenState must be positive");
+        }
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallDurationMs = slowCallDurationMs;
+        this.minimumNumberOfCalls = Math.max(1, minimumNumberOfCalls);
+        this.slidingWindowMs = slidingWindowMs;
+        this.waitDurationInOpenStateMs = waitDurationInOpenStateMs;
+        this.permittedNumberOfCallsInHalfOpenState = permittedNumberOfCallsInHalfOpenState;
+        this.phase = new AtomicReference<>(closed(System.currentTimeMillis()));
+    }
+
+    /**
+     * 尝试获取调用许可，获取成功后必须调用{@link #onSuccess(long)}或者{@link #onError(long)}记录调用结果。
+     * <p>
+     * Try to acquire a call permission, {@link #onSuccess(long)} or {@link #onError(long)} must be called once permitted.
+     *
+     * @return 是否允许调用
+     */
+    public boolean tryAcquirePermission() {
+        return tryAcquirePermission(System.currentTimeMillis());
+    }
+
+    public boolean tryAcquirePermission(long nowMs) {
+        for (;;) {
+            Phase current = phase.get();
+            switch (current.state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (nowMs - current.sinceMs < waitDurationInOpenStateMs) {
+                        notPermittedCalls.increment();
+                        return false;
+                    }
+                    phase.compareAndSet(current, halfOpen(nowMs));
+                    break;
+                default:
+                    if (current.permits.getAndDecrement() > 0) {
+                        return true;
+                    }
+                    notPermittedCalls.increment();
+                    return false;
+            }
+        }
+    }
+
+    /**
+     * 放弃已经获取的调用许可，不记录调用结果，例如异步调用已经安排了重试、本次结果会被丢弃时。
+     * <p>
+     * Release an acquired permission without recording a result, e.g. when an asynchronous call has scheduled a retry
+     * and the result of this request is discarded.
+     */
+    public void releasePermission() {
+        Phase current = phase.get();
+        if (current.state == State.HALF_OPEN) {
+            current.permits.incrementAndGet();
+        }
+    }
+
+    public void onSuccess(long durationMs) {
+        onResult(durationMs, false, System.currentTimeMillis());
+    }
+
+    public void onError(long durationMs) {
+        onResult(durationMs, true, System.currentTimeMillis());
+    }
+
+    public void onResult(long durationMs, boolean failed, long nowMs) {
+        Phase current = phase.get();
+        boolean slow = durationMs >= slowCallDurationMs;
+        if (current.state == State.CLOSED) {
+            current.window.record(failed, slow, nowMs);
+            Snapshot snapshot = current.window.snapshot(nowMs);
+            if (snapshot.getNumberOfCalls() >= minimumNumberOfCalls && exceedsThreshold(snapshot)) {
+                phase.compareAndSet(current, open(nowMs, snapshot));
+            }
+        } else if (current.state == State.HALF_OPEN) {
+            // 先记录失败和慢调用，再递增调用次数，保证最后一个完成的探测调用能看到全部结果
+            if (failed) {
+                current.failedCalls.incrementAndGet();
+            }
+            if (slow) {
+                current.slowCalls.incrementAndGet();
+            }
+            if (current.calls.incrementAndGet() == permittedNumberOfCallsInHalfOpenState) {
+                Snapshot snapshot = current.halfOpenSnapshot();
+                phase.compareAndSet(current, exceedsThreshold(snapshot) ? open(nowMs, snapshot) : closed(nowMs));
+            }
+        }
+        // 打开状态下完成的调用是在打开之前放行的，忽略其结果
+    }
+
+    public State getState() {
+        return phase.get().state;
+    }
+
+    /**
+     * 当前状态的统计数据。关闭状态下为滑动窗口内的数据，半开状态下为探测调用的数据，打开状态下为触发打开时的数据。
+     * <p>
+     * Statistics of the current state: the sliding window in closed state, the probe calls in half-open state,
+     * and the data that tripped the breaker in open state.
+     *
+     * @return 统计数据
+     */
+    public Snapshot getSnapshot() {
+        Phase current = phase.get();
+        switch (current.state) {
+            case CLOSED:
+                return current.window.snapshot(System.currentTimeMillis());
+            case OPEN:
+                return current.trippedSnapshot;
+            default:
+                return current.halfOpenSnapshot();
+        }
+    }
+
+    public double getFailureRate() {
+        return getSnapshot().getFailureRate();
+    }
+
+    public double getSlowCallRate() {
+        return getSnapshot().getSlowCallRate();
+    }
+
+    public long getNotPermittedCalls() {
+        return notPermittedCalls.sum();
+    }
+
+    private boolean exceedsThreshold(Snapshot snapshot) {
+        return snapshot.getFailureRate() >= failureRateThreshold
+                || snapshot.getSlowCallRate() >= slowCallRateThreshold;
+    }
+
+    private Phase closed(long nowMs) {
+        return new Phase(State.CLOSED, nowMs, new Window(slidingWindowMs), null, 0);
+    }
+
+    private Phase open(long nowMs, Snapshot trippedSnapshot) {
+        return new Phase(State.OPEN, nowMs, null, trippedSnapshot, 0);
+    }
+
+    private Phase halfOpen(long nowMs) {
+        return new Phase(State.HALF_OPEN, nowMs, null, null, permittedNumberOfCallsInHalfOpenState);
+    }
+
+    @Override
+    public String toString() {
+        return "BuiltinCircuitBreaker{name='" + name + "', state=" + getState() + ", snapshot=" + getSnapshot()
+                + ", notPermittedCalls=" + getNotPermittedCalls() + '}';
+    }
+
+    /**
+     * 不可变的状态对象，只有对应状态下使用的字段不为null
+     */
+    private static final class Phase {
+
+        private final State state;
+
+        private final long sinceMs;
+
+        private final Window window;
+
+        private final Snapshot trippedSnapshot;
+
+        private final AtomicInteger permits;
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private final AtomicInteger failedCalls = new AtomicInteger();
+
+        private final AtomicInteger slowCalls = new AtomicInteger();
+
+        private Phase(State state, long sinceMs, Window window, Snapshot trippedSnapshot, int permits) {
+            this.state = state;
+            this.sinceMs = sinceMs;
+            this.window = window;
+            this.trippedSnapshot = trippedSnapshot;
+            this.permits = new AtomicInteger(permits);
+        }
+
+        private Snapshot halfOpenSnapshot() {
+            return new Snapshot(calls.get(), failedCalls.get(), slowCalls.get());
+        }
+    }
+
+    private static final class Window {
+
+        private final SlidingWindowCounter calls;
+
+        private final SlidingWindowCounter failedCalls;
+
+        private final SlidingWindowCounter slowCalls;
+
+        private Window(long windowMs) {
+            this.calls = new SlidingWindowCounter(windowMs, BUCKET_COUNT);
+            this.failedCalls = new SlidingWindowCounter(windowMs, BUCKET_COUNT);
+            this.slowCalls = new SlidingWindowCounter(windowMs, BUCKET_COUNT);
+        }
+
+        private void record(boolean failed, boolean slow, long nowMs) {
+            if (failed) {
+                failedCalls.add(1, nowMs);
+            }
+            if (slow) {
+                slowCalls.add(1, nowMs);
+            }
+            calls.add(1, nowMs);
+        }
+
+        private Snapshot snapshot(long nowMs) {
+            return new Snapshot(calls.sum(nowMs), failedCalls.sum(nowMs), slowCalls.sum(nowMs));
+        }
+    }
+
+    /**
+     * 熔断器统计数据
+     * <p>
+     * Circuit breaker statistics
+     */
+    @Getter
+    public static final class Snapshot {
+
+        private final long numberOfCalls;
+
+        private final long numberOfFailedCalls;
+
+        private final long numberOfSlowCalls;
+
+        public Snapshot(long numberOfCalls, long numberOfFailedCalls, long numberOfSlowCalls) {
+            this.numberOfCalls = numberOfCalls;
+            this.numberOfFailedCalls = numberOfFailedCalls;
+            this.numberOfSlowCalls = numberOfSlowCalls;
+        }
+
+        public double getFailureRate() {
+            return numberOfCalls == 0 ? 0 : Math.min(1.0, (double)numberOfFailedCalls / numberOfCalls);
+        }
+
+        public double getSlowCallRate() {
+            return numberOfCalls == 0 ? 0 : Math.min(1.0, (double)numberOfSlowCalls / numberOfCalls);
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{numberOfCalls=" + numberOfCalls + ", numberOfFailedCalls=" + numberOfFailedCalls
+                    + ", numberOfSlowCalls=" + numberOfSlowCalls + '}';
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.lianjiatech.retrofit.spring.boot.degrade.builtin;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 内置熔断器配置，degradeType为builtin时生效。存在该注解时使用注解上的配置，否则使用全局配置。
+ * <p>
+ * Builtin circuit breaker config, effective when degradeType is builtin.
+ * The annotation config is used when present, otherwise the global config is used.
+ *
+ * @author 陈添明
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Documented
+@Inherited
+public @interface BuiltinDegrade {
+
+    /**
+     * 是否开启
+     *
+     * @return 是否开启
+     */
+    boolean enable() default true;
+
+    /**
+     * 失败率阈值(0-1)，统计窗口内失败率大于等于该值时熔断器打开
+     *
+     * @return 失败率阈值
+     */
+    double failureRateThreshold() default 0.5;
+
+    /**
+     * 慢调用比例阈值(0-1)，统计窗口内慢调用比例大于等于该值时熔断器打开
+     *
+     * @return 慢调用比例阈值
+     */
+    double slowCallRateThreshold() default 1.0;
+
+    /**
+     * 慢调用时长阈值，单位为 ms。调用耗时大于等于该值时记为慢调用
+     *
+     * @return 慢调用时长阈值
+     */
+    long slowCallDurationMs() default 60000;
+
+    /**
+     * 统计窗口内的最小调用次数，调用次数不足时不会打开熔断器
+     *
+     * @return 最小调用次数
+     */
+    int minimumNumberOfCalls() default 100;
+
+    /**
+     * 滑动统计窗口长度，单位为 ms
+     *
+     * @return 滑动统计窗口长度
+     */
+    long slidingWindowMs() default 10000;
+
+    /**
+     * 熔断器打开后，转换为半开状态之前的等待时长，单位为 ms
+     *
+     * @return 打开状态持续时长
+     */
+    long waitDurationInOpenStateMs() default 60000;
+
+    /**
+     * 半开状态下允许通过的探测调用数量
+     *
+     * @return 半开状态允许的调用数量
+     */
+    int permittedNumberOfCallsInHalfOpenState() default 10;
+}
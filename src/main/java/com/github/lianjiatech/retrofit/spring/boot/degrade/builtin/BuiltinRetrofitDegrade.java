@@ -0,0 +1,130 @@
+package com.github.lianjiatech.retrofit.spring.boot.degrade.builtin;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.InvocationContext;
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodPolicy;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.BaseRetrofitDegrade;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
+import com.github.lianjiatech.retrofit.spring.boot.util.AnnotationExtendUtils;
+
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 内置熔断降级实现，每个接口方法对应一个{@link BuiltinCircuitBreaker}，不依赖第三方熔断组件。
+ * <p>
+ * Builtin degrade implementation, each interface method has its own {@link BuiltinCircuitBreaker},
+ * no third-party circuit breaker library is required.
+ *
+ * @author 陈添明
+ */
+public class BuiltinRetrofitDegrade extends BaseRetrofitDegrade {
+
+    protected final GlobalBuiltinDegradeProperty globalBuiltinDegradeProperty;
+
+    protected final Map<Method, BuiltinCircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    public BuiltinRetrofitDegrade(GlobalBuiltinDegradeProperty globalBuiltinDegradeProperty) {
+        this.globalBuiltinDegradeProperty = globalBuiltinDegradeProperty;
+    }
+
+    @Override
+    public boolean isEnableDegrade(Class<?> retrofitInterface) {
+        if (globalBuiltinDegradeProperty.isEnable()) {
+            BuiltinDegrade builtinDegrade =
+                    AnnotatedElementUtils.findMergedAnnotation(retrofitInterface, BuiltinDegrade.class);
+            if (builtinDegrade == null) {
+                return true;
+            }
+            return builtinDegrade.enable();
+        } else {
+            return AnnotationExtendUtils.isAnnotationPresentIncludeMethod(retrofitInterface, BuiltinDegrade.class);
+        }
+    }
+
+    @Override
+    public void loadDegradeRules(Class<?> retrofitInterface) {
+        for (Method method : retrofitInterface.getMethods()) {
+            if (isDefaultOrStatic(method)) {
+                continue;
+            }
+            BuiltinDegrade builtinDegrade =
+                    AnnotationExtendUtils.findMergedAnnotation(method, method.getDeclaringClass(),
+                            BuiltinDegrade.class);
+            if (!needDegrade(builtinDegrade)) {
+                continue;
+            }
+            String resourceName = parseResourceName(method);
+            circuitBreakers.computeIfAbsent(method,
+                    m -> builtinDegrade == null
+                            ? new BuiltinCircuitBreaker(resourceName, globalBuiltinDegradeProperty)
+                            : new BuiltinCircuitBreaker(resourceName, builtinDegrade));
+        }
+    }
+
+    protected boolean needDegrade(BuiltinDegrade builtinDegrade) {
+        if (globalBuiltinDegradeProperty.isEnable()) {
+            if (builtinDegrade == null) {
+                return true;
+            }
+            return builtinDegrade.enable();
+        } else {
+            return builtinDegrade != null && builtinDegrade.enable();
+        }
+    }
+
+    /**
+     * 获取指定方法的熔断器，可用于查看熔断器状态、失败率和慢调用比例
+     *
+     * @param method 接口方法
+     * @return 熔断器，未启用熔断时为null
+     */
+    public BuiltinCircuitBreaker getCircuitBreaker(Method method) {
+        return circuitBreakers.get(method);
+    }
+
+    public Map<Method, BuiltinCircuitBreaker> getCircuitBreakers() {
+        return Collections.unmodifiableMap(circuitBreakers);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        MethodPolicy methodPolicy = MethodPolicy.from(request);
+        BuiltinCircuitBreaker circuitBreaker = circuitBreakers.get(methodPolicy.getMethod());
+        if (circuitBreaker == null) {
+            // 断路器为空则直接调用返回
+            return chain.proceed(request);
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            throw new RetrofitBlockException("CircuitBreaker '" + circuitBreaker.getName() + "' is "
+                    + circuitBreaker.getState() + " and does not permit further calls", null);
+        }
+        InvocationContext invocationContext = request.tag(InvocationContext.class);
+        long start = System.nanoTime();
+        try {
+            Response response = chain.proceed(request);
+            if (isRetryScheduled(invocationContext)) {
+                circuitBreaker.releasePermission();
+            } else {
+                circuitBreaker.onSuccess(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            return response;
+        } catch (Throwable throwable) {
+            if (isRetryScheduled(invocationContext) || isLocalBlock(throwable)) {
+                circuitBreaker.releasePermission();
+            } else {
+                circuitBreaker.onError(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            throw throwable;
+        }
+    }
+}
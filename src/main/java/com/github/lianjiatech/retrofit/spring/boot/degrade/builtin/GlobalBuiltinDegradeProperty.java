@@ -0,0 +1,52 @@
+package com.github.lianjiatech.retrofit.spring.boot.degrade.builtin;
+
+import lombok.Data;
+
+/**
+ * 全局内置熔断器配置
+ *
+ * @author 陈添明
+ */
+@Data
+public class GlobalBuiltinDegradeProperty {
+
+    /**
+     * 是否开启
+     */
+    private boolean enable = false;
+
+    /**
+     * 失败率阈值(0-1)，统计窗口内失败率大于等于该值时熔断器打开
+     */
+    private double failureRateThreshold = 0.5;
+
+    /**
+     * 慢调用比例阈值(0-1)，统计窗口内慢调用比例大于等于该值时熔断器打开
+     */
+    private double slowCallRateThreshold = 1.0;
+
+    /**
+     * 慢调用时长阈值，单位为 ms
+     */
+    private long slowCallDurationMs = 60000;
+
+    /**
+     * 统计窗口内的最小调用次数，调用次数不足时不会打开熔断器
+     */
+    private int minimumNumberOfCalls = 100;
+
+    /**
+     * 滑动统计窗口长度，单位为 ms
+     */
+    private long slidingWindowMs = 10000;
+
+    /**
+     * 熔断器打开后，转换为半开状态之前的等待时长，单位为 ms
+     */
+    private long waitDurationInOpenStateMs = 60000;
+
+    /**
+     * 半开状态下允许通过的探测调用数量
+     */
+    private int permittedNumberOfCallsInHalfOpenState = 10;
+}
@@ -0,0 +1,77 @@
+package com.github.lianjiatech.retrofit.spring.boot.degrade.resilience4j;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import lombok.Getter;
+
+/**
+ * 基于Resilience4j {@link Bulkhead}的并发隔离，{@link Resilience4jDegrade#bulkheadMaxWaitDurationMs()}只对同步调用生效。
+ * Resilience4j的舱壁在配置了等待时长时，{@link Bulkhead#tryAcquirePermission()}也会等待，因此舱壁本身不配置等待时长，同步调用在这里等待其他调用释放许可。
+ * <p>
+ * Concurrency isolation based on Resilience4j {@link Bulkhead}, {@link Resilience4jDegrade#bulkheadMaxWaitDurationMs()}
+ * applies to synchronous calls only. When a Resilience4j bulkhead has a max wait duration,
+ * {@link Bulkhead#tryAcquirePermission()} waits too, so the bulkhead itself is configured without waiting and
+ * synchronous calls wait here for other calls to release their permits.
+ *
+ * @author 陈添明
+ */
+public class Resilience4jBulkheadPermit implements Resilience4jCallPermit {
+
+    @Getter
+    private final Bulkhead bulkhead;
+
+    private final long maxWaitNanos;
+
+    private final Object lock = new Object();
+
+    public Resilience4jBulkheadPermit(String name, Resilience4jDegrade resilience4jDegrade) {
+        this.bulkhead = Bulkhead.of(name, BulkheadConfig.custom()
+                .maxConcurrentCalls(resilience4jDegrade.bulkheadMaxConcurrentCalls())
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(resilience4jDegrade.bulkheadMaxWaitDurationMs());
+    }
+
+    @Override
+    public void acquire(boolean wait) {
+        if (bulkhead.tryAcquirePermission()) {
+            return;
+        }
+        if (!wait || maxWaitNanos <= 0) {
+            throw bulkheadFull();
+        }
+        long deadline = System.nanoTime() + maxWaitNanos;
+        synchronized (lock) {
+            while (!bulkhead.tryAcquirePermission()) {
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    throw bulkheadFull();
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(lock, remainingNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw bulkheadFull();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void release() {
+        bulkhead.onComplete();
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+    }
+
+    private RetrofitBlockException bulkheadFull() {
+        return new RetrofitBlockException(BulkheadFullException.createBulkheadFullException(bulkhead));
+    }
+}
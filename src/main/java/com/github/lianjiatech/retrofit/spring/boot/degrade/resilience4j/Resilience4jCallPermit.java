@@ -0,0 +1,27 @@
+package com.github.lianjiatech.retrofit.spring.boot.degrade.resilience4j;
+
+import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
+
+/**
+ * 断路器之外的调用许可，例如舱壁隔离和限流。各实现类只在对应的Resilience4j模块存在时才会被加载。
+ * <p>
+ * Call permit besides the circuit breaker, such as bulkhead and rate limiter.
+ * Each implementation is loaded only when the corresponding Resilience4j module is present.
+ *
+ * @author 陈添明
+ */
+public interface Resilience4jCallPermit {
+
+    /**
+     * 获取调用许可
+     *
+     * @param wait 是否按配置的时长等待许可，运行在OkHttp调度线程中的调用不等待，没有可用许可时直接失败
+     * @throws RetrofitBlockException 未获取到许可
+     */
+    void acquire(boolean wait);
+
+    /**
+     * 调用结束后释放许可，只有{@link #acquire(boolean)}成功时才会调用
+     */
+    void release();
+}
@@ -31,4 +31,39 @@ public @interface Resilience4jDegrade {
      * @return circuitBreakerConfigName
      */
     String circuitBreakerConfigName() default Constants.CIRCUIT_BREAKER_CLASS_NAME;
-}
\ No newline at end of file
+
+    /**
+     * 舱壁允许的最大并发调用数，小于等于0表示不启用舱壁隔离。需要引入resilience4j-bulkhead依赖
+     *
+     * @return bulkheadMaxConcurrentCalls
+     */
+    int bulkheadMaxConcurrentCalls() default -1;
+
+    /**
+     * 舱壁已满时的最大等待时长，单位为 ms，0表示不等待直接降级。只对同步调用生效，异步调用总是直接降级，避免阻塞OkHttp调度线程
+     *
+     * @return bulkheadMaxWaitDurationMs
+     */
+    long bulkheadMaxWaitDurationMs() default 0;
+
+    /**
+     * 每个刷新周期内允许的调用次数，小于等于0表示不启用限流。需要引入resilience4j-ratelimiter依赖
+     *
+     * @return rateLimiterLimitForPeriod
+     */
+    int rateLimiterLimitForPeriod() default -1;
+
+    /**
+     * 限流刷新周期，单位为 ms
+     *
+     * @return rateLimiterLimitRefreshPeriodMs
+     */
+    long rateLimiterLimitRefreshPeriodMs() default 1000;
+
+    /**
+     * 等待限流许可的最大时长，单位为 ms，0表示不等待直接降级。只对同步调用生效，异步调用总是直接降级，避免阻塞OkHttp调度线程
+     *
+     * @return rateLimiterTimeoutMs
+     */
+    long rateLimiterTimeoutMs() default 0;
+}
@@ -0,0 +1,50 @@
+package com.github.lianjiatech.retrofit.spring.boot.degrade.resilience4j;
+
+import java.time.Duration;
+
+import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
+
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import lombok.Getter;
+
+/**
+ * 基于Resilience4j {@link RateLimiter}的限流，{@link Resilience4jDegrade#rateLimiterTimeoutMs()}只对同步调用生效
+ *
+ * @author 陈添明
+ */
+public class Resilience4jRateLimiterPermit implements Resilience4jCallPermit {
+
+    @Getter
+    private final RateLimiter rateLimiter;
+
+    public Resilience4jRateLimiterPermit(String name, Resilience4jDegrade resilience4jDegrade) {
+        this.rateLimiter = RateLimiter.of(name, RateLimiterConfig.custom()
+                .limitForPeriod(resilience4jDegrade.rateLimiterLimitForPeriod())
+                .limitRefreshPeriod(Duration.ofMillis(resilience4jDegrade.rateLimiterLimitRefreshPeriodMs()))
+                .timeoutDuration(Duration.ofMillis(resilience4jDegrade.rateLimiterTimeoutMs()))
+                .build());
+    }
+
+    @Override
+    public void acquire(boolean wait) {
+        if (!wait) {
+            // 预留许可不会阻塞；并发获取导致需要等待时，预留的许可不归还
+            if (rateLimiter.getMetrics().getAvailablePermissions() <= 0 || rateLimiter.reservePermission() != 0) {
+                throw new RetrofitBlockException(RequestNotPermitted.createRequestNotPermitted(rateLimiter));
+            }
+            return;
+        }
+        try {
+            RateLimiter.waitForPermission(rateLimiter);
+        } catch (RequestNotPermitted e) {
+            throw new RetrofitBlockException(e);
+        }
+    }
+
+    @Override
+    public void release() {
+        // 限流许可按周期刷新，无需释放
+    }
+}
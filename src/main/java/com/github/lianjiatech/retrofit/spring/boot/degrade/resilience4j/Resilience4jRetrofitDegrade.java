@@ -2,11 +2,19 @@ package com.github.lianjiatech.retrofit.spring.boot.degrade.resilience4j;
 
 import java.io.IOException;
 import java.lang.reflect.Method;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.ClassUtils;
 
+import com.github.lianjiatech.retrofit.spring.boot.core.Constants;
+import com.github.lianjiatech.retrofit.spring.boot.core.InvocationContext;
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodPolicy;
+import com.github.lianjiatech.retrofit.spring.boot.core.SyncExecution;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.BaseRetrofitDegrade;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
 import com.github.lianjiatech.retrofit.spring.boot.util.AnnotationExtendUtils;
@@ -17,7 +25,6 @@ import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import io.github.resilience4j.core.StopWatch;
 import okhttp3.Request;
 import okhttp3.Response;
-import retrofit2.Invocation;
 
 /**
  * @author 陈添明
@@ -29,6 +36,16 @@ public class Resilience4jRetrofitDegrade extends BaseRetrofitDegrade {
     protected final GlobalResilience4jDegradeProperty globalResilience4jDegradeProperty;
     protected final CircuitBreakerConfigRegistry circuitBreakerConfigRegistry;
 
+    /**
+     * 加载降级规则时解析好的断路器，请求时按方法直接获取
+     */
+    protected final Map<Method, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    /**
+     * 舱壁隔离和限流等调用许可，按获取顺序排列
+     */
+    protected final Map<Method, Resilience4jCallPermit[]> callPermits = new ConcurrentHashMap<>();
+
     public Resilience4jRetrofitDegrade(CircuitBreakerRegistry circuitBreakerRegistry,
             GlobalResilience4jDegradeProperty globalResilience4jDegradeProperty,
             CircuitBreakerConfigRegistry circuitBreakerConfigRegistry) {
@@ -66,11 +83,44 @@ public class Resilience4jRetrofitDegrade extends BaseRetrofitDegrade {
             String circuitBreakerConfigName =
                     resilience4jDegrade == null ? globalResilience4jDegradeProperty.getCircuitBreakerConfigName()
                             : resilience4jDegrade.circuitBreakerConfigName();
-            circuitBreakerRegistry.circuitBreaker(parseResourceName(method),
-                    circuitBreakerConfigRegistry.get(circuitBreakerConfigName));
+            String resourceName = parseResourceName(method);
+            circuitBreakers.put(method, circuitBreakerRegistry.circuitBreaker(resourceName,
+                    circuitBreakerConfigRegistry.get(circuitBreakerConfigName)));
+            Resilience4jCallPermit[] permits = createCallPermits(resourceName, resilience4jDegrade);
+            if (permits.length > 0) {
+                callPermits.put(method, permits);
+            }
+        }
+    }
+
+    protected Resilience4jCallPermit[] createCallPermits(String resourceName, Resilience4jDegrade resilience4jDegrade) {
+        if (resilience4jDegrade == null) {
+            return new Resilience4jCallPermit[0];
+        }
+        List<Resilience4jCallPermit> permits = new ArrayList<>(2);
+        // 先限流再进入舱壁，被限流的调用不会占用并发数
+        if (resilience4jDegrade.rateLimiterLimitForPeriod() > 0) {
+            checkClassPresent(Constants.RATE_LIMITER_CLASS_NAME, "resilience4j-ratelimiter");
+            permits.add(new Resilience4jRateLimiterPermit(resourceName, resilience4jDegrade));
+        }
+        if (resilience4jDegrade.bulkheadMaxConcurrentCalls() > 0) {
+            checkClassPresent(Constants.BULKHEAD_CLASS_NAME, "resilience4j-bulkhead");
+            permits.add(new Resilience4jBulkheadPermit(resourceName, resilience4jDegrade));
+        }
+        return permits.toArray(new Resilience4jCallPermit[0]);
+    }
+
+    private void checkClassPresent(String className, String artifactId) {
+        if (!ClassUtils.isPresent(className, getClass().getClassLoader())) {
+            throw new IllegalStateException(
+                    "@Resilience4jDegrade requires io.github.resilience4j:" + artifactId + " on the classpath");
         }
     }
 
+    public CircuitBreaker getCircuitBreaker(Method method) {
+        return circuitBreakers.get(method);
+    }
+
     protected boolean needDegrade(Resilience4jDegrade resilience4jDegrade) {
         if (globalResilience4jDegradeProperty.isEnable()) {
             if (resilience4jDegrade == null) {
@@ -85,23 +135,52 @@ public class Resilience4jRetrofitDegrade extends BaseRetrofitDegrade {
     @Override
     public Response intercept(Chain chain) throws IOException {
         Request request = chain.request();
-        Method method = Objects.requireNonNull(request.tag(Invocation.class)).method();
-        CircuitBreaker circuitBreaker =
-                circuitBreakerRegistry.find(parseResourceName(method)).orElse(null);
-        if (Objects.isNull(circuitBreaker)) {
+        Method method = MethodPolicy.from(request).getMethod();
+        CircuitBreaker circuitBreaker = circuitBreakers.get(method);
+        if (circuitBreaker == null) {
             // 断路器为空则直接调用返回
             return chain.proceed(request);
         }
+        Resilience4jCallPermit[] permits = callPermits.get(method);
+        if (permits == null) {
+            return proceed(chain, request, circuitBreaker);
+        }
+        // 运行在OkHttp调度线程中的调用不等待许可，避免阻塞调度线程
+        boolean wait = !SyncExecution.isAsync(request);
+        int acquired = 0;
+        try {
+            for (Resilience4jCallPermit permit : permits) {
+                permit.acquire(wait);
+                acquired++;
+            }
+            return proceed(chain, request, circuitBreaker);
+        } finally {
+            for (int i = 0; i < acquired; i++) {
+                permits[i].release();
+            }
+        }
+    }
+
+    private Response proceed(Chain chain, Request request, CircuitBreaker circuitBreaker) throws IOException {
+        InvocationContext invocationContext = request.tag(InvocationContext.class);
         StopWatch stopWatch = StopWatch.start();
         try {
             circuitBreaker.acquirePermission();
             Response response = chain.proceed(request);
-            circuitBreaker.onResult(stopWatch.stop().toNanos(), TimeUnit.NANOSECONDS, response);
+            if (isRetryScheduled(invocationContext)) {
+                circuitBreaker.releasePermission();
+            } else {
+                circuitBreaker.onResult(stopWatch.stop().toNanos(), TimeUnit.NANOSECONDS, response);
+            }
             return response;
         } catch (CallNotPermittedException e) {
             throw new RetrofitBlockException(e);
         } catch (Throwable throwable) {
-            circuitBreaker.onError(stopWatch.stop().toNanos(), TimeUnit.NANOSECONDS, throwable);
+            if (isRetryScheduled(invocationContext) || isLocalBlock(throwable)) {
+                circuitBreaker.releasePermission();
+            } else {
+                circuitBreaker.onError(stopWatch.stop().toNanos(), TimeUnit.NANOSECONDS, throwable);
+            }
             throw throwable;
         }
     }
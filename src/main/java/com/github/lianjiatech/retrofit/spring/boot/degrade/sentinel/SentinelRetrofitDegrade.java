@@ -3,7 +3,6 @@ package com.github.lianjiatech.retrofit.spring.boot.degrade.sentinel;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.util.Collections;
-import java.util.Objects;
 
 import org.springframework.core.annotation.AnnotatedElementUtils;
 
@@ -15,13 +14,14 @@ import com.alibaba.csp.sentinel.Tracer;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRule;
 import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRuleManager;
+import com.github.lianjiatech.retrofit.spring.boot.core.InvocationContext;
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodPolicy;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.BaseRetrofitDegrade;
 import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
 import com.github.lianjiatech.retrofit.spring.boot.util.AnnotationExtendUtils;
 
 import okhttp3.Request;
 import okhttp3.Response;
-import retrofit2.Invocation;
 
 /**
  * @author 陈添明
@@ -90,13 +90,11 @@ public class SentinelRetrofitDegrade extends BaseRetrofitDegrade {
     @Override
     public Response intercept(Chain chain) throws IOException {
         Request request = chain.request();
-        Method method = Objects.requireNonNull(request.tag(Invocation.class)).method();
-        SentinelDegrade sentinelDegrade = AnnotationExtendUtils.findMergedAnnotation(method, method.getDeclaringClass(),
-                SentinelDegrade.class);
-        if (!needDegrade(sentinelDegrade)) {
+        MethodPolicy methodPolicy = MethodPolicy.from(request);
+        if (!needDegrade(methodPolicy.getSentinelDegrade())) {
             return chain.proceed(request);
         }
-        String resourceName = parseResourceName(method);
+        String resourceName = parseResourceName(methodPolicy);
         Entry entry = null;
         try {
             entry = SphU.entry(resourceName, ResourceTypeConstants.COMMON_WEB, EntryType.OUT);
@@ -104,7 +102,10 @@ public class SentinelRetrofitDegrade extends BaseRetrofitDegrade {
         } catch (BlockException e) {
             throw new RetrofitBlockException(e);
         } catch (Throwable t) {
-            Tracer.trace(t);
+            InvocationContext invocationContext = request.tag(InvocationContext.class);
+            if (!isRetryScheduled(invocationContext) && !isLocalBlock(t)) {
+                Tracer.trace(t);
+            }
             throw t;
         } finally {
             if (entry != null) {
@@ -0,0 +1,17 @@
+package com.github.lianjiatech.retrofit.spring.boot.exception;
+
+import java.io.InterruptedIOException;
+
+/**
+ * 调用的截止时间已过，不再发送请求
+ * <p>
+ * The deadline of the invocation has passed, no more requests are sent
+ *
+ * @author 陈添明
+ */
+public class DeadlineExceededException extends InterruptedIOException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
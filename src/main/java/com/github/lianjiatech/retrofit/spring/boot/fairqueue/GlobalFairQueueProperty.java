@@ -0,0 +1,57 @@
+package com.github.lianjiatech.retrofit.spring.boot.fairqueue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.Data;
+
+/**
+ * 全局租户公平排队配置
+ * @author 陈添明
+ */
+@Data
+public class GlobalFairQueueProperty {
+
+    /**
+     * 是否启用租户公平排队，启用后所有接口的调用都按租户公平排队
+     * Whether to enable tenant fair queuing, when enabled, calls of all interfaces queue fairly by tenant
+     */
+    private boolean enable = false;
+
+    /**
+     * 所有租户共享的最大并发数
+     * The maximum number of concurrent calls shared by all tenants
+     */
+    private int maxConcurrent = 64;
+
+    /**
+     * 每个租户的最大排队数，队列已满时直接失败
+     * The maximum number of queued calls per tenant, new calls fail immediately when the queue is full
+     */
+    private int maxQueuedCallsPerTenant = 100;
+
+    /**
+     * 最长排队时间，超过后直接失败，单位为 ms
+     * The maximum queue wait, calls waiting longer fail, unit: ms
+     */
+    private long maxWaitMs = 3000;
+
+    /**
+     * 携带租户标识的请求头，可以通过{@link TenantContext}覆盖
+     * The request header carrying the tenant, which can be overridden through {@link TenantContext}
+     */
+    private String tenantHeader = "X-Tenant-Id";
+
+    /**
+     * 租户权重，租户获得的并发数与权重成正比，未配置的租户权重为1
+     * Tenant weights, the concurrency a tenant gets is proportional to its weight, the weight of unconfigured tenants is 1
+     */
+    private Map<String, Integer> tenantWeights = new HashMap<>();
+
+    /**
+     * 最多单独排队的租户数，达到上限时先移除空闲的租户，仍然没有空位时新租户的调用归入默认租户
+     * The maximum number of tenants queued separately. When reached, idle tenants are evicted first; if there is still
+     * no room, calls of new tenants go to the default tenant
+     */
+    private int maxTenants = TenantFairQueue.DEFAULT_MAX_TENANTS;
+}
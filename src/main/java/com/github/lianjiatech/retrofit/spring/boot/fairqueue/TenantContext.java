@@ -0,0 +1,66 @@
+package com.github.lianjiatech.retrofit.spring.boot.fairqueue;
+
+import java.util.function.Supplier;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * 在当前线程上设置调用所属的租户，期间发起的所有HTTP调用都按该租户公平排队，优先于请求头。
+ * 对于返回{@code Mono}的方法，也可以将租户标识以{@link #REACTOR_CONTEXT_KEY}为key写入Reactor Context。
+ * <p>
+ * Set the tenant of invocations on the current thread, all HTTP calls made in the meantime queue fairly as this tenant,
+ * overriding the request header. For methods returning {@code Mono}, the tenant can also be written into the Reactor
+ * Context with the key {@link #REACTOR_CONTEXT_KEY}.
+ *
+ * @author 陈添明
+ */
+@UtilityClass
+public class TenantContext {
+
+    public static final String REACTOR_CONTEXT_KEY = TenantContext.class.getName();
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static void set(String tenant) {
+        if (tenant == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(tenant);
+        }
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 以指定租户执行，执行完成后恢复之前的租户
+     *
+     * @param tenant 租户，为null时保持当前租户
+     * @param supplier 执行逻辑
+     * @param <T> 返回值类型
+     * @return 执行结果
+     */
+    public static <T> T call(String tenant, Supplier<T> supplier) {
+        String previous = CURRENT.get();
+        if (tenant != null) {
+            set(tenant);
+        }
+        try {
+            return supplier.get();
+        } finally {
+            set(previous);
+        }
+    }
+
+    public static void run(String tenant, Runnable runnable) {
+        call(tenant, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+}
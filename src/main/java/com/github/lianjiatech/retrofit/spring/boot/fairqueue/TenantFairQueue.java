@@ -0,0 +1,370 @@
+package com.github.lianjiatech.retrofit.spring.boot.fairqueue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 按租户公平排队的并发许可。所有租户共享{@code maxConcurrent}个许可，许可用完后调用按租户进入各自的队列，
+ * 释放许可时按照差额轮询（Deficit Round Robin）选择下一个租户：每轮每个租户可以调度{@code weight}个调用，
+ * 因此繁忙时各个租户获得的并发数与权重成正比，单个租户的突发流量只会在自己的队列中排队。
+ * 排队超过{@code maxWaitMs}的调用在出队时直接失败，不再占用许可；调用方也可以通过{@link #expire(Ticket)}让超时的调用立即失败。
+ * 租户数量达到{@code maxTenants}时先移除空闲的租户队列，仍然没有空位时新租户的调用归入{@link #DEFAULT_TENANT}。
+ * <p>
+ * Concurrency permits queued fairly by tenant. All tenants share {@code maxConcurrent} permits; once they are used up,
+ * calls wait in the queue of their tenant. When a permit is released, the next tenant is chosen by Deficit Round Robin:
+ * each tenant can schedule {@code weight} calls per round, so under load the concurrency of each tenant is proportional
+ * to its weight, and a burst of one tenant only queues in its own queue. Calls queued longer than {@code maxWaitMs} fail
+ * when dequeued instead of taking a permit, and callers can fail them at once through {@link #expire(Ticket)}. When the
+ * number of tenants reaches {@code maxTenants}, idle tenant queues are evicted first; if there is still no room, calls
+ * of new tenants go to {@link #DEFAULT_TENANT}.
+ *
+ * @author 陈添明
+ */
+public class TenantFairQueue {
+
+    /**
+     * 没有租户标识的调用所属的租户
+     */
+    public static final String DEFAULT_TENANT = "default";
+
+    /**
+     * 默认的最大租户数
+     */
+    public static final int DEFAULT_MAX_TENANTS = 1000;
+
+    private final int maxConcurrent;
+
+    private final int maxQueuedCallsPerTenant;
+
+    private final long maxWaitNanos;
+
+    private final Map<String, Integer> tenantWeights;
+
+    private final String tenantHeader;
+
+    private final int maxTenants;
+
+    /**
+     * 只在锁内修改，使用ConcurrentHashMap是为了在锁外读取监控数据
+     */
+    private final Map<String, TenantQueue> tenants = new ConcurrentHashMap<>();
+
+    /**
+     * 有调用在排队的租户，按轮询顺序排列
+     */
+    private final Deque<TenantQueue> scheduledTenants = new ArrayDeque<>();
+
+    private int activeCalls;
+
+    private int queuedCalls;
+
+    public static TenantFairQueue of(GlobalFairQueueProperty globalFairQueueProperty) {
+        return new TenantFairQueue(globalFairQueueProperty.getMaxConcurrent(),
+                globalFairQueueProperty.getMaxQueuedCallsPerTenant(), globalFairQueueProperty.getMaxWaitMs(),
+                globalFairQueueProperty.getTenantWeights(), globalFairQueueProperty.getTenantHeader(),
+                globalFairQueueProperty.getMaxTenants());
+    }
+
+    public TenantFairQueue(int maxConcurrent, int maxQueuedCallsPerTenant, long maxWaitMs,
+            Map<String, Integer> tenantWeights, String tenantHeader) {
+        this(maxConcurrent, maxQueuedCallsPerTenant, maxWaitMs, tenantWeights, tenantHeader, DEFAULT_MAX_TENANTS);
+    }
+
+    /**
+     * @param maxConcurrent 所有租户共享的最大并发数
+     * @param maxQueuedCallsPerTenant 每个租户的最大排队数
+     * @param maxWaitMs 最长排队时间
+     * @param tenantWeights 租户权重
+     * @param tenantHeader 携带租户标识的请求头
+     * @param maxTenants 最多单独排队的租户数
+     */
+    public TenantFairQueue(int maxConcurrent, int maxQueuedCallsPerTenant, long maxWaitMs,
+            Map<String, Integer> tenantWeights, String tenantHeader, int maxTenants) {
+        if (maxConcurrent <= 0 || maxQueuedCallsPerTenant < 0 || maxWaitMs <= 0 || maxTenants <= 0) {
+            throw new IllegalArgumentException("maxConcurrent, maxWaitMs and maxTenants must be positive, "
+                    + "and maxQueuedCallsPerTenant must not be negative");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueuedCallsPerTenant = maxQueuedCallsPerTenant;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.tenantWeights = tenantWeights == null ? Collections.emptyMap() : new HashMap<>(tenantWeights);
+        this.tenantHeader = tenantHeader;
+        this.maxTenants = maxTenants;
+    }
+
+    /**
+     * 申请一个许可。有空闲许可并且没有调用在排队时立即获得许可，否则进入租户的队列，获得许可或者排队超时后回调。
+     * 回调不会在持有锁时执行，可能在调用方线程中执行。
+     *
+     * @param tenant 租户，为null时使用{@link #DEFAULT_TENANT}
+     * @param onAdmit 获得许可后的回调，之后必须调用{@link #release(Ticket)}
+     * @param onExpire 排队超时的回调
+     * @return 排队凭证，租户的队列已满时返回null
+     */
+    public Ticket acquire(String tenant, Consumer<Ticket> onAdmit, Consumer<Ticket> onExpire) {
+        Ticket ticket;
+        List<Ticket> ready;
+        synchronized (this) {
+            TenantQueue tenantQueue = findTenantQueue(tenant == null ? DEFAULT_TENANT : tenant);
+            ticket = new Ticket(tenantQueue, onAdmit, onExpire);
+            if (queuedCalls == 0 && activeCalls < maxConcurrent) {
+                admit(ticket, System.nanoTime());
+                ready = Collections.singletonList(ticket);
+            } else if (tenantQueue.tickets.size() >= maxQueuedCallsPerTenant) {
+                tenantQueue.onRejected();
+                return null;
+            } else {
+                tenantQueue.tickets.addLast(ticket);
+                tenantQueue.updateQueuedCalls();
+                queuedCalls++;
+                if (!tenantQueue.scheduled) {
+                    tenantQueue.scheduled = true;
+                    scheduledTenants.addLast(tenantQueue);
+                }
+                ready = drain();
+            }
+        }
+        notify(ready);
+        return ticket;
+    }
+
+    /**
+     * 取消仍在排队的调用
+     *
+     * @param ticket 排队凭证
+     * @return true表示已从队列中移除，false表示已经获得许可或者已经超时
+     */
+    public boolean cancel(Ticket ticket) {
+        synchronized (this) {
+            if (ticket.state != Ticket.QUEUED) {
+                return false;
+            }
+            ticket.state = Ticket.CANCELED;
+            dequeue(ticket);
+            return true;
+        }
+    }
+
+    /**
+     * 让仍在排队的调用立即超时失败并执行排队超时的回调，用于不在调用方线程中等待的调用
+     *
+     * @param ticket 排队凭证
+     * @return true表示已从队列中移除，false表示已经获得许可、已经超时或者已经取消
+     */
+    public boolean expire(Ticket ticket) {
+        synchronized (this) {
+            if (ticket.state != Ticket.QUEUED) {
+                return false;
+            }
+            ticket.state = Ticket.EXPIRED;
+            ticket.tenantQueue.onExpired();
+            dequeue(ticket);
+        }
+        ticket.onExpire.accept(ticket);
+        return true;
+    }
+
+    private void dequeue(Ticket ticket) {
+        TenantQueue tenantQueue = ticket.tenantQueue;
+        tenantQueue.tickets.remove(ticket);
+        tenantQueue.updateQueuedCalls();
+        queuedCalls--;
+    }
+
+    /**
+     * 获取租户的队列，租户数量达到上限时先移除空闲的租户队列，仍然没有空位时使用{@link #DEFAULT_TENANT}的队列
+     */
+    private TenantQueue findTenantQueue(String tenant) {
+        TenantQueue tenantQueue = tenants.get(tenant);
+        if (tenantQueue != null) {
+            return tenantQueue;
+        }
+        if (tenants.size() >= maxTenants) {
+            tenants.values().removeIf(TenantQueue::isIdle);
+            if (tenants.size() >= maxTenants && !DEFAULT_TENANT.equals(tenant)) {
+                return findTenantQueue(DEFAULT_TENANT);
+            }
+        }
+        tenantQueue = new TenantQueue(tenant, Math.max(1, tenantWeights.getOrDefault(tenant, 1)));
+        tenants.put(tenant, tenantQueue);
+        return tenantQueue;
+    }
+
+    /**
+     * 释放许可，并按差额轮询把许可交给排队中的调用
+     *
+     * @param ticket 已获得许可的排队凭证
+     */
+    public void release(Ticket ticket) {
+        List<Ticket> ready;
+        synchronized (this) {
+            if (ticket.state != Ticket.ADMITTED) {
+                return;
+            }
+            ticket.state = Ticket.RELEASED;
+            ticket.tenantQueue.onReleased();
+            activeCalls--;
+            ready = drain();
+        }
+        notify(ready);
+    }
+
+    private List<Ticket> drain() {
+        List<Ticket> ready = null;
+        long now = System.nanoTime();
+        while (activeCalls < maxConcurrent) {
+            Ticket next = pollNext();
+            if (next == null) {
+                break;
+            }
+            if (ready == null) {
+                ready = new ArrayList<>(2);
+            }
+            ready.add(next);
+            if (now - next.enqueuedNanos > maxWaitNanos) {
+                next.state = Ticket.EXPIRED;
+                next.tenantQueue.onExpired();
+            } else {
+                admit(next, now);
+            }
+        }
+        return ready == null ? Collections.emptyList() : ready;
+    }
+
+    /**
+     * 差额轮询：队首租户的剩余次数用完后移到队尾并补充{@code weight}次，队列为空的租户移出轮询列表
+     */
+    private Ticket pollNext() {
+        for (;;) {
+            TenantQueue tenantQueue = scheduledTenants.peekFirst();
+            if (tenantQueue == null) {
+                return null;
+            }
+            if (tenantQueue.tickets.isEmpty()) {
+                scheduledTenants.pollFirst();
+                tenantQueue.scheduled = false;
+                tenantQueue.deficit = 0;
+                continue;
+            }
+            if (tenantQueue.deficit > 0) {
+                tenantQueue.deficit--;
+                Ticket ticket = tenantQueue.tickets.pollFirst();
+                tenantQueue.updateQueuedCalls();
+                queuedCalls--;
+                return ticket;
+            }
+            scheduledTenants.pollFirst();
+            tenantQueue.deficit += tenantQueue.getWeight();
+            scheduledTenants.addLast(tenantQueue);
+        }
+    }
+
+    private void admit(Ticket ticket, long now) {
+        ticket.state = Ticket.ADMITTED;
+        ticket.tenantQueue.onAdmitted(TimeUnit.NANOSECONDS.toMillis(now - ticket.enqueuedNanos));
+        activeCalls++;
+    }
+
+    private static void notify(List<Ticket> tickets) {
+        for (Ticket ticket : tickets) {
+            if (ticket.state == Ticket.EXPIRED) {
+                ticket.onExpire.accept(ticket);
+            } else {
+                ticket.onAdmit.accept(ticket);
+            }
+        }
+    }
+
+    public String getTenantHeader() {
+        return tenantHeader;
+    }
+
+    public long getMaxWaitMs() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos);
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * 进行中的调用数
+     */
+    public synchronized int getActiveCalls() {
+        return activeCalls;
+    }
+
+    /**
+     * 排队中的调用数
+     */
+    public synchronized int getQueuedCalls() {
+        return queuedCalls;
+    }
+
+    /**
+     * 获取所有租户的队列，可以用于监控各个租户的排队数和排队时间
+     * <p>
+     * Get queues of all tenants, which can be used to monitor the queue depth and wait of each tenant
+     *
+     * @return 租户 -> 租户队列；tenant -> tenant queue
+     */
+    public Map<String, TenantQueue> getTenants() {
+        return Collections.unmodifiableMap(tenants);
+    }
+
+    /**
+     * 排队凭证
+     * <p>
+     * Queue ticket
+     */
+    public static final class Ticket {
+
+        private static final int QUEUED = 0;
+
+        private static final int ADMITTED = 1;
+
+        private static final int RELEASED = 2;
+
+        private static final int EXPIRED = 3;
+
+        private static final int CANCELED = 4;
+
+        private final TenantQueue tenantQueue;
+
+        private final Consumer<Ticket> onAdmit;
+
+        private final Consumer<Ticket> onExpire;
+
+        private final long enqueuedNanos = System.nanoTime();
+
+        /**
+         * 只在{@link TenantFairQueue}的锁内修改
+         */
+        private volatile int state = QUEUED;
+
+        private Ticket(TenantQueue tenantQueue, Consumer<Ticket> onAdmit, Consumer<Ticket> onExpire) {
+            this.tenantQueue = tenantQueue;
+            this.onAdmit = onAdmit;
+            this.onExpire = onExpire;
+        }
+
+        public String getTenant() {
+            return tenantQueue.getTenant();
+        }
+
+        /**
+         * 是否已经获得许可（包括已释放）
+         */
+        public boolean isAdmitted() {
+            return state == ADMITTED || state == RELEASED;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.lianjiatech.retrofit.spring.boot.fairqueue;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.lianjiatech.retrofit.spring.boot.util.LatencyHistogram;
+
+/**
+ * 单个租户的等待队列以及统计数据，队列由{@link TenantFairQueue}在锁内维护
+ * <p>
+ * The waiting queue and statistics of a tenant, the queue is maintained by {@link TenantFairQueue} under its lock
+ *
+ * @author 陈添明
+ */
+public class TenantQueue {
+
+    private static final long QUEUE_WAIT_WINDOW_MS = 60_000;
+
+    private final String tenant;
+
+    private final int weight;
+
+    final Deque<TenantFairQueue.Ticket> tickets = new ArrayDeque<>();
+
+    /**
+     * 本轮剩余的可调度次数
+     */
+    int deficit;
+
+    /**
+     * 是否在轮询列表中
+     */
+    boolean scheduled;
+
+    private volatile int queuedCalls;
+
+    private volatile int activeCalls;
+
+    private final LongAdder admittedCalls = new LongAdder();
+
+    private final LongAdder rejectedCalls = new LongAdder();
+
+    private final LongAdder expiredCalls = new LongAdder();
+
+    private final LatencyHistogram queueWaitHistogram = new LatencyHistogram(QUEUE_WAIT_WINDOW_MS);
+
+    TenantQueue(String tenant, int weight) {
+        this.tenant = tenant;
+        this.weight = weight;
+    }
+
+    void updateQueuedCalls() {
+        queuedCalls = tickets.size();
+    }
+
+    void onAdmitted(long waitMs) {
+        activeCalls++;
+        admittedCalls.increment();
+        queueWaitHistogram.record(waitMs);
+    }
+
+    void onReleased() {
+        activeCalls--;
+    }
+
+    void onRejected() {
+        rejectedCalls.increment();
+    }
+
+    void onExpired() {
+        expiredCalls.increment();
+    }
+
+    /**
+     * 没有进行中和排队中的调用，只在{@link TenantFairQueue}的锁内调用
+     */
+    boolean isIdle() {
+        return activeCalls == 0 && tickets.isEmpty() && !scheduled;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * 排队中的调用数
+     */
+    public int getQueuedCalls() {
+        return queuedCalls;
+    }
+
+    /**
+     * 进行中的调用数
+     */
+    public int getActiveCalls() {
+        return activeCalls;
+    }
+
+    /**
+     * 获得许可的调用数
+     */
+    public long getAdmittedCalls() {
+        return admittedCalls.sum();
+    }
+
+    /**
+     * 因为队列已满被拒绝的调用数
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+
+    /**
+     * 因为排队时间过长失败的调用数
+     */
+    public long getExpiredCalls() {
+        return expiredCalls.sum();
+    }
+
+    /**
+     * 最近一段时间排队时间的分位数，单位为 ms
+     *
+     * @param quantile 分位，取值0-1
+     * @return 排队时间分位数，没有样本时返回-1
+     */
+    public long getQueueWaitMs(double quantile) {
+        return queueWaitHistogram.percentile(quantile, 1);
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.lianjiatech.retrofit.spring.boot.hedge;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 对冲请求：请求发出后如果在指定延迟内没有成功响应，则再发送一份相同的请求，采用最先成功的响应，并取消其余请求。
+ * 只对GET、HEAD、OPTIONS请求生效。通过serviceId调用时，对冲请求会发送到不同的服务实例。
+ * <p>
+ * Hedged requests: if there is no successful response within the delay, send another copy of the request,
+ * use the first successful response, and cancel the others. Only GET, HEAD and OPTIONS requests are hedged.
+ * When calling by serviceId, hedged requests are sent to different service instances.
+ *
+ * @author 陈添明
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Documented
+@Inherited
+public @interface Hedge {
+
+    /**
+     * 是否启用对冲请求
+     *
+     * @return 是否启用对冲请求
+     */
+    boolean enable() default true;
+
+    /**
+     * 最多发送的请求数（包括第一次请求）
+     * <p>
+     * The maximum number of requests sent (including the first one)
+     *
+     * @return 最多请求数；The maximum number of requests
+     */
+    int maxAttempts() default 2;
+
+    /**
+     * 发送对冲请求前的固定延迟。启用{@link #adaptiveDelay()}时，作为样本不足时的延迟
+     * <p>
+     * The fixed delay before sending a hedged request. When {@link #adaptiveDelay()} is enabled,
+     * it is used if there are not enough samples
+     *
+     * @return 对冲延迟；Hedge delay
+     */
+    int delayMs() default 100;
+
+    /**
+     * 是否根据方法最近的延迟分位数（{@link #delayPercentile()}）计算对冲延迟
+     * <p>
+     * Whether to derive the hedge delay from the recent latency percentile ({@link #delayPercentile()}) of the method
+     *
+     * @return 是否自适应延迟；Whether adaptive delay is enabled
+     */
+    boolean adaptiveDelay() default false;
+
+    /**
+     * 自适应延迟采用的延迟分位数，取值0-1
+     * <p>
+     * The latency percentile used by adaptive delay, between 0 and 1
+     *
+     * @return 延迟分位数；latency percentile
+     */
+    double delayPercentile() default 0.95;
+
+    /**
+     * 对冲请求量与请求量的最大比例，避免下游变慢时流量翻倍
+     * <p>
+     * The maximum ratio of hedged requests to requests, to avoid doubling the load when the downstream slows down
+     *
+     * @return 最大对冲比例；The maximum hedge ratio
+     */
+    double maxHedgeRatio() default 0.1;
+}
@@ -0,0 +1,341 @@
+package com.github.lianjiatech.retrofit.spring.boot.hedge;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodPolicy;
+import com.github.lianjiatech.retrofit.spring.boot.core.ServiceInstanceContext;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 对冲请求拦截器，参见{@link Hedge}。
+ * <p>
+ * 同一个调用的多个请求不能在同一个拦截器链中并发执行，因此每个请求都通过{@link #setHedgeClient(OkHttpClient)}设置的客户端单独发送，
+ * 该客户端只保留当前拦截器之后的拦截器。第一次请求在当前线程同步执行，对冲请求由定时器到期后通过{@link Call#enqueue(Callback)}提交到客户端的调度器，
+ * 不额外占用线程。每个Retrofit客户端对应一个实例。
+ * <p>
+ * Hedge interceptor, see {@link Hedge}. Requests of one call cannot run concurrently in the same interceptor chain,
+ * so each request is sent separately by the client set by {@link #setHedgeClient(OkHttpClient)},
+ * which only keeps the interceptors after this one. The first request runs synchronously on the current thread,
+ * hedged requests are submitted to the dispatcher of the client through {@link Call#enqueue(Callback)} when the timer
+ * fires, without holding extra threads. One instance per retrofit client.
+ *
+ * @author 陈添明
+ */
+@Slf4j
+public class HedgeInterceptor implements Interceptor {
+
+    private static final Set<String> IDEMPOTENT_METHODS = new HashSet<>(Arrays.asList("GET", "HEAD", "OPTIONS"));
+
+    private static final long CANCEL_CHECK_INTERVAL_MS = 100;
+
+    protected final Map<Method, HedgeStats> hedgeStats = new ConcurrentHashMap<>();
+
+    private volatile OkHttpClient hedgeClient;
+
+    public void setHedgeClient(OkHttpClient hedgeClient) {
+        this.hedgeClient = hedgeClient;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        MethodPolicy methodPolicy = MethodPolicy.from(request);
+        Hedge hedge = methodPolicy.getHedge();
+        OkHttpClient client = hedgeClient;
+        if (!needHedge(hedge, request) || client == null) {
+            return chain.proceed(request);
+        }
+        HedgeStats stats = hedgeStats.computeIfAbsent(methodPolicy.getMethod(), m -> new HedgeStats());
+        stats.recordRequest();
+        return hedgeIntercept(chain, client, hedge, stats);
+    }
+
+    protected boolean needHedge(Hedge hedge, Request request) {
+        return hedge != null && hedge.enable() && hedge.maxAttempts() > 1
+                && IDEMPOTENT_METHODS.contains(request.method());
+    }
+
+    protected Response hedgeIntercept(Chain chain, OkHttpClient client, Hedge hedge, HedgeStats stats)
+            throws IOException {
+        HedgedCall hedgedCall = new HedgedCall(client, hedge, stats, chain.call());
+        Request request = chain.request();
+        Call primary = hedgedCall.newAttempt(request);
+        hedgedCall.start(request);
+        Response response = null;
+        IOException exception = null;
+        try {
+            response = primary.execute();
+        } catch (IOException e) {
+            exception = e;
+        } catch (RuntimeException e) {
+            // 本地限流等运行时异常原样抛出，由重试和熔断拦截器识别
+            hedgedCall.finish();
+            throw e;
+        }
+        try {
+            return hedgedCall.await(primary, response, exception);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for hedged requests");
+        } finally {
+            hedgedCall.finish();
+        }
+    }
+
+    /**
+     * 通过serviceId调用时，对冲请求排除已经使用的实例
+     */
+    protected Request nextRequest(Request request) {
+        ServiceInstanceContext serviceInstanceContext = request.tag(ServiceInstanceContext.class);
+        if (serviceInstanceContext == null) {
+            return request;
+        }
+        return serviceInstanceContext.rechoose(request);
+    }
+
+    /**
+     * 获取所有方法的对冲统计
+     * <p>
+     * Get hedge statistics of all methods
+     *
+     * @return 方法 -> 对冲统计；method -> hedge statistics
+     */
+    public Map<Method, HedgeStats> getHedgeStats() {
+        return Collections.unmodifiableMap(hedgeStats);
+    }
+
+    private final class HedgedCall implements Callback {
+
+        private final OkHttpClient client;
+
+        private final Hedge hedge;
+
+        private final HedgeStats stats;
+
+        private final Call outerCall;
+
+        /**
+         * 未完成的请求及其开始时间
+         */
+        private final Map<Call, Long> inFlight = new LinkedHashMap<>(4);
+
+        private int launched;
+
+        private boolean hedging = true;
+
+        private boolean done;
+
+        private Call winner;
+
+        private Response winnerResponse;
+
+        private Attempt lastFailure;
+
+        private ScheduledFuture<?> nextHedge;
+
+        private ScheduledFuture<?> cancelWatch;
+
+        private HedgedCall(OkHttpClient client, Hedge hedge, HedgeStats stats, Call outerCall) {
+            this.client = client;
+            this.hedge = hedge;
+            this.stats = stats;
+            this.outerCall = outerCall;
+        }
+
+        private synchronized Call newAttempt(Request request) {
+            Call call = client.newCall(request);
+            inFlight.put(call, System.nanoTime());
+            launched++;
+            return call;
+        }
+
+        /**
+         * 安排第一次对冲请求，并定期检查外层调用是否被取消
+         */
+        private synchronized void start(Request request) {
+            scheduleHedge(request);
+            cancelWatch = TimerHolder.TIMER.scheduleWithFixedDelay(this::checkCanceled, CANCEL_CHECK_INTERVAL_MS,
+                    CANCEL_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+
+        private void scheduleHedge(Request request) {
+            long delayMs = stats.delayMs(hedge);
+            nextHedge = TimerHolder.TIMER.schedule(() -> launchHedge(request), delayMs, TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized void launchHedge(Request request) {
+            if (done || !hedging || winner != null) {
+                return;
+            }
+            if (!stats.tryAcquireHedge(hedge.maxHedgeRatio())) {
+                hedging = false;
+                return;
+            }
+            log.debug("No successful response yet, send hedged request");
+            Request hedgeRequest = nextRequest(request);
+            newAttempt(hedgeRequest).enqueue(this);
+            if (launched < hedge.maxAttempts()) {
+                scheduleHedge(hedgeRequest);
+            }
+        }
+
+        private void checkCanceled() {
+            if (outerCall.isCanceled()) {
+                synchronized (this) {
+                    cancelInFlight();
+                    notifyAll();
+                }
+            }
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) {
+            complete(call, response, null);
+        }
+
+        @Override
+        public void onFailure(Call call, IOException e) {
+            complete(call, null, e);
+        }
+
+        private synchronized void complete(Call call, Response response, IOException exception) {
+            Long startNanos = inFlight.remove(call);
+            if (startNanos == null || done || winner != null) {
+                // 已经被取消，或者其他请求已经成功
+                closeQuietly(response);
+                return;
+            }
+            if (response != null) {
+                stats.recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                if (response.isSuccessful()) {
+                    winner = call;
+                    winnerResponse = response;
+                    cancelInFlight();
+                    notifyAll();
+                    return;
+                }
+            }
+            if (lastFailure != null) {
+                closeQuietly(lastFailure.response);
+            }
+            lastFailure = new Attempt(response, exception);
+            notifyAll();
+        }
+
+        /**
+         * 第一次请求结束后，等待最先成功的响应；第一次请求失败后不再发送新的对冲请求，只等待已经发出的对冲请求
+         */
+        private synchronized Response await(Call primary, Response response, IOException exception)
+                throws IOException, InterruptedException {
+            complete(primary, response, exception);
+            if (winner == null) {
+                hedging = false;
+            }
+            while (winner == null && !inFlight.isEmpty()) {
+                if (outerCall.isCanceled()) {
+                    throw new IOException("Canceled");
+                }
+                wait(CANCEL_CHECK_INTERVAL_MS);
+            }
+            if (winner != null) {
+                return winnerResponse;
+            }
+            if (outerCall.isCanceled()) {
+                throw new IOException("Canceled");
+            }
+            // 所有请求都失败了，返回最后一次的结果
+            Attempt failed = lastFailure;
+            lastFailure = null;
+            if (failed.response != null) {
+                return failed.response;
+            }
+            throw failed.exception;
+        }
+
+        /**
+         * 取消其余请求以及还未发出的对冲请求，并关闭未被采用的响应
+         */
+        private synchronized void finish() {
+            done = true;
+            if (nextHedge != null) {
+                nextHedge.cancel(false);
+            }
+            if (cancelWatch != null) {
+                cancelWatch.cancel(false);
+            }
+            cancelInFlight();
+            if (lastFailure != null) {
+                closeQuietly(lastFailure.response);
+                lastFailure = null;
+            }
+        }
+
+        /**
+         * 被取消的请求按取消时已经等待的时间记录延迟（删失样本），避免只统计完成的请求导致延迟分位数偏低
+         */
+        private void cancelInFlight() {
+            long now = System.nanoTime();
+            for (Map.Entry<Call, Long> entry : inFlight.entrySet()) {
+                stats.recordLatency(TimeUnit.NANOSECONDS.toMillis(now - entry.getValue()));
+                entry.getKey().cancel();
+            }
+            inFlight.clear();
+        }
+    }
+
+    private static final class Attempt {
+
+        private final Response response;
+
+        private final IOException exception;
+
+        private Attempt(Response response, IOException exception) {
+            this.response = response;
+            this.exception = exception;
+        }
+    }
+
+    private static void closeQuietly(Response response) {
+        if (response != null) {
+            response.close();
+        }
+    }
+
+    private static class TimerHolder {
+
+        /**
+         * 定时任务只负责发起对冲请求和检查取消，不执行请求，单线程即可
+         */
+        private static final ScheduledExecutorService TIMER = createTimer();
+
+        private static ScheduledExecutorService createTimer() {
+            ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "retrofit-hedge-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.setRemoveOnCancelPolicy(true);
+            return timer;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.lianjiatech.retrofit.spring.boot.hedge;
+
+import com.github.lianjiatech.retrofit.spring.boot.util.LatencyHistogram;
+import com.github.lianjiatech.retrofit.spring.boot.util.SlidingWindowCounter;
+
+/**
+ * 单个方法的对冲统计：延迟分布以及对冲比例限制
+ * <p>
+ * Hedge statistics of a method: latency distribution and hedge ratio limit
+ *
+ * @author 陈添明
+ */
+public class HedgeStats {
+
+    private static final long WINDOW_MS = 10_000;
+
+    private static final int BUCKET_COUNT = 10;
+
+    private static final int MIN_SAMPLES = 20;
+
+    private final LatencyHistogram latencyHistogram = new LatencyHistogram(WINDOW_MS);
+
+    private final SlidingWindowCounter requests = new SlidingWindowCounter(WINDOW_MS, BUCKET_COUNT);
+
+    private final SlidingWindowCounter hedges = new SlidingWindowCounter(WINDOW_MS, BUCKET_COUNT);
+
+    public void recordRequest() {
+        requests.increment();
+    }
+
+    public void recordLatency(long latencyMs) {
+        latencyHistogram.record(latencyMs);
+    }
+
+    /**
+     * 在对冲比例限制内申请发送一次对冲请求
+     *
+     * @param maxHedgeRatio 最大对冲比例
+     * @return 是否允许发送
+     */
+    public boolean tryAcquireHedge(double maxHedgeRatio) {
+        long now = System.currentTimeMillis();
+        if (hedges.sum(now) + 1 > requests.sum(now) * maxHedgeRatio) {
+            return false;
+        }
+        hedges.add(1, now);
+        return true;
+    }
+
+    /**
+     * 计算对冲延迟
+     *
+     * @param hedge 对冲配置
+     * @return 对冲延迟
+     */
+    public long delayMs(Hedge hedge) {
+        if (!hedge.adaptiveDelay()) {
+            return hedge.delayMs();
+        }
+        long percentile = latencyHistogram.percentile(hedge.delayPercentile(), MIN_SAMPLES);
+        return percentile < 0 ? hedge.delayMs() : percentile;
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    public long getHedgeCount() {
+        return hedges.sum();
+    }
+}
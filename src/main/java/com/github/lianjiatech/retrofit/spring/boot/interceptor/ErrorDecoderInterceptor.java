@@ -1,23 +1,21 @@
 package com.github.lianjiatech.retrofit.spring.boot.interceptor;
 
 import java.io.IOException;
-import java.lang.reflect.Method;
-import java.util.Objects;
 
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
-import org.springframework.core.annotation.AnnotatedElementUtils;
 
 import com.github.lianjiatech.retrofit.spring.boot.core.ErrorDecoder;
-import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.core.InvocationContext;
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodPolicy;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
 import com.github.lianjiatech.retrofit.spring.boot.util.AppContextUtils;
 
 import lombok.SneakyThrows;
 import okhttp3.Interceptor;
 import okhttp3.Request;
 import okhttp3.Response;
-import retrofit2.Invocation;
 
 /**
  * @author 陈添明
@@ -30,15 +28,11 @@ public class ErrorDecoderInterceptor implements Interceptor, ApplicationContextA
     @SneakyThrows
     public Response intercept(Chain chain) throws IOException {
         Request request = chain.request();
-        Method method = Objects.requireNonNull(request.tag(Invocation.class)).method();
-        RetrofitClient retrofitClient =
-                AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), RetrofitClient.class);
-        ErrorDecoder errorDecoder =
-                AppContextUtils.getBeanOrNew(applicationContext, retrofitClient.errorDecoder());
+        ErrorDecoder errorDecoder = findErrorDecoder(MethodPolicy.from(request));
         boolean decoded = false;
         try {
             Response response = chain.proceed(request);
-            if (errorDecoder == null) {
+            if (errorDecoder == null || isRetryScheduled(request)) {
                 return response;
             }
             decoded = true;
@@ -48,10 +42,13 @@ public class ErrorDecoderInterceptor implements Interceptor, ApplicationContextA
             }
             throw exception;
         } catch (IOException e) {
-            if (decoded) {
+            if (decoded || isRetryScheduled(request) || e.getCause() instanceof RetrofitBlockException) {
                 throw e;
             }
             throw errorDecoder.ioExceptionDecode(request, e);
+        } catch (RetrofitBlockException e) {
+            // 本地限流或者熔断，保留原始异常，由降级逻辑处理
+            throw e;
         } catch (Exception e) {
             if (decoded && e instanceof RuntimeException) {
                 throw (RuntimeException)e;
@@ -60,6 +57,22 @@ public class ErrorDecoderInterceptor implements Interceptor, ApplicationContextA
         }
     }
 
+    /**
+     * 异步调用已经安排了重试时，本次结果会被丢弃，无需解码
+     */
+    private boolean isRetryScheduled(Request request) {
+        InvocationContext invocationContext = request.tag(InvocationContext.class);
+        return invocationContext != null && invocationContext.isRetryScheduled();
+    }
+
+    protected ErrorDecoder findErrorDecoder(MethodPolicy methodPolicy) {
+        ErrorDecoder errorDecoder = methodPolicy.getErrorDecoder();
+        if (errorDecoder != null) {
+            return errorDecoder;
+        }
+        return AppContextUtils.getBeanOrNew(applicationContext, methodPolicy.getRetrofitClient().errorDecoder());
+    }
+
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
         this.applicationContext = applicationContext;
@@ -1,17 +1,16 @@
 package com.github.lianjiatech.retrofit.spring.boot.interceptor;
 
 import java.io.IOException;
-import java.lang.reflect.Method;
-import java.net.URI;
 import java.util.Objects;
 
-import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.util.StringUtils;
 
+import com.github.lianjiatech.retrofit.spring.boot.core.InvocationContext;
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodPolicy;
 import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
 import com.github.lianjiatech.retrofit.spring.boot.core.ServiceInstanceChooser;
+import com.github.lianjiatech.retrofit.spring.boot.core.ServiceInstanceContext;
 
-import okhttp3.HttpUrl;
 import okhttp3.Interceptor;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -31,26 +30,24 @@ public class ServiceChooseInterceptor implements Interceptor {
     @Override
     public Response intercept(Chain chain) throws IOException {
         Request request = chain.request();
-        Method method = Objects.requireNonNull(request.tag(Invocation.class)).method();
-        Class<?> declaringClass = method.getDeclaringClass();
-        RetrofitClient retrofitClient =
-                AnnotatedElementUtils.findMergedAnnotation(declaringClass, RetrofitClient.class);
+        MethodPolicy methodPolicy = MethodPolicy.from(request);
+        RetrofitClient retrofitClient = methodPolicy.getRetrofitClient();
         String baseUrl = retrofitClient.baseUrl();
         if (StringUtils.hasText(baseUrl)) {
             return chain.proceed(request);
         }
         // serviceId服务发现
-        String serviceId = retrofitClient.serviceId();
-        URI uri = serviceInstanceChooser.choose(serviceId);
-        HttpUrl url = request.url();
-        HttpUrl newUrl = url.newBuilder()
-                .scheme(uri.getScheme())
-                .host(uri.getHost())
-                .port(uri.getPort())
-                .build();
-        Request newReq = request.newBuilder()
-                .url(newUrl)
-                .build();
-        return chain.proceed(newReq);
+        InvocationContext invocationContext = request.tag(InvocationContext.class);
+        if (invocationContext != null && invocationContext.getServiceInstanceContext() != null) {
+            // 异步重试，排除上一次的实例
+            return chain.proceed(invocationContext.getServiceInstanceContext().rechoose(request));
+        }
+        String hashKey = methodPolicy.getHashKey(Objects.requireNonNull(request.tag(Invocation.class)));
+        ServiceInstanceContext serviceInstanceContext =
+                new ServiceInstanceContext(retrofitClient.serviceId(), serviceInstanceChooser, hashKey);
+        if (invocationContext != null) {
+            invocationContext.setServiceInstanceContext(serviceInstanceContext);
+        }
+        return chain.proceed(serviceInstanceContext.choose(request));
     }
 }
@@ -0,0 +1,60 @@
+package com.github.lianjiatech.retrofit.spring.boot.interceptor;
+
+import java.io.IOException;
+import java.net.URI;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.ServiceInstanceChooser;
+import com.github.lianjiatech.retrofit.spring.boot.core.ServiceInstanceContext;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.ServiceInstanceListener;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 统计发送到服务实例的每次请求。位于重试和对冲拦截器之后，因此每次重试和对冲请求都会单独回调{@link ServiceInstanceListener}。
+ * <p>
+ * Records every request sent to a service instance. It sits after the retry and hedge interceptors,
+ * so each retry and hedged request is reported to {@link ServiceInstanceListener} separately.
+ *
+ * @author 陈添明
+ */
+public class ServiceInstanceStatsInterceptor implements Interceptor {
+
+    protected final ServiceInstanceListener serviceInstanceListener;
+
+    public ServiceInstanceStatsInterceptor(ServiceInstanceChooser serviceInstanceChooser) {
+        this.serviceInstanceListener = serviceInstanceChooser instanceof ServiceInstanceListener
+                ? (ServiceInstanceListener)serviceInstanceChooser : null;
+    }
+
+    /**
+     * 服务实例选择器是否需要请求统计
+     *
+     * @return 是否启用
+     */
+    public boolean isEnabled() {
+        return serviceInstanceListener != null;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        ServiceInstanceContext serviceInstanceContext = request.tag(ServiceInstanceContext.class);
+        URI instance = request.tag(URI.class);
+        if (serviceInstanceListener == null || serviceInstanceContext == null || instance == null) {
+            return chain.proceed(request);
+        }
+        String serviceId = serviceInstanceContext.getServiceId();
+        serviceInstanceListener.onRequestStart(serviceId, instance);
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Response response = chain.proceed(request);
+            success = response.code() < 500;
+            return response;
+        } finally {
+            serviceInstanceListener.onRequestEnd(serviceId, instance, System.nanoTime() - start, success);
+        }
+    }
+}
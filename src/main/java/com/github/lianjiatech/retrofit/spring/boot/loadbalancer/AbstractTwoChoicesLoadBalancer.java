@@ -0,0 +1,39 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 两次随机选择（power of two choices）的基类。随机选择两个不同的实例，取负载较低的一个。
+ * <p>
+ * Base class of power of two choices. Two distinct instances are picked at random and the one with lower load is chosen.
+ *
+ * @author 陈添明
+ */
+public abstract class AbstractTwoChoicesLoadBalancer implements LoadBalancer {
+
+    @Override
+    public ServiceInstance choose(String serviceId, List<ServiceInstance> instances) {
+        int size = instances.size();
+        if (size == 1) {
+            return instances.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+        return load(b) < load(a) ? b : a;
+    }
+
+    /**
+     * 实例当前的负载
+     *
+     * @param instance 服务实例
+     * @return 负载，越小越优先
+     */
+    protected abstract double load(ServiceInstance instance);
+}
@@ -0,0 +1,144 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 一致性hash。实例列表变化时按权重为每个实例生成若干虚拟节点构成hash环，选择时二分查找key所在的位置，时间复杂度为O(log n)。
+ * 相同的key总是选择同一个实例，实例增减时只有少量key会迁移。选中的实例已经失败时沿着hash环选择下一个实例；没有hash key时随机选择。
+ * <p>
+ * Consistent hashing. When the instance list changes, a hash ring is built from virtual nodes generated for each instance
+ * by weight, and choosing binary-searches the position of the key, which is O(log n). The same key always chooses the same
+ * instance, and only a few keys move when instances change. If the chosen instance has failed, the next instance on the ring
+ * is chosen; without a hash key, an instance is chosen at random.
+ *
+ * @author 陈添明
+ */
+public class ConsistentHashLoadBalancer implements LoadBalancer {
+
+    /**
+     * 每单位权重的虚拟节点数量
+     */
+    private static final int VIRTUAL_NODES_PER_WEIGHT = 100;
+
+    /**
+     * hash环的最大节点数量，超过时按比例减少每个实例的虚拟节点
+     */
+    private static final int MAX_RING_SIZE = 65536;
+
+    private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+
+    @Override
+    public ServiceInstance choose(String serviceId, List<ServiceInstance> instances) {
+        return instances.get(ThreadLocalRandom.current().nextInt(instances.size()));
+    }
+
+    @Override
+    public ServiceInstance choose(String serviceId, List<ServiceInstance> instances, String hashKey,
+            Set<URI> excludedInstances) {
+        if (hashKey == null) {
+            return LoadBalancer.super.choose(serviceId, instances, null, excludedInstances);
+        }
+        Ring ring = rings.get(serviceId);
+        if (ring == null || !ring.isFor(instances)) {
+            ring = new Ring(instances);
+            rings.put(serviceId, ring);
+        }
+        return ring.get(hash(hashKey), excludedInstances);
+    }
+
+    /**
+     * 64位FNV-1a，再经过MurmurHash3的fmix64混合，分布足够均匀并且跨进程稳定
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Ring {
+
+        private final List<ServiceInstance> instances;
+
+        private final long[] hashes;
+
+        private final ServiceInstance[] nodes;
+
+        private Ring(List<ServiceInstance> instances) {
+            this.instances = instances;
+            long totalWeight = 0;
+            for (ServiceInstance instance : instances) {
+                totalWeight += instance.getWeight();
+            }
+            double scale = Math.min(1.0, (double)MAX_RING_SIZE / (totalWeight * VIRTUAL_NODES_PER_WEIGHT));
+            int size = 0;
+            int[] virtualNodes = new int[instances.size()];
+            for (int i = 0; i < virtualNodes.length; i++) {
+                virtualNodes[i] =
+                        (int)Math.max(1, instances.get(i).getWeight() * VIRTUAL_NODES_PER_WEIGHT * scale);
+                size += virtualNodes[i];
+            }
+            long[] points = new long[size];
+            ServiceInstance[] owners = new ServiceInstance[size];
+            Integer[] order = new Integer[size];
+            int n = 0;
+            for (int i = 0; i < virtualNodes.length; i++) {
+                ServiceInstance instance = instances.get(i);
+                String prefix = instance.getUri().toString() + '#';
+                for (int v = 0; v < virtualNodes[i]; v++) {
+                    points[n] = hash(prefix + v);
+                    owners[n] = instance;
+                    order[n] = n;
+                    n++;
+                }
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(points[a], points[b]));
+            this.hashes = new long[size];
+            this.nodes = new ServiceInstance[size];
+            for (int i = 0; i < size; i++) {
+                hashes[i] = points[order[i]];
+                nodes[i] = owners[order[i]];
+            }
+        }
+
+        private boolean isFor(List<ServiceInstance> instances) {
+            return this.instances == instances || this.instances.equals(instances);
+        }
+
+        private ServiceInstance get(long hash, Set<URI> excludedInstances) {
+            int index = Arrays.binarySearch(hashes, hash);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            if (index == hashes.length) {
+                index = 0;
+            }
+            ServiceInstance first = nodes[index];
+            if (excludedInstances.isEmpty() || !excludedInstances.contains(first.getUri())) {
+                return first;
+            }
+            // 沿着hash环找到第一个没有被排除的实例，全部被排除时返回原来的实例
+            for (int i = 1; i < nodes.length; i++) {
+                ServiceInstance next = nodes[(index + i) % nodes.length];
+                if (!excludedInstances.contains(next.getUri())) {
+                    return next;
+                }
+            }
+            return first;
+        }
+    }
+}
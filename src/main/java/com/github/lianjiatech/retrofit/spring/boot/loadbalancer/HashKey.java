@@ -0,0 +1,23 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记一致性hash路由的参数，参数值的{@code toString()}作为hash key，相同的key总是路由到同一个实例。
+ * 需要与{@code @Query}、{@code @Path}等Retrofit参数注解一起使用，每个方法最多一个，只在负载均衡策略为{@code consistent_hash}时生效。
+ * <p>
+ * Marks the parameter used for consistent-hash routing. The {@code toString()} of the argument is used as the hash key,
+ * and the same key is always routed to the same instance. It must be used together with a Retrofit parameter annotation
+ * such as {@code @Query} or {@code @Path}, at most one per method, and only takes effect with the {@code consistent_hash} strategy.
+ *
+ * @author 陈添明
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+@Documented
+public @interface HashKey {
+}
@@ -0,0 +1,47 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import lombok.Data;
+
+/**
+ * 服务实例主动健康检查配置，只对从{@link ServiceInstanceSupplier}获取实例的内置负载均衡生效
+ *
+ * @author 陈添明
+ */
+@Data
+public class HealthCheckProperty {
+
+    /**
+     * 是否启用主动健康检查
+     */
+    private boolean enable = false;
+
+    /**
+     * 健康检查路径，响应码为2xx视为健康
+     */
+    private String path = "/actuator/health";
+
+    /**
+     * 健康检查间隔，单位为 ms
+     */
+    private long intervalMs = 10000;
+
+    /**
+     * 单次健康检查超时时间，单位为 ms
+     */
+    private long timeoutMs = 2000;
+
+    /**
+     * 连续成功达到该次数时实例变为健康
+     */
+    private int healthyThreshold = 1;
+
+    /**
+     * 连续失败达到该次数时实例变为不健康
+     */
+    private int unhealthyThreshold = 2;
+
+    /**
+     * 同时进行的最大探测数量，探测使用独立的调度器，不占用业务请求的并发
+     */
+    private int maxConcurrentProbes = 4;
+}
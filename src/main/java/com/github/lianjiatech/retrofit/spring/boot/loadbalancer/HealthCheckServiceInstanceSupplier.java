@@ -0,0 +1,67 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 只返回健康实例的{@link ServiceInstanceSupplier}。实例列表和健康状态都没有变化时返回同一个{@code List}实例；
+ * 如果没有任何健康实例（比如应用刚启动还没有完成第一次检查），则返回全部实例。
+ * <p>
+ * A {@link ServiceInstanceSupplier} that only returns healthy instances. The same {@code List} instance is returned while
+ * neither the instances nor their health change. If no instance is healthy (e.g. right after startup, before the first
+ * check completes), all instances are returned.
+ *
+ * @author 陈添明
+ */
+public class HealthCheckServiceInstanceSupplier implements ServiceInstanceSupplier {
+
+    private final ServiceInstanceSupplier delegate;
+
+    private final HealthChecker healthChecker;
+
+    private final Map<String, HealthyInstances> cache = new ConcurrentHashMap<>();
+
+    public HealthCheckServiceInstanceSupplier(ServiceInstanceSupplier delegate, HealthChecker healthChecker) {
+        this.delegate = delegate;
+        this.healthChecker = healthChecker;
+    }
+
+    @Override
+    public List<ServiceInstance> getInstances(String serviceId) {
+        List<ServiceInstance> instances = delegate.getInstances(serviceId);
+        long version = healthChecker.getVersion();
+        HealthyInstances healthyInstances = cache.get(serviceId);
+        if (healthyInstances != null && healthyInstances.source == instances && healthyInstances.version == version) {
+            return healthyInstances.instances;
+        }
+        healthChecker.register(serviceId, instances);
+        List<ServiceInstance> healthy = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            if (healthChecker.isHealthy(instance.getUri())) {
+                healthy.add(instance);
+            }
+        }
+        List<ServiceInstance> result = healthy.isEmpty() || healthy.size() == instances.size() ? instances
+                : Collections.unmodifiableList(healthy);
+        cache.put(serviceId, new HealthyInstances(instances, version, result));
+        return result;
+    }
+
+    private static final class HealthyInstances {
+
+        private final List<ServiceInstance> source;
+
+        private final long version;
+
+        private final List<ServiceInstance> instances;
+
+        private HealthyInstances(List<ServiceInstance> source, long version, List<ServiceInstance> instances) {
+            this.source = source;
+            this.version = version;
+            this.instances = instances;
+        }
+    }
+}
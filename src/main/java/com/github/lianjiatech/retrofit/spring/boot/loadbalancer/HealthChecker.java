@@ -0,0 +1,197 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 服务实例主动健康检查。所有服务共用一个单线程调度器，按固定间隔探测已知服务的每个实例，探测请求通过独立的OkHttp调度器异步发送，
+ * 调度线程不会被阻塞，探测也不会占用业务请求的调度器容量。新出现的实例立即探测一次，通过检查之前视为不健康。
+ * <p>
+ * Active health checking of service instances. All services share one single-threaded scheduler, which probes every
+ * instance of the known services at a fixed interval. Probes are sent asynchronously through a dedicated OkHttp
+ * dispatcher, so the scheduler thread never blocks and probes never take dispatcher capacity from business calls. A new
+ * instance is probed immediately and is considered unhealthy until it passes a check.
+ *
+ * @author 陈添明
+ */
+@Slf4j
+public class HealthChecker {
+
+    private final ServiceInstanceSupplier serviceInstanceSupplier;
+
+    private final HealthCheckProperty property;
+
+    private final OkHttpClient okHttpClient;
+
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    private final Set<String> serviceIds = ConcurrentHashMap.newKeySet();
+
+    private final Map<URI, InstanceHealth> instances = new ConcurrentHashMap<>();
+
+    /**
+     * 任意实例健康状态变化时递增，用于判断健康实例列表是否需要重新计算
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * @param serviceInstanceSupplier 服务实例来源
+     * @param property 健康检查配置
+     * @param okHttpClient 共享连接池的OkHttpClient，超时时间和调度器按配置重新设置
+     */
+    public HealthChecker(ServiceInstanceSupplier serviceInstanceSupplier, HealthCheckProperty property,
+            OkHttpClient okHttpClient) {
+        if (HttpUrl.get("http://localhost").resolve(property.getPath()) == null) {
+            throw new IllegalArgumentException("Invalid health check path: " + property.getPath());
+        }
+        this.serviceInstanceSupplier = serviceInstanceSupplier;
+        this.property = property;
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(property.getMaxConcurrentProbes());
+        dispatcher.setMaxRequestsPerHost(property.getMaxConcurrentProbes());
+        this.okHttpClient = okHttpClient.newBuilder()
+                .callTimeout(property.getTimeoutMs(), TimeUnit.MILLISECONDS)
+                .dispatcher(dispatcher)
+                .build();
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "retrofit-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setRemoveOnCancelPolicy(true);
+        this.scheduler.scheduleWithFixedDelay(this::checkAll, property.getIntervalMs(), property.getIntervalMs(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 实例是否健康，未经过检查的实例视为不健康
+     *
+     * @param instance 实例地址
+     * @return 是否健康
+     */
+    public boolean isHealthy(URI instance) {
+        InstanceHealth health = instances.get(instance);
+        return health != null && health.healthy;
+    }
+
+    /**
+     * 登记需要检查的服务实例，新实例立即探测一次
+     *
+     * @param serviceId 服务id
+     * @param serviceInstances 服务实例
+     */
+    public void register(String serviceId, List<ServiceInstance> serviceInstances) {
+        serviceIds.add(serviceId);
+        for (ServiceInstance serviceInstance : serviceInstances) {
+            URI uri = serviceInstance.getUri();
+            if (!instances.containsKey(uri) && instances.putIfAbsent(uri, new InstanceHealth()) == null
+                    && !scheduler.isShutdown()) {
+                scheduler.execute(() -> probe(uri));
+            }
+        }
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        okHttpClient.dispatcher().cancelAll();
+        okHttpClient.dispatcher().executorService().shutdown();
+    }
+
+    private void checkAll() {
+        try {
+            Set<URI> known = new HashSet<>();
+            for (String serviceId : serviceIds) {
+                for (ServiceInstance serviceInstance : serviceInstanceSupplier.getInstances(serviceId)) {
+                    known.add(serviceInstance.getUri());
+                    instances.putIfAbsent(serviceInstance.getUri(), new InstanceHealth());
+                }
+            }
+            // 下线的实例不再检查
+            if (instances.keySet().retainAll(known)) {
+                version.incrementAndGet();
+            }
+            instances.keySet().forEach(this::probe);
+        } catch (Exception e) {
+            log.warn("Failed to check service instances health!", e);
+        }
+    }
+
+    private void probe(URI instance) {
+        InstanceHealth health = instances.get(instance);
+        // 上一次探测还没有结束
+        if (health == null || !health.probing.compareAndSet(false, true)) {
+            return;
+        }
+        HttpUrl url = HttpUrl.get(instance).resolve(property.getPath());
+        okHttpClient.newCall(new Request.Builder().url(url).get().build()).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                onProbeEnd(instance, health, false);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try {
+                    onProbeEnd(instance, health, response.isSuccessful());
+                } finally {
+                    response.close();
+                }
+            }
+        });
+    }
+
+    private void onProbeEnd(URI instance, InstanceHealth health, boolean success) {
+        // 同一个实例同时只有一个探测，计数不需要同步
+        if (success) {
+            health.consecutiveFailures = 0;
+            health.consecutiveSuccesses++;
+            if (!health.healthy && health.consecutiveSuccesses >= property.getHealthyThreshold()) {
+                health.healthy = true;
+                version.incrementAndGet();
+                log.info("Service instance became healthy. instance={}", instance);
+            }
+        } else {
+            health.consecutiveSuccesses = 0;
+            health.consecutiveFailures++;
+            if (health.healthy && health.consecutiveFailures >= property.getUnhealthyThreshold()) {
+                health.healthy = false;
+                version.incrementAndGet();
+                log.warn("Service instance became unhealthy. instance={}", instance);
+            }
+        }
+        health.probing.set(false);
+    }
+
+    private static final class InstanceHealth {
+
+        private final AtomicBoolean probing = new AtomicBoolean();
+
+        private volatile boolean healthy;
+
+        private int consecutiveSuccesses;
+
+        private int consecutiveFailures;
+    }
+}
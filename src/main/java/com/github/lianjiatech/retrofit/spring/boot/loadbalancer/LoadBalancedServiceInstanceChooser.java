@@ -0,0 +1,63 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.ServiceInstanceChooser;
+import com.github.lianjiatech.retrofit.spring.boot.exception.ServiceInstanceChooseException;
+
+/**
+ * 内置的服务实例选择器，从{@link ServiceInstanceSupplier}获取实例列表，通过{@link LoadBalancer}选择实例。
+ * <p>
+ * Builtin service instance chooser, gets the instance list from {@link ServiceInstanceSupplier}
+ * and chooses an instance through {@link LoadBalancer}.
+ *
+ * @author 陈添明
+ */
+public class LoadBalancedServiceInstanceChooser implements ServiceInstanceChooser, ServiceInstanceListener {
+
+    protected final ServiceInstanceSupplier serviceInstanceSupplier;
+
+    protected final LoadBalancer loadBalancer;
+
+    public LoadBalancedServiceInstanceChooser(ServiceInstanceSupplier serviceInstanceSupplier,
+            LoadBalancer loadBalancer) {
+        this.serviceInstanceSupplier = serviceInstanceSupplier;
+        this.loadBalancer = loadBalancer;
+    }
+
+    @Override
+    public URI choose(String serviceId) {
+        return choose(serviceId, null, Collections.emptySet());
+    }
+
+    @Override
+    public URI choose(String serviceId, Set<URI> excludedInstances) {
+        return choose(serviceId, null, excludedInstances);
+    }
+
+    @Override
+    public URI choose(String serviceId, String hashKey, Set<URI> excludedInstances) {
+        List<ServiceInstance> instances = serviceInstanceSupplier.getInstances(serviceId);
+        if (instances == null || instances.isEmpty()) {
+            throw new ServiceInstanceChooseException("No available service instance! serviceId=" + serviceId);
+        }
+        return loadBalancer.choose(serviceId, instances, hashKey, excludedInstances).getUri();
+    }
+
+    @Override
+    public void onRequestStart(String serviceId, URI instance) {
+        loadBalancer.onRequestStart(serviceId, instance);
+    }
+
+    @Override
+    public void onRequestEnd(String serviceId, URI instance, long latencyNanos, boolean success) {
+        loadBalancer.onRequestEnd(serviceId, instance, latencyNanos, success);
+    }
+
+    public LoadBalancer getLoadBalancer() {
+        return loadBalancer;
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 负载均衡策略。实现需要是线程安全的，并且在选择实例时不应加锁或者遍历实例列表。
+ * <p>
+ * Load balancing strategy. Implementations must be thread-safe and should not lock or scan the instance list when choosing.
+ *
+ * @author 陈添明
+ */
+public interface LoadBalancer extends ServiceInstanceListener {
+
+    /**
+     * 从实例列表中选择一个实例
+     *
+     * @param serviceId 服务id
+     * @param instances 非空的实例列表
+     * @return 选中的实例
+     */
+    ServiceInstance choose(String serviceId, List<ServiceInstance> instances);
+
+    /**
+     * 按hash key从实例列表中选择一个实例，尽量避开本次调用已经失败的实例。默认实现忽略hash key，最多重新选择{@code excludedInstances.size()}次
+     *
+     * @param serviceId 服务id
+     * @param instances 非空的实例列表
+     * @param hashKey 本次调用的hash key，可能为null
+     * @param excludedInstances 本次调用已经失败的实例
+     * @return 选中的实例
+     */
+    default ServiceInstance choose(String serviceId, List<ServiceInstance> instances, String hashKey,
+            Set<URI> excludedInstances) {
+        ServiceInstance instance = choose(serviceId, instances);
+        for (int i = 0; i < excludedInstances.size() && excludedInstances.contains(instance.getUri()); i++) {
+            instance = choose(serviceId, instances);
+        }
+        return instance;
+    }
+
+    @Override
+    default void onRequestStart(String serviceId, URI instance) {}
+
+    @Override
+    default void onRequestEnd(String serviceId, URI instance, long latencyNanos, boolean success) {}
+}
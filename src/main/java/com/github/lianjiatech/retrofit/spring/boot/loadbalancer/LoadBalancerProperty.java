@@ -0,0 +1,39 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.NestedConfigurationProperty;
+
+import lombok.Data;
+
+/**
+ * 内置负载均衡配置，未自定义{@link com.github.lianjiatech.retrofit.spring.boot.core.ServiceInstanceChooser}时生效
+ *
+ * @author 陈添明
+ */
+@Data
+public class LoadBalancerProperty {
+
+    /**
+     * 负载均衡策略
+     */
+    private LoadBalancerStrategy strategy = LoadBalancerStrategy.ROUND_ROBIN;
+
+    /**
+     * peak_ewma策略的衰减时间，单位为 ms。越小越快遗忘历史的慢响应
+     */
+    private long peakEwmaDecayTimeMs = 10000;
+
+    /**
+     * 服务实例列表缓存配置
+     */
+    @NestedConfigurationProperty
+    private ServiceInstanceCacheProperty cache = new ServiceInstanceCacheProperty();
+
+    /**
+     * 静态服务实例列表，key为serviceId
+     */
+    private Map<String, List<ServiceInstanceProperty>> instances = new LinkedHashMap<>();
+}
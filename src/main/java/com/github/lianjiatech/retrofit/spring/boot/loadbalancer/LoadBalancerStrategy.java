@@ -0,0 +1,62 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+/**
+ * 内置负载均衡策略
+ *
+ * @author 陈添明
+ */
+public enum LoadBalancerStrategy {
+
+    /**
+     * 轮询
+     * Round robin
+     */
+    ROUND_ROBIN,
+
+    /**
+     * 平滑加权轮询
+     * Smooth weighted round robin
+     */
+    WEIGHTED_ROUND_ROBIN,
+
+    /**
+     * 随机
+     * Random
+     */
+    RANDOM,
+
+    /**
+     * 随机选择两个实例，取进行中请求数较少的一个
+     * Pick two instances at random and choose the one with fewer in-flight requests
+     */
+    POWER_OF_TWO_CHOICES,
+
+    /**
+     * 随机选择两个实例，取响应时间的Peak-EWMA乘以进行中请求数较小的一个
+     * Pick two instances at random and choose the one with lower peak-EWMA latency multiplied by in-flight requests
+     */
+    PEAK_EWMA,
+
+    /**
+     * 按{@link HashKey}参数一致性hash，相同的key总是选择同一个实例
+     * Consistent hashing by the {@link HashKey} argument, the same key always chooses the same instance
+     */
+    CONSISTENT_HASH;
+
+    public LoadBalancer newLoadBalancer(LoadBalancerProperty property) {
+        switch (this) {
+            case WEIGHTED_ROUND_ROBIN:
+                return new WeightedRoundRobinLoadBalancer();
+            case RANDOM:
+                return new RandomLoadBalancer();
+            case POWER_OF_TWO_CHOICES:
+                return new PowerOfTwoChoicesLoadBalancer();
+            case PEAK_EWMA:
+                return new PeakEwmaLoadBalancer(property.getPeakEwmaDecayTimeMs());
+            case CONSISTENT_HASH:
+                return new ConsistentHashLoadBalancer();
+            default:
+                return new RoundRobinLoadBalancer();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import lombok.Data;
+
+/**
+ * 异常实例摘除配置，对内置和自定义的{@link com.github.lianjiatech.retrofit.spring.boot.core.ServiceInstanceChooser}都生效
+ *
+ * @author 陈添明
+ */
+@Data
+public class OutlierDetectionProperty {
+
+    /**
+     * 是否启用异常实例摘除
+     */
+    private boolean enable = false;
+
+    /**
+     * 连续失败达到该次数时摘除实例，小于等于0表示不按连续失败摘除
+     */
+    private int consecutiveFailures = 5;
+
+    /**
+     * 统计窗口内失败率达到该阈值时摘除实例，取值范围(0, 1]
+     */
+    private double failureRateThreshold = 0.5;
+
+    /**
+     * 统计窗口内至少有该数量的请求才计算失败率
+     */
+    private int minimumNumberOfCalls = 20;
+
+    /**
+     * 失败率统计窗口，单位为 ms
+     */
+    private long intervalMs = 10000;
+
+    /**
+     * 基础摘除时间，单位为 ms。实例每次被重复摘除，摘除时间翻倍
+     */
+    private long baseEjectionTimeMs = 30000;
+
+    /**
+     * 最大摘除时间，单位为 ms
+     */
+    private long maxEjectionTimeMs = 300000;
+
+    /**
+     * 同一个服务最多同时摘除的实例百分比，取值范围[0, 100]
+     */
+    private int maxEjectionPercent = 50;
+}
@@ -0,0 +1,234 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.lianjiatech.retrofit.spring.boot.util.SlidingWindowCounter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 被动异常实例检测。根据每次请求的结果统计实例的连续失败次数和失败率，超过阈值时将实例摘除一段时间。
+ * 实例被重复摘除时摘除时间指数增长，同一个服务同时摘除的实例数不超过{@code maxEjectionPercent}。
+ * 摘除时间结束后，实例在下一次被检查时恢复。
+ * <p>
+ * Passive outlier detection. Tracks consecutive failures and the failure rate of each instance from request results,
+ * and ejects the instance for a while once a threshold is exceeded. The ejection time grows exponentially when an instance
+ * is ejected repeatedly, and no more than {@code maxEjectionPercent} of the instances of a service are ejected at the same time.
+ * An ejected instance recovers the next time it is checked after its ejection time is over.
+ *
+ * @author 陈添明
+ */
+@Slf4j
+public class OutlierDetector implements ServiceInstanceListener {
+
+    private static final int BUCKET_COUNT = 10;
+
+    private final OutlierDetectionProperty property;
+
+    private final List<OutlierEjectionListener> listeners;
+
+    private final Map<String, ServiceState> services = new ConcurrentHashMap<>();
+
+    public OutlierDetector(OutlierDetectionProperty property, List<OutlierEjectionListener> listeners) {
+        this.property = property;
+        this.listeners = listeners == null ? Collections.emptyList() : new ArrayList<>(listeners);
+    }
+
+    @Override
+    public void onRequestStart(String serviceId, URI instance) {}
+
+    @Override
+    public void onRequestEnd(String serviceId, URI instance, long latencyNanos, boolean success) {
+        ServiceState serviceState = getServiceState(serviceId);
+        InstanceState instanceState = serviceState.getInstanceState(instance);
+        if (instanceState.ejected.get()) {
+            // 摘除前发出的请求
+            return;
+        }
+        Window window = instanceState.window;
+        long nowMs = System.currentTimeMillis();
+        window.calls.add(1, nowMs);
+        if (success) {
+            if (instanceState.consecutiveFailures.get() != 0) {
+                instanceState.consecutiveFailures.set(0);
+            }
+            return;
+        }
+        window.failedCalls.add(1, nowMs);
+        int consecutiveFailures = instanceState.consecutiveFailures.incrementAndGet();
+        if (property.getConsecutiveFailures() > 0 && consecutiveFailures >= property.getConsecutiveFailures()) {
+            eject(serviceId, serviceState, instance, instanceState);
+            return;
+        }
+        long calls = window.calls.sum(nowMs);
+        if (calls >= property.getMinimumNumberOfCalls()
+                && window.failedCalls.sum(nowMs) >= property.getFailureRateThreshold() * calls) {
+            eject(serviceId, serviceState, instance, instanceState);
+        }
+    }
+
+    /**
+     * 实例当前是否被摘除。摘除时间已经结束的实例在此时恢复
+     *
+     * @param serviceId 服务id
+     * @param instance 实例地址
+     * @return 是否被摘除
+     */
+    public boolean isEjected(String serviceId, URI instance) {
+        ServiceState serviceState = services.get(serviceId);
+        if (serviceState == null || serviceState.ejectedCount.get() == 0) {
+            return false;
+        }
+        InstanceState instanceState = serviceState.instances.get(instance);
+        if (instanceState == null || !instanceState.ejected.get()) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (now - instanceState.ejectedUntilNanos < 0) {
+            return true;
+        }
+        if (instanceState.ejected.compareAndSet(true, false)) {
+            instanceState.recoveredAtNanos = now;
+            serviceState.ejectedCount.decrementAndGet();
+            log.info("Service instance recovered from ejection. serviceId={}, instance={}", serviceId, instance);
+            for (OutlierEjectionListener listener : listeners) {
+                listener.onRecovered(serviceId, instance);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 服务当前被摘除的实例数量，包括摘除时间已结束但还没有被检查的实例
+     *
+     * @param serviceId 服务id
+     * @return 被摘除的实例数量
+     */
+    public int getEjectedCount(String serviceId) {
+        ServiceState serviceState = services.get(serviceId);
+        return serviceState == null ? 0 : serviceState.ejectedCount.get();
+    }
+
+    /**
+     * 服务当前被摘除的实例
+     *
+     * @param serviceId 服务id
+     * @return 被摘除的实例
+     */
+    public List<URI> getEjectedInstances(String serviceId) {
+        ServiceState serviceState = services.get(serviceId);
+        if (serviceState == null) {
+            return Collections.emptyList();
+        }
+        List<URI> ejectedInstances = new ArrayList<>();
+        for (URI instance : serviceState.instances.keySet()) {
+            if (isEjected(serviceId, instance)) {
+                ejectedInstances.add(instance);
+            }
+        }
+        return ejectedInstances;
+    }
+
+    private void eject(String serviceId, ServiceState serviceState, URI instance, InstanceState instanceState) {
+        // 按已知实例数量限制同时摘除的比例
+        int maxEjected = serviceState.instances.size() * property.getMaxEjectionPercent() / 100;
+        for (;;) {
+            int ejectedCount = serviceState.ejectedCount.get();
+            if (ejectedCount >= maxEjected) {
+                return;
+            }
+            if (serviceState.ejectedCount.compareAndSet(ejectedCount, ejectedCount + 1)) {
+                break;
+            }
+        }
+        if (!instanceState.ejected.compareAndSet(false, true)) {
+            serviceState.ejectedCount.decrementAndGet();
+            return;
+        }
+        long now = System.nanoTime();
+        // 恢复后超过最大摘除时间没有再被摘除，摘除时间重新从基础摘除时间开始
+        if (instanceState.ejectionTimes > 0
+                && now - instanceState.recoveredAtNanos > TimeUnit.MILLISECONDS.toNanos(property.getMaxEjectionTimeMs())) {
+            instanceState.ejectionTimes = 0;
+        }
+        long ejectionTimeMs = Math.min(property.getMaxEjectionTimeMs(),
+                property.getBaseEjectionTimeMs() << Math.min(instanceState.ejectionTimes, 20));
+        instanceState.ejectionTimes++;
+        instanceState.ejectedUntilNanos = now + TimeUnit.MILLISECONDS.toNanos(ejectionTimeMs);
+        instanceState.consecutiveFailures.set(0);
+        instanceState.window = new Window(property.getIntervalMs());
+        log.warn("Service instance ejected. serviceId={}, instance={}, ejectionTimeMs={}", serviceId, instance,
+                ejectionTimeMs);
+        for (OutlierEjectionListener listener : listeners) {
+            listener.onEjected(serviceId, instance, ejectionTimeMs);
+        }
+    }
+
+    private ServiceState getServiceState(String serviceId) {
+        ServiceState serviceState = services.get(serviceId);
+        if (serviceState == null) {
+            serviceState = services.computeIfAbsent(serviceId, id -> new ServiceState());
+        }
+        return serviceState;
+    }
+
+    private final class ServiceState {
+
+        private final Map<URI, InstanceState> instances = new ConcurrentHashMap<>();
+
+        private final AtomicInteger ejectedCount = new AtomicInteger();
+
+        private InstanceState getInstanceState(URI instance) {
+            InstanceState instanceState = instances.get(instance);
+            if (instanceState == null) {
+                instanceState = instances.computeIfAbsent(instance, uri -> new InstanceState(property.getIntervalMs()));
+            }
+            return instanceState;
+        }
+    }
+
+    private static final class InstanceState {
+
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+        private final AtomicBoolean ejected = new AtomicBoolean();
+
+        private volatile Window window;
+
+        private volatile long ejectedUntilNanos;
+
+        /**
+         * 只在摘除和恢复时修改，由{@link #ejected}的CAS保证互斥
+         */
+        private volatile int ejectionTimes;
+
+        private volatile long recoveredAtNanos;
+
+        private InstanceState(long intervalMs) {
+            this.window = new Window(intervalMs);
+        }
+    }
+
+    /**
+     * 摘除时整体替换，恢复后的实例不受摘除前失败记录的影响
+     */
+    private static final class Window {
+
+        private final SlidingWindowCounter calls;
+
+        private final SlidingWindowCounter failedCalls;
+
+        private Window(long intervalMs) {
+            this.calls = new SlidingWindowCounter(intervalMs, BUCKET_COUNT);
+            this.failedCalls = new SlidingWindowCounter(intervalMs, BUCKET_COUNT);
+        }
+    }
+}
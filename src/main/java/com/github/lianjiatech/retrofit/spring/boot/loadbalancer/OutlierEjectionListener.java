@@ -0,0 +1,30 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import java.net.URI;
+
+/**
+ * 异常实例摘除事件监听器，配置成Spring Bean即可接收{@link OutlierDetector}的摘除和恢复事件。
+ * <p>
+ * Outlier ejection listener. Configure it as a Spring Bean to receive ejection and recovery events of {@link OutlierDetector}.
+ *
+ * @author 陈添明
+ */
+public interface OutlierEjectionListener {
+
+    /**
+     * 实例被摘除
+     *
+     * @param serviceId 服务id
+     * @param instance 实例地址
+     * @param ejectionTimeMs 本次摘除时间，单位为 ms
+     */
+    default void onEjected(String serviceId, URI instance, long ejectionTimeMs) {}
+
+    /**
+     * 摘除时间结束，实例恢复
+     *
+     * @param serviceId 服务id
+     * @param instance 实例地址
+     */
+    default void onRecovered(String serviceId, URI instance) {}
+}
@@ -0,0 +1,87 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.ServiceInstanceChooser;
+
+/**
+ * 为{@link ServiceInstanceChooser}增加异常实例摘除。选中被摘除的实例时重新选择，最多重新选择被摘除实例数加已排除实例数次，
+ * 如果仍然只能选到被摘除的实例，则返回最后一次选择的实例。请求结果同时回调给{@link OutlierDetector}和被装饰的选择器。
+ * <p>
+ * Adds outlier ejection to a {@link ServiceInstanceChooser}. When an ejected instance is chosen, it chooses again, at most
+ * as many times as the number of ejected and excluded instances, and returns the last chosen one if only ejected instances
+ * can be chosen. Request results are reported to both {@link OutlierDetector} and the decorated chooser.
+ *
+ * @author 陈添明
+ */
+public class OutlierEjectionServiceInstanceChooser implements ServiceInstanceChooser, ServiceInstanceListener {
+
+    protected final ServiceInstanceChooser delegate;
+
+    protected final OutlierDetector outlierDetector;
+
+    private final ServiceInstanceListener delegateListener;
+
+    public OutlierEjectionServiceInstanceChooser(ServiceInstanceChooser delegate, OutlierDetector outlierDetector) {
+        this.delegate = delegate;
+        this.outlierDetector = outlierDetector;
+        this.delegateListener = delegate instanceof ServiceInstanceListener ? (ServiceInstanceListener)delegate : null;
+    }
+
+    @Override
+    public URI choose(String serviceId) {
+        return choose(serviceId, null, Collections.emptySet());
+    }
+
+    @Override
+    public URI choose(String serviceId, Set<URI> excludedInstances) {
+        return choose(serviceId, null, excludedInstances);
+    }
+
+    @Override
+    public URI choose(String serviceId, String hashKey, Set<URI> excludedInstances) {
+        URI uri = delegate.choose(serviceId, hashKey, excludedInstances);
+        int ejectedCount = outlierDetector.getEjectedCount(serviceId);
+        if (ejectedCount == 0) {
+            return uri;
+        }
+        // 被摘除的实例和已排除的实例一样处理，一致性hash可以直接选择环上的下一个实例
+        Set<URI> skippedInstances = null;
+        int attempts = ejectedCount + excludedInstances.size();
+        for (int i = 0; i < attempts && (excludedInstances.contains(uri) || outlierDetector.isEjected(serviceId, uri));
+                i++) {
+            if (skippedInstances == null) {
+                skippedInstances = new HashSet<>(excludedInstances);
+            }
+            skippedInstances.add(uri);
+            uri = delegate.choose(serviceId, hashKey, skippedInstances);
+        }
+        return uri;
+    }
+
+    @Override
+    public void onRequestStart(String serviceId, URI instance) {
+        if (delegateListener != null) {
+            delegateListener.onRequestStart(serviceId, instance);
+        }
+    }
+
+    @Override
+    public void onRequestEnd(String serviceId, URI instance, long latencyNanos, boolean success) {
+        outlierDetector.onRequestEnd(serviceId, instance, latencyNanos, success);
+        if (delegateListener != null) {
+            delegateListener.onRequestEnd(serviceId, instance, latencyNanos, success);
+        }
+    }
+
+    public ServiceInstanceChooser getDelegate() {
+        return delegate;
+    }
+
+    public OutlierDetector getOutlierDetector() {
+        return outlierDetector;
+    }
+}
@@ -0,0 +1,126 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 基于Peak-EWMA的延迟感知负载均衡。每个实例维护响应时间的指数加权移动平均值，出现更慢的响应时立即取该值（peak），
+ * 之后按衰减时间平滑回落。实例负载为该平均值乘以(进行中请求数 + 1)，随机选择两个实例，取负载较低的一个。
+ * <p>
+ * Latency-aware load balancing based on Peak-EWMA. Each instance keeps an exponentially weighted moving average of
+ * response latency, which jumps to any slower observation (the peak) and then decays smoothly over the decay time.
+ * The load of an instance is the average multiplied by (in-flight requests + 1), and the less loaded of two random instances is chosen.
+ *
+ * @author 陈添明
+ */
+public class PeakEwmaLoadBalancer extends AbstractTwoChoicesLoadBalancer {
+
+    /**
+     * 还没有响应时间数据但是已经有进行中请求的实例，避免新实例在第一个响应返回之前被大量选中
+     */
+    private static final double PENALTY = Double.MAX_VALUE / 2;
+
+    private final double decayTimeNanos;
+
+    private final Map<URI, Metric> metrics = new ConcurrentHashMap<>();
+
+    public PeakEwmaLoadBalancer(long decayTimeMs) {
+        if (decayTimeMs <= 0) {
+            throw new IllegalArgumentException("decayTimeMs must be positive");
+        }
+        this.decayTimeNanos = TimeUnit.MILLISECONDS.toNanos(decayTimeMs);
+    }
+
+    @Override
+    protected double load(ServiceInstance instance) {
+        Metric metric = metrics.get(instance.getUri());
+        return metric == null ? 0 : metric.load(System.nanoTime());
+    }
+
+    @Override
+    public void onRequestStart(String serviceId, URI instance) {
+        getMetric(instance).pending.incrementAndGet();
+    }
+
+    @Override
+    public void onRequestEnd(String serviceId, URI instance, long latencyNanos, boolean success) {
+        Metric metric = getMetric(instance);
+        metric.pending.decrementAndGet();
+        metric.observe(latencyNanos, System.nanoTime());
+    }
+
+    /**
+     * 获取实例当前的响应时间平均值
+     *
+     * @param instance 实例地址
+     * @return 响应时间平均值，单位为纳秒，没有数据时为0
+     */
+    public double getCost(URI instance) {
+        Metric metric = metrics.get(instance);
+        return metric == null ? 0 : metric.cost(System.nanoTime());
+    }
+
+    private Metric getMetric(URI instance) {
+        Metric metric = metrics.get(instance);
+        if (metric == null) {
+            metric = metrics.computeIfAbsent(instance, uri -> new Metric());
+        }
+        return metric;
+    }
+
+    private final class Metric {
+
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private final AtomicReference<Ewma> ewma = new AtomicReference<>(new Ewma(0, System.nanoTime()));
+
+        private void observe(long latencyNanos, long nowNanos) {
+            for (;;) {
+                Ewma current = ewma.get();
+                double cost;
+                if (latencyNanos > current.cost) {
+                    cost = latencyNanos;
+                } else {
+                    double weight = Math.exp(-Math.max(0, nowNanos - current.stampNanos) / decayTimeNanos);
+                    cost = current.cost * weight + latencyNanos * (1 - weight);
+                }
+                if (ewma.compareAndSet(current, new Ewma(cost, nowNanos))) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 没有新响应时平均值随时间衰减，长时间未被选中的慢实例会重新获得流量
+         */
+        private double cost(long nowNanos) {
+            Ewma current = ewma.get();
+            return current.cost * Math.exp(-Math.max(0, nowNanos - current.stampNanos) / decayTimeNanos);
+        }
+
+        private double load(long nowNanos) {
+            int inflight = pending.get();
+            double cost = cost(nowNanos);
+            if (cost == 0 && inflight > 0) {
+                return PENALTY + inflight;
+            }
+            return cost * (inflight + 1);
+        }
+    }
+
+    private static final class Ewma {
+
+        private final double cost;
+
+        private final long stampNanos;
+
+        private Ewma(double cost, long stampNanos) {
+            this.cost = cost;
+            this.stampNanos = stampNanos;
+        }
+    }
+}
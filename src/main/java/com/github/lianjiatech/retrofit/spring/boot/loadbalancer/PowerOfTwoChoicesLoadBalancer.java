@@ -0,0 +1,52 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 两次随机选择（power of two choices）。随机选择两个不同的实例，取进行中请求数较少的一个，进行中请求数通过{@link ServiceInstanceListener}回调维护。
+ * <p>
+ * Power of two choices. Two distinct instances are picked at random and the one with fewer in-flight requests is chosen,
+ * the in-flight counts are maintained through {@link ServiceInstanceListener} callbacks.
+ *
+ * @author 陈添明
+ */
+public class PowerOfTwoChoicesLoadBalancer extends AbstractTwoChoicesLoadBalancer {
+
+    private final Map<URI, AtomicInteger> inflightRequests = new ConcurrentHashMap<>();
+
+    @Override
+    protected double load(ServiceInstance instance) {
+        return getInflightRequests(instance.getUri());
+    }
+
+    @Override
+    public void onRequestStart(String serviceId, URI instance) {
+        AtomicInteger counter = inflightRequests.get(instance);
+        if (counter == null) {
+            counter = inflightRequests.computeIfAbsent(instance, uri -> new AtomicInteger());
+        }
+        counter.incrementAndGet();
+    }
+
+    @Override
+    public void onRequestEnd(String serviceId, URI instance, long latencyNanos, boolean success) {
+        AtomicInteger counter = inflightRequests.get(instance);
+        if (counter != null) {
+            counter.decrementAndGet();
+        }
+    }
+
+    /**
+     * 获取实例进行中的请求数
+     *
+     * @param instance 实例地址
+     * @return 进行中的请求数
+     */
+    public int getInflightRequests(URI instance) {
+        AtomicInteger counter = inflightRequests.get(instance);
+        return counter == null ? 0 : counter.get();
+    }
+}
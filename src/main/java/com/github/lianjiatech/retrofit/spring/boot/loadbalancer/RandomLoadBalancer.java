@@ -0,0 +1,17 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 随机
+ *
+ * @author 陈添明
+ */
+public class RandomLoadBalancer implements LoadBalancer {
+
+    @Override
+    public ServiceInstance choose(String serviceId, List<ServiceInstance> instances) {
+        return instances.get(ThreadLocalRandom.current().nextInt(instances.size()));
+    }
+}
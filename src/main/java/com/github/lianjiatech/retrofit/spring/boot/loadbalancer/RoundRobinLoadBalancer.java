@@ -0,0 +1,26 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 轮询，每个服务一个计数器
+ *
+ * @author 陈添明
+ */
+public class RoundRobinLoadBalancer implements LoadBalancer {
+
+    private final Map<String, AtomicInteger> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public ServiceInstance choose(String serviceId, List<ServiceInstance> instances) {
+        AtomicInteger counter = counters.get(serviceId);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(serviceId, id -> new AtomicInteger());
+        }
+        int index = (counter.getAndIncrement() & Integer.MAX_VALUE) % instances.size();
+        return instances.get(index);
+    }
+}
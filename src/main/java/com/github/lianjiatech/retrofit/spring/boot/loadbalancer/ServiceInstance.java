@@ -0,0 +1,65 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import java.net.URI;
+import java.util.Objects;
+
+/**
+ * 服务实例
+ * <p>
+ * Service instance
+ *
+ * @author 陈添明
+ */
+public final class ServiceInstance {
+
+    private final URI uri;
+
+    private final int weight;
+
+    public ServiceInstance(URI uri) {
+        this(uri, 1);
+    }
+
+    public ServiceInstance(URI uri, int weight) {
+        this.uri = Objects.requireNonNull(uri, "uri");
+        if (weight <= 0) {
+            throw new IllegalArgumentException("weight must be positive, uri=" + uri);
+        }
+        this.weight = weight;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    /**
+     * 权重，只有加权策略会使用
+     *
+     * @return 权重
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ServiceInstance)) {
+            return false;
+        }
+        ServiceInstance that = (ServiceInstance)o;
+        return weight == that.weight && uri.equals(that.uri);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * uri.hashCode() + weight;
+    }
+
+    @Override
+    public String toString() {
+        return "ServiceInstance{uri=" + uri + ", weight=" + weight + '}';
+    }
+}
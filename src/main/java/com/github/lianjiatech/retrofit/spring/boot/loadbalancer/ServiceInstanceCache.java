@@ -0,0 +1,100 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 服务实例列表缓存。每个服务保存一个不可变的实例列表快照，由单独的后台线程定时从{@link ServiceInstanceSupplier}刷新并整体替换，
+ * 请求过程中只读取快照，注册中心的延迟不会计入请求耗时。实例没有变化时保留原来的快照，负载均衡策略按实例列表缓存的数据不会被重建。
+ * 刷新失败或者返回空列表时继续使用旧的快照。只有服务第一次被访问时会同步加载。
+ * <p>
+ * Service instance list cache. Each service keeps an immutable snapshot of its instance list, which a dedicated background
+ * thread refreshes from {@link ServiceInstanceSupplier} and swaps as a whole. Requests only read the snapshot, so registry
+ * latency never adds to request latency. The old snapshot is kept while the instances are unchanged, so data cached by
+ * load balancing strategies per instance list is not rebuilt. If a refresh fails or returns an empty list, the stale snapshot
+ * is still used. Only the first access of a service loads synchronously.
+ *
+ * @author 陈添明
+ */
+@Slf4j
+public class ServiceInstanceCache {
+
+    private final ServiceInstanceSupplier serviceInstanceSupplier;
+
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    private final Map<String, List<ServiceInstance>> snapshots = new ConcurrentHashMap<>();
+
+    public ServiceInstanceCache(ServiceInstanceSupplier serviceInstanceSupplier, long refreshIntervalMs) {
+        this.serviceInstanceSupplier = serviceInstanceSupplier;
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "retrofit-instance-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::refreshAll, refreshIntervalMs, refreshIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 获取服务实例列表快照
+     *
+     * @param serviceId 服务id
+     * @return 不可变的实例列表
+     */
+    public List<ServiceInstance> getInstances(String serviceId) {
+        List<ServiceInstance> snapshot = snapshots.get(serviceId);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        return snapshots.computeIfAbsent(serviceId, this::load);
+    }
+
+    /**
+     * 立即刷新服务实例列表，失败时保留旧的快照
+     *
+     * @param serviceId 服务id
+     */
+    public void refresh(String serviceId) {
+        List<ServiceInstance> current = snapshots.get(serviceId);
+        List<ServiceInstance> loaded;
+        try {
+            loaded = load(serviceId);
+        } catch (Exception e) {
+            log.warn("Failed to refresh service instances, use the stale ones. serviceId={}", serviceId, e);
+            return;
+        }
+        if (loaded.isEmpty() && current != null && !current.isEmpty()) {
+            log.warn("Refreshed empty service instances, use the stale ones. serviceId={}", serviceId);
+            return;
+        }
+        if (!loaded.equals(current)) {
+            snapshots.put(serviceId, loaded);
+        }
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void refreshAll() {
+        for (String serviceId : snapshots.keySet()) {
+            refresh(serviceId);
+        }
+    }
+
+    private List<ServiceInstance> load(String serviceId) {
+        List<ServiceInstance> instances = serviceInstanceSupplier.getInstances(serviceId);
+        if (instances == null || instances.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(new ArrayList<>(instances));
+    }
+}
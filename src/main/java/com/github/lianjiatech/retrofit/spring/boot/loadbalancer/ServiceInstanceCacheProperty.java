@@ -0,0 +1,22 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import lombok.Data;
+
+/**
+ * 服务实例列表缓存配置
+ *
+ * @author 陈添明
+ */
+@Data
+public class ServiceInstanceCacheProperty {
+
+    /**
+     * 是否缓存{@link ServiceInstanceSupplier}返回的实例列表并在后台刷新
+     */
+    private boolean enable = false;
+
+    /**
+     * 后台刷新间隔，单位为 ms
+     */
+    private long refreshIntervalMs = 30000;
+}
@@ -0,0 +1,32 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import java.net.URI;
+
+/**
+ * 服务实例请求监听器，每次发送到服务实例的请求（包括重试和对冲请求）开始和结束时回调。
+ * <p>
+ * Service instance request listener, called when each request to a service instance (including retries and hedged requests)
+ * starts and ends.
+ *
+ * @author 陈添明
+ */
+public interface ServiceInstanceListener {
+
+    /**
+     * 请求开始
+     *
+     * @param serviceId 服务id
+     * @param instance 实例地址
+     */
+    void onRequestStart(String serviceId, URI instance);
+
+    /**
+     * 请求结束
+     *
+     * @param serviceId 服务id
+     * @param instance 实例地址
+     * @param latencyNanos 请求耗时，单位为纳秒
+     * @param success 是否成功，发生IO异常或者响应码为5xx时为false
+     */
+    void onRequestEnd(String serviceId, URI instance, long latencyNanos, boolean success);
+}
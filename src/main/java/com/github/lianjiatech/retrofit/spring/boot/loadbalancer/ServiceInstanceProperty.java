@@ -0,0 +1,22 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import lombok.Data;
+
+/**
+ * 静态服务实例配置
+ *
+ * @author 陈添明
+ */
+@Data
+public class ServiceInstanceProperty {
+
+    /**
+     * 实例地址，例如http://localhost:8080
+     */
+    private String uri;
+
+    /**
+     * 权重，只有加权策略会使用
+     */
+    private int weight = 1;
+}
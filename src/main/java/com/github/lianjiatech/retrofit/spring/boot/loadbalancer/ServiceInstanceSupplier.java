@@ -0,0 +1,23 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import java.util.List;
+
+/**
+ * 服务实例列表提供者。实例未发生变化时应该返回同一个List实例，负载均衡策略据此判断是否需要重建内部状态。
+ * <p>
+ * Service instance list supplier. The same List instance should be returned as long as the instances are unchanged,
+ * load balancers use it to decide whether their internal state needs to be rebuilt.
+ *
+ * @author 陈添明
+ */
+@FunctionalInterface
+public interface ServiceInstanceSupplier {
+
+    /**
+     * 获取服务的实例列表
+     *
+     * @param serviceId 服务id
+     * @return 实例列表，不存在时返回空列表
+     */
+    List<ServiceInstance> getInstances(String serviceId);
+}
@@ -0,0 +1,35 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于配置{@code retrofit.load-balancer.instances}的静态服务实例列表
+ *
+ * @author 陈添明
+ */
+public class StaticServiceInstanceSupplier implements ServiceInstanceSupplier {
+
+    private final Map<String, List<ServiceInstance>> instances;
+
+    public StaticServiceInstanceSupplier(Map<String, List<ServiceInstanceProperty>> instanceProperties) {
+        Map<String, List<ServiceInstance>> map = new HashMap<>(instanceProperties.size() * 2);
+        instanceProperties.forEach((serviceId, properties) -> {
+            List<ServiceInstance> list = new ArrayList<>(properties.size());
+            for (ServiceInstanceProperty property : properties) {
+                list.add(new ServiceInstance(URI.create(property.getUri()), property.getWeight()));
+            }
+            map.put(serviceId, Collections.unmodifiableList(list));
+        });
+        this.instances = map;
+    }
+
+    @Override
+    public List<ServiceInstance> getInstances(String serviceId) {
+        return instances.getOrDefault(serviceId, Collections.emptyList());
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.lianjiatech.retrofit.spring.boot.loadbalancer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 平滑加权轮询。实例列表变化时按平滑加权轮询算法预先生成一个完整周期的选择序列，选择时只需要按计数器取序列中的元素，时间复杂度为O(1)。
+ * <p>
+ * Smooth weighted round robin. When the instance list changes, the selection sequence of a whole cycle is generated
+ * in advance by the smooth weighted round robin algorithm, and choosing only takes the element at the counter, which is O(1).
+ *
+ * @author 陈添明
+ */
+public class WeightedRoundRobinLoadBalancer implements LoadBalancer {
+
+    /**
+     * 选择序列的最大长度，权重之和超过该值时按比例缩小权重
+     */
+    private static final int MAX_SEQUENCE_LENGTH = 4096;
+
+    private final Map<String, Schedule> schedules = new ConcurrentHashMap<>();
+
+    @Override
+    public ServiceInstance choose(String serviceId, List<ServiceInstance> instances) {
+        Schedule schedule = schedules.get(serviceId);
+        if (schedule == null || !schedule.isFor(instances)) {
+            schedule = new Schedule(instances);
+            schedules.put(serviceId, schedule);
+        }
+        return schedule.next();
+    }
+
+    private static final class Schedule {
+
+        private final List<ServiceInstance> instances;
+
+        private final ServiceInstance[] sequence;
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private Schedule(List<ServiceInstance> instances) {
+            this.instances = instances;
+            this.sequence = buildSequence(instances);
+        }
+
+        private boolean isFor(List<ServiceInstance> instances) {
+            return this.instances == instances || this.instances.equals(instances);
+        }
+
+        private ServiceInstance next() {
+            return sequence[(counter.getAndIncrement() & Integer.MAX_VALUE) % sequence.length];
+        }
+
+        private static ServiceInstance[] buildSequence(List<ServiceInstance> instances) {
+            int size = instances.size();
+            int[] weights = new int[size];
+            int gcd = 0;
+            for (int i = 0; i < size; i++) {
+                weights[i] = instances.get(i).getWeight();
+                gcd = gcd(gcd, weights[i]);
+            }
+            long total = 0;
+            for (int i = 0; i < size; i++) {
+                weights[i] /= gcd;
+                total += weights[i];
+            }
+            if (total > MAX_SEQUENCE_LENGTH) {
+                long scaledTotal = 0;
+                for (int i = 0; i < size; i++) {
+                    weights[i] = (int)Math.max(1, (long)weights[i] * MAX_SEQUENCE_LENGTH / total);
+                    scaledTotal += weights[i];
+                }
+                total = scaledTotal;
+            }
+            ServiceInstance[] sequence = new ServiceInstance[(int)total];
+            long[] currentWeights = new long[size];
+            for (int n = 0; n < sequence.length; n++) {
+                int best = 0;
+                for (int i = 0; i < size; i++) {
+                    currentWeights[i] += weights[i];
+                    if (currentWeights[i] > currentWeights[best]) {
+                        best = i;
+                    }
+                }
+                currentWeights[best] -= total;
+                sequence[n] = instances.get(best);
+            }
+            return sequence;
+        }
+
+        private static int gcd(int a, int b) {
+            while (b != 0) {
+                int t = a % b;
+                a = b;
+                b = t;
+            }
+            return a;
+        }
+    }
+}
@@ -1,16 +1,13 @@
 package com.github.lianjiatech.retrofit.spring.boot.log;
 
 import java.io.IOException;
-import java.lang.reflect.Method;
-import java.util.Objects;
 
-import com.github.lianjiatech.retrofit.spring.boot.util.AnnotationExtendUtils;
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodPolicy;
 
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.Interceptor;
 import okhttp3.Response;
 import okhttp3.logging.HttpLoggingInterceptor;
-import retrofit2.Invocation;
 
 /**
  * @author 陈添明
@@ -39,8 +36,7 @@ public class LoggingInterceptor implements Interceptor {
     }
 
     protected Logging findLogging(Chain chain) {
-        Method method = Objects.requireNonNull(chain.request().tag(Invocation.class)).method();
-        return AnnotationExtendUtils.findMergedAnnotation(method, method.getDeclaringClass(), Logging.class);
+        return MethodPolicy.from(chain.request()).getLogging();
     }
 
     protected boolean needLog(Logging logging) {
@@ -0,0 +1,37 @@
+package com.github.lianjiatech.retrofit.spring.boot.priority;
+
+import lombok.Data;
+
+/**
+ * 全局优先级配置。默认的{@code normalShare=1.0}下，普通优先级与高优先级使用相同的容量，高优先级调用没有预留容量，
+ * 需要预留时将{@code normalShare}调小，例如0.8。
+ * <p>
+ * 容量比例的检查基于{@link com.github.lianjiatech.retrofit.spring.boot.bulkhead.SemaphoreBulkhead#tryAcquire(double)}等方法，
+ * 先检查进行中的调用数再获取许可，两步不是原子的，并发较高时低优先级调用可能短暂超过其比例，预留的容量是近似的。
+ * <p>
+ * Global priority config. With the default {@code normalShare=1.0}, normal and high priority calls use the same
+ * capacity and nothing is reserved for high priority calls; lower {@code normalShare}, e.g. to 0.8, to reserve some.
+ * <p>
+ * The share checks are check-then-act on top of methods such as
+ * {@link com.github.lianjiatech.retrofit.spring.boot.bulkhead.SemaphoreBulkhead#tryAcquire(double)}: the calls in flight
+ * are checked before the permit is acquired, not atomically, so under contention lower priority calls may briefly exceed
+ * their share and the reservation is approximate.
+ *
+ * @author 陈添明
+ */
+@Data
+public class GlobalPriorityProperty {
+
+    /**
+     * 普通优先级调用可以使用的容量比例，取值0-1，小于1时剩余的容量留给高优先级调用
+     * The share of capacity normal priority invocations can use, range 0-1,
+     * the rest is kept for high priority invocations if less than 1
+     */
+    private double normalShare = 1.0;
+
+    /**
+     * 低优先级调用可以使用的容量比例，取值0-1
+     * The share of capacity low priority invocations can use, range 0-1
+     */
+    private double lowShare = 0.5;
+}
@@ -0,0 +1,83 @@
+package com.github.lianjiatech.retrofit.spring.boot.priority;
+
+import okhttp3.Request;
+
+/**
+ * 调用的优先级以及该优先级可以使用的容量比例，由{@link com.github.lianjiatech.retrofit.spring.boot.core.RetrofitCallFactory}
+ * 以tag的形式附加在请求上，没有附加时表示可以使用全部容量。
+ * <p>
+ * The priority of an invocation and the share of capacity it can use, attached to the request as a tag by
+ * {@link com.github.lianjiatech.retrofit.spring.boot.core.RetrofitCallFactory}. A request without it can use the whole
+ * capacity.
+ *
+ * @author 陈添明
+ */
+public final class InvocationPriority {
+
+    private final PriorityLevel level;
+
+    private final double share;
+
+    private InvocationPriority(PriorityLevel level, double share) {
+        this.level = level;
+        this.share = Math.max(0, Math.min(1, share));
+    }
+
+    /**
+     * 根据全局配置创建优先级
+     *
+     * @param level 优先级
+     * @param globalPriorityProperty 全局优先级配置
+     * @return 调用的优先级
+     */
+    public static InvocationPriority of(PriorityLevel level, GlobalPriorityProperty globalPriorityProperty) {
+        switch (level) {
+            case LOW:
+                return new InvocationPriority(level, globalPriorityProperty.getLowShare());
+            case NORMAL:
+                return new InvocationPriority(level, globalPriorityProperty.getNormalShare());
+            default:
+                return new InvocationPriority(level, 1);
+        }
+    }
+
+    /**
+     * 获取请求可以使用的容量比例
+     *
+     * @param request 请求
+     * @return 容量比例，请求上没有附加优先级时为1
+     */
+    public static double shareOf(Request request) {
+        InvocationPriority priority = request.tag(InvocationPriority.class);
+        return priority == null ? 1 : priority.share;
+    }
+
+    /**
+     * 按比例计算可以使用的容量，至少为1
+     *
+     * @param capacity 总容量
+     * @param share 容量比例
+     * @return 可以使用的容量
+     */
+    public static int capacityOf(int capacity, double share) {
+        if (share >= 1) {
+            return capacity;
+        }
+        return Math.max(1, (int)(capacity * share));
+    }
+
+    /**
+     * 是否可以使用全部容量，可以使用全部容量时不需要附加到请求上
+     */
+    public boolean isUnlimited() {
+        return share >= 1;
+    }
+
+    public PriorityLevel getLevel() {
+        return level;
+    }
+
+    public double getShare() {
+        return share;
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.lianjiatech.retrofit.spring.boot.priority;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 调用的优先级。舱壁隔离、自适应并发限制、自适应节流以及调度器排队限制按优先级分配容量，低优先级的调用只能使用部分容量，
+ * 剩余的容量留给高优先级的调用。调用方可以通过{@link PriorityContext}覆盖注解上的优先级。
+ * <p>
+ * The priority of the invocation. Bulkhead, adaptive concurrency limit, adaptive throttle and the dispatcher queue limit
+ * share out their capacity by priority: lower priority invocations can only use part of the capacity, and the rest is
+ * kept for higher priority invocations. The caller can override the priority on the annotation through
+ * {@link PriorityContext}.
+ *
+ * @author 陈添明
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Documented
+@Inherited
+public @interface Priority {
+
+    /**
+     * 优先级
+     * <p>
+     * The priority
+     *
+     * @return 优先级；The priority
+     */
+    PriorityLevel value();
+}
@@ -0,0 +1,66 @@
+package com.github.lianjiatech.retrofit.spring.boot.priority;
+
+import java.util.function.Supplier;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * 在当前线程上设置调用的优先级，期间发起的所有HTTP调用都使用该优先级，优先于{@link Priority}注解。
+ * 对于返回{@code Mono}的方法，也可以将{@link PriorityLevel}以{@link #REACTOR_CONTEXT_KEY}为key写入Reactor Context。
+ * <p>
+ * Set the priority of invocations on the current thread, all HTTP calls made in the meantime use it instead of the
+ * {@link Priority} annotation. For methods returning {@code Mono}, {@link PriorityLevel} can also be written into the
+ * Reactor Context with the key {@link #REACTOR_CONTEXT_KEY}.
+ *
+ * @author 陈添明
+ */
+@UtilityClass
+public class PriorityContext {
+
+    public static final Class<PriorityLevel> REACTOR_CONTEXT_KEY = PriorityLevel.class;
+
+    private static final ThreadLocal<PriorityLevel> CURRENT = new ThreadLocal<>();
+
+    public static PriorityLevel current() {
+        return CURRENT.get();
+    }
+
+    public static void set(PriorityLevel priority) {
+        if (priority == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(priority);
+        }
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 以指定优先级执行，执行完成后恢复之前的优先级
+     *
+     * @param priority 优先级，为null时保持当前优先级
+     * @param supplier 执行逻辑
+     * @param <T> 返回值类型
+     * @return 执行结果
+     */
+    public static <T> T call(PriorityLevel priority, Supplier<T> supplier) {
+        PriorityLevel previous = CURRENT.get();
+        if (priority != null) {
+            set(priority);
+        }
+        try {
+            return supplier.get();
+        } finally {
+            set(previous);
+        }
+    }
+
+    public static void run(PriorityLevel priority, Runnable runnable) {
+        call(priority, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.lianjiatech.retrofit.spring.boot.priority;
+
+/**
+ * 调用的优先级
+ * <p>
+ * The priority of an invocation
+ *
+ * @author 陈添明
+ */
+public enum PriorityLevel {
+
+    /**
+     * 关键调用，总是可以使用全部容量
+     * <p>
+     * Critical invocations, which can always use the whole capacity
+     */
+    HIGH,
+
+    /**
+     * 普通调用，可以使用{@link GlobalPriorityProperty#getNormalShare()}比例的容量
+     * <p>
+     * Normal invocations, which can use {@link GlobalPriorityProperty#getNormalShare()} of the capacity
+     */
+    NORMAL,
+
+    /**
+     * 批处理等可以延后的调用，可以使用{@link GlobalPriorityProperty#getLowShare()}比例的容量
+     * <p>
+     * Deferrable invocations such as batch jobs, which can use {@link GlobalPriorityProperty#getLowShare()} of the
+     * capacity
+     */
+    LOW
+}
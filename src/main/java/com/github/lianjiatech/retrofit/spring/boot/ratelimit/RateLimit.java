@@ -0,0 +1,60 @@
+package com.github.lianjiatech.retrofit.spring.boot.ratelimit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 客户端令牌桶限流。标注在接口上时接口的所有方法共享一个令牌桶，标注在方法上时该方法单独使用一个令牌桶。
+ * 每次发送的请求（包括重试和对冲请求）都需要一个令牌，超过限制时抛出{@link com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException}。
+ * <p>
+ * Client-side token bucket rate limiting. When annotated on an interface, all its methods share one bucket; when annotated
+ * on a method, the method uses its own bucket. Every request sent (including retries and hedged requests) takes a permit,
+ * and {@link com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException} is thrown when the limit is exceeded.
+ *
+ * @author 陈添明
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Documented
+@Inherited
+public @interface RateLimit {
+
+    /**
+     * 是否启用限流
+     *
+     * @return 是否启用限流
+     */
+    boolean enable() default true;
+
+    /**
+     * 每秒发放的令牌数
+     * <p>
+     * Permits per second
+     *
+     * @return 每秒令牌数
+     */
+    double permitsPerSecond();
+
+    /**
+     * 令牌桶容量，即允许的最大突发请求数
+     * <p>
+     * Bucket capacity, i.e. the max number of requests in a burst
+     *
+     * @return 令牌桶容量
+     */
+    int burst() default 1;
+
+    /**
+     * 没有令牌时的最长等待时间，单位为 ms。为0时不等待，直接失败；同步调用阻塞等待，组件内置的异步调用适配器通过定时器延迟发送，不占用线程
+     * <p>
+     * The max time to wait for a permit, in ms. 0 fails fast without waiting. Synchronous calls block, while the builtin
+     * asynchronous call adapters delay sending through a timer without holding a thread
+     *
+     * @return 最长等待时间
+     */
+    long timeoutMs() default 0;
+}
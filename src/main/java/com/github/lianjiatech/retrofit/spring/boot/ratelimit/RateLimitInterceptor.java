@@ -0,0 +1,68 @@
+package com.github.lianjiatech.retrofit.spring.boot.ratelimit;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.InvocationContext;
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodPolicy;
+import com.github.lianjiatech.retrofit.spring.boot.core.SyncExecution;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * {@link RateLimit}限流拦截器，位于重试和对冲拦截器之后，每次发送的请求都需要一个令牌。
+ * 组件内置的异步调用适配器在发起调用前就已经获取令牌并通过定时器完成等待，这里不再重复获取。
+ * 其他运行在OkHttp调度线程中的请求（例如对冲请求）不等待令牌，没有可用令牌时直接拒绝，并把{@link RetrofitBlockException}包装成IOException。
+ * <p>
+ * {@link RateLimit} interceptor. It sits after the retry and hedge interceptors, so every request sent takes a permit.
+ * The builtin asynchronous call adapters acquire the permit and wait through a timer before the call is enqueued,
+ * so it is not acquired again here. Other requests running on an OkHttp dispatcher thread (e.g. hedged requests) never
+ * wait for a permit, they are rejected at once when no permit is available, and {@link RetrofitBlockException} is
+ * wrapped into an IOException.
+ *
+ * @author 陈添明
+ */
+public class RateLimitInterceptor implements Interceptor {
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        TokenBucket rateLimiter = MethodPolicy.from(request).getRateLimiter();
+        if (rateLimiter == null) {
+            return chain.proceed(request);
+        }
+        InvocationContext invocationContext = request.tag(InvocationContext.class);
+        if (invocationContext != null && invocationContext.pollRateLimitPermit()) {
+            return chain.proceed(request);
+        }
+        if (SyncExecution.isAsync(request)) {
+            // 对冲请求以及直接通过Call#enqueue发起的调用运行在调度线程中，不等待令牌
+            if (!rateLimiter.tryAcquire()) {
+                RetrofitBlockException e = rateLimitExceeded(request);
+                throw new IOException("blocked due to " + e, e);
+            }
+            return chain.proceed(request);
+        }
+        long waitNanos = rateLimiter.acquire();
+        if (waitNanos < 0) {
+            throw rateLimitExceeded(request);
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for rate limit permit");
+            }
+        }
+        return chain.proceed(request);
+    }
+
+    private static RetrofitBlockException rateLimitExceeded(Request request) {
+        return new RetrofitBlockException("Rate limit exceeded! url=" + request.url(), null);
+    }
+}
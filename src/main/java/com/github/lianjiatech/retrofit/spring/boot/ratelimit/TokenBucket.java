@@ -0,0 +1,126 @@
+package com.github.lianjiatech.retrofit.spring.boot.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁令牌桶，使用GCRA算法实现：只记录下一个令牌的理论到达时间，获取令牌时通过CAS推进该时间，不需要定时补充令牌。
+ * 需要等待的令牌在获取时就已经预留，调用方只需要等待返回的时间。
+ * <p>
+ * Lock-free token bucket implemented with GCRA: only the theoretical arrival time of the next permit is recorded,
+ * and acquiring a permit advances it by CAS, so no refill timer is needed. A permit that requires waiting is reserved
+ * when acquired, and the caller only needs to wait for the returned time.
+ *
+ * @author 陈添明
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+
+    private final long burstNanos;
+
+    private final long timeoutNanos;
+
+    private final AtomicLong theoreticalArrivalNanos;
+
+    private final LongAdder permittedCalls = new LongAdder();
+
+    private final LongAdder delayedCalls = new LongAdder();
+
+    private final LongAdder rejectedCalls = new LongAdder();
+
+    private final LongAdder delayedNanos = new LongAdder();
+
+    /**
+     * 根据注解创建令牌桶
+     *
+     * @param rateLimit 限流注解，可以为null
+     * @return 令牌桶，注解为null或者未启用时为null
+     */
+    public static TokenBucket of(RateLimit rateLimit) {
+        if (rateLimit == null || !rateLimit.enable()) {
+            return null;
+        }
+        return new TokenBucket(rateLimit.permitsPerSecond(), rateLimit.burst(), rateLimit.timeoutMs());
+    }
+
+    public TokenBucket(double permitsPerSecond, int burst, long timeoutMs) {
+        if (permitsPerSecond <= 0 || burst <= 0 || timeoutMs < 0) {
+            throw new IllegalArgumentException(
+                    "permitsPerSecond and burst must be positive, and timeoutMs must not be negative");
+        }
+        this.intervalNanos = Math.max(1, (long)(TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        this.theoreticalArrivalNanos = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * 获取一个令牌
+     *
+     * @return 获取到令牌之前需要等待的纳秒数，0表示不需要等待，-1表示在超时时间内无法获取令牌
+     */
+    public long acquire() {
+        return acquire(timeoutNanos);
+    }
+
+    /**
+     * 获取一个不需要等待的令牌，用于不能阻塞的OkHttp调度线程
+     *
+     * @return 是否获取到令牌，需要等待时不预留令牌，直接返回false
+     */
+    public boolean tryAcquire() {
+        return acquire(0) == 0;
+    }
+
+    private long acquire(long timeoutNanos) {
+        for (;;) {
+            long now = System.nanoTime();
+            long tat = theoreticalArrivalNanos.get();
+            long next = (tat - now < 0 ? now : tat) + intervalNanos;
+            long waitNanos = next - now - burstNanos;
+            if (waitNanos > timeoutNanos) {
+                rejectedCalls.increment();
+                return -1;
+            }
+            if (theoreticalArrivalNanos.compareAndSet(tat, next)) {
+                permittedCalls.increment();
+                if (waitNanos <= 0) {
+                    return 0;
+                }
+                delayedCalls.increment();
+                delayedNanos.add(waitNanos);
+                return waitNanos;
+            }
+        }
+    }
+
+    /**
+     * 获取到令牌的请求数，包括等待后获取到的
+     */
+    public long getPermittedCalls() {
+        return permittedCalls.sum();
+    }
+
+    /**
+     * 需要等待才获取到令牌的请求数
+     */
+    public long getDelayedCalls() {
+        return delayedCalls.sum();
+    }
+
+    /**
+     * 被拒绝的请求数
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+
+    /**
+     * 因限流累计等待的时间，单位为 ms
+     */
+    public long getDelayedTimeMs() {
+        return TimeUnit.NANOSECONDS.toMillis(delayedNanos.sum());
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.lianjiatech.retrofit.spring.boot.retry;
+
+/**
+ * 重试间隔的退避策略
+ * Backoff strategy of retry interval
+ *
+ * @author 陈添明
+ */
+public enum BackoffStrategy {
+
+    /**
+     * 固定间隔，每次重试都等待intervalMs
+     * Fixed interval, wait intervalMs before each retry
+     */
+    FIXED,
+
+    /**
+     * 指数退避，第n次重试等待 intervalMs * 2^(n-1)，不超过maxIntervalMs
+     * Exponential backoff, wait intervalMs * 2^(n-1) before the nth retry, no more than maxIntervalMs
+     */
+    EXPONENTIAL,
+
+    /**
+     * 全抖动指数退避，第n次重试等待 random(0, min(maxIntervalMs, intervalMs * 2^(n-1)))
+     * Exponential backoff with full jitter, wait random(0, min(maxIntervalMs, intervalMs * 2^(n-1))) before the nth retry
+     */
+    FULL_JITTER,
+
+    /**
+     * 去相关抖动，每次重试等待 min(maxIntervalMs, random(intervalMs, 上一次间隔 * 3))
+     * Decorrelated jitter, wait min(maxIntervalMs, random(intervalMs, last interval * 3)) before each retry
+     */
+    DECORRELATED_JITTER,
+}
@@ -0,0 +1,35 @@
+package com.github.lianjiatech.retrofit.spring.boot.retry;
+
+import lombok.Data;
+
+/**
+ * 全局重试预算配置，参见{@link RetryBudget}
+ * @author 陈添明
+ */
+@Data
+public class GlobalRetryBudgetProperty {
+
+    /**
+     * 是否启用重试预算
+     * Whether to enable retry budget
+     */
+    private boolean enable = false;
+
+    /**
+     * 重试量与请求量的最大比例
+     * The maximum ratio of retries to requests
+     */
+    private double retryRatio = 0.2;
+
+    /**
+     * 每秒保底允许的重试次数
+     * The minimum number of retries allowed per second
+     */
+    private int minRetriesPerSecond = 10;
+
+    /**
+     * 预算统计的时间窗口
+     * Time window of budget statistics
+     */
+    private long ttlMs = 10_000;
+}
@@ -1,5 +1,7 @@
 package com.github.lianjiatech.retrofit.spring.boot.retry;
 
+import org.springframework.boot.context.properties.NestedConfigurationProperty;
+
 import lombok.Data;
 
 /**
@@ -28,10 +30,29 @@ public class GlobalRetryProperty {
      */
     private int intervalMs = 100;
 
+    /**
+     * 重试间隔的退避策略
+     * Backoff strategy of retry interval
+     */
+    private BackoffStrategy backoffStrategy = BackoffStrategy.FIXED;
+
+    /**
+     * 最大重试间隔，429或者503响应携带的Retry-After超过该值时不再重试
+     * The maximum retry interval, no more retries if the Retry-After header of 429 or 503 response exceeds it
+     */
+    private int maxIntervalMs = 10_000;
+
     /**
      * 重试规则，默认 响应状态码不是2xx 或者 发生IO异常 时触发重试
      * Retry rule
      */
 
     private RetryRule[] retryRules = {RetryRule.RESPONSE_STATUS_NOT_2XX, RetryRule.OCCUR_IO_EXCEPTION};
+
+    /**
+     * 重试预算，限制重试量占请求量的比例，避免下游故障时产生重试风暴
+     * Retry budget, which limits the ratio of retries to requests to avoid retry storms during downstream outages
+     */
+    @NestedConfigurationProperty
+    private GlobalRetryBudgetProperty budget = new GlobalRetryBudgetProperty();
 }
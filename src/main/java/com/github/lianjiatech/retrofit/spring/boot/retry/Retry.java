@@ -41,10 +41,48 @@ public @interface Retry {
      */
     int intervalMs() default 100;
 
+    /**
+     * 重试间隔的退避策略，参见{@link BackoffStrategy}
+     * <p>
+     * Backoff strategy of retry interval, see {@link BackoffStrategy}
+     *
+     * @return 退避策略；Backoff strategy
+     */
+    BackoffStrategy backoffStrategy() default BackoffStrategy.FIXED;
+
+    /**
+     * 最大重试间隔，退避策略计算出的间隔不会超过该值。429或者503响应携带的Retry-After优先于退避策略，如果Retry-After超过该值，则不再重试。
+     * <p>
+     * The maximum retry interval, the interval calculated by the backoff strategy will not exceed it.
+     * The Retry-After header of 429 or 503 response takes precedence over the backoff strategy, if it exceeds this value, no more retries.
+     *
+     * @return 最大重试间隔；The maximum retry interval
+     */
+    int maxIntervalMs() default 10_000;
+
     /**
      * 重试规则，默认 响应状态码不是2xx 或者 发生IO异常 时触发重试
      *
      * @return Retry rule
      */
     RetryRule[] retryRules() default {RetryRule.RESPONSE_STATUS_NOT_2XX, RetryRule.OCCUR_IO_EXCEPTION};
+
+    /**
+     * 重试预算中重试量与请求量的最大比例，小于0表示使用全局重试预算配置。设置该值会为当前方法启用重试预算。
+     * <p>
+     * The maximum ratio of retries to requests in the retry budget, less than 0 means using global retry budget.
+     * Setting it enables retry budget for the method.
+     *
+     * @return 重试比例；retry ratio
+     */
+    double budgetRetryRatio() default -1;
+
+    /**
+     * 重试预算中每秒保底允许的重试次数，小于0表示使用全局重试预算配置
+     * <p>
+     * The minimum number of retries allowed per second in the retry budget, less than 0 means using global retry budget.
+     *
+     * @return 每秒保底重试次数；minimum retries per second
+     */
+    int budgetMinRetriesPerSecond() default -1;
 }
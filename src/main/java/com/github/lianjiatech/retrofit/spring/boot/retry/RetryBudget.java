@@ -0,0 +1,105 @@
+package com.github.lianjiatech.retrofit.spring.boot.retry;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.lianjiatech.retrofit.spring.boot.util.SlidingWindowCounter;
+
+/**
+ * 重试预算，以令牌桶的方式限制重试量：每个请求存入{@code retryRatio}个令牌，每次重试取出1个令牌，
+ * 并且每秒额外保底{@code minRetriesPerSecond}个令牌。令牌在{@code ttlMs}时间后过期。
+ * 这样下游故障时重试流量最多是正常请求量的{@code retryRatio}倍，避免重试风暴。
+ * <p>
+ * Retry budget, which limits retries as a token bucket: each request deposits {@code retryRatio} tokens,
+ * each retry withdraws 1 token, plus {@code minRetriesPerSecond} reserved tokens per second. Tokens expire after {@code ttlMs}.
+ * So retries are at most {@code retryRatio} times of the requests during a downstream outage, avoiding retry storms.
+ *
+ * @author 陈添明
+ */
+public class RetryBudget {
+
+    private static final int BUCKET_COUNT = 10;
+
+    private final double retryRatio;
+
+    private final int minRetriesPerSecond;
+
+    private final double reservedTokens;
+
+    private final SlidingWindowCounter requests;
+
+    private final SlidingWindowCounter retries;
+
+    private final LongAdder exhaustedCount = new LongAdder();
+
+    public RetryBudget(double retryRatio, int minRetriesPerSecond, long ttlMs) {
+        if (retryRatio < 0 || minRetriesPerSecond < 0 || ttlMs <= 0) {
+            throw new IllegalArgumentException("Illegal retry budget, retryRatio=" + retryRatio
+                    + ", minRetriesPerSecond=" + minRetriesPerSecond + ", ttlMs=" + ttlMs);
+        }
+        this.retryRatio = retryRatio;
+        this.minRetriesPerSecond = minRetriesPerSecond;
+        this.reservedTokens = minRetriesPerSecond * ttlMs / 1000.0;
+        this.requests = new SlidingWindowCounter(ttlMs, BUCKET_COUNT);
+        this.retries = new SlidingWindowCounter(ttlMs, BUCKET_COUNT);
+    }
+
+    /**
+     * 记录一次请求（不含重试）
+     * <p>
+     * Record a request (excluding retries)
+     */
+    public void deposit() {
+        requests.increment();
+    }
+
+    /**
+     * 尝试为一次重试取出令牌
+     * <p>
+     * Try to withdraw a token for a retry
+     *
+     * @return 是否允许重试；whether the retry is allowed
+     */
+    public boolean tryWithdraw() {
+        long now = System.currentTimeMillis();
+        if (balance(now) < 1) {
+            exhaustedCount.increment();
+            return false;
+        }
+        retries.add(1, now);
+        return true;
+    }
+
+    /**
+     * 当前可用的令牌数
+     * <p>
+     * The number of tokens currently available
+     *
+     * @return 可用令牌数；available tokens
+     */
+    public long getBalance() {
+        return (long)balance(System.currentTimeMillis());
+    }
+
+    /**
+     * 预算耗尽导致重试被拒绝的次数
+     * <p>
+     * The number of retries rejected due to budget exhaustion
+     *
+     * @return 拒绝次数；rejected count
+     */
+    public long getExhaustedCount() {
+        return exhaustedCount.sum();
+    }
+
+    public double getRetryRatio() {
+        return retryRatio;
+    }
+
+    public int getMinRetriesPerSecond() {
+        return minRetriesPerSecond;
+    }
+
+    private double balance(long now) {
+        return reservedTokens + requests.sum(now) * retryRatio - retries.sum(now);
+    }
+}
@@ -2,19 +2,23 @@ package com.github.lianjiatech.retrofit.spring.boot.retry;
 
 import java.io.IOException;
 import java.lang.reflect.Method;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.github.lianjiatech.retrofit.spring.boot.core.InvocationContext;
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodPolicy;
+import com.github.lianjiatech.retrofit.spring.boot.core.ServiceInstanceContext;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.InvocationDeadline;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
 import com.github.lianjiatech.retrofit.spring.boot.exception.RetryFailedException;
-import com.github.lianjiatech.retrofit.spring.boot.util.AnnotationExtendUtils;
 
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.Interceptor;
 import okhttp3.Request;
 import okhttp3.Response;
-import retrofit2.Invocation;
 
 /**
  * @author 陈添明
@@ -24,24 +28,31 @@ public class RetryInterceptor implements Interceptor {
 
     protected final GlobalRetryProperty globalRetryProperty;
 
+    protected final Set<RetryRule> globalRetryRules;
+
+    protected final Map<Method, RetryBudget> retryBudgets = new ConcurrentHashMap<>();
+
     public RetryInterceptor(GlobalRetryProperty globalRetryProperty) {
         this.globalRetryProperty = globalRetryProperty;
+        this.globalRetryRules = MethodPolicy.toRetryRuleSet(globalRetryProperty.getRetryRules());
     }
 
     @Override
     public Response intercept(Chain chain) throws IOException {
         Request request = chain.request();
-        Method method = Objects.requireNonNull(request.tag(Invocation.class)).method();
+        MethodPolicy methodPolicy = MethodPolicy.from(request);
         // 获取重试配置
-        Retry retry = AnnotationExtendUtils.findMergedAnnotation(method, method.getDeclaringClass(), Retry.class);
+        Retry retry = methodPolicy.getRetry();
         if (!needRetry(retry)) {
             return chain.proceed(request);
         }
         // 重试
-        int maxRetries = retry == null ? globalRetryProperty.getMaxRetries() : retry.maxRetries();
-        int intervalMs = retry == null ? globalRetryProperty.getIntervalMs() : retry.intervalMs();
-        RetryRule[] retryRules = retry == null ? globalRetryProperty.getRetryRules() : retry.retryRules();
-        return retryIntercept(maxRetries, intervalMs, retryRules, chain);
+        Set<RetryRule> retryRules = retry == null ? globalRetryRules : methodPolicy.getRetryRules();
+        InvocationContext invocationContext = request.tag(InvocationContext.class);
+        if (invocationContext != null && invocationContext.isAsync()) {
+            return asyncRetryIntercept(invocationContext, methodPolicy, retryRules, chain);
+        }
+        return retryIntercept(createRetryStrategy(methodPolicy), retryRules, chain);
     }
 
     protected boolean needRetry(Retry retry) {
@@ -55,12 +66,60 @@ public class RetryInterceptor implements Interceptor {
         }
     }
 
+    protected RetryStrategy createRetryStrategy(MethodPolicy methodPolicy) {
+        Retry retry = methodPolicy.getRetry();
+        RetryBudget retryBudget = findRetryBudget(methodPolicy.getMethod(), retry);
+        if (retry == null) {
+            return new RetryStrategy(globalRetryProperty.getMaxRetries(), globalRetryProperty.getIntervalMs(),
+                    globalRetryProperty.getMaxIntervalMs(), globalRetryProperty.getBackoffStrategy(), retryBudget);
+        }
+        return new RetryStrategy(retry.maxRetries(), retry.intervalMs(), retry.maxIntervalMs(),
+                retry.backoffStrategy(), retryBudget);
+    }
+
+    /**
+     * 获取方法对应的重试预算，每个方法独立统计
+     *
+     * @return 未启用重试预算时返回null
+     */
+    protected RetryBudget findRetryBudget(Method method, Retry retry) {
+        GlobalRetryBudgetProperty globalBudget = globalRetryProperty.getBudget();
+        boolean annotated = retry != null && retry.budgetRetryRatio() >= 0;
+        if (!annotated && !globalBudget.isEnable()) {
+            return null;
+        }
+        return retryBudgets.computeIfAbsent(method, m -> {
+            double retryRatio = annotated ? retry.budgetRetryRatio() : globalBudget.getRetryRatio();
+            int minRetriesPerSecond = retry != null && retry.budgetMinRetriesPerSecond() >= 0
+                    ? retry.budgetMinRetriesPerSecond() : globalBudget.getMinRetriesPerSecond();
+            return new RetryBudget(retryRatio, minRetriesPerSecond, globalBudget.getTtlMs());
+        });
+    }
+
+    /**
+     * 获取所有方法的重试预算，可以用于监控重试预算的耗尽次数
+     * <p>
+     * Get retry budgets of all methods, which can be used to monitor the exhausted count
+     *
+     * @return 方法 -> 重试预算；method -> retry budget
+     */
+    public Map<Method, RetryBudget> getRetryBudgets() {
+        return Collections.unmodifiableMap(retryBudgets);
+    }
+
+    /**
+     * @deprecated 使用{@link #retryIntercept(RetryStrategy, Set, Chain)}，子类重写本方法不再生效
+     */
+    @Deprecated
     protected Response retryIntercept(int maxRetries, int intervalMs, RetryRule[] retryRules, Chain chain) {
-        HashSet<RetryRule> retryRuleSet = (HashSet<RetryRule>)Arrays.stream(retryRules).collect(Collectors.toSet());
-        RetryStrategy retryStrategy = new RetryStrategy(maxRetries, intervalMs);
+        return retryIntercept(new RetryStrategy(maxRetries, intervalMs, intervalMs, BackoffStrategy.FIXED),
+                MethodPolicy.toRetryRuleSet(retryRules), chain);
+    }
+
+    protected Response retryIntercept(RetryStrategy retryStrategy, Set<RetryRule> retryRuleSet, Chain chain) {
+        Request request = chain.request();
         while (true) {
             try {
-                Request request = chain.request();
                 Response response = chain.proceed(request);
                 // 如果响应状态码是2xx就不用重试，直接返回 response
                 if (!retryRuleSet.contains(RetryRule.RESPONSE_STATUS_NOT_2XX) || response.isSuccessful()) {
@@ -70,28 +129,134 @@ public class RetryInterceptor implements Interceptor {
                         // 最后一次还没成功，返回最后一次response
                         return response;
                     }
+                    long intervalMs = retryStrategy.nextIntervalMs(response);
+                    if (intervalMs < 0) {
+                        // Retry-After超过了最大重试间隔，直接返回response
+                        return response;
+                    }
+                    if (exceedsDeadline(request, intervalMs)) {
+                        // 等待结束时已经超过调用的截止时间，直接返回response
+                        return response;
+                    }
+                    if (!retryStrategy.tryAcquireBudget()) {
+                        // 重试预算耗尽，直接返回response
+                        return response;
+                    }
                     // 执行重试
-                    retryStrategy.retry();
                     log.debug("The response fails, retry is performed! The response code is " + response.code());
                     response.close();
+                    retryStrategy.retry(intervalMs);
                 }
+            } catch (RetrofitBlockException e) {
+                // 本地限流或者熔断，不重试
+                throw e;
             } catch (Exception e) {
+                if (e.getCause() instanceof RetrofitBlockException) {
+                    // 包装成IOException的本地限流或者熔断，不重试
+                    throw (RetrofitBlockException)e.getCause();
+                }
                 if (shouldThrowEx(retryRuleSet, e)) {
                     throw new RuntimeException(e);
                 } else {
                     if (!retryStrategy.shouldRetry()) {
                         // 最后一次还没成功，抛出异常
-                        throw new RetryFailedException("Retry Failed: Total " + maxRetries
-                                + " attempts made at interval " + intervalMs
-                                + "ms");
+                        throw retryFailed(retryStrategy, e);
+                    }
+                    long intervalMs = retryStrategy.nextIntervalMs(null);
+                    if (exceedsDeadline(request, intervalMs)) {
+                        throw new RetryFailedException("Retry Failed: deadline exceeded", e);
                     }
-                    retryStrategy.retry();
+                    if (!retryStrategy.tryAcquireBudget()) {
+                        throw retryFailed(retryStrategy, e);
+                    }
+                    retryStrategy.retry(intervalMs);
                 }
             }
+            request = nextRequest(request);
+        }
+    }
+
+    /**
+     * 通过serviceId调用时，重试前排除上一次的实例，重新选择服务实例
+     */
+    protected Request nextRequest(Request request) {
+        ServiceInstanceContext serviceInstanceContext = request.tag(ServiceInstanceContext.class);
+        if (serviceInstanceContext == null) {
+            return request;
         }
+        return serviceInstanceContext.rechoose(request);
     }
 
+    /**
+     * 异步调用只执行一次请求，需要重试时将等待时间记录到调用上下文中，由{@link com.github.lianjiatech.retrofit.spring.boot.core.AsyncCallSupport}定时重新发起调用，不阻塞线程
+     */
+    protected Response asyncRetryIntercept(InvocationContext invocationContext, MethodPolicy methodPolicy,
+            Set<RetryRule> retryRuleSet, Chain chain) throws IOException {
+        RetryStrategy retryStrategy = invocationContext.getRetryStrategy();
+        if (retryStrategy == null) {
+            retryStrategy = createRetryStrategy(methodPolicy);
+            invocationContext.setRetryStrategy(retryStrategy);
+        }
+        Response response;
+        try {
+            response = chain.proceed(chain.request());
+        } catch (Exception e) {
+            if (e instanceof RetrofitBlockException || e.getCause() instanceof RetrofitBlockException
+                    || shouldThrowEx(retryRuleSet, e)
+                    || invocationContext.isCanceled()) {
+                throw e;
+            }
+            if (!retryStrategy.shouldRetry()) {
+                throw retryFailed(retryStrategy, e);
+            }
+            long intervalMs = retryStrategy.nextIntervalMs(null);
+            if (exceedsDeadline(chain.request(), intervalMs)) {
+                throw new RetryFailedException("Retry Failed: deadline exceeded", e);
+            }
+            if (!retryStrategy.tryAcquireBudget()) {
+                throw retryFailed(retryStrategy, e);
+            }
+            retryStrategy.markRetry(intervalMs);
+            invocationContext.scheduleRetry(intervalMs);
+            throw e;
+        }
+        if (!retryRuleSet.contains(RetryRule.RESPONSE_STATUS_NOT_2XX) || response.isSuccessful()
+                || !retryStrategy.shouldRetry()) {
+            return response;
+        }
+        long intervalMs = retryStrategy.nextIntervalMs(response);
+        if (intervalMs >= 0 && !exceedsDeadline(chain.request(), intervalMs) && retryStrategy.tryAcquireBudget()) {
+            log.debug("The response fails, async retry is scheduled! The response code is " + response.code());
+            retryStrategy.markRetry(intervalMs);
+            invocationContext.scheduleRetry(intervalMs);
+        }
+        return response;
+    }
+
+    /**
+     * 等待重试间隔后是否已经超过调用的截止时间，参见{@link com.github.lianjiatech.retrofit.spring.boot.deadline.Deadline}
+     */
+    protected boolean exceedsDeadline(Request request, long intervalMs) {
+        InvocationDeadline deadline = request.tag(InvocationDeadline.class);
+        return deadline != null && deadline.remainingMs() <= intervalMs;
+    }
+
+    protected RetryFailedException retryFailed(RetryStrategy retryStrategy, Exception e) {
+        if (retryStrategy.isBudgetExhausted()) {
+            return new RetryFailedException("Retry Failed: retry budget exhausted", e);
+        }
+        return new RetryFailedException("Retry Failed: Total " + retryStrategy.getMaxRetries() + " attempts made", e);
+    }
+
+    /**
+     * @deprecated 使用{@link #shouldThrowEx(Set, Exception)}，子类重写本方法不再生效
+     */
+    @Deprecated
     protected boolean shouldThrowEx(HashSet<RetryRule> retryRuleSet, Exception e) {
+        return shouldThrowEx((Set<RetryRule>)retryRuleSet, e);
+    }
+
+    protected boolean shouldThrowEx(Set<RetryRule> retryRuleSet, Exception e) {
         if (retryRuleSet.contains(RetryRule.OCCUR_EXCEPTION)) {
             return false;
         }
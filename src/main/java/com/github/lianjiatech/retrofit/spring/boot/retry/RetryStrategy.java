@@ -1,27 +1,186 @@
 package com.github.lianjiatech.retrofit.spring.boot.retry;
 
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Response;
+
 /**
  * 重试机制
  */
-class RetryStrategy {
-    private int maxRetries;
+public class RetryStrategy {
+
+    private static final String RETRY_AFTER = "Retry-After";
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private static final int SERVICE_UNAVAILABLE = 503;
+
+    private final int maxRetries;
     private final int intervalMs;
+    private final int maxIntervalMs;
+    private final BackoffStrategy backoffStrategy;
 
+    private final RetryBudget retryBudget;
+
+    private int retries;
+    private long lastIntervalMs;
+    private boolean budgetExhausted;
+
+    /**
+     * @deprecated 使用{@link #RetryStrategy(int, int, int, BackoffStrategy)}
+     */
+    @Deprecated
     public RetryStrategy(int maxRetries, int intervalMs) {
+        this(maxRetries, intervalMs, intervalMs, BackoffStrategy.FIXED);
+    }
+
+    public RetryStrategy(int maxRetries, int intervalMs, int maxIntervalMs, BackoffStrategy backoffStrategy) {
+        this(maxRetries, intervalMs, maxIntervalMs, backoffStrategy, null);
+    }
+
+    /**
+     * @param retryBudget 重试预算，为null表示不限制。每个RetryStrategy对应一次调用，创建时会向预算存入令牌
+     */
+    public RetryStrategy(int maxRetries, int intervalMs, int maxIntervalMs, BackoffStrategy backoffStrategy,
+            RetryBudget retryBudget) {
         this.maxRetries = maxRetries;
         this.intervalMs = intervalMs;
+        this.maxIntervalMs = Math.max(intervalMs, maxIntervalMs);
+        this.backoffStrategy = backoffStrategy;
+        this.lastIntervalMs = intervalMs;
+        this.retryBudget = retryBudget;
+        if (retryBudget != null) {
+            retryBudget.deposit();
+        }
     }
 
+    /**
+     * 是否还有剩余的重试次数。重试预算不在这里扣除，调用方确定要重试（Retry-After、截止时间等检查都通过）之后再调用{@link #tryAcquireBudget()}。
+     *
+     * @return true表示还有剩余的重试次数
+     */
     public boolean shouldRetry() {
-        return maxRetries > 0;
+        return retries < maxRetries;
+    }
+
+    /**
+     * 从重试预算中扣除一次重试，应在确定要重试之前最后调用，避免放弃的重试也消耗预算
+     *
+     * @return true表示预算充足或者没有启用重试预算，false表示预算耗尽，不应该再重试
+     */
+    public boolean tryAcquireBudget() {
+        if (retryBudget != null && !retryBudget.tryWithdraw()) {
+            budgetExhausted = true;
+            return false;
+        }
+        return true;
     }
 
+    /**
+     * 是否因为重试预算耗尽而停止重试
+     *
+     * @return true表示重试预算耗尽
+     */
+    public boolean isBudgetExhausted() {
+        return budgetExhausted;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * 计算下一次重试前的等待时间。429或者503响应携带的Retry-After优先于退避策略计算的结果。
+     *
+     * @param response 本次失败的响应，发生异常时为null
+     * @return 等待时间，小于0表示Retry-After超过了maxIntervalMs，不应该再重试
+     */
+    public long nextIntervalMs(Response response) {
+        long retryAfterMs = parseRetryAfterMs(response);
+        if (retryAfterMs >= 0) {
+            return retryAfterMs > maxIntervalMs ? -1 : retryAfterMs;
+        }
+        return computeIntervalMs();
+    }
+
+    /**
+     * @deprecated 使用{@link #nextIntervalMs(Response)}和{@link #retry(long)}
+     */
+    @Deprecated
     public void retry() {
-        maxRetries--;
-        waitUntilNextTry();
+        retry(computeIntervalMs());
+    }
+
+    public void retry(long intervalMs) {
+        markRetry(intervalMs);
+        waitUntilNextTry(intervalMs);
+    }
+
+    /**
+     * 记录一次重试但不等待，由调用方负责在等待时间结束后重新发起请求（异步重试）
+     *
+     * @param intervalMs 本次重试的等待时间
+     */
+    public void markRetry(long intervalMs) {
+        retries++;
+        lastIntervalMs = intervalMs;
+    }
+
+    private long computeIntervalMs() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (backoffStrategy) {
+            case EXPONENTIAL:
+                return exponentialIntervalMs();
+            case FULL_JITTER:
+                return random.nextLong(exponentialIntervalMs() + 1);
+            case DECORRELATED_JITTER:
+                long upper = Math.max(intervalMs, Math.min(maxIntervalMs, lastIntervalMs * 3));
+                return random.nextLong(intervalMs, upper + 1);
+            case FIXED:
+            default:
+                return intervalMs;
+        }
+    }
+
+    private long exponentialIntervalMs() {
+        // 避免移位溢出
+        int shift = Math.min(retries, 30);
+        return Math.min(maxIntervalMs, (long)intervalMs << shift);
+    }
+
+    private long parseRetryAfterMs(Response response) {
+        if (response == null
+                || (response.code() != TOO_MANY_REQUESTS && response.code() != SERVICE_UNAVAILABLE)) {
+            return -1;
+        }
+        String retryAfter = response.header(RETRY_AFTER);
+        if (retryAfter == null) {
+            return -1;
+        }
+        retryAfter = retryAfter.trim();
+        try {
+            long seconds = Long.parseLong(retryAfter);
+            // 负数是无效的Retry-After，使用退避策略；过大的值按秒转换为毫秒时饱和到Long.MAX_VALUE，不会溢出
+            return seconds < 0 ? -1 : TimeUnit.SECONDS.toMillis(seconds);
+        } catch (NumberFormatException e) {
+            // HTTP-date
+        }
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, date.toInstant().toEpochMilli() - System.currentTimeMillis());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
     }
 
-    private void waitUntilNextTry() {
+    private void waitUntilNextTry(long intervalMs) {
+        if (intervalMs <= 0) {
+            return;
+        }
         try {
             Thread.sleep(intervalMs);
         } catch (InterruptedException ignored) {
@@ -0,0 +1,63 @@
+package com.github.lianjiatech.retrofit.spring.boot.throttle;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 客户端自适应节流（Google SRE）。每个方法统计时间窗口内的请求数{@code requests}和被下游接受的请求数{@code accepts}，
+ * 以{@code max(0, (requests - k * accepts) / (requests + 1))}的概率在本地直接拒绝请求，抛出
+ * {@link com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException}。注解属性优先于全局配置。
+ * <p>
+ * Client-side adaptive throttling (Google SRE). Each method counts the requests {@code requests} and the requests accepted
+ * by the downstream {@code accepts} in a time window, and rejects requests locally with probability
+ * {@code max(0, (requests - k * accepts) / (requests + 1))} by throwing
+ * {@link com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException}. Annotation attributes take precedence
+ * over the global config.
+ *
+ * @author 陈添明
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Documented
+@Inherited
+public @interface AdaptiveThrottle {
+
+    /**
+     * 是否启用自适应节流
+     *
+     * @return 是否启用自适应节流
+     */
+    boolean enable() default true;
+
+    /**
+     * 倍数k，请求数超过k倍接受数后开始节流，越小节流越激进
+     * <p>
+     * The multiplier k, throttling starts when the requests exceed k times the accepts; the smaller, the more aggressive
+     *
+     * @return 倍数k
+     */
+    double k() default 2.0;
+
+    /**
+     * 统计的时间窗口，单位为 ms
+     * <p>
+     * The time window of the statistics, in ms
+     *
+     * @return 时间窗口
+     */
+    long windowMs() default 120_000;
+
+    /**
+     * 时间窗口内的请求数少于该值时不节流，避免请求量很小时少量失败就触发节流
+     * <p>
+     * No throttling while the requests in the window are fewer than it, so a few failures do not trigger throttling
+     * when the traffic is low
+     *
+     * @return 最小请求数
+     */
+    int minRequests() default 20;
+}
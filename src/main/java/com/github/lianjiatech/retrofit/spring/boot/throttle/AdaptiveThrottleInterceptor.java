@@ -0,0 +1,117 @@
+package com.github.lianjiatech.retrofit.spring.boot.throttle;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.InvocationContext;
+import com.github.lianjiatech.retrofit.spring.boot.core.MethodPolicy;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
+import com.github.lianjiatech.retrofit.spring.boot.priority.InvocationPriority;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * {@link AdaptiveThrottle}自适应节流拦截器，每个方法单独维护一个{@link AdaptiveThrottler}。位于错误解码拦截器之后、
+ * 重试拦截器之前，每次调用只计一次请求：异步调用的重试重新进入拦截器链时不再计数，已安排重试的请求结果也不计入。收到429、503以外的响应视为被下游接受，IO异常（包括重试耗尽后的IO异常）以及429、503响应视为被拒绝；
+ * 其他本地限制抛出的{@link RetrofitBlockException}不计入请求。异步调用被拒绝时与
+ * {@link com.github.lianjiatech.retrofit.spring.boot.bulkhead.BulkheadInterceptor}一样包装成IOException。
+ * <p>
+ * {@link AdaptiveThrottle} interceptor, which keeps an {@link AdaptiveThrottler} for each method. It sits after the error
+ * decoder interceptor and before the retry interceptor, so each call counts as one request: the retries of an
+ * asynchronous call re-enter the chain without being counted again, and the result of a request whose retry is
+ * scheduled is not counted either. Responses other than 429 and
+ * 503 are taken as accepted by the downstream, while IO exceptions (including those left after retries are exhausted)
+ * and 429 or 503 responses are taken as rejected; {@link RetrofitBlockException} from other local limits is not counted.
+ * A rejected asynchronous call is wrapped into an IOException, the same as
+ * {@link com.github.lianjiatech.retrofit.spring.boot.bulkhead.BulkheadInterceptor}.
+ *
+ * @author 陈添明
+ */
+public class AdaptiveThrottleInterceptor implements Interceptor {
+
+    protected final GlobalAdaptiveThrottleProperty globalAdaptiveThrottleProperty;
+
+    protected final Map<Method, AdaptiveThrottler> throttlers = new ConcurrentHashMap<>();
+
+    public AdaptiveThrottleInterceptor(GlobalAdaptiveThrottleProperty globalAdaptiveThrottleProperty) {
+        this.globalAdaptiveThrottleProperty = globalAdaptiveThrottleProperty;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        AdaptiveThrottler throttler = findThrottler(MethodPolicy.from(request));
+        if (throttler == null) {
+            return chain.proceed(request);
+        }
+        InvocationContext invocationContext = request.tag(InvocationContext.class);
+        boolean retryAttempt = invocationContext != null && invocationContext.isRetryAttempt();
+        if (!retryAttempt && !throttler.tryAcquire(InvocationPriority.shareOf(request))) {
+            RetrofitBlockException e = new RetrofitBlockException("Adaptive throttled! rejectProbability="
+                    + throttler.getRejectProbability() + ", url=" + request.url(), null);
+            if (invocationContext != null && invocationContext.isAsync()) {
+                throw new IOException("blocked due to " + e, e);
+            }
+            throw e;
+        }
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (RetrofitBlockException e) {
+            throttler.onCanceled();
+            throw e;
+        } catch (IOException e) {
+            if (e.getCause() instanceof RetrofitBlockException) {
+                throttler.onCanceled();
+            }
+            throw e;
+        }
+        if (invocationContext != null && invocationContext.isRetryScheduled()) {
+            return response;
+        }
+        int code = response.code();
+        if (code != 429 && code != 503) {
+            throttler.onAccepted();
+        }
+        return response;
+    }
+
+    protected AdaptiveThrottler findThrottler(MethodPolicy methodPolicy) {
+        AdaptiveThrottle adaptiveThrottle = methodPolicy.getAdaptiveThrottle();
+        if (!needThrottle(adaptiveThrottle)) {
+            return null;
+        }
+        return throttlers.computeIfAbsent(methodPolicy.getMethod(), m -> adaptiveThrottle == null
+                ? new AdaptiveThrottler(globalAdaptiveThrottleProperty.getK(),
+                        globalAdaptiveThrottleProperty.getWindowMs(), globalAdaptiveThrottleProperty.getMinRequests())
+                : new AdaptiveThrottler(adaptiveThrottle.k(), adaptiveThrottle.windowMs(),
+                        adaptiveThrottle.minRequests()));
+    }
+
+    protected boolean needThrottle(AdaptiveThrottle adaptiveThrottle) {
+        if (globalAdaptiveThrottleProperty.isEnable()) {
+            if (adaptiveThrottle == null) {
+                return true;
+            }
+            return adaptiveThrottle.enable();
+        } else {
+            return adaptiveThrottle != null && adaptiveThrottle.enable();
+        }
+    }
+
+    /**
+     * 获取所有方法的节流器，可以用于监控拒绝概率
+     * <p>
+     * Get adaptive throttlers of all methods, which can be used to monitor the reject probability
+     *
+     * @return 方法 -> 节流器；method -> adaptive throttler
+     */
+    public Map<Method, AdaptiveThrottler> getThrottlers() {
+        return Collections.unmodifiableMap(throttlers);
+    }
+}
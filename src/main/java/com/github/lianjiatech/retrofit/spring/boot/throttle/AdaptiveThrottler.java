@@ -0,0 +1,107 @@
+package com.github.lianjiatech.retrofit.spring.boot.throttle;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.lianjiatech.retrofit.spring.boot.util.SlidingWindowCounter;
+
+/**
+ * 客户端自适应节流器。下游正常时{@code accepts}与{@code requests}接近，拒绝概率为0；下游过载开始拒绝请求后，
+ * 超过{@code k}倍接受数的请求会在本地被拒绝，不再消耗下游拒绝请求的处理能力。本地拒绝的请求同样计入{@code requests}，
+ * 下游恢复后{@code accepts}增长，拒绝概率随之下降。
+ * <p>
+ * Client-side adaptive throttler. While the downstream is healthy, {@code accepts} is close to {@code requests} and the
+ * reject probability is 0. Once the overloaded downstream starts rejecting requests, the requests over {@code k} times
+ * the accepts are rejected locally and no longer cost the downstream capacity to reject them. Locally rejected requests
+ * are counted in {@code requests} too, and the reject probability drops as {@code accepts} grows after the downstream
+ * recovers.
+ *
+ * @author 陈添明
+ */
+public class AdaptiveThrottler {
+
+    private static final int BUCKET_COUNT = 10;
+
+    private final double k;
+
+    private final int minRequests;
+
+    private final SlidingWindowCounter requests;
+
+    private final SlidingWindowCounter accepts;
+
+    private final LongAdder throttledCalls = new LongAdder();
+
+    public AdaptiveThrottler(double k, long windowMs, int minRequests) {
+        if (k < 1 || windowMs <= 0 || minRequests < 0) {
+            throw new IllegalArgumentException("Illegal adaptive throttle, k=" + k + ", windowMs=" + windowMs
+                    + ", minRequests=" + minRequests);
+        }
+        this.k = k;
+        this.minRequests = minRequests;
+        this.requests = new SlidingWindowCounter(windowMs, BUCKET_COUNT);
+        this.accepts = new SlidingWindowCounter(windowMs, BUCKET_COUNT);
+    }
+
+    /**
+     * 记录一次请求，并按拒绝概率决定是否在本地拒绝
+     *
+     * @return true表示允许发送请求
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    /**
+     * 按优先级记录一次请求，低优先级的请求使用{@code k * share}计算拒绝概率，下游过载时先于高优先级的请求被拒绝
+     *
+     * @param share 优先级对应的容量比例，参见{@link com.github.lianjiatech.retrofit.spring.boot.priority.InvocationPriority}
+     * @return true表示允许发送请求
+     */
+    public boolean tryAcquire(double share) {
+        long now = System.currentTimeMillis();
+        double rejectProbability = rejectProbability(now, share >= 1 ? k : Math.max(1, k * share));
+        requests.add(1, now);
+        if (rejectProbability > 0 && ThreadLocalRandom.current().nextDouble() < rejectProbability) {
+            throttledCalls.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 请求被下游接受
+     */
+    public void onAccepted() {
+        accepts.increment();
+    }
+
+    /**
+     * 请求被其他本地限制拒绝，没有发送到下游，撤销本次请求的记录
+     */
+    public void onCanceled() {
+        requests.add(-1);
+    }
+
+    /**
+     * 当前的拒绝概率
+     */
+    public double getRejectProbability() {
+        return rejectProbability(System.currentTimeMillis(), k);
+    }
+
+    /**
+     * 在本地被拒绝的请求数
+     */
+    public long getThrottledCalls() {
+        return throttledCalls.sum();
+    }
+
+    private double rejectProbability(long now, double k) {
+        long requestCount = requests.sum(now);
+        if (requestCount < minRequests) {
+            return 0;
+        }
+        return Math.max(0, (requestCount - k * accepts.sum(now)) / (requestCount + 1));
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.lianjiatech.retrofit.spring.boot.throttle;
+
+import lombok.Data;
+
+/**
+ * 全局自适应节流配置
+ * @author 陈添明
+ */
+@Data
+public class GlobalAdaptiveThrottleProperty {
+
+    /**
+     * 是否启用全局自适应节流，启用的话，所有方法都会节流。
+     * 否则的话，只有被 {@link com.github.lianjiatech.retrofit.spring.boot.throttle.AdaptiveThrottle}标注的接口才会节流。
+     * 接口上AdaptiveThrottle注解属性优先于全局配置。
+     */
+    private boolean enable = false;
+
+    /**
+     * 倍数k，请求数超过k倍接受数后开始节流
+     * The multiplier k, throttling starts when the requests exceed k times the accepts
+     */
+    private double k = 2.0;
+
+    /**
+     * 统计的时间窗口
+     * The time window of the statistics
+     */
+    private long windowMs = 120_000;
+
+    /**
+     * 时间窗口内的请求数少于该值时不节流
+     * No throttling while the requests in the window are fewer than it
+     */
+    private int minRequests = 20;
+}
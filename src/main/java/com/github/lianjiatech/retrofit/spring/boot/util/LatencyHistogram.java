@@ -0,0 +1,129 @@
+package com.github.lianjiatech.retrofit.spring.boot.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 无锁延迟直方图，用于估算最近一段时间的延迟分位数。桶按照对数线性划分（每个2的幂区间16个桶），相对误差约6%。
+ * 统计窗口每隔{@code windowMs}滚动一次，分位数基于当前窗口和上一个窗口计算。
+ * <p>
+ * Lock-free latency histogram for estimating recent latency percentiles. Buckets are log-linear
+ * (16 buckets per power of 2), with a relative error of about 6%. The window rolls every {@code windowMs},
+ * and percentiles are calculated from the current and the previous window.
+ *
+ * @author 陈添明
+ */
+public class LatencyHistogram {
+
+    private static final int LINEAR_LIMIT = 32;
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int MAX_EXPONENT = 24;
+
+    private static final int BUCKET_COUNT =
+            LINEAR_LIMIT + (MAX_EXPONENT - 4) * (1 << SUB_BUCKET_BITS);
+
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private final long windowMs;
+
+    private final AtomicReference<Window[]> windows;
+
+    /**
+     * @param windowMs 统计窗口长度；window length
+     */
+    public LatencyHistogram(long windowMs) {
+        this.windowMs = windowMs;
+        long now = System.currentTimeMillis();
+        this.windows = new AtomicReference<>(new Window[] {new Window(now), new Window(now - windowMs)});
+    }
+
+    /**
+     * 记录一次延迟
+     *
+     * @param latencyMs 延迟，单位毫秒；latency in milliseconds
+     */
+    public void record(long latencyMs) {
+        Window window = currentWindows(System.currentTimeMillis())[0];
+        window.counts.incrementAndGet(indexOf(Math.max(0, Math.min(latencyMs, MAX_VALUE))));
+    }
+
+    /**
+     * 获取延迟分位数
+     *
+     * @param quantile 分位，取值0-1；quantile between 0 and 1
+     * @param minSamples 最少样本数；minimum number of samples
+     * @return 延迟分位数，样本数不足时返回-1；latency percentile, -1 if there are not enough samples
+     */
+    public long percentile(double quantile, int minSamples) {
+        Window[] current = currentWindows(System.currentTimeMillis());
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (Window window : current) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                long count = window.counts.get(i);
+                counts[i] += count;
+                total += count;
+            }
+        }
+        if (total == 0 || total < minSamples) {
+            return -1;
+        }
+        long rank = Math.max(1, (long)Math.ceil(quantile * total));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return upperBoundOf(i);
+            }
+        }
+        return MAX_VALUE;
+    }
+
+    private Window[] currentWindows(long now) {
+        while (true) {
+            Window[] current = windows.get();
+            if (now - current[0].startMs < windowMs) {
+                return current;
+            }
+            // 超过两个窗口没有数据时，上一个窗口也已经过期
+            Window previous = now - current[0].startMs < windowMs * 2 ? current[0] : new Window(now - windowMs);
+            Window[] rolled = {new Window(now), previous};
+            if (windows.compareAndSet(current, rolled)) {
+                return rolled;
+            }
+        }
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int)value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & ((1 << SUB_BUCKET_BITS) - 1);
+        return LINEAR_LIMIT + (exponent - 5) * (1 << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    static long upperBoundOf(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int offset = index - LINEAR_LIMIT;
+        int exponent = offset / (1 << SUB_BUCKET_BITS) + 5;
+        int subBucket = offset % (1 << SUB_BUCKET_BITS);
+        long lowerBound = (1L << exponent) + ((long)subBucket << (exponent - SUB_BUCKET_BITS));
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    private static final class Window {
+
+        private final long startMs;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+        private Window(long startMs) {
+            this.startMs = startMs;
+        }
+    }
+}
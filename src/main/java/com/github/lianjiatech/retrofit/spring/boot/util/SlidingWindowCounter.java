@@ -0,0 +1,79 @@
+package com.github.lianjiatech.retrofit.spring.boot.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁滑动窗口计数器。窗口被划分为若干个桶，每个桶记录所属的时间片，过期的桶在下一次写入时被重置。
+ * 并发重置时可能丢失少量计数，统计结果是近似值。
+ * <p>
+ * Lock-free sliding window counter. The window is divided into buckets, each bucket records its time slice,
+ * and expired buckets are reset on the next write. A few counts may be lost under concurrent reset, so the result is approximate.
+ *
+ * @author 陈添明
+ */
+public class SlidingWindowCounter {
+
+    private final Bucket[] buckets;
+
+    private final long bucketWidthMs;
+
+    /**
+     * @param windowMs 窗口长度；window length
+     * @param bucketCount 桶的数量；number of buckets
+     */
+    public SlidingWindowCounter(long windowMs, int bucketCount) {
+        if (windowMs <= 0 || bucketCount <= 0) {
+            throw new IllegalArgumentException("windowMs and bucketCount must be positive");
+        }
+        this.bucketWidthMs = Math.max(1, windowMs / bucketCount);
+        this.buckets = new Bucket[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    public void increment() {
+        add(1);
+    }
+
+    public void add(long value) {
+        add(value, System.currentTimeMillis());
+    }
+
+    public void add(long value, long nowMs) {
+        long epoch = nowMs / bucketWidthMs;
+        Bucket bucket = buckets[(int)(epoch % buckets.length)];
+        long bucketEpoch = bucket.epoch.get();
+        if (bucketEpoch != epoch && bucket.epoch.compareAndSet(bucketEpoch, epoch)) {
+            bucket.counter.reset();
+        }
+        bucket.counter.add(value);
+    }
+
+    public long sum() {
+        return sum(System.currentTimeMillis());
+    }
+
+    public long sum(long nowMs) {
+        long epoch = nowMs / bucketWidthMs;
+        long sum = 0;
+        for (Bucket bucket : buckets) {
+            if (epoch - bucket.epoch.get() < buckets.length) {
+                sum += bucket.counter.sum();
+            }
+        }
+        return sum;
+    }
+
+    public long getWindowMs() {
+        return bucketWidthMs * buckets.length;
+    }
+
+    private static final class Bucket {
+
+        private final AtomicLong epoch = new AtomicLong(-1);
+
+        private final LongAdder counter = new LongAdder();
+    }
+}
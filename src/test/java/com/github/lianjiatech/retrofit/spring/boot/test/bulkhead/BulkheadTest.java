@@ -0,0 +1,184 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.bulkhead;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.lianjiatech.retrofit.spring.boot.bulkhead.SemaphoreBulkhead;
+import com.github.lianjiatech.retrofit.spring.boot.config.RetrofitConfigBean;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
+import com.github.lianjiatech.retrofit.spring.boot.test.RetrofitTestApplication;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = RetrofitTestApplication.class)
+@RunWith(SpringRunner.class)
+public class BulkheadTest {
+
+    @Autowired
+    private RetrofitConfigBean retrofitConfigBean;
+
+    @Autowired
+    private BulkheadTestApi bulkheadTestApi;
+
+    private MockWebServer server;
+
+    private static final ObjectMapper objectMapper =
+            new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                    .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    @Before
+    public void before() throws IOException {
+        System.out.println("=========开启MockWebServer===========");
+        server = new MockWebServer();
+        server.start(8080);
+    }
+
+    @After
+    public void after() throws IOException {
+        System.out.println("=========关闭MockWebServer===========");
+        server.close();
+    }
+
+    @Test
+    public void testReject() throws Exception {
+        server.enqueue(successResponse().setBodyDelay(1, TimeUnit.SECONDS));
+        server.enqueue(successResponse());
+        SemaphoreBulkhead bulkhead = getBulkhead("getPerson");
+        long rejectedCalls = bulkhead.getRejectedCalls();
+        CompletableFuture<Result<Person>> slowCall =
+                CompletableFuture.supplyAsync(() -> bulkheadTestApi.getPerson(1L));
+        awaitActiveCalls(bulkhead, 1);
+        try {
+            // 接口上的舱壁由所有方法共享
+            bulkheadTestApi.getPerson(2L);
+            Assert.fail();
+        } catch (RetrofitBlockException e) {
+            Assert.assertTrue(e.getMessage().contains("Bulkhead is full"));
+        }
+        Assert.assertEquals("test", slowCall.get().getData().getName());
+        Assert.assertEquals(rejectedCalls + 1, bulkhead.getRejectedCalls());
+        Assert.assertEquals(0, bulkhead.getActiveCalls());
+        Assert.assertEquals("test", bulkheadTestApi.getPerson(3L).getData().getName());
+    }
+
+    @Test
+    public void testAsyncReject() throws Exception {
+        server.enqueue(successResponse().setBodyDelay(1, TimeUnit.SECONDS));
+        SemaphoreBulkhead bulkhead = getBulkhead("getPersonFuture");
+        Assert.assertSame(getBulkhead("getPerson"), bulkhead);
+        CompletableFuture<Result<Person>> slowCall = bulkheadTestApi.getPersonFuture(1L);
+        awaitActiveCalls(bulkhead, 1);
+        try {
+            bulkheadTestApi.getPersonFuture(2L).get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IOException);
+            Assert.assertTrue(e.getCause().getCause() instanceof RetrofitBlockException);
+        }
+        Assert.assertEquals("test", slowCall.get().getData().getName());
+    }
+
+    @Test
+    public void testWait() throws Exception {
+        server.enqueue(successResponse().setBodyDelay(500, TimeUnit.MILLISECONDS));
+        server.enqueue(successResponse());
+        SemaphoreBulkhead bulkhead = getBulkhead("getPersonWait");
+        Assert.assertNotSame(getBulkhead("getPerson"), bulkhead);
+        CompletableFuture<Result<Person>> slowCall =
+                CompletableFuture.supplyAsync(() -> bulkheadTestApi.getPersonWait(1L));
+        awaitActiveCalls(bulkhead, 1);
+        Assert.assertEquals("test", bulkheadTestApi.getPersonWait(2L).getData().getName());
+        Assert.assertEquals("test", slowCall.get().getData().getName());
+        Assert.assertEquals(0, bulkhead.getRejectedCalls());
+    }
+
+    @Test
+    public void testAsyncNotWait() throws Exception {
+        server.enqueue(successResponse().setBodyDelay(1, TimeUnit.SECONDS));
+        SemaphoreBulkhead bulkhead = getBulkhead("getPersonWaitFuture");
+        CompletableFuture<Result<Person>> slowCall = bulkheadTestApi.getPersonWaitFuture(1L);
+        awaitActiveCalls(bulkhead, 1);
+        // 异步调用不阻塞调度线程等待许可，直接失败
+        long start = System.nanoTime();
+        try {
+            bulkheadTestApi.getPersonWaitFuture(2L).get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause().getCause() instanceof RetrofitBlockException);
+        }
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+        Assert.assertEquals("test", slowCall.get().getData().getName());
+    }
+
+    @Test
+    public void testAsyncRetryKeepsPermit() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(successResponse());
+        SemaphoreBulkhead bulkhead = getBulkhead("getPersonRetryFuture");
+        CompletableFuture<Result<Person>> call = bulkheadTestApi.getPersonRetryFuture(1L);
+        server.takeRequest();
+        Thread.sleep(100);
+        // 等待重试期间仍然持有许可，重试不会被自己的舱壁拒绝
+        Assert.assertEquals(1, bulkhead.getActiveCalls());
+        Assert.assertEquals("test", call.get().getData().getName());
+        Assert.assertEquals(0, bulkhead.getActiveCalls());
+        Assert.assertEquals(0, bulkhead.getRejectedCalls());
+
+        // 取消等待中的重试时释放许可
+        server.enqueue(new MockResponse().setResponseCode(500));
+        call = bulkheadTestApi.getPersonRetryFuture(2L);
+        server.takeRequest();
+        Thread.sleep(100);
+        Assert.assertEquals(1, bulkhead.getActiveCalls());
+        call.cancel(true);
+        Assert.assertEquals(0, bulkhead.getActiveCalls());
+    }
+
+    private static void awaitActiveCalls(SemaphoreBulkhead bulkhead, int activeCalls) throws InterruptedException {
+        for (int i = 0; i < 100 && bulkhead.getActiveCalls() < activeCalls; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(activeCalls, bulkhead.getActiveCalls());
+    }
+
+    private SemaphoreBulkhead getBulkhead(String methodName) throws NoSuchMethodException {
+        return retrofitConfigBean.getMethodPolicyRegistry()
+                .get(BulkheadTestApi.class.getMethod(methodName, Long.class))
+                .getBulkhead();
+    }
+
+    private MockResponse successResponse() throws JsonProcessingException {
+        Person mockPerson = new Person().setId(1L)
+                .setName("test")
+                .setAge(10);
+        Result<Person> mockResult = new Result<Person>()
+                .setCode(0)
+                .setMsg("ok")
+                .setData(mockPerson);
+        return new MockResponse()
+                .setResponseCode(200)
+                .addHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(objectMapper.writeValueAsString(mockResult));
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.bulkhead;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.github.lianjiatech.retrofit.spring.boot.bulkhead.Bulkhead;
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.retry.Retry;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(baseUrl = "${test.baseUrl}")
+@Bulkhead(maxConcurrent = 1)
+public interface BulkheadTestApi {
+
+    @GET("person")
+    Result<Person> getPerson(@Query("id") Long id);
+
+    @GET("person")
+    CompletableFuture<Result<Person>> getPersonFuture(@Query("id") Long id);
+
+    @GET("person")
+    @Bulkhead(maxConcurrent = 1, maxWaitMs = 3000)
+    Result<Person> getPersonWait(@Query("id") Long id);
+
+    @GET("person")
+    @Bulkhead(maxConcurrent = 1, maxWaitMs = 3000)
+    CompletableFuture<Result<Person>> getPersonWaitFuture(@Query("id") Long id);
+
+    @GET("person")
+    @Bulkhead(maxConcurrent = 1)
+    @Retry(maxRetries = 1, intervalMs = 300)
+    CompletableFuture<Result<Person>> getPersonRetryFuture(@Query("id") Long id);
+}
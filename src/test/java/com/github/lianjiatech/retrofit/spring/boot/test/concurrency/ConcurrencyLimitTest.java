@@ -0,0 +1,171 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.concurrency;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.lianjiatech.retrofit.spring.boot.concurrency.ConcurrencyLimitInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.concurrency.VegasConcurrencyLimiter;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
+import com.github.lianjiatech.retrofit.spring.boot.exception.RetrofitException;
+import com.github.lianjiatech.retrofit.spring.boot.test.RetrofitTestApplication;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = RetrofitTestApplication.class)
+@RunWith(SpringRunner.class)
+public class ConcurrencyLimitTest {
+
+    @Autowired
+    private ConcurrencyLimitTestApi concurrencyLimitTestApi;
+
+    @Autowired
+    private ConcurrencyLimitInterceptor concurrencyLimitInterceptor;
+
+    private MockWebServer server;
+
+    private static final ObjectMapper objectMapper =
+            new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                    .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    @Before
+    public void before() throws IOException {
+        System.out.println("=========开启MockWebServer===========");
+        server = new MockWebServer();
+        server.start(8080);
+    }
+
+    @After
+    public void after() throws IOException {
+        System.out.println("=========关闭MockWebServer===========");
+        server.close();
+    }
+
+    @Test
+    public void testVegas() {
+        VegasConcurrencyLimiter limiter = new VegasConcurrencyLimiter(10, 1, 100);
+        long minRtt = TimeUnit.MILLISECONDS.toNanos(10);
+        // 耗时保持在最小耗时，并且并发打满时增大上限
+        for (int i = 0; i < 5; i++) {
+            sample(limiter, minRtt, limiter.getLimit(), false);
+        }
+        int grownLimit = limiter.getLimit();
+        Assert.assertTrue(grownLimit > 10);
+        Assert.assertEquals(10, limiter.getMinRttMs());
+        // 并发不足上限一半时不调整
+        sample(limiter, minRtt, 1, false);
+        Assert.assertEquals(grownLimit, limiter.getLimit());
+        // 耗时变为最小耗时的10倍，下游开始排队，减小上限
+        for (int i = 0; i < 5; i++) {
+            sample(limiter, minRtt * 10, limiter.getLimit(), false);
+        }
+        int shrunkLimit = limiter.getLimit();
+        Assert.assertTrue(shrunkLimit < grownLimit);
+        // 调用失败时按比例减小上限
+        sample(limiter, minRtt, 1, true);
+        Assert.assertTrue(limiter.getLimit() < shrunkLimit);
+        Assert.assertEquals(0, limiter.getInflight());
+    }
+
+    @Test
+    public void testReject() throws Exception {
+        server.enqueue(successResponse().setBodyDelay(1, TimeUnit.SECONDS));
+        server.enqueue(successResponse());
+        VegasConcurrencyLimiter limiter = getLimiter("getPerson");
+        CompletableFuture<Result<Person>> slowCall =
+                CompletableFuture.supplyAsync(() -> concurrencyLimitTestApi.getPerson(1L));
+        for (int i = 0; i < 100 && (limiter == null || limiter.getInflight() == 0); i++) {
+            Thread.sleep(10);
+            limiter = getLimiter("getPerson");
+        }
+        Assert.assertNotNull(limiter);
+        Assert.assertEquals(1, limiter.getInflight());
+        try {
+            concurrencyLimitTestApi.getPerson(2L);
+            Assert.fail();
+        } catch (RetrofitBlockException e) {
+            Assert.assertTrue(e.getMessage().contains("Concurrency limit exceeded"));
+        }
+        Assert.assertEquals("test", slowCall.get().getData().getName());
+        Assert.assertEquals(1, limiter.getRejectedCalls());
+        Assert.assertEquals("test", concurrencyLimitTestApi.getPerson(3L).getData().getName());
+    }
+
+    @Test
+    public void testDrop() {
+        // 全局重试配置下每次调用请求两次
+        for (int i = 0; i < 6; i++) {
+            server.enqueue(new MockResponse().setResponseCode(503));
+        }
+        for (int i = 0; i < 3; i++) {
+            try {
+                concurrencyLimitTestApi.getPersonDrop(1L);
+                Assert.fail();
+            } catch (RetrofitException e) {
+                // 错误解码器在并发限制拦截器之外，并发限制拦截器看到的仍然是503响应
+                Assert.assertTrue(e.getMessage().contains("code=503"));
+            }
+        }
+        VegasConcurrencyLimiter limiter = getLimiter("getPersonDrop");
+        Assert.assertTrue(limiter.getLimit() < 10);
+        Assert.assertEquals(0, limiter.getInflight());
+    }
+
+    @Test
+    public void testSamplePerAttempt() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(successResponse());
+        Assert.assertEquals("test", concurrencyLimitTestApi.getPersonRetry(1L).getData().getName());
+        // 每次尝试单独采样，耗时不包括500ms的重试间隔
+        VegasConcurrencyLimiter limiter = getLimiter("getPersonRetry");
+        Assert.assertTrue(limiter.getMinRttMs() < 500);
+        Assert.assertEquals(0, limiter.getInflight());
+    }
+
+    private static void sample(VegasConcurrencyLimiter limiter, long rttNanos, int inflight, boolean dropped) {
+        Assert.assertTrue(limiter.tryAcquire() > 0);
+        limiter.onSample(rttNanos, inflight, dropped);
+    }
+
+    private VegasConcurrencyLimiter getLimiter(String methodName) {
+        try {
+            return concurrencyLimitInterceptor.getLimiters()
+                    .get(ConcurrencyLimitTestApi.class.getMethod(methodName, Long.class));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private MockResponse successResponse() throws JsonProcessingException {
+        Person mockPerson = new Person().setId(1L)
+                .setName("test")
+                .setAge(10);
+        Result<Person> mockResult = new Result<Person>()
+                .setCode(0)
+                .setMsg("ok")
+                .setData(mockPerson);
+        return new MockResponse()
+                .setResponseCode(200)
+                .addHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(objectMapper.writeValueAsString(mockResult));
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.concurrency;
+
+import com.github.lianjiatech.retrofit.spring.boot.concurrency.ConcurrencyLimit;
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.retry.Retry;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(baseUrl = "${test.baseUrl}")
+@ConcurrencyLimit(initialLimit = 10, maxLimit = 10)
+public interface ConcurrencyLimitTestApi {
+
+    @GET("person")
+    @ConcurrencyLimit(initialLimit = 1, maxLimit = 1)
+    Result<Person> getPerson(@Query("id") Long id);
+
+    @GET("person")
+    Result<Person> getPersonDrop(@Query("id") Long id);
+
+    @GET("person")
+    @Retry(maxRetries = 1, intervalMs = 500)
+    Result<Person> getPersonRetry(@Query("id") Long id);
+}
@@ -0,0 +1,117 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.deadline;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.DeadlineContext;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.InvocationDeadline;
+import com.github.lianjiatech.retrofit.spring.boot.exception.RetrofitException;
+import com.github.lianjiatech.retrofit.spring.boot.test.RetrofitTestApplication;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = RetrofitTestApplication.class)
+@RunWith(SpringRunner.class)
+public class DeadlineTest {
+
+    @Autowired
+    private DeadlineTestApi deadlineTestApi;
+
+    private MockWebServer server;
+
+    private static final ObjectMapper objectMapper =
+            new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                    .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    @Before
+    public void before() throws IOException {
+        System.out.println("=========开启MockWebServer===========");
+        server = new MockWebServer();
+        server.start(8080);
+    }
+
+    @After
+    public void after() throws IOException {
+        System.out.println("=========关闭MockWebServer===========");
+        server.close();
+    }
+
+    @Test
+    public void testRetryStopsAtDeadline() {
+        for (int i = 0; i < 6; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            deadlineTestApi.getPersonWithRetry(1L);
+            Assert.fail();
+        } catch (RetrofitException e) {
+            long cost = System.currentTimeMillis() - start;
+            Assert.assertTrue(cost < 500);
+            Assert.assertTrue(server.getRequestCount() < 6);
+        }
+    }
+
+    @Test
+    public void testReadTimeoutShrinksToDeadline() throws JsonProcessingException {
+        server.enqueue(successResponse().setHeadersDelay(2, TimeUnit.SECONDS));
+        server.enqueue(successResponse().setHeadersDelay(2, TimeUnit.SECONDS));
+
+        long start = System.currentTimeMillis();
+        try {
+            deadlineTestApi.getPersonWithShortDeadline(1L);
+            Assert.fail();
+        } catch (RetrofitException e) {
+            long cost = System.currentTimeMillis() - start;
+            Assert.assertTrue(cost < 1500);
+        }
+    }
+
+    @Test
+    public void testDeadlineContextAndHeader() throws Exception {
+        server.enqueue(successResponse());
+
+        Result<Person> person =
+                DeadlineContext.call(InvocationDeadline.after(2000), () -> deadlineTestApi.getPerson(1L));
+        Assert.assertEquals("test", person.getData().getName());
+        RecordedRequest request = server.takeRequest();
+        long remainingMs = Long.parseLong(request.getHeader("X-Request-Timeout-Ms"));
+        Assert.assertTrue(remainingMs > 0 && remainingMs <= 2000);
+        Assert.assertNull(DeadlineContext.current());
+    }
+
+    private MockResponse successResponse() throws JsonProcessingException {
+        Person mockPerson = new Person().setId(1L)
+                .setName("test")
+                .setAge(10);
+        Result<Person> mockResult = new Result<Person>()
+                .setCode(0)
+                .setMsg("ok")
+                .setData(mockPerson);
+        return new MockResponse()
+                .setResponseCode(200)
+                .addHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(objectMapper.writeValueAsString(mockResult));
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.deadline;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.deadline.Deadline;
+import com.github.lianjiatech.retrofit.spring.boot.retry.Retry;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryRule;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(baseUrl = "${test.baseUrl}")
+public interface DeadlineTestApi {
+
+    @GET("person")
+    @Deadline(timeoutMs = 500)
+    @Retry(maxRetries = 5, intervalMs = 200, retryRules = RetryRule.RESPONSE_STATUS_NOT_2XX)
+    Result<Person> getPersonWithRetry(@Query("id") Long id);
+
+    @GET("person")
+    @Deadline(timeoutMs = 300)
+    Result<Person> getPersonWithShortDeadline(@Query("id") Long id);
+
+    @GET("person")
+    Result<Person> getPerson(@Query("id") Long id);
+}
@@ -0,0 +1,121 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.degrade;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Service;
+
+import com.github.lianjiatech.retrofit.spring.boot.bulkhead.Bulkhead;
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.FallbackFactory;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.builtin.BuiltinDegrade;
+import com.github.lianjiatech.retrofit.spring.boot.retry.Retry;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import reactor.core.publisher.Mono;
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+/**
+ * @author 陈添明
+ */
+@Retry(enable = false)
+@RetrofitClient(baseUrl = "${test.baseUrl}", fallbackFactory = DegradeBuiltinApi.HttpDegradeFallbackFactory.class)
+@BuiltinDegrade(failureRateThreshold = 0.5, minimumNumberOfCalls = 10, waitDurationInOpenStateMs = 1000,
+        permittedNumberOfCallsInHalfOpenState = 2)
+public interface DegradeBuiltinApi {
+
+    @GET("degrade/person1")
+    Result<Person> getPerson1(@Query("id") Long id);
+
+    @BuiltinDegrade(slowCallDurationMs = 100, slowCallRateThreshold = 0.5, minimumNumberOfCalls = 4)
+    @GET("degrade/person2")
+    Result<Person> getPerson2(@Query("id") Long id);
+
+    @BuiltinDegrade(minimumNumberOfCalls = 2)
+    @GET("degrade/person3")
+    Mono<Result<Person>> getPersonMono(@Query("id") Long id);
+
+    @BuiltinDegrade(minimumNumberOfCalls = 2)
+    @GET("degrade/person4")
+    CompletableFuture<Result<Person>> getPersonFuture(@Query("id") Long id);
+
+    @BuiltinDegrade(minimumNumberOfCalls = 2)
+    @Retry(maxRetries = 1, intervalMs = 1)
+    @GET("degrade/person5")
+    CompletableFuture<Result<Person>> getPersonFutureRetry(@Query("id") Long id);
+
+    @BuiltinDegrade(minimumNumberOfCalls = 2)
+    @Bulkhead(maxConcurrent = 1)
+    @GET("degrade/person6")
+    Result<Person> getPersonBulkhead(@Query("id") Long id);
+
+    @Service
+    class HttpDegradeFallbackFactory implements FallbackFactory<DegradeBuiltinApi> {
+
+        static final AtomicInteger CREATE_COUNT = new AtomicInteger();
+
+        @Override
+        public boolean isCacheable() {
+            return true;
+        }
+
+        @Override
+        public DegradeBuiltinApi create(Throwable cause) {
+            CREATE_COUNT.incrementAndGet();
+            return new DegradeBuiltinApi() {
+                @Override
+                public Result<Person> getPerson1(Long id) {
+                    Result<Person> fallback = new Result<>();
+                    fallback.setCode(-1)
+                            .setMsg("熔断Person1")
+                            .setData(new Person());
+                    return fallback;
+                }
+
+                @Override
+                public Result<Person> getPerson2(Long id) {
+                    Result<Person> fallback = new Result<>();
+                    fallback.setCode(-1)
+                            .setMsg("熔断Person2")
+                            .setData(new Person());
+                    return fallback;
+                }
+
+                @Override
+                public Mono<Result<Person>> getPersonMono(Long id) {
+                    Result<Person> fallback = new Result<>();
+                    fallback.setCode(-1)
+                            .setMsg("熔断PersonMono")
+                            .setData(new Person());
+                    return Mono.just(fallback);
+                }
+
+                @Override
+                public CompletableFuture<Result<Person>> getPersonFuture(Long id) {
+                    Result<Person> fallback = new Result<>();
+                    fallback.setCode(-1)
+                            .setMsg("熔断PersonFuture")
+                            .setData(new Person());
+                    return CompletableFuture.completedFuture(fallback);
+                }
+
+                @Override
+                public CompletableFuture<Result<Person>> getPersonFutureRetry(Long id) {
+                    return getPersonFuture(id);
+                }
+
+                @Override
+                public Result<Person> getPersonBulkhead(Long id) {
+                    Result<Person> fallback = new Result<>();
+                    fallback.setCode(-1)
+                            .setMsg("熔断PersonBulkhead")
+                            .setData(new Person());
+                    return fallback;
+                }
+            };
+        }
+    }
+
+}
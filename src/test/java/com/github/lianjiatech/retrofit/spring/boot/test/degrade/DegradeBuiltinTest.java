@@ -0,0 +1,205 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.degrade;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitDegrade;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.builtin.BuiltinCircuitBreaker;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.builtin.BuiltinRetrofitDegrade;
+import com.github.lianjiatech.retrofit.spring.boot.test.RetrofitTestApplication;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * @author 陈添明
+ */
+@ActiveProfiles("builtin")
+@SpringBootTest(classes = RetrofitTestApplication.class)
+@RunWith(SpringRunner.class)
+public class DegradeBuiltinTest {
+
+    @Autowired
+    private DegradeBuiltinApi degradeBuiltinApi;
+
+    @Autowired
+    private RetrofitDegrade retrofitDegrade;
+
+    private static final ObjectMapper objectMapper =
+            new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                    .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private MockWebServer server;
+
+    @Before
+    public void before() throws IOException {
+        System.out.println("=========开启MockWebServer===========");
+        server = new MockWebServer();
+        server.start(8080);
+
+    }
+
+    @After
+    public void after() throws IOException {
+        System.out.println("=========关闭MockWebServer===========");
+        server.close();
+    }
+
+    @Test
+    public void testFailureRate() throws Exception {
+        BuiltinCircuitBreaker circuitBreaker = getCircuitBreaker("getPerson1");
+        for (int i = 0; i < 10; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+            try {
+                degradeBuiltinApi.getPerson1(1L);
+                Assert.fail();
+            } catch (Exception e) {
+                // expected
+            }
+        }
+        Assert.assertEquals(BuiltinCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Assert.assertEquals(1.0, circuitBreaker.getFailureRate(), 0.0001);
+
+        // 熔断器打开，不发送请求直接降级，相同原因复用降级实例
+        int createCount = DegradeBuiltinApi.HttpDegradeFallbackFactory.CREATE_COUNT.get();
+        Assert.assertEquals(-1, degradeBuiltinApi.getPerson1(1L).getCode());
+        Assert.assertEquals(-1, degradeBuiltinApi.getPerson1(1L).getCode());
+        Assert.assertEquals(10, server.getRequestCount());
+        Assert.assertEquals(2, circuitBreaker.getNotPermittedCalls());
+        Assert.assertTrue(DegradeBuiltinApi.HttpDegradeFallbackFactory.CREATE_COUNT.get() <= createCount + 1);
+
+        // 等待进入半开状态，探测调用成功后关闭
+        Thread.sleep(1100);
+        server.enqueue(mockResponse(0));
+        server.enqueue(mockResponse(0));
+        Assert.assertEquals(0, degradeBuiltinApi.getPerson1(1L).getCode());
+        Assert.assertEquals(BuiltinCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        Assert.assertEquals(0, degradeBuiltinApi.getPerson1(1L).getCode());
+        Assert.assertEquals(BuiltinCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testSlowCallRate() throws Exception {
+        BuiltinCircuitBreaker circuitBreaker = getCircuitBreaker("getPerson2");
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(mockResponse(200));
+            Assert.assertEquals(0, degradeBuiltinApi.getPerson2(1L).getCode());
+        }
+        Assert.assertEquals(BuiltinCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Assert.assertEquals(1.0, circuitBreaker.getSlowCallRate(), 0.0001);
+        Assert.assertEquals(-1, degradeBuiltinApi.getPerson2(1L).getCode());
+    }
+
+    @Test
+    public void testMonoFallback() throws Exception {
+        BuiltinCircuitBreaker circuitBreaker = getCircuitBreaker("getPersonMono");
+        for (int i = 0; i < 2; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+            try {
+                degradeBuiltinApi.getPersonMono(1L).block();
+                Assert.fail();
+            } catch (Exception e) {
+                // expected
+            }
+        }
+        Assert.assertEquals(BuiltinCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Result<Person> result = degradeBuiltinApi.getPersonMono(1L).block();
+        Assert.assertNotNull(result);
+        Assert.assertEquals(-1, result.getCode());
+        Assert.assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void testCompletableFutureFallback() throws Exception {
+        BuiltinCircuitBreaker circuitBreaker = getCircuitBreaker("getPersonFuture");
+        for (int i = 0; i < 2; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+            try {
+                degradeBuiltinApi.getPersonFuture(1L).join();
+                Assert.fail();
+            } catch (Exception e) {
+                // expected
+            }
+        }
+        Assert.assertEquals(BuiltinCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Result<Person> result = degradeBuiltinApi.getPersonFuture(1L).get(1, TimeUnit.SECONDS);
+        Assert.assertEquals(-1, result.getCode());
+        Assert.assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void testAsyncRetryRecordedOnce() throws Exception {
+        BuiltinCircuitBreaker circuitBreaker = getCircuitBreaker("getPersonFutureRetry");
+        for (int i = 0; i < 2; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+            server.enqueue(mockResponse(0));
+            Assert.assertEquals(0, degradeBuiltinApi.getPersonFutureRetry(1L).get(1, TimeUnit.SECONDS).getCode());
+        }
+        Assert.assertEquals(4, server.getRequestCount());
+        // 已安排重试的请求结果不计入熔断统计，每次调用只记录一次
+        Assert.assertEquals(2, circuitBreaker.getSnapshot().getNumberOfCalls());
+        Assert.assertEquals(0, circuitBreaker.getFailureRate(), 0.0001);
+        Assert.assertEquals(BuiltinCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testLocalBlockNotRecorded() throws Exception {
+        BuiltinCircuitBreaker circuitBreaker = getCircuitBreaker("getPersonBulkhead");
+        server.enqueue(mockResponse(0).setHeadersDelay(500, TimeUnit.MILLISECONDS));
+        server.enqueue(mockResponse(0));
+        CompletableFuture<Result<Person>> slow =
+                CompletableFuture.supplyAsync(() -> degradeBuiltinApi.getPersonBulkhead(1L));
+        Thread.sleep(200);
+        for (int i = 0; i < 3; i++) {
+            // 舱壁已满，本地拒绝后降级
+            Assert.assertEquals(-1, degradeBuiltinApi.getPersonBulkhead(1L).getCode());
+        }
+        Assert.assertEquals(0, slow.get(1, TimeUnit.SECONDS).getCode());
+        // 本地拒绝的请求不计入熔断统计，熔断器保持关闭
+        Assert.assertEquals(1, circuitBreaker.getSnapshot().getNumberOfCalls());
+        Assert.assertEquals(BuiltinCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        Assert.assertEquals(0, degradeBuiltinApi.getPersonBulkhead(1L).getCode());
+        Assert.assertEquals(2, server.getRequestCount());
+    }
+
+    private BuiltinCircuitBreaker getCircuitBreaker(String methodName) throws NoSuchMethodException {
+        Assert.assertTrue(retrofitDegrade instanceof BuiltinRetrofitDegrade);
+        BuiltinCircuitBreaker circuitBreaker = ((BuiltinRetrofitDegrade)retrofitDegrade)
+                .getCircuitBreaker(DegradeBuiltinApi.class.getMethod(methodName, Long.class));
+        Assert.assertNotNull(circuitBreaker);
+        return circuitBreaker;
+    }
+
+    private MockResponse mockResponse(long delayMs) throws JsonProcessingException {
+        Person mockPerson = new Person().setId(1L)
+                .setName("test")
+                .setAge(10);
+        Result<?> mockResult = new Result<>()
+                .setCode(0)
+                .setMsg("ok")
+                .setData(mockPerson);
+        return new MockResponse()
+                .setResponseCode(200)
+                .addHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(objectMapper.writeValueAsString(mockResult))
+                .setBodyDelay(delayMs, TimeUnit.MILLISECONDS);
+    }
+
+}
@@ -1,5 +1,7 @@
 package com.github.lianjiatech.retrofit.spring.boot.test.degrade;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -29,6 +31,25 @@ public interface DegradeR4jApi {
     @GET("degrade/person2")
     Result<Person> getPerson2(@Query("id") Long id);
 
+    @Resilience4jDegrade(circuitBreakerConfigName = "testCircuitBreakerConfig", bulkheadMaxConcurrentCalls = 1)
+    @GET("degrade/person3")
+    Result<Person> getPerson3(@Query("id") Long id);
+
+    @Resilience4jDegrade(circuitBreakerConfigName = "testCircuitBreakerConfig", rateLimiterLimitForPeriod = 2,
+            rateLimiterLimitRefreshPeriodMs = 60000)
+    @GET("degrade/person4")
+    Result<Person> getPerson4(@Query("id") Long id);
+
+    @Resilience4jDegrade(circuitBreakerConfigName = "testCircuitBreakerConfig", bulkheadMaxConcurrentCalls = 1,
+            bulkheadMaxWaitDurationMs = 2000)
+    @GET("degrade/person5")
+    CompletableFuture<Result<Person>> getPersonFuture(@Query("id") Long id);
+
+    @Resilience4jDegrade(circuitBreakerConfigName = "testCircuitBreakerConfig", bulkheadMaxConcurrentCalls = 1,
+            bulkheadMaxWaitDurationMs = 2000)
+    @GET("degrade/person6")
+    Result<Person> getPersonWait(@Query("id") Long id);
+
     @Service
     class HttpDegradeFallbackFactory implements FallbackFactory<DegradeR4jApi> {
         Logger log = LoggerFactory.getLogger(HttpDegradeFallbackFactory.class);
@@ -60,6 +81,42 @@ public interface DegradeR4jApi {
                             .setData(new Person());
                     return fallback;
                 }
+
+                @Override
+                public Result<Person> getPerson3(Long id) {
+                    Result<Person> fallback = new Result<>();
+                    fallback.setCode(-1)
+                            .setMsg("熔断Person3")
+                            .setData(new Person());
+                    return fallback;
+                }
+
+                @Override
+                public Result<Person> getPerson4(Long id) {
+                    Result<Person> fallback = new Result<>();
+                    fallback.setCode(-1)
+                            .setMsg("熔断Person4")
+                            .setData(new Person());
+                    return fallback;
+                }
+
+                @Override
+                public CompletableFuture<Result<Person>> getPersonFuture(Long id) {
+                    Result<Person> fallback = new Result<>();
+                    fallback.setCode(-1)
+                            .setMsg("熔断PersonFuture")
+                            .setData(new Person());
+                    return CompletableFuture.completedFuture(fallback);
+                }
+
+                @Override
+                public Result<Person> getPersonWait(Long id) {
+                    Result<Person> fallback = new Result<>();
+                    fallback.setCode(-1)
+                            .setMsg("熔断PersonWait")
+                            .setData(new Person());
+                    return fallback;
+                }
             };
         }
     }
@@ -1,7 +1,10 @@
 package com.github.lianjiatech.retrofit.spring.boot.test.degrade;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import com.github.lianjiatech.retrofit.spring.boot.test.http.HttpApi2;
@@ -87,4 +90,70 @@ public class DegradeR4jTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testBulkhead() {
+        List<CompletableFuture<Integer>> futures = IntStream.range(0, 4).mapToObj(i -> {
+            server.enqueue(mockResponse().setHeadersDelay(1, TimeUnit.SECONDS));
+            return CompletableFuture.supplyAsync(() -> degradeR4jApi.getPerson3(3L).getCode());
+        }).collect(Collectors.toList());
+        long count = futures.stream().map(CompletableFuture::join).filter(i -> i == -1).count();
+        System.out.println(count);
+        Assert.assertTrue(count >= 1L);
+        Assert.assertTrue(count < 4L);
+    }
+
+    @Test
+    public void testRateLimiter() {
+        for (int i = 0; i < 2; i++) {
+            server.enqueue(mockResponse());
+            Assert.assertEquals(0, degradeR4jApi.getPerson4(4L).getCode());
+        }
+        Assert.assertEquals(-1, degradeR4jApi.getPerson4(4L).getCode());
+        Assert.assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void testAsyncBulkheadNotWait() throws Exception {
+        server.enqueue(mockResponse().setHeadersDelay(500, TimeUnit.MILLISECONDS));
+        server.enqueue(mockResponse());
+        CompletableFuture<Result<Person>> slow = degradeR4jApi.getPersonFuture(5L);
+        Thread.sleep(100);
+        long start = System.currentTimeMillis();
+        // 异步调用不等待舱壁许可，直接降级
+        Assert.assertEquals(-1, degradeR4jApi.getPersonFuture(5L).get(3, TimeUnit.SECONDS).getCode());
+        Assert.assertTrue(System.currentTimeMillis() - start < 300);
+        Assert.assertEquals(0, slow.get(3, TimeUnit.SECONDS).getCode());
+        Assert.assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testSyncBulkheadWait() throws Exception {
+        server.enqueue(mockResponse().setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        server.enqueue(mockResponse());
+        CompletableFuture<Integer> slow = CompletableFuture.supplyAsync(() -> degradeR4jApi.getPersonWait(6L).getCode());
+        Thread.sleep(100);
+        // 同步调用等待其他调用释放许可
+        Assert.assertEquals(0, degradeR4jApi.getPersonWait(6L).getCode());
+        Assert.assertEquals(0, slow.get(3, TimeUnit.SECONDS).intValue());
+        Assert.assertEquals(2, server.getRequestCount());
+    }
+
+    private MockResponse mockResponse() {
+        try {
+            Person mockPerson = new Person().setId(1L)
+                    .setName("test")
+                    .setAge(10);
+            Result<?> mockResult = new Result<>()
+                    .setCode(0)
+                    .setMsg("ok")
+                    .setData(mockPerson);
+            return new MockResponse()
+                    .setResponseCode(200)
+                    .addHeader("Content-Type", "application/json; charset=utf-8")
+                    .setBody(objectMapper.writeValueAsString(mockResult));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.discovery;
+
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.lianjiatech.retrofit.spring.boot.test.RetrofitTestApplication;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = RetrofitTestApplication.class)
+@RunWith(SpringRunner.class)
+public class DiscoveryTest {
+
+    @Autowired
+    private DiscoveryTestApi discoveryTestApi;
+
+    @Autowired
+    private TestServiceInstanceChooser testServiceInstanceChooser;
+
+    private MockWebServer server;
+
+    private static final ObjectMapper objectMapper =
+            new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                    .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    @Before
+    public void before() throws IOException {
+        System.out.println("=========开启MockWebServer===========");
+        server = new MockWebServer();
+        server.start(8080);
+        testServiceInstanceChooser.reset();
+    }
+
+    @After
+    public void after() throws IOException {
+        System.out.println("=========关闭MockWebServer===========");
+        server.close();
+    }
+
+    @Test
+    public void testRetryOnAnotherInstance() throws JsonProcessingException {
+        server.enqueue(successResponse());
+
+        // 第一次选中不可用的8081，重试时排除它
+        Result<Person> person = discoveryTestApi.getPerson(1L);
+        Assert.assertEquals("test", person.getData().getName());
+        Assert.assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testAsyncRetryOnAnotherInstance() throws JsonProcessingException {
+        server.enqueue(successResponse());
+
+        Result<Person> person = discoveryTestApi.getPersonMono(1L).block();
+        Assert.assertNotNull(person);
+        Assert.assertEquals("test", person.getData().getName());
+        Assert.assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testHashKey() throws JsonProcessingException {
+        server.enqueue(successResponse());
+
+        Result<Person> person = discoveryTestApi.getPersonByHashKey(7L);
+        Assert.assertEquals("test", person.getData().getName());
+        Assert.assertEquals("7", testServiceInstanceChooser.getLastHashKey());
+    }
+
+    private MockResponse successResponse() throws JsonProcessingException {
+        Person mockPerson = new Person().setId(1L)
+                .setName("test")
+                .setAge(10);
+        Result<Person> mockResult = new Result<Person>()
+                .setCode(0)
+                .setMsg("ok")
+                .setData(mockPerson);
+        return new MockResponse()
+                .setResponseCode(200)
+                .addHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(objectMapper.writeValueAsString(mockResult));
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.discovery;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.HashKey;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import reactor.core.publisher.Mono;
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(serviceId = "test-service", path = "/api/test/")
+public interface DiscoveryTestApi {
+
+    @GET("person")
+    Result<Person> getPerson(@Query("id") Long id);
+
+    @GET("person")
+    Mono<Result<Person>> getPersonMono(@Query("id") Long id);
+
+    @GET("person")
+    Result<Person> getPersonByHashKey(@HashKey @Query("id") Long id);
+}
@@ -0,0 +1,48 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.discovery;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Component;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.ServiceInstanceChooser;
+
+/**
+ * 轮询选择实例，前两次选中的都是不可用的8081
+ *
+ * @author 陈添明
+ */
+@Component
+public class TestServiceInstanceChooser implements ServiceInstanceChooser {
+
+    private final List<URI> instances =
+            Arrays.asList(URI.create("http://localhost:8081"), URI.create("http://localhost:8081"),
+                    URI.create("http://localhost:8080"));
+
+    private final AtomicInteger index = new AtomicInteger();
+
+    private volatile String lastHashKey;
+
+    @Override
+    public URI choose(String serviceId) {
+        return instances.get(Math.abs(index.getAndIncrement() % instances.size()));
+    }
+
+    @Override
+    public URI choose(String serviceId, String hashKey, Set<URI> excludedInstances) {
+        lastHashKey = hashKey;
+        return choose(serviceId, excludedInstances);
+    }
+
+    public String getLastHashKey() {
+        return lastHashKey;
+    }
+
+    public void reset() {
+        index.set(0);
+        lastHashKey = null;
+    }
+}
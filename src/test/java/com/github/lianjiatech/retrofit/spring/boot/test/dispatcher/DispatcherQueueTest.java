@@ -0,0 +1,123 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.dispatcher;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.lianjiatech.retrofit.spring.boot.core.DispatcherQueueLimiter;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
+import com.github.lianjiatech.retrofit.spring.boot.test.RetrofitTestApplication;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = RetrofitTestApplication.class,
+        properties = {"retrofit.global-dispatcher.max-requests-per-host=1",
+                "retrofit.global-dispatcher.max-queued-calls=1",
+                "retrofit.global-dispatcher.max-queue-wait-ms=300"})
+@RunWith(SpringRunner.class)
+public class DispatcherQueueTest {
+
+    @Autowired
+    private DispatcherQueueTestApi dispatcherQueueTestApi;
+
+    @Autowired
+    private DispatcherQueueLimiter dispatcherQueueLimiter;
+
+    private MockWebServer server;
+
+    private static final ObjectMapper objectMapper =
+            new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                    .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    @Before
+    public void before() throws IOException {
+        System.out.println("=========开启MockWebServer===========");
+        server = new MockWebServer();
+        server.start(8080);
+    }
+
+    @After
+    public void after() throws IOException {
+        System.out.println("=========关闭MockWebServer===========");
+        server.close();
+    }
+
+    @Test
+    public void testQueueLimit() throws Exception {
+        server.enqueue(successResponse().setHeadersDelay(1, TimeUnit.SECONDS));
+        server.enqueue(successResponse());
+        long rejectedCalls = dispatcherQueueLimiter.getRejectedCalls();
+        long expiredCalls = dispatcherQueueLimiter.getExpiredCalls();
+
+        CompletableFuture<Result<Person>> slowCall = dispatcherQueueTestApi.getPersonFuture(1L);
+        awaitRunningCalls(1);
+        CompletableFuture<Result<Person>> queuedCall = dispatcherQueueTestApi.getPersonFuture(2L);
+        Assert.assertEquals(1, dispatcherQueueLimiter.getQueuedCalls());
+
+        // 队列已满，直接失败
+        assertBlocked(dispatcherQueueTestApi.getPersonFuture(3L), "Dispatcher queue is full");
+        Assert.assertEquals(rejectedCalls + 1, dispatcherQueueLimiter.getRejectedCalls());
+
+        Assert.assertEquals("test", slowCall.get().getData().getName());
+        // 排队时间超过了max-queue-wait-ms，不再发送请求
+        assertBlocked(queuedCall, "Dispatcher queue wait exceeded");
+        Assert.assertEquals(expiredCalls + 1, dispatcherQueueLimiter.getExpiredCalls());
+        Assert.assertTrue(dispatcherQueueLimiter.getQueueWaitMs(1.0) >= 300);
+        Assert.assertEquals(0, dispatcherQueueLimiter.getQueuedCalls());
+
+        Assert.assertEquals("test", dispatcherQueueTestApi.getPersonFuture(4L).get().getData().getName());
+        Assert.assertEquals(2, server.getRequestCount());
+    }
+
+    private void assertBlocked(CompletableFuture<Result<Person>> future, String message) throws InterruptedException {
+        try {
+            future.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IOException);
+            Assert.assertTrue(e.getCause().getCause() instanceof RetrofitBlockException);
+            Assert.assertTrue(e.getCause().getMessage().contains(message));
+        }
+    }
+
+    private void awaitRunningCalls(int runningCalls) throws InterruptedException {
+        for (int i = 0; i < 100 && dispatcherQueueLimiter.getDispatcher().runningCallsCount() < runningCalls; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(runningCalls, dispatcherQueueLimiter.getDispatcher().runningCallsCount());
+    }
+
+    private MockResponse successResponse() throws JsonProcessingException {
+        Person mockPerson = new Person().setId(1L)
+                .setName("test")
+                .setAge(10);
+        Result<Person> mockResult = new Result<Person>()
+                .setCode(0)
+                .setMsg("ok")
+                .setData(mockPerson);
+        return new MockResponse()
+                .setResponseCode(200)
+                .addHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(objectMapper.writeValueAsString(mockResult));
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.dispatcher;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(baseUrl = "${test.baseUrl}")
+public interface DispatcherQueueTestApi {
+
+    @GET("person")
+    CompletableFuture<Result<Person>> getPersonFuture(@Query("id") Long id);
+}
@@ -0,0 +1,147 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.dispatcher;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.lianjiatech.retrofit.spring.boot.config.RetrofitConfigBean;
+import com.github.lianjiatech.retrofit.spring.boot.test.RetrofitTestApplication;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = RetrofitTestApplication.class)
+@RunWith(SpringRunner.class)
+public class SharedDispatcherTest {
+
+    @Autowired
+    private DispatcherQueueTestApi dispatcherQueueTestApi;
+
+    @Autowired
+    private SharedDispatcherTestApi sharedDispatcherTestApi;
+
+    @Autowired
+    private Dispatcher retrofitDispatcher;
+
+    @Autowired
+    private ConnectionPool retrofitConnectionPool;
+
+    private MockWebServer server;
+
+    private static final ObjectMapper objectMapper =
+            new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                    .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    @Before
+    public void before() throws IOException {
+        System.out.println("=========开启MockWebServer===========");
+        server = new MockWebServer();
+        server.start(8080);
+        retrofitConnectionPool.evictAll();
+    }
+
+    @After
+    public void after() throws IOException {
+        System.out.println("=========关闭MockWebServer===========");
+        server.close();
+        retrofitConnectionPool.evictAll();
+    }
+
+    @Test
+    public void testShareDispatcher() throws Exception {
+        server.enqueue(successResponse().setHeadersDelay(500, TimeUnit.MILLISECONDS));
+        server.enqueue(successResponse().setHeadersDelay(500, TimeUnit.MILLISECONDS));
+
+        CompletableFuture<Result<Person>> future1 = dispatcherQueueTestApi.getPersonFuture(1L);
+        CompletableFuture<Result<Person>> future2 = sharedDispatcherTestApi.getPersonFuture(2L);
+        // 两个接口的异步请求都运行在同一个调度器上
+        for (int i = 0; i < 100 && retrofitDispatcher.runningCallsCount() < 2; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(2, retrofitDispatcher.runningCallsCount());
+
+        Assert.assertEquals("test", future1.get().getData().getName());
+        Assert.assertEquals("test", future2.get().getData().getName());
+    }
+
+    @Test
+    public void testShareConnectionPool() throws Exception {
+        server.enqueue(successResponse());
+        server.enqueue(successResponse());
+
+        Assert.assertEquals("test", sharedDispatcherTestApi.getPerson(1L).getData().getName());
+        Assert.assertEquals("test", dispatcherQueueTestApi.getPersonFuture(2L).get().getData().getName());
+
+        // 第二个接口复用了第一个接口建立的keep-alive连接
+        Assert.assertEquals(0, server.takeRequest().getSequenceNumber());
+        Assert.assertEquals(1, server.takeRequest().getSequenceNumber());
+        Assert.assertEquals(1, retrofitConnectionPool.connectionCount());
+    }
+
+    @Test
+    public void testDispatcherLifecycle() {
+        Dispatcher starterDispatcher;
+        Dispatcher otherDispatcher;
+        try (ConfigurableApplicationContext context =
+                new SpringApplicationBuilder(RetrofitTestApplication.class, OtherDispatcherConfiguration.class)
+                        .web(WebApplicationType.NONE)
+                        .run()) {
+            // 应用自己的Dispatcher不会被当作组件共享的调度器
+            starterDispatcher = context.getBean("retrofitDispatcher", Dispatcher.class);
+            otherDispatcher = context.getBean("otherDispatcher", Dispatcher.class);
+            Assert.assertNotSame(otherDispatcher, starterDispatcher);
+            Assert.assertSame(starterDispatcher, context.getBean(RetrofitConfigBean.class).getDispatcher());
+            Assert.assertFalse(starterDispatcher.executorService().isShutdown());
+        }
+        // 关闭ApplicationContext时关闭组件创建的调度器的线程池
+        Assert.assertTrue(starterDispatcher.executorService().isShutdown());
+        Assert.assertFalse(otherDispatcher.executorService().isShutdown());
+        otherDispatcher.executorService().shutdown();
+    }
+
+    static class OtherDispatcherConfiguration {
+
+        @Bean
+        public Dispatcher otherDispatcher() {
+            return new Dispatcher();
+        }
+    }
+
+    private MockResponse successResponse() throws JsonProcessingException {
+        Person mockPerson = new Person().setId(1L)
+                .setName("test")
+                .setAge(10);
+        Result<Person> mockResult = new Result<Person>()
+                .setCode(0)
+                .setMsg("ok")
+                .setData(mockPerson);
+        return new MockResponse()
+                .setResponseCode(200)
+                .addHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(objectMapper.writeValueAsString(mockResult));
+    }
+}
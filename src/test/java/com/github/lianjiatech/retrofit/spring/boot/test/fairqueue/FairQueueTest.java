@@ -0,0 +1,194 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.fairqueue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
+import com.github.lianjiatech.retrofit.spring.boot.fairqueue.TenantContext;
+import com.github.lianjiatech.retrofit.spring.boot.fairqueue.TenantFairQueue;
+import com.github.lianjiatech.retrofit.spring.boot.fairqueue.TenantQueue;
+import com.github.lianjiatech.retrofit.spring.boot.test.RetrofitTestApplication;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = RetrofitTestApplication.class,
+        properties = {"retrofit.global-fair-queue.enable=true",
+                "retrofit.global-fair-queue.max-concurrent=1",
+                "retrofit.global-fair-queue.max-queued-calls-per-tenant=3",
+                "retrofit.global-fair-queue.max-wait-ms=1500"})
+@RunWith(SpringRunner.class)
+public class FairQueueTest {
+
+    @Autowired
+    private FairQueueTestApi fairQueueTestApi;
+
+    @Autowired
+    private TenantFairQueue tenantFairQueue;
+
+    private MockWebServer server;
+
+    private static final ObjectMapper objectMapper =
+            new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                    .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    @Before
+    public void before() throws IOException {
+        System.out.println("=========开启MockWebServer===========");
+        server = new MockWebServer();
+        server.start(8080);
+    }
+
+    @After
+    public void after() throws IOException {
+        System.out.println("=========关闭MockWebServer===========");
+        server.close();
+    }
+
+    @Test
+    public void testFairQueue() throws Exception {
+        server.enqueue(successResponse().setHeadersDelay(500, TimeUnit.MILLISECONDS));
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(successResponse());
+        }
+        CompletableFuture<Result<Person>> slowCall = fairQueueTestApi.getPersonFuture(0L, "a");
+        Assert.assertEquals(1, tenantFairQueue.getActiveCalls());
+
+        List<CompletableFuture<Result<Person>>> queuedCalls = new ArrayList<>();
+        queuedCalls.add(fairQueueTestApi.getPersonFuture(1L, "a"));
+        queuedCalls.add(fairQueueTestApi.getPersonFuture(2L, "a"));
+        queuedCalls.add(fairQueueTestApi.getPersonFuture(3L, "a"));
+        // TenantContext优先于请求头
+        queuedCalls.add(TenantContext.call("b", () -> fairQueueTestApi.getPersonFuture(4L, "a")));
+
+        TenantQueue tenantA = tenantFairQueue.getTenants().get("a");
+        TenantQueue tenantB = tenantFairQueue.getTenants().get("b");
+        Assert.assertEquals(3, tenantA.getQueuedCalls());
+        Assert.assertEquals(1, tenantB.getQueuedCalls());
+
+        // 租户a的队列已满，不影响租户b
+        try {
+            fairQueueTestApi.getPersonFuture(5L, "a").get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IOException);
+            Assert.assertTrue(e.getCause().getCause() instanceof RetrofitBlockException);
+            Assert.assertTrue(e.getCause().getMessage().contains("Fair queue is full"));
+        }
+        Assert.assertEquals(1, tenantA.getRejectedCalls());
+
+        Assert.assertEquals("test", slowCall.get().getData().getName());
+        for (CompletableFuture<Result<Person>> queuedCall : queuedCalls) {
+            Assert.assertEquals("test", queuedCall.get().getData().getName());
+        }
+        // 租户b的调用不需要等待租户a排在前面的所有调用
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(server.takeRequest().getRequestUrl().queryParameter("id"));
+        }
+        Assert.assertEquals(Arrays.asList("0", "1", "4", "2", "3"), ids);
+        Assert.assertEquals(0, tenantA.getQueuedCalls());
+        Assert.assertTrue(tenantB.getQueueWaitMs(1.0) > 0);
+        // 异步调用在回调结束后才释放许可
+        for (int i = 0; i < 100 && tenantFairQueue.getActiveCalls() > 0; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(0, tenantFairQueue.getActiveCalls());
+    }
+
+    @Test
+    public void testSyncCall() throws Exception {
+        server.enqueue(successResponse());
+        Assert.assertEquals("test", fairQueueTestApi.getPerson(1L, null).getData().getName());
+        Assert.assertEquals(0, tenantFairQueue.getActiveCalls());
+        Assert.assertTrue(tenantFairQueue.getTenants().get(TenantFairQueue.DEFAULT_TENANT).getAdmittedCalls() > 0);
+    }
+
+    @Test
+    public void testSyncReleaseOnBodyClose() throws Exception {
+        server.enqueue(successResponse());
+        ResponseBody body = fairQueueTestApi.getPersonBody(1L, "a");
+        // 响应体关闭前一直持有许可
+        Assert.assertEquals(1, tenantFairQueue.getActiveCalls());
+        Assert.assertTrue(body.string().contains("test"));
+        Assert.assertEquals(0, tenantFairQueue.getActiveCalls());
+    }
+
+    @Test
+    public void testAsyncExpireWithoutRelease() throws Exception {
+        server.enqueue(successResponse().setHeadersDelay(3, TimeUnit.SECONDS));
+        CompletableFuture<Result<Person>> slowCall = fairQueueTestApi.getPersonFuture(0L, "a");
+        long start = System.nanoTime();
+        CompletableFuture<Result<Person>> queuedCall = fairQueueTestApi.getPersonFuture(1L, "c");
+        // 进行中的调用没有结束，排队超时仍然由定时器触发
+        try {
+            queuedCall.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause().getCause() instanceof RetrofitBlockException);
+            Assert.assertTrue(e.getCause().getMessage().contains("Fair queue wait exceeded"));
+        }
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2500);
+        Assert.assertEquals(1, tenantFairQueue.getTenants().get("c").getExpiredCalls());
+        Assert.assertEquals(0, tenantFairQueue.getQueuedCalls());
+        Assert.assertEquals("test", slowCall.get().getData().getName());
+    }
+
+    @Test
+    public void testEvictIdleTenants() {
+        TenantFairQueue fairQueue = new TenantFairQueue(1, 10, 1000, null, null, 2);
+        TenantFairQueue.Ticket a = fairQueue.acquire("a", t -> {}, t -> {});
+        fairQueue.release(a);
+        TenantFairQueue.Ticket b = fairQueue.acquire("b", t -> {}, t -> {});
+        // 租户数达到上限时移除空闲的租户a
+        TenantFairQueue.Ticket c = fairQueue.acquire("c", t -> {}, t -> {});
+        Assert.assertEquals(new HashSet<>(Arrays.asList("b", "c")), fairQueue.getTenants().keySet());
+        // 租户b有进行中的调用，租户c有排队中的调用，新租户归入默认租户
+        TenantFairQueue.Ticket d = fairQueue.acquire("d", t -> {}, t -> {});
+        Assert.assertEquals(TenantFairQueue.DEFAULT_TENANT, d.getTenant());
+        Assert.assertFalse(fairQueue.getTenants().containsKey("d"));
+        Assert.assertTrue(fairQueue.cancel(c));
+        Assert.assertTrue(fairQueue.cancel(d));
+        fairQueue.release(b);
+        Assert.assertEquals(0, fairQueue.getActiveCalls());
+    }
+
+    private MockResponse successResponse() throws JsonProcessingException {
+        Person mockPerson = new Person().setId(1L)
+                .setName("test")
+                .setAge(10);
+        Result<Person> mockResult = new Result<Person>()
+                .setCode(0)
+                .setMsg("ok")
+                .setData(mockPerson);
+        return new MockResponse()
+                .setResponseCode(200)
+                .addHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(objectMapper.writeValueAsString(mockResult));
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.fairqueue;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import okhttp3.ResponseBody;
+import retrofit2.http.GET;
+import retrofit2.http.Header;
+import retrofit2.http.Query;
+import retrofit2.http.Streaming;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(baseUrl = "${test.baseUrl}")
+public interface FairQueueTestApi {
+
+    @GET("person")
+    CompletableFuture<Result<Person>> getPersonFuture(@Query("id") Long id, @Header("X-Tenant-Id") String tenant);
+
+    @GET("person")
+    Result<Person> getPerson(@Query("id") Long id, @Header("X-Tenant-Id") String tenant);
+
+    @Streaming
+    @GET("person")
+    ResponseBody getPersonBody(@Query("id") Long id, @Header("X-Tenant-Id") String tenant);
+}
@@ -0,0 +1,154 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.hedge;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.lianjiatech.retrofit.spring.boot.config.RetrofitConfigBean;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
+import com.github.lianjiatech.retrofit.spring.boot.exception.RetrofitException;
+import com.github.lianjiatech.retrofit.spring.boot.ratelimit.TokenBucket;
+import com.github.lianjiatech.retrofit.spring.boot.test.RetrofitTestApplication;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = RetrofitTestApplication.class)
+@RunWith(SpringRunner.class)
+public class HedgeTest {
+
+    @Autowired
+    private HedgeTestApi hedgeTestApi;
+
+    @Autowired
+    private RetrofitConfigBean retrofitConfigBean;
+
+    private MockWebServer server;
+
+    private static final ObjectMapper objectMapper =
+            new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                    .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    @Before
+    public void before() throws IOException {
+        System.out.println("=========开启MockWebServer===========");
+        server = new MockWebServer();
+        server.start(8080);
+    }
+
+    @After
+    public void after() throws IOException {
+        System.out.println("=========关闭MockWebServer===========");
+        server.close();
+    }
+
+    @Test
+    public void testHedge() throws JsonProcessingException {
+        server.enqueue(successResponse("slow").setHeadersDelay(2, TimeUnit.SECONDS));
+        server.enqueue(successResponse("fast"));
+
+        long start = System.currentTimeMillis();
+        Result<Person> person = hedgeTestApi.getPerson(1L);
+        long cost = System.currentTimeMillis() - start;
+        Assert.assertEquals("fast", person.getData().getName());
+        Assert.assertEquals(2, server.getRequestCount());
+        Assert.assertTrue(cost < 1500);
+    }
+
+    @Test
+    public void testHedgeRatioLimit() throws JsonProcessingException {
+        server.enqueue(successResponse("slow").setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        server.enqueue(successResponse("fast"));
+
+        Result<Person> person = hedgeTestApi.getPersonNoHedgeBudget(1L);
+        Assert.assertEquals("slow", person.getData().getName());
+        Assert.assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testAllAttemptsFail() {
+        server.enqueue(new MockResponse().setResponseCode(500).setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        server.enqueue(new MockResponse().setResponseCode(500).setHeadersDelay(400, TimeUnit.MILLISECONDS));
+
+        try {
+            hedgeTestApi.getPersonNoRetry(1L);
+            Assert.fail();
+        } catch (RetrofitException e) {
+            // 第一次请求失败后等待已经发出的对冲请求
+            Assert.assertEquals(2, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void testHedgeRateLimited() throws Exception {
+        server.enqueue(successResponse("slow").setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        server.enqueue(successResponse("fast"));
+
+        List<Throwable> uncaught = new CopyOnWriteArrayList<>();
+        Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((t, e) -> uncaught.add(e));
+        try {
+            Result<Person> person = hedgeTestApi.getPersonRateLimited(1L);
+            // 对冲请求被限流，在调度线程中直接失败，不等待也不会导致调度线程退出
+            Assert.assertEquals("slow", person.getData().getName());
+            Assert.assertEquals(1, server.getRequestCount());
+            Thread.sleep(100);
+            Assert.assertTrue(uncaught.toString(), uncaught.isEmpty());
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(handler);
+        }
+        TokenBucket rateLimiter = retrofitConfigBean.getMethodPolicyRegistry()
+                .get(HedgeTestApi.class.getMethod("getPersonRateLimited", Long.class))
+                .getRateLimiter();
+        Assert.assertEquals(1, rateLimiter.getRejectedCalls());
+    }
+
+    @Test
+    public void testPrimaryRateLimitedNotRetried() throws Exception {
+        server.enqueue(successResponse("first"));
+        server.enqueue(successResponse("retry"));
+
+        Assert.assertEquals("first", hedgeTestApi.getPersonRateLimitedRetry(1L).getData().getName());
+        try {
+            hedgeTestApi.getPersonRateLimitedRetry(1L);
+            Assert.fail();
+        } catch (RetrofitBlockException e) {
+            // 本地限流原样抛出，不会被当作IO异常重试
+            Assert.assertTrue(e.getMessage().contains("Rate limit exceeded"));
+        }
+        Assert.assertEquals(1, server.getRequestCount());
+    }
+
+    private MockResponse successResponse(String name) throws JsonProcessingException {
+        Person mockPerson = new Person().setId(1L)
+                .setName(name)
+                .setAge(10);
+        Result<Person> mockResult = new Result<Person>()
+                .setCode(0)
+                .setMsg("ok")
+                .setData(mockPerson);
+        return new MockResponse()
+                .setResponseCode(200)
+                .addHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(objectMapper.writeValueAsString(mockResult));
+    }
+}
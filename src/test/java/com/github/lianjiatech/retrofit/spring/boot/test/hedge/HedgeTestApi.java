@@ -0,0 +1,42 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.hedge;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.hedge.Hedge;
+import com.github.lianjiatech.retrofit.spring.boot.ratelimit.RateLimit;
+import com.github.lianjiatech.retrofit.spring.boot.retry.Retry;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(baseUrl = "${test.baseUrl}")
+public interface HedgeTestApi {
+
+    @GET("person")
+    @Hedge(delayMs = 100, maxHedgeRatio = 1)
+    Result<Person> getPerson(@Query("id") Long id);
+
+    @GET("person")
+    @Hedge(delayMs = 100, maxHedgeRatio = 0)
+    Result<Person> getPersonNoHedgeBudget(@Query("id") Long id);
+
+    @GET("person")
+    @Hedge(delayMs = 100, maxHedgeRatio = 1)
+    @Retry(enable = false)
+    Result<Person> getPersonNoRetry(@Query("id") Long id);
+
+    @GET("person")
+    @Hedge(delayMs = 100, maxHedgeRatio = 1)
+    @RateLimit(permitsPerSecond = 1, burst = 1, timeoutMs = 0)
+    @Retry(enable = false)
+    Result<Person> getPersonRateLimited(@Query("id") Long id);
+
+    @GET("person")
+    @Hedge(delayMs = 100, maxHedgeRatio = 1)
+    @RateLimit(permitsPerSecond = 1, burst = 1)
+    Result<Person> getPersonRateLimitedRetry(@Query("id") Long id);
+}
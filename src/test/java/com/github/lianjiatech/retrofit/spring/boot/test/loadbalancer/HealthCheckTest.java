@@ -0,0 +1,155 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.loadbalancer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.HealthCheckProperty;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.HealthCheckServiceInstanceSupplier;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.HealthChecker;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.ServiceInstance;
+import com.github.lianjiatech.retrofit.spring.boot.test.RetrofitTestApplication;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = RetrofitTestApplication.class)
+@RunWith(SpringRunner.class)
+public class HealthCheckTest {
+
+    private static final URI A = URI.create("http://localhost:8080");
+    private static final URI B = URI.create("http://localhost:8081");
+
+    private MockWebServer server;
+
+    private volatile int healthCode = 200;
+
+    @Before
+    public void before() throws IOException {
+        System.out.println("=========开启MockWebServer===========");
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if ("/health".equals(request.getPath())) {
+                    return new MockResponse().setResponseCode(healthCode);
+                }
+                return new MockResponse().setResponseCode(404);
+            }
+        });
+        server.start(8080);
+    }
+
+    @After
+    public void after() throws IOException {
+        System.out.println("=========关闭MockWebServer===========");
+        server.close();
+    }
+
+    @Test
+    public void testHealthCheck() throws InterruptedException {
+        HealthCheckProperty property = new HealthCheckProperty();
+        property.setPath("/health");
+        property.setIntervalMs(100);
+        property.setTimeoutMs(500);
+        property.setUnhealthyThreshold(1);
+        List<ServiceInstance> instances = Arrays.asList(new ServiceInstance(A, 1), new ServiceInstance(B, 1));
+        HealthChecker healthChecker = new HealthChecker(serviceId -> instances, property, new OkHttpClient());
+        HealthCheckServiceInstanceSupplier supplier = new HealthCheckServiceInstanceSupplier(serviceId -> instances,
+                healthChecker);
+        try {
+            // 还没有完成检查，返回全部实例
+            Assert.assertSame(instances, supplier.getInstances("test"));
+            Thread.sleep(500);
+            Assert.assertTrue(healthChecker.isHealthy(A));
+            Assert.assertFalse(healthChecker.isHealthy(B));
+            List<ServiceInstance> healthy = supplier.getInstances("test");
+            Assert.assertEquals(Collections.singletonList(new ServiceInstance(A, 1)), healthy);
+            Assert.assertSame(healthy, supplier.getInstances("test"));
+
+            // A变为不健康后，没有健康实例，返回全部实例
+            healthCode = 503;
+            Thread.sleep(500);
+            Assert.assertFalse(healthChecker.isHealthy(A));
+            Assert.assertSame(instances, supplier.getInstances("test"));
+        } finally {
+            healthChecker.shutdown();
+        }
+    }
+
+    @Test
+    public void testProbesUseDedicatedDispatcher() throws InterruptedException {
+        HealthCheckProperty property = new HealthCheckProperty();
+        property.setPath("/health");
+        property.setIntervalMs(100);
+        AtomicInteger sharedDispatcherCalls = new AtomicInteger();
+        ExecutorService sharedExecutor = Executors.newCachedThreadPool();
+        OkHttpClient sharedClient = new OkHttpClient.Builder()
+                .dispatcher(new okhttp3.Dispatcher(new AbstractExecutorService() {
+                    @Override
+                    public void execute(Runnable command) {
+                        sharedDispatcherCalls.incrementAndGet();
+                        sharedExecutor.execute(command);
+                    }
+
+                    @Override
+                    public void shutdown() {
+                        sharedExecutor.shutdown();
+                    }
+
+                    @Override
+                    public List<Runnable> shutdownNow() {
+                        return sharedExecutor.shutdownNow();
+                    }
+
+                    @Override
+                    public boolean isShutdown() {
+                        return sharedExecutor.isShutdown();
+                    }
+
+                    @Override
+                    public boolean isTerminated() {
+                        return sharedExecutor.isTerminated();
+                    }
+
+                    @Override
+                    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+                        return sharedExecutor.awaitTermination(timeout, unit);
+                    }
+                }))
+                .build();
+        List<ServiceInstance> instances = Collections.singletonList(new ServiceInstance(A, 1));
+        HealthChecker healthChecker = new HealthChecker(serviceId -> instances, property, sharedClient);
+        try {
+            healthChecker.register("test", instances);
+            Thread.sleep(500);
+            Assert.assertTrue(healthChecker.isHealthy(A));
+            // 探测不占用业务请求的调度器
+            Assert.assertEquals(0, sharedDispatcherCalls.get());
+        } finally {
+            healthChecker.shutdown();
+            sharedExecutor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.loadbalancer;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.ConsistentHashLoadBalancer;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.LoadBalancer;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.PeakEwmaLoadBalancer;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.PowerOfTwoChoicesLoadBalancer;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.RandomLoadBalancer;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.RoundRobinLoadBalancer;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.ServiceInstance;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.ServiceInstanceSupplier;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.WeightedRoundRobinLoadBalancer;
+import com.github.lianjiatech.retrofit.spring.boot.test.RetrofitTestApplication;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = RetrofitTestApplication.class)
+@RunWith(SpringRunner.class)
+public class LoadBalancerTest {
+
+    private static final URI A = URI.create("http://localhost:8080");
+    private static final URI B = URI.create("http://localhost:8081");
+    private static final URI C = URI.create("http://localhost:8082");
+
+    @Autowired
+    private ServiceInstanceSupplier serviceInstanceSupplier;
+
+    @Test
+    public void testStaticInstances() {
+        List<ServiceInstance> instances = serviceInstanceSupplier.getInstances("static-service");
+        Assert.assertEquals(Arrays.asList(new ServiceInstance(A, 3), new ServiceInstance(B, 1)), instances);
+        Assert.assertSame(instances, serviceInstanceSupplier.getInstances("static-service"));
+        Assert.assertTrue(serviceInstanceSupplier.getInstances("unknown").isEmpty());
+    }
+
+    @Test
+    public void testRoundRobin() {
+        List<ServiceInstance> instances = instances(1, 1, 1);
+        Map<URI, Integer> counts = choose(new RoundRobinLoadBalancer(), instances, 300);
+        Assert.assertEquals(100, counts.get(A).intValue());
+        Assert.assertEquals(100, counts.get(B).intValue());
+        Assert.assertEquals(100, counts.get(C).intValue());
+    }
+
+    @Test
+    public void testWeightedRoundRobin() {
+        LoadBalancer loadBalancer = new WeightedRoundRobinLoadBalancer();
+        List<ServiceInstance> instances = instances(5, 1, 1);
+        // 平滑加权轮询：a a b a c a a
+        StringBuilder sequence = new StringBuilder();
+        for (int i = 0; i < 7; i++) {
+            URI uri = loadBalancer.choose("test", instances).getUri();
+            sequence.append(uri.equals(A) ? 'a' : uri.equals(B) ? 'b' : 'c');
+        }
+        Assert.assertEquals("aabacaa", sequence.toString());
+
+        Map<URI, Integer> counts = choose(loadBalancer, instances(4, 2, 2), 800);
+        Assert.assertEquals(400, counts.get(A).intValue());
+        Assert.assertEquals(200, counts.get(B).intValue());
+        Assert.assertEquals(200, counts.get(C).intValue());
+
+        // 权重之和超过序列长度时按比例缩放，缩放过程不能溢出
+        counts = choose(new WeightedRoundRobinLoadBalancer(), instances(1000000, 3000001), 4095);
+        Assert.assertEquals(1023, counts.get(A).intValue());
+        Assert.assertEquals(3072, counts.get(B).intValue());
+    }
+
+    @Test
+    public void testRandom() {
+        Map<URI, Integer> counts = choose(new RandomLoadBalancer(), instances(1, 1, 1), 3000);
+        Assert.assertEquals(3, counts.size());
+        counts.values().forEach(count -> Assert.assertTrue(count > 700));
+    }
+
+    @Test
+    public void testPowerOfTwoChoices() {
+        PowerOfTwoChoicesLoadBalancer loadBalancer = new PowerOfTwoChoicesLoadBalancer();
+        List<ServiceInstance> instances = instances(1, 1);
+        // A有进行中的请求，两个实例中总是选择B
+        loadBalancer.onRequestStart("test", A);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(B, loadBalancer.choose("test", instances).getUri());
+        }
+        loadBalancer.onRequestEnd("test", A, 1000, true);
+        Assert.assertEquals(0, loadBalancer.getInflightRequests(A));
+        Map<URI, Integer> counts = choose(loadBalancer, instances, 100);
+        Assert.assertEquals(2, counts.size());
+    }
+
+    @Test
+    public void testPeakEwma() {
+        PeakEwmaLoadBalancer loadBalancer = new PeakEwmaLoadBalancer(10000);
+        List<ServiceInstance> instances = instances(1, 1);
+        // A响应快，B响应慢，总是选择A
+        loadBalancer.onRequestStart("test", A);
+        loadBalancer.onRequestEnd("test", A, 1_000_000, true);
+        loadBalancer.onRequestStart("test", B);
+        loadBalancer.onRequestEnd("test", B, 50_000_000, true);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(A, loadBalancer.choose("test", instances).getUri());
+        }
+        // 更慢的响应立即生效
+        loadBalancer.onRequestStart("test", A);
+        loadBalancer.onRequestEnd("test", A, 100_000_000, true);
+        Assert.assertTrue(loadBalancer.getCost(A) > 90_000_000);
+        Assert.assertEquals(B, loadBalancer.choose("test", instances).getUri());
+        // 进行中的请求数也计入负载
+        for (int i = 0; i < 3; i++) {
+            loadBalancer.onRequestStart("test", B);
+        }
+        Assert.assertEquals(A, loadBalancer.choose("test", instances).getUri());
+    }
+
+    @Test
+    public void testConsistentHash() {
+        ConsistentHashLoadBalancer loadBalancer = new ConsistentHashLoadBalancer();
+        List<ServiceInstance> instances = instances(1, 1, 1);
+        Map<String, URI> routes = new HashMap<>();
+        Map<URI, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 3000; i++) {
+            String key = "user-" + i;
+            URI uri = loadBalancer.choose("test", instances, key, Collections.emptySet()).getUri();
+            Assert.assertEquals(uri, loadBalancer.choose("test", instances, key, Collections.emptySet()).getUri());
+            routes.put(key, uri);
+            counts.merge(uri, 1, Integer::sum);
+        }
+        counts.values().forEach(count -> Assert.assertTrue(count > 700));
+
+        // 移除C，只有原来在C上的key迁移
+        List<ServiceInstance> withoutC = instances(1, 1);
+        routes.forEach((key, uri) -> {
+            URI newUri = loadBalancer.choose("test", withoutC, key, Collections.emptySet()).getUri();
+            if (!uri.equals(C)) {
+                Assert.assertEquals(uri, newUri);
+            }
+        });
+
+        // 选中的实例已经失败时选择hash环上的下一个实例
+        URI uri = routes.get("user-0");
+        Assert.assertNotEquals(uri,
+                loadBalancer.choose("test", instances, "user-0", Collections.singleton(uri)).getUri());
+    }
+
+    private static List<ServiceInstance> instances(int... weights) {
+        URI[] uris = {A, B, C};
+        ServiceInstance[] instances = new ServiceInstance[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            instances[i] = new ServiceInstance(uris[i], weights[i]);
+        }
+        return Arrays.asList(instances);
+    }
+
+    private static Map<URI, Integer> choose(LoadBalancer loadBalancer, List<ServiceInstance> instances, int times) {
+        Map<URI, Integer> counts = new HashMap<>();
+        for (int i = 0; i < times; i++) {
+            counts.merge(loadBalancer.choose("test", instances).getUri(), 1, Integer::sum);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.loadbalancer;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.LoadBalancedServiceInstanceChooser;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.OutlierDetectionProperty;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.OutlierDetector;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.OutlierEjectionListener;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.OutlierEjectionServiceInstanceChooser;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.RoundRobinLoadBalancer;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.ServiceInstance;
+import com.github.lianjiatech.retrofit.spring.boot.test.RetrofitTestApplication;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = RetrofitTestApplication.class)
+@RunWith(SpringRunner.class)
+public class OutlierDetectionTest {
+
+    private static final String SERVICE_ID = "test";
+    private static final URI A = URI.create("http://localhost:8080");
+    private static final URI B = URI.create("http://localhost:8081");
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void testConsecutiveFailures() throws InterruptedException {
+        OutlierDetectionProperty property = new OutlierDetectionProperty();
+        property.setConsecutiveFailures(3);
+        property.setBaseEjectionTimeMs(200);
+        OutlierEjectionServiceInstanceChooser chooser = newChooser(property);
+        OutlierDetector outlierDetector = chooser.getOutlierDetector();
+
+        chooser.onRequestEnd(SERVICE_ID, B, 1000, true);
+        for (int i = 0; i < 2; i++) {
+            chooser.onRequestEnd(SERVICE_ID, A, 1000, false);
+        }
+        Assert.assertFalse(outlierDetector.isEjected(SERVICE_ID, A));
+        chooser.onRequestEnd(SERVICE_ID, A, 1000, false);
+        Assert.assertTrue(outlierDetector.isEjected(SERVICE_ID, A));
+        Assert.assertEquals(Collections.singletonList(A), outlierDetector.getEjectedInstances(SERVICE_ID));
+        Assert.assertEquals(Collections.singletonList("ejected " + A + " 200"), events);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(B, chooser.choose(SERVICE_ID));
+        }
+
+        // 最多摘除50%的实例
+        for (int i = 0; i < 5; i++) {
+            chooser.onRequestEnd(SERVICE_ID, B, 1000, false);
+        }
+        Assert.assertFalse(outlierDetector.isEjected(SERVICE_ID, B));
+
+        // 摘除时间结束后恢复，再次摘除时摘除时间翻倍
+        Thread.sleep(300);
+        Assert.assertFalse(outlierDetector.isEjected(SERVICE_ID, A));
+        Assert.assertEquals("recovered " + A, events.get(1));
+        Assert.assertEquals(0, outlierDetector.getEjectedCount(SERVICE_ID));
+        for (int i = 0; i < 3; i++) {
+            chooser.onRequestEnd(SERVICE_ID, A, 1000, false);
+        }
+        Assert.assertEquals("ejected " + A + " 400", events.get(2));
+    }
+
+    @Test
+    public void testFailureRate() {
+        OutlierDetectionProperty property = new OutlierDetectionProperty();
+        property.setConsecutiveFailures(0);
+        property.setMinimumNumberOfCalls(10);
+        property.setFailureRateThreshold(0.5);
+        OutlierEjectionServiceInstanceChooser chooser = newChooser(property);
+        OutlierDetector outlierDetector = chooser.getOutlierDetector();
+
+        chooser.onRequestEnd(SERVICE_ID, B, 1000, true);
+        for (int i = 0; i < 4; i++) {
+            chooser.onRequestEnd(SERVICE_ID, A, 1000, true);
+            chooser.onRequestEnd(SERVICE_ID, A, 1000, false);
+        }
+        Assert.assertFalse(outlierDetector.isEjected(SERVICE_ID, A));
+        chooser.onRequestEnd(SERVICE_ID, A, 1000, true);
+        chooser.onRequestEnd(SERVICE_ID, A, 1000, false);
+        Assert.assertTrue(outlierDetector.isEjected(SERVICE_ID, A));
+        Assert.assertEquals(B, chooser.choose(SERVICE_ID));
+    }
+
+    private OutlierEjectionServiceInstanceChooser newChooser(OutlierDetectionProperty property) {
+        List<ServiceInstance> instances = Arrays.asList(new ServiceInstance(A, 1), new ServiceInstance(B, 1));
+        LoadBalancedServiceInstanceChooser delegate =
+                new LoadBalancedServiceInstanceChooser(serviceId -> instances, new RoundRobinLoadBalancer());
+        OutlierEjectionListener listener = new OutlierEjectionListener() {
+            @Override
+            public void onEjected(String serviceId, URI instance, long ejectionTimeMs) {
+                events.add("ejected " + instance + " " + ejectionTimeMs);
+            }
+
+            @Override
+            public void onRecovered(String serviceId, URI instance) {
+                events.add("recovered " + instance);
+            }
+        };
+        return new OutlierEjectionServiceInstanceChooser(delegate,
+                new OutlierDetector(property, Collections.singletonList(listener)));
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.loadbalancer;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.ServiceInstance;
+import com.github.lianjiatech.retrofit.spring.boot.loadbalancer.ServiceInstanceCache;
+import com.github.lianjiatech.retrofit.spring.boot.test.RetrofitTestApplication;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = RetrofitTestApplication.class)
+@RunWith(SpringRunner.class)
+public class ServiceInstanceCacheTest {
+
+    private static final ServiceInstance A = new ServiceInstance(URI.create("http://localhost:8080"), 1);
+    private static final ServiceInstance B = new ServiceInstance(URI.create("http://localhost:8081"), 1);
+
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    private volatile List<ServiceInstance> registry = Collections.singletonList(A);
+
+    private volatile boolean registryAvailable = true;
+
+    @Test
+    public void testCache() {
+        ServiceInstanceCache cache = new ServiceInstanceCache(serviceId -> {
+            loadCount.incrementAndGet();
+            if (!registryAvailable) {
+                throw new IllegalStateException("registry unavailable");
+            }
+            return new ArrayList<>(registry);
+        }, 60000);
+        try {
+            List<ServiceInstance> snapshot = cache.getInstances("test");
+            Assert.assertEquals(Collections.singletonList(A), snapshot);
+            for (int i = 0; i < 10; i++) {
+                Assert.assertSame(snapshot, cache.getInstances("test"));
+            }
+            Assert.assertEquals(1, loadCount.get());
+
+            // 实例没有变化时保留原来的快照
+            cache.refresh("test");
+            Assert.assertSame(snapshot, cache.getInstances("test"));
+
+            // 注册中心不可用或者返回空列表时继续使用旧的快照
+            registryAvailable = false;
+            cache.refresh("test");
+            Assert.assertSame(snapshot, cache.getInstances("test"));
+            registryAvailable = true;
+            registry = Collections.emptyList();
+            cache.refresh("test");
+            Assert.assertSame(snapshot, cache.getInstances("test"));
+
+            registry = Arrays.asList(A, B);
+            cache.refresh("test");
+            Assert.assertEquals(registry, cache.getInstances("test"));
+        } finally {
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    public void testBackgroundRefresh() throws InterruptedException {
+        ServiceInstanceCache cache = new ServiceInstanceCache(serviceId -> registry, 100);
+        try {
+            Assert.assertEquals(Collections.singletonList(A), cache.getInstances("test"));
+            registry = Collections.singletonList(B);
+            Thread.sleep(400);
+            Assert.assertEquals(Collections.singletonList(B), cache.getInstances("test"));
+        } finally {
+            cache.shutdown();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.priority;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.lianjiatech.retrofit.spring.boot.bulkhead.SemaphoreBulkhead;
+import com.github.lianjiatech.retrofit.spring.boot.concurrency.VegasConcurrencyLimiter;
+import com.github.lianjiatech.retrofit.spring.boot.config.RetrofitConfigBean;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
+import com.github.lianjiatech.retrofit.spring.boot.priority.PriorityContext;
+import com.github.lianjiatech.retrofit.spring.boot.priority.PriorityLevel;
+import com.github.lianjiatech.retrofit.spring.boot.test.RetrofitTestApplication;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = RetrofitTestApplication.class)
+@RunWith(SpringRunner.class)
+public class PriorityTest {
+
+    @Autowired
+    private RetrofitConfigBean retrofitConfigBean;
+
+    @Autowired
+    private PriorityTestApi priorityTestApi;
+
+    private MockWebServer server;
+
+    private static final ObjectMapper objectMapper =
+            new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                    .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    @Before
+    public void before() throws IOException {
+        System.out.println("=========开启MockWebServer===========");
+        server = new MockWebServer();
+        server.start(8080);
+    }
+
+    @After
+    public void after() throws IOException {
+        System.out.println("=========关闭MockWebServer===========");
+        server.close();
+    }
+
+    @Test
+    public void testBulkheadPriority() throws Exception {
+        server.enqueue(successResponse().setHeadersDelay(1, TimeUnit.SECONDS));
+        server.enqueue(successResponse());
+        server.enqueue(successResponse());
+        SemaphoreBulkhead bulkhead = retrofitConfigBean.getMethodPolicyRegistry()
+                .get(PriorityTestApi.class.getMethod("getPerson", Long.class))
+                .getBulkhead();
+        CompletableFuture<Result<Person>> slowCall =
+                CompletableFuture.supplyAsync(() -> priorityTestApi.getPerson(1L));
+        for (int i = 0; i < 100 && bulkhead.getActiveCalls() < 1; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(1, bulkhead.getActiveCalls());
+
+        // 低优先级的调用只能使用一半的并发数
+        assertBlocked(() -> priorityTestApi.getPersonLow(2L));
+        assertBlocked(() -> PriorityContext.call(PriorityLevel.LOW, () -> priorityTestApi.getPerson(3L)));
+        // 剩余的并发数留给普通和高优先级的调用
+        Assert.assertEquals("test", PriorityContext.call(PriorityLevel.HIGH,
+                () -> priorityTestApi.getPersonLow(4L)).getData().getName());
+        Assert.assertNull(PriorityContext.current());
+
+        Assert.assertEquals("test", slowCall.get().getData().getName());
+        Assert.assertEquals("test", priorityTestApi.getPersonLow(5L).getData().getName());
+    }
+
+    @Test
+    public void testConcurrencyLimitPriority() {
+        VegasConcurrencyLimiter limiter = new VegasConcurrencyLimiter(4, 1, 4);
+        Assert.assertEquals(1, limiter.tryAcquire(0.5));
+        Assert.assertEquals(2, limiter.tryAcquire(0.5));
+        Assert.assertEquals(-1, limiter.tryAcquire(0.5));
+        Assert.assertEquals(3, limiter.tryAcquire(1));
+        Assert.assertEquals(4, limiter.tryAcquire(1));
+        Assert.assertEquals(-1, limiter.tryAcquire(1));
+    }
+
+    private static void assertBlocked(Runnable runnable) {
+        try {
+            runnable.run();
+            Assert.fail();
+        } catch (RetrofitBlockException e) {
+            Assert.assertTrue(e.getMessage().contains("Bulkhead is full"));
+        }
+    }
+
+    private MockResponse successResponse() throws JsonProcessingException {
+        Person mockPerson = new Person().setId(1L)
+                .setName("test")
+                .setAge(10);
+        Result<Person> mockResult = new Result<Person>()
+                .setCode(0)
+                .setMsg("ok")
+                .setData(mockPerson);
+        return new MockResponse()
+                .setResponseCode(200)
+                .addHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(objectMapper.writeValueAsString(mockResult));
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.priority;
+
+import com.github.lianjiatech.retrofit.spring.boot.bulkhead.Bulkhead;
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.priority.Priority;
+import com.github.lianjiatech.retrofit.spring.boot.priority.PriorityLevel;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(baseUrl = "${test.baseUrl}")
+@Bulkhead(maxConcurrent = 2)
+public interface PriorityTestApi {
+
+    @GET("person")
+    Result<Person> getPerson(@Query("id") Long id);
+
+    @GET("person")
+    @Priority(PriorityLevel.LOW)
+    Result<Person> getPersonLow(@Query("id") Long id);
+}
@@ -0,0 +1,163 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.ratelimit;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.lianjiatech.retrofit.spring.boot.config.RetrofitConfigBean;
+import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
+import com.github.lianjiatech.retrofit.spring.boot.ratelimit.TokenBucket;
+import com.github.lianjiatech.retrofit.spring.boot.test.RetrofitTestApplication;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = RetrofitTestApplication.class)
+@RunWith(SpringRunner.class)
+public class RateLimitTest {
+
+    @Autowired
+    private RetrofitConfigBean retrofitConfigBean;
+
+    @Autowired
+    private RateLimitTestApi rateLimitTestApi;
+
+    private MockWebServer server;
+
+    private static final ObjectMapper objectMapper =
+            new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                    .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    @Before
+    public void before() throws IOException {
+        System.out.println("=========开启MockWebServer===========");
+        server = new MockWebServer();
+        server.start(8080);
+    }
+
+    @After
+    public void after() throws IOException {
+        System.out.println("=========关闭MockWebServer===========");
+        server.close();
+    }
+
+    @Test
+    public void testFailFast() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(successResponse());
+        }
+        rateLimitTestApi.getPersonFailFast(1L);
+        rateLimitTestApi.getPersonFailFast(1L);
+        try {
+            rateLimitTestApi.getPersonFailFast(1L);
+            Assert.fail();
+        } catch (RetrofitBlockException e) {
+            Assert.assertTrue(e.getMessage().contains("Rate limit exceeded"));
+        }
+        Assert.assertEquals(2, server.getRequestCount());
+        TokenBucket rateLimiter = getRateLimiter("getPersonFailFast");
+        Assert.assertEquals(1, rateLimiter.getRejectedCalls());
+    }
+
+    @Test
+    public void testWait() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(successResponse());
+        }
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals("test", rateLimitTestApi.getPersonWait(1L).getData().getName());
+        }
+        // 接口共享令牌桶，每秒10个令牌，第二、三次请求需要等待
+        Assert.assertTrue(System.currentTimeMillis() - start >= 150);
+        Assert.assertTrue(getRateLimiter("getPersonWait").getDelayedTimeMs() > 0);
+    }
+
+    @Test
+    public void testMono() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(successResponse());
+        }
+        long start = System.currentTimeMillis();
+        List<Result<Person>> results = Flux.merge(IntStream.range(0, 3)
+                .mapToObj(i -> rateLimitTestApi.getPersonMono(1L))
+                .collect(Collectors.<Mono<Result<Person>>>toList()))
+                .collectList()
+                .block();
+        Assert.assertNotNull(results);
+        Assert.assertEquals(3, results.size());
+        Assert.assertTrue(System.currentTimeMillis() - start >= 150);
+        Assert.assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void testIsolatedBetweenApplicationContexts() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(successResponse());
+        }
+        try (ConfigurableApplicationContext context1 = runApplicationContext();
+                ConfigurableApplicationContext context2 = runApplicationContext()) {
+            // 每个ApplicationContext有独立的令牌桶，各自可以突发2个请求
+            for (ConfigurableApplicationContext context : Arrays.asList(context1, context2)) {
+                RateLimitTestApi api = context.getBean(RateLimitTestApi.class);
+                Assert.assertEquals("test", api.getPersonFailFast(1L).getData().getName());
+                Assert.assertEquals("test", api.getPersonFailFast(1L).getData().getName());
+            }
+            Method method = RateLimitTestApi.class.getMethod("getPersonFailFast", Long.class);
+            Assert.assertNotSame(
+                    context1.getBean(RetrofitConfigBean.class).getMethodPolicyRegistry().get(method).getRateLimiter(),
+                    context2.getBean(RetrofitConfigBean.class).getMethodPolicyRegistry().get(method).getRateLimiter());
+        }
+        Assert.assertEquals(4, server.getRequestCount());
+    }
+
+    private static ConfigurableApplicationContext runApplicationContext() {
+        return new SpringApplicationBuilder(RetrofitTestApplication.class).web(WebApplicationType.NONE).run();
+    }
+
+    private TokenBucket getRateLimiter(String methodName) throws NoSuchMethodException {
+        return retrofitConfigBean.getMethodPolicyRegistry()
+                .get(RateLimitTestApi.class.getMethod(methodName, Long.class))
+                .getRateLimiter();
+    }
+
+    private MockResponse successResponse() throws JsonProcessingException {
+        Person mockPerson = new Person().setId(1L)
+                .setName("test")
+                .setAge(10);
+        Result<Person> mockResult = new Result<Person>()
+                .setCode(0)
+                .setMsg("ok")
+                .setData(mockPerson);
+        return new MockResponse()
+                .setResponseCode(200)
+                .addHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(objectMapper.writeValueAsString(mockResult));
+    }
+}
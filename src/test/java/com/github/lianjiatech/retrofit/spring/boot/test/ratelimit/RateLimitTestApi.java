@@ -0,0 +1,28 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.ratelimit;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.ratelimit.RateLimit;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import reactor.core.publisher.Mono;
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(baseUrl = "${test.baseUrl}")
+@RateLimit(permitsPerSecond = 10, timeoutMs = 1000)
+public interface RateLimitTestApi {
+
+    @GET("person")
+    @RateLimit(permitsPerSecond = 1, burst = 2)
+    Result<Person> getPersonFailFast(@Query("id") Long id);
+
+    @GET("person")
+    Result<Person> getPersonWait(@Query("id") Long id);
+
+    @GET("person")
+    Mono<Result<Person>> getPersonMono(@Query("id") Long id);
+}
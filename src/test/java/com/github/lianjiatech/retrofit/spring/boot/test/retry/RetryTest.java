@@ -0,0 +1,244 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.retry;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.lianjiatech.retrofit.spring.boot.exception.RetrofitException;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryBudget;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.test.RetrofitTestApplication;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = RetrofitTestApplication.class)
+@RunWith(SpringRunner.class)
+public class RetryTest {
+
+    @Autowired
+    private RetryTestApi retryTestApi;
+
+    @Autowired
+    private RetryInterceptor retryInterceptor;
+
+    private MockWebServer server;
+
+    private static final ObjectMapper objectMapper =
+            new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                    .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    @Before
+    public void before() throws IOException {
+        System.out.println("=========开启MockWebServer===========");
+        server = new MockWebServer();
+        server.start(8080);
+
+    }
+
+    @After
+    public void after() throws IOException {
+        System.out.println("=========关闭MockWebServer===========");
+        server.close();
+    }
+
+    @Test
+    public void testExponentialBackoff() throws JsonProcessingException {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+        }
+        server.enqueue(successResponse());
+
+        long start = System.currentTimeMillis();
+        Result<Person> person = retryTestApi.getPersonExponential(1L);
+        long cost = System.currentTimeMillis() - start;
+        Assert.assertEquals("test", person.getData().getName());
+        Assert.assertEquals(4, server.getRequestCount());
+        // 50 + 100 + 200
+        Assert.assertTrue(cost >= 350);
+    }
+
+    @Test
+    public void testRetryAfter() throws JsonProcessingException {
+        server.enqueue(new MockResponse().setResponseCode(503).addHeader("Retry-After", "1"));
+        server.enqueue(successResponse());
+
+        long start = System.currentTimeMillis();
+        Result<Person> person = retryTestApi.getPersonRetryAfter(1L);
+        long cost = System.currentTimeMillis() - start;
+        Assert.assertEquals("test", person.getData().getName());
+        Assert.assertEquals(2, server.getRequestCount());
+        Assert.assertTrue(cost >= 1000);
+    }
+
+    @Test
+    public void testRetryAfterExceedMaxInterval() throws JsonProcessingException {
+        server.enqueue(new MockResponse().setResponseCode(429).addHeader("Retry-After", "60"));
+        server.enqueue(successResponse());
+
+        try {
+            retryTestApi.getPersonRetryAfter(1L);
+            Assert.fail();
+        } catch (RetrofitException e) {
+            Assert.assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void testRetryAfterOverflow() throws JsonProcessingException {
+        server.enqueue(new MockResponse().setResponseCode(429).addHeader("Retry-After", "9223372036854776"));
+        server.enqueue(successResponse());
+
+        try {
+            retryTestApi.getPersonRetryAfter(1L);
+            Assert.fail();
+        } catch (RetrofitException e) {
+            // 乘以1000会溢出为负数，不能当作立即重试
+            Assert.assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void testNegativeRetryAfter() throws JsonProcessingException {
+        server.enqueue(new MockResponse().setResponseCode(503).addHeader("Retry-After", "-5"));
+        server.enqueue(successResponse());
+
+        // 无效的Retry-After使用退避策略
+        Assert.assertEquals("test", retryTestApi.getPersonRetryAfter(1L).getData().getName());
+        Assert.assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void testMonoAsyncRetry() throws JsonProcessingException {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+        }
+        server.enqueue(successResponse());
+
+        long start = System.currentTimeMillis();
+        Result<Person> person = retryTestApi.getPersonMono(1L).block();
+        long cost = System.currentTimeMillis() - start;
+        Assert.assertNotNull(person);
+        Assert.assertEquals("test", person.getData().getName());
+        Assert.assertEquals(4, server.getRequestCount());
+        // 50 + 100 + 200
+        Assert.assertTrue(cost >= 350);
+    }
+
+    @Test
+    public void testFutureAsyncRetry() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(successResponse());
+
+        Result<Person> person = retryTestApi.getPersonFuture(1L).get(5, TimeUnit.SECONDS);
+        Assert.assertEquals("test", person.getData().getName());
+        Assert.assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void testFutureAsyncRetryExhausted() throws InterruptedException, TimeoutException {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+        }
+
+        try {
+            retryTestApi.getPersonFuture(1L).get(5, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertEquals(3, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void testFutureCancelStopsRetry() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(successResponse());
+
+        CompletableFuture<Result<Person>> future = retryTestApi.getPersonFutureSlowRetry(1L);
+        server.takeRequest(5, TimeUnit.SECONDS);
+        // 等待第一次响应处理完成，此时重试已经在定时器中等待
+        Thread.sleep(200);
+        future.cancel(true);
+        // 远超重试间隔(500ms)之后，取消后不应该再发出任何请求
+        Thread.sleep(1000);
+        Assert.assertTrue(future.isCancelled());
+        Assert.assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testRetryBudget() throws NoSuchMethodException {
+        for (int i = 0; i < 5; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+        }
+
+        // 第一次请求只存入0.5个令牌，不允许重试
+        try {
+            retryTestApi.getPersonWithBudget(1L);
+            Assert.fail();
+        } catch (RetrofitException e) {
+            Assert.assertEquals(1, server.getRequestCount());
+        }
+        // 第二次请求累计1个令牌，只允许重试一次
+        try {
+            retryTestApi.getPersonWithBudget(1L);
+            Assert.fail();
+        } catch (RetrofitException e) {
+            Assert.assertEquals(3, server.getRequestCount());
+        }
+        RetryBudget retryBudget = retryInterceptor.getRetryBudgets()
+                .get(RetryTestApi.class.getMethod("getPersonWithBudget", Long.class));
+        Assert.assertEquals(2, retryBudget.getExhaustedCount());
+    }
+
+    @Test
+    public void testAbandonedRetryKeepsBudget() throws NoSuchMethodException {
+        server.enqueue(new MockResponse().setResponseCode(429).addHeader("Retry-After", "60"));
+
+        try {
+            retryTestApi.getPersonRetryAfterWithBudget(1L);
+            Assert.fail();
+        } catch (RetrofitException e) {
+            Assert.assertEquals(1, server.getRequestCount());
+        }
+        // Retry-After超过了最大重试间隔，放弃的重试不消耗预算
+        RetryBudget retryBudget = retryInterceptor.getRetryBudgets()
+                .get(RetryTestApi.class.getMethod("getPersonRetryAfterWithBudget", Long.class));
+        Assert.assertEquals(1, retryBudget.getBalance());
+        Assert.assertEquals(0, retryBudget.getExhaustedCount());
+    }
+
+    private MockResponse successResponse() throws JsonProcessingException {
+        Person mockPerson = new Person().setId(1L)
+                .setName("test")
+                .setAge(10);
+        Result<Person> mockResult = new Result<Person>()
+                .setCode(0)
+                .setMsg("ok")
+                .setData(mockPerson);
+        return new MockResponse()
+                .setResponseCode(200)
+                .addHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(objectMapper.writeValueAsString(mockResult));
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.retry;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.retry.BackoffStrategy;
+import com.github.lianjiatech.retrofit.spring.boot.retry.Retry;
+import com.github.lianjiatech.retrofit.spring.boot.retry.RetryRule;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+
+import reactor.core.publisher.Mono;
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(baseUrl = "${test.baseUrl}")
+public interface RetryTestApi {
+
+    @GET("person")
+    @Retry(maxRetries = 3, intervalMs = 50, backoffStrategy = BackoffStrategy.EXPONENTIAL,
+            retryRules = RetryRule.RESPONSE_STATUS_NOT_2XX)
+    Result<Person> getPersonExponential(@Query("id") Long id);
+
+    @GET("person")
+    @Retry(maxRetries = 2, intervalMs = 10, maxIntervalMs = 3000, retryRules = RetryRule.RESPONSE_STATUS_NOT_2XX)
+    Result<Person> getPersonRetryAfter(@Query("id") Long id);
+
+    @GET("person")
+    @Retry(maxRetries = 3, intervalMs = 50, backoffStrategy = BackoffStrategy.EXPONENTIAL,
+            retryRules = RetryRule.RESPONSE_STATUS_NOT_2XX)
+    Mono<Result<Person>> getPersonMono(@Query("id") Long id);
+
+    @GET("person")
+    @Retry(maxRetries = 2, intervalMs = 50, retryRules = RetryRule.RESPONSE_STATUS_NOT_2XX)
+    CompletableFuture<Result<Person>> getPersonFuture(@Query("id") Long id);
+
+    @GET("person")
+    @Retry(maxRetries = 2, intervalMs = 500, retryRules = RetryRule.RESPONSE_STATUS_NOT_2XX)
+    CompletableFuture<Result<Person>> getPersonFutureSlowRetry(@Query("id") Long id);
+
+    @GET("person")
+    @Retry(maxRetries = 3, intervalMs = 1, budgetRetryRatio = 0.5, budgetMinRetriesPerSecond = 0,
+            retryRules = RetryRule.RESPONSE_STATUS_NOT_2XX)
+    Result<Person> getPersonWithBudget(@Query("id") Long id);
+
+    @GET("person")
+    @Retry(maxRetries = 1, intervalMs = 10, maxIntervalMs = 1000, budgetRetryRatio = 1,
+            budgetMinRetriesPerSecond = 0, retryRules = RetryRule.RESPONSE_STATUS_NOT_2XX)
+    Result<Person> getPersonRetryAfterWithBudget(@Query("id") Long id);
+}
@@ -0,0 +1,115 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.throttle;
+
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.lianjiatech.retrofit.spring.boot.degrade.RetrofitBlockException;
+import com.github.lianjiatech.retrofit.spring.boot.exception.RetrofitException;
+import com.github.lianjiatech.retrofit.spring.boot.test.RetrofitTestApplication;
+import com.github.lianjiatech.retrofit.spring.boot.throttle.AdaptiveThrottleInterceptor;
+import com.github.lianjiatech.retrofit.spring.boot.throttle.AdaptiveThrottler;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * @author 陈添明
+ */
+@SpringBootTest(classes = RetrofitTestApplication.class)
+@RunWith(SpringRunner.class)
+public class AdaptiveThrottleTest {
+
+    @Autowired
+    private AdaptiveThrottleTestApi adaptiveThrottleTestApi;
+
+    @Autowired
+    private AdaptiveThrottleInterceptor adaptiveThrottleInterceptor;
+
+    private MockWebServer server;
+
+    @Before
+    public void before() throws IOException {
+        System.out.println("=========开启MockWebServer===========");
+        server = new MockWebServer();
+        server.start(8080);
+    }
+
+    @After
+    public void after() throws IOException {
+        System.out.println("=========关闭MockWebServer===========");
+        server.close();
+    }
+
+    @Test
+    public void testRejectProbability() {
+        AdaptiveThrottler throttler = new AdaptiveThrottler(2.0, 60_000, 10);
+        // 请求数不足minRequests时不节流
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(throttler.tryAcquire());
+        }
+        Assert.assertEquals(10.0 / 11, throttler.getRejectProbability(), 1e-9);
+        int throttled = 0;
+        for (int i = 0; i < 100; i++) {
+            if (!throttler.tryAcquire()) {
+                throttled++;
+            }
+        }
+        Assert.assertTrue(throttled > 50);
+        Assert.assertEquals(throttled, throttler.getThrottledCalls());
+        // 接受数达到请求数的1/k后不再节流
+        for (int i = 0; i < 55; i++) {
+            throttler.onAccepted();
+        }
+        Assert.assertEquals(0, throttler.getRejectProbability(), 1e-9);
+        Assert.assertTrue(throttler.tryAcquire());
+    }
+
+    @Test
+    public void testThrottle() throws NoSuchMethodException {
+        for (int i = 0; i < 100; i++) {
+            server.enqueue(new MockResponse().setResponseCode(503));
+        }
+        int throttled = 0;
+        for (int i = 0; i < 30; i++) {
+            try {
+                adaptiveThrottleTestApi.getPerson(1L);
+                Assert.fail();
+            } catch (RetrofitBlockException e) {
+                Assert.assertTrue(e.getMessage().contains("Adaptive throttled"));
+                throttled++;
+            } catch (RetrofitException e) {
+                Assert.assertTrue(e.getMessage().contains("code=503"));
+            }
+        }
+        // 前5次调用不节流，之后拒绝概率超过80%
+        Assert.assertTrue(throttled > 10);
+        Assert.assertTrue(server.getRequestCount() < 40);
+        AdaptiveThrottler throttler = adaptiveThrottleInterceptor.getThrottlers()
+                .get(AdaptiveThrottleTestApi.class.getMethod("getPerson", Long.class));
+        Assert.assertEquals(throttled, throttler.getThrottledCalls());
+    }
+
+    @Test
+    public void testAsyncRetryCountedOnce() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setResponseCode(503));
+            server.enqueue(new MockResponse().setResponseCode(200)
+                    .addHeader("Content-Type", "application/json; charset=utf-8")
+                    .setBody("{\"code\":0,\"msg\":\"ok\",\"data\":{\"id\":1,\"name\":\"test\"}}"));
+            Assert.assertEquals("test", adaptiveThrottleTestApi.getPersonFuture(1L).get().getData().getName());
+        }
+        Assert.assertEquals(6, server.getRequestCount());
+        // 异步重试不重复计数：3次调用、3次接受，不节流
+        AdaptiveThrottler throttler = adaptiveThrottleInterceptor.getThrottlers()
+                .get(AdaptiveThrottleTestApi.class.getMethod("getPersonFuture", Long.class));
+        Assert.assertEquals(0, throttler.getRejectProbability(), 1e-9);
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.lianjiatech.retrofit.spring.boot.test.throttle;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.github.lianjiatech.retrofit.spring.boot.core.RetrofitClient;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Person;
+import com.github.lianjiatech.retrofit.spring.boot.test.entity.Result;
+import com.github.lianjiatech.retrofit.spring.boot.throttle.AdaptiveThrottle;
+
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+/**
+ * @author 陈添明
+ */
+@RetrofitClient(baseUrl = "${test.baseUrl}")
+@AdaptiveThrottle(k = 1.0, minRequests = 5)
+public interface AdaptiveThrottleTestApi {
+
+    @GET("person")
+    Result<Person> getPerson(@Query("id") Long id);
+
+    @GET("person")
+    @AdaptiveThrottle(k = 1.0, minRequests = 0)
+    CompletableFuture<Result<Person>> getPersonFuture(@Query("id") Long id);
+}